@@ -0,0 +1,91 @@
+package com.nure.apz.fatianov.daniil.orderservice.config;
+
+import com.nure.apz.fatianov.daniil.orderservice.request.AuthenticationRequestEntity;
+import com.nure.apz.fatianov.daniil.orderservice.response.AuthenticationResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Provides the bearer token of the order service's own admin account for work that runs outside of a request,
+ * such as delivering vehicle commands. Tokens of the users who made a request are never stored for later use,
+ * because they can expire before the work is done. The token is requested with a blocking {@link WebClient} call,
+ * because the callers run on scheduler threads in both the servlet and the reactive profile.
+ *
+ * <p>The account is set with {@code order-service.service-account.email} and {@code order-service.service-account.password}
+ * and must have the admin role, because the vehicle-station endpoints it calls check it. The service does not start
+ * when the account is not configured, so vehicle commands are never left undelivered for lack of a token.</p>
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Authenticating the service account against the user service when no token is cached
+ *     or the cached token is older than the configured time to live.</li>
+ *     <li>Dropping the cached token when a downstream service rejects it, so the next call authenticates again.</li>
+ * </ul>
+ * </p>
+ */
+@Component
+public class ServiceTokenProvider {
+
+    private static final String userServiceUrl = "http://localhost:8082/user-service";
+
+    private final WebClient.Builder webClientBuilder;
+    private final String email;
+    private final String password;
+    private final long tokenTtl;
+
+    private String token;
+    private long issuedAt;
+
+    public ServiceTokenProvider(WebClient.Builder webClientBuilder,
+                                @Value("${order-service.service-account.email:}") String email,
+                                @Value("${order-service.service-account.password:}") String password,
+                                @Value("${order-service.service-account.token-ttl:43200000}") long tokenTtl) {
+        if (email.isBlank() || password.isBlank()) {
+            throw new IllegalStateException("Service account of the order service is not configured: "
+                    + "set order-service.service-account.email and order-service.service-account.password "
+                    + "to the credentials of an admin user");
+        }
+        this.webClientBuilder = webClientBuilder;
+        this.email = email;
+        this.password = password;
+        this.tokenTtl = tokenTtl;
+    }
+
+    /**
+     * Returns the authorization header of the service account, authenticating it first if needed.
+     *
+     * @return The authorization header in the form {@code Bearer <token>}.
+     * @throws IllegalStateException If the user service rejects the service account.
+     */
+    public synchronized String authHeader() {
+        long now = System.currentTimeMillis();
+        if (token == null || now - issuedAt > tokenTtl) {
+            token = authenticate();
+            issuedAt = now;
+        }
+        return "Bearer " + token;
+    }
+
+    /**
+     * Drops the cached token, for example after a downstream service answered that it is not valid.
+     */
+    public synchronized void invalidate() {
+        token = null;
+    }
+
+    private String authenticate() {
+        AuthenticationResponseEntity body = webClientBuilder.build()
+                .post()
+                .uri(userServiceUrl.concat("/auth/authenticate"))
+                .bodyValue(new AuthenticationRequestEntity(email, password))
+                .retrieve()
+                .bodyToMono(AuthenticationResponseEntity.class)
+                .block();
+
+        if (body == null || body.getToken() == null) {
+            throw new IllegalStateException("Cannot authenticate the service account of the order service");
+        }
+        return body.getToken();
+    }
+}
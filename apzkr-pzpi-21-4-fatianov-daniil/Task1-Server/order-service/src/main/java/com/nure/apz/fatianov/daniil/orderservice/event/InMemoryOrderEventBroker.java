@@ -0,0 +1,154 @@
+package com.nure.apz.fatianov.daniil.orderservice.event;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Broker adapter for local use. It keeps the latest events in a ring buffer, so clients can catch up
+ * from the last sequence number they have seen, and pushes new events to Server-Sent Events subscribers.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Assigning a monotonically increasing sequence number to each published event.</li>
+ *     <li>Dropping duplicates of recently published messages, since the relay delivers at least once.</li>
+ *     <li>Replaying buffered events after a given sequence number to new subscribers.</li>
+ *     <li>Filtering events per subscriber, so users only receive events of their own orders.</li>
+ *     <li>Sending to subscribers outside the broker lock, so a slow client does not hold up publishing,
+ *     catching up or subscribing; each subscriber still receives its events in sequence order.</li>
+ * </ul>
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "order-service.events.broker", havingValue = "in-memory", matchIfMissing = true)
+public class InMemoryOrderEventBroker implements OrderEventBroker {
+
+    private static final int CAPACITY = 1024;
+    private static final long EMITTER_TIMEOUT = 1800000L;// як spring.mvc.async.request-timeout
+
+    private final OrderEvent[] buffer = new OrderEvent[CAPACITY];
+    private final Set<String> recentMessageIds = new HashSet<>();
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private long lastSequence = 0;
+
+    private record Subscription(SseEmitter emitter, Integer userId, ReentrantLock sendLock) {
+        boolean accepts(OrderEvent event) {
+            return userId == null || userId.equals(event.getUserId());
+        }
+    }
+
+    @Override
+    public void publish(OrderEvent event) {
+        List<Subscription> receivers = new ArrayList<>();
+        synchronized (this) {
+            if (!recentMessageIds.add(event.getMessageId())) {
+                return;
+            }
+
+            event.setSequence(++lastSequence);
+            int slot = (int) (lastSequence % CAPACITY);
+            OrderEvent evicted = buffer[slot];
+            if (evicted != null) {
+                recentMessageIds.remove(evicted.getMessageId());
+            }
+            buffer[slot] = event;
+
+            for (Subscription subscription : subscriptions) {
+                if (subscription.accepts(event)) {
+                    receivers.add(subscription);
+                }
+            }
+        }
+
+        // Відправка йде поза блокуванням брокера; події публікує лише релей, тому порядок для підписника зберігається
+        for (Subscription subscription : receivers) {
+            subscription.sendLock().lock();
+            try {
+                if (!send(subscription.emitter(), event)) {
+                    unsubscribe(subscription);
+                }
+            } finally {
+                subscription.sendLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the buffered events with a sequence number greater than {@code after}.
+     * If the client fell behind by more than the buffer capacity, the oldest missed events are lost
+     * and the client has to reload its state with the regular endpoints.
+     *
+     * @param after The last sequence number the client has seen.
+     * @param userId The user whose events should be returned, or {@code null} for all events.
+     * @return The matching events in sequence order.
+     */
+    public synchronized List<OrderEvent> eventsAfter(long after, Integer userId) {
+        List<OrderEvent> events = new ArrayList<>();
+        long from = Math.max(after + 1, lastSequence - CAPACITY + 1);
+        for (long sequence = Math.max(from, 1); sequence <= lastSequence; sequence++) {
+            OrderEvent event = buffer[(int) (sequence % CAPACITY)];
+            if (userId == null || userId.equals(event.getUserId())) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Opens a Server-Sent Events stream. Buffered events after {@code after} are replayed first.
+     * The replayed events are taken and the subscription is registered under the broker lock, so no event
+     * is missed or sent twice in between; the replay itself is sent outside of it, and new events wait
+     * for the replay to finish.
+     *
+     * @param after The last sequence number the client has seen, or {@code null} to receive only new events.
+     * @param userId The user whose events should be streamed, or {@code null} for all events.
+     * @return The emitter bound to the HTTP response.
+     */
+    public SseEmitter subscribe(Long after, Integer userId) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT);
+        Subscription subscription = new Subscription(emitter, userId, new ReentrantLock());
+        emitter.onCompletion(() -> unsubscribe(subscription));
+        emitter.onTimeout(() -> unsubscribe(subscription));
+        emitter.onError(e -> unsubscribe(subscription));
+
+        List<OrderEvent> replay;
+        subscription.sendLock().lock();
+        try {
+            synchronized (this) {
+                replay = after != null ? eventsAfter(after, userId) : List.of();
+                subscriptions.add(subscription);
+            }
+
+            for (OrderEvent event : replay) {
+                if (!send(emitter, event)) {
+                    unsubscribe(subscription);
+                    break;
+                }
+            }
+        } finally {
+            subscription.sendLock().unlock();
+        }
+        return emitter;
+    }
+
+    private synchronized void unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    private boolean send(SseEmitter emitter, OrderEvent event) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.getSequence()))
+                    .name(event.getType().name())
+                    .data(event));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.nure.apz.fatianov.daniil.orderservice.event;
+
+import com.nure.apz.fatianov.daniil.orderservice.order.Order;
+import com.nure.apz.fatianov.daniil.orderservice.order.Status;
+import lombok.*;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Data
+public class OrderEvent {
+    private long sequence;
+    private String messageId;
+    private OrderEventType type;
+    private String orderId;
+    private String orderNumber;
+    private Integer userId;
+    private Integer vehicleId;
+    private Integer departureStationId;
+    private Integer arrivalStationId;
+    private Status status;
+    private Instant occurredAt;
+
+    /**
+     * Builds the event for an outbox message from the payload written with the message.
+     * The sequence number is assigned later by the broker.
+     *
+     * @param order The order the message belongs to.
+     * @param message The outbox message.
+     * @return The event to deliver.
+     */
+    public static OrderEvent of(Order order, OutboxMessage message) {
+        OrderEvent event = new OrderEvent();
+        event.setMessageId(message.getMessageId());
+        event.setType(message.getType());
+        event.setOrderId(order.getId());
+        event.setOrderNumber(message.getOrderNumber());
+        event.setUserId(message.getUserId());
+        event.setVehicleId(message.getVehicleId());
+        event.setDepartureStationId(message.getDepartureStationId());
+        event.setArrivalStationId(message.getArrivalStationId());
+        event.setStatus(message.getStatus());
+        event.setOccurredAt(message.getCreatedAt());
+        return event;
+    }
+}
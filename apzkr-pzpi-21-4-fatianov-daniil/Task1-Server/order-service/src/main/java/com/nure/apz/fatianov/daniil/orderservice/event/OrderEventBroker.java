@@ -0,0 +1,16 @@
+package com.nure.apz.fatianov.daniil.orderservice.event;
+
+/**
+ * Adapter to the system that distributes order events outside of this service.
+ * The relay delivers every outbox message to the active broker at least once.
+ */
+public interface OrderEventBroker {
+
+    /**
+     * Publishes an event. Implementations must throw if the event could not be accepted,
+     * so that the message stays in the outbox and is retried.
+     *
+     * @param event The event to publish.
+     */
+    void publish(OrderEvent event);
+}
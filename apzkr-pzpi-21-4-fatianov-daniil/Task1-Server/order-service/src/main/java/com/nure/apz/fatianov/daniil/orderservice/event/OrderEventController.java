@@ -0,0 +1,71 @@
+package com.nure.apz.fatianov.daniil.orderservice.event;
+
+import com.nure.apz.fatianov.daniil.orderservice.order.OrderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/order-service/events")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "order-service.events.broker", havingValue = "in-memory", matchIfMissing = true)
+@Profile("!reactive")
+public class OrderEventController {
+
+    private final OrderService orderService;
+    private final InMemoryOrderEventBroker orderEventBroker;
+
+    @Operation(summary = "Get order events",
+            description = "Returns the buffered order lifecycle events after the given sequence number. Admins receive all events, users only the events of their own orders. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Order events retrieved successfully"),
+                    @ApiResponse(responseCode = "500", description = "Failed to retrieve order events due to internal server error")
+            })
+    @GetMapping
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<List<OrderEvent>> getEvents(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            Integer userId = orderService.resolveEventSubscriber(authHeader);
+            return ResponseEntity.ok(orderEventBroker.eventsAfter(after, userId));
+        } catch (Exception e) {
+            return new ResponseEntity<>(new ArrayList<>(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Operation(summary = "Stream order events",
+            description = "Opens a Server-Sent Events stream of order lifecycle events. Buffered events after the given sequence number are replayed first. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Order events are being streamed"),
+                    @ApiResponse(responseCode = "500", description = "Failed to open the stream due to internal server error")
+            })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<SseEmitter> streamEvents(
+            @RequestParam(required = false) Long after,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            Integer userId = orderService.resolveEventSubscriber(authHeader);
+            return ResponseEntity.ok(orderEventBroker.subscribe(after, userId));
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
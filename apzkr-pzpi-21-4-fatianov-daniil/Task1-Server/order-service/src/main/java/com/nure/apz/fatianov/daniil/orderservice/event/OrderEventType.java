@@ -0,0 +1,22 @@
+package com.nure.apz.fatianov.daniil.orderservice.event;
+
+import com.nure.apz.fatianov.daniil.orderservice.order.Status;
+
+public enum OrderEventType {
+    CREATED,
+    PROCESSED,
+    SENT,
+    DELIVERED,
+    RECEIVED,
+    DENIED;
+
+    /**
+     * Returns the lifecycle event that is published when an order enters the given status.
+     *
+     * @param status The new status of the order.
+     * @return The matching event type.
+     */
+    public static OrderEventType forStatus(Status status) {
+        return OrderEventType.valueOf(status.name());
+    }
+}
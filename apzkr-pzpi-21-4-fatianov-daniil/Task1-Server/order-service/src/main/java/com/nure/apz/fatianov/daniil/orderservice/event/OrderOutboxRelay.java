@@ -0,0 +1,100 @@
+package com.nure.apz.fatianov.daniil.orderservice.event;
+
+import com.nure.apz.fatianov.daniil.orderservice.order.Order;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Delivers the lifecycle events stored in the outbox of each order.
+ * Every message is published to in-process listeners through {@link ApplicationEventPublisher}
+ * and to the active {@link OrderEventBroker}, and is removed from the outbox only afterwards,
+ * so delivery is at least once.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Reading a batch of orders whose outbox is not empty through a partial index.</li>
+ *     <li>Publishing the messages of each order in the order they were written.</li>
+ *     <li>Pulling the delivered messages from the outbox, leaving any message written meanwhile.</li>
+ * </ul>
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderOutboxRelay {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final OrderEventBroker orderEventBroker;
+
+    private volatile boolean indexEnsured = false;
+
+    @Scheduled(initialDelayString = "${order-service.events.relay-initial-delay:10000}",
+            fixedDelayString = "${order-service.events.relay-delay:1000}")
+    public void relay() {
+        List<Order> orders;
+        try {
+            ensureIndex();
+            Query query = new Query(Criteria.where("outbox.createdAt").exists(true))
+                    .with(Sort.by(Sort.Direction.ASC, "creationDate"))
+                    .limit(BATCH_SIZE);
+            query.fields().include("outbox");
+            orders = mongoTemplate.find(query, Order.class);
+        } catch (Exception e) {
+            System.out.println("Cannot read order outbox: " + e.getMessage());
+            return;
+        }
+
+        for (Order order : orders) {
+            List<String> delivered = new ArrayList<>();
+            try {
+                for (OutboxMessage message : order.getOutbox()) {
+                    OrderEvent event = OrderEvent.of(order, message);
+                    applicationEventPublisher.publishEvent(event);
+                    orderEventBroker.publish(event);
+                    delivered.add(message.getMessageId());
+                }
+            } catch (Exception e) {
+                System.out.println("Cannot deliver events of order " + order.getId() + ": " + e.getMessage());
+            }
+
+            if (!delivered.isEmpty()) {
+                mongoTemplate.updateFirst(
+                        new Query(Criteria.where("_id").is(order.getId())),
+                        new Update().pull("outbox", new Document("messageId", new Document("$in", delivered))),
+                        Order.class);
+            }
+        }
+    }
+
+    /**
+     * Creates the partial index the relay reads with, the first time it runs.
+     * Only orders with undelivered messages are indexed, so polling every second stays cheap
+     * however many delivered orders the collection holds.
+     */
+    private void ensureIndex() {
+        if (indexEnsured) {
+            return;
+        }
+
+        mongoTemplate.indexOps(Order.class).ensureIndex(new Index()
+                .on("creationDate", Sort.Direction.ASC)
+                .named("outbox_pending")
+                .partial(PartialIndexFilter.of(Criteria.where("outbox.createdAt").exists(true))));
+        indexEnsured = true;
+    }
+}
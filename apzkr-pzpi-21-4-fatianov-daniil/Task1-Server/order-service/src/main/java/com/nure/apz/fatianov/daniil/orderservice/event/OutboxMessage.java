@@ -0,0 +1,48 @@
+package com.nure.apz.fatianov.daniil.orderservice.event;
+
+import com.nure.apz.fatianov.daniil.orderservice.order.Order;
+import com.nure.apz.fatianov.daniil.orderservice.order.Status;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A lifecycle event waiting for delivery. Messages are embedded in the order document itself,
+ * so they are written by the same atomic operation that changes the order. Each message carries the state of
+ * the order right after its change, so later changes of the order do not leak into events delivered late.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Data
+public class OutboxMessage {
+    private String messageId;
+    private OrderEventType type;
+    private Instant createdAt;
+    private String orderNumber;
+    private Integer userId;
+    private Integer vehicleId;
+    private Integer departureStationId;
+    private Integer arrivalStationId;
+    private Status status;
+
+    /**
+     * Creates a message with the payload of its event.
+     *
+     * @param type The type of the event.
+     * @param order The order as it is after the change the event reports.
+     * @return The message, ready to be written with the change.
+     */
+    public static OutboxMessage of(OrderEventType type, Order order) {
+        return new OutboxMessage(UUID.randomUUID().toString(), type, Instant.now(),
+                order.getNumber(),
+                order.getUserId(),
+                order.getVehicleId(),
+                order.getDepartureStationId(),
+                order.getArrivalStationId(),
+                order.getStatus());
+    }
+}
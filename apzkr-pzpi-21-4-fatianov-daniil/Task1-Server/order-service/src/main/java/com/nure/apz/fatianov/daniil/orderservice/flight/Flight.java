@@ -0,0 +1,34 @@
+package com.nure.apz.fatianov.daniil.orderservice.flight;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A group of processed orders with the same departure and arrival stations that are carried by one vehicle
+ * in a single flight. Every order of the flight references it through {@code Order.flightId}.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Data
+@Document
+public class Flight {
+    @Id
+    private String id;
+    @Indexed
+    private Integer vehicleId;
+    private String vehicleNumber;
+    private Integer departureStationId;
+    private Integer arrivalStationId;
+    private List<String> orderIds;
+    private Double totalWeight;// in kilograms
+    private Double liftingCapacity;// in kilograms
+    private Instant creationDate;
+}
@@ -0,0 +1,61 @@
+package com.nure.apz.fatianov.daniil.orderservice.flight;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/order-service/flights")
+@RequiredArgsConstructor
+@Profile("!reactive")
+public class FlightController {
+
+    private final FlightService flightService;
+
+    @Operation(summary = "Consolidate processed orders into flights",
+            description = "Packs processed orders with the same departure and arrival stations onto as few of their vehicles as possible and records the resulting multi-order flights. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Orders consolidated, see the created flights"),
+                    @ApiResponse(responseCode = "500", description = "Failed to consolidate orders due to internal server error")
+            })
+    @PostMapping("/consolidate")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<List<Flight>> consolidate(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            return ResponseEntity.ok(flightService.consolidate(authHeader));
+        } catch (Exception e) {
+            return new ResponseEntity<>(new ArrayList<>(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Operation(summary = "Get all flights",
+            description = "Retrieves all multi-order flights. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "List of flights retrieved successfully"),
+                    @ApiResponse(responseCode = "500", description = "Failed to retrieve flights due to internal server error")
+            })
+    @GetMapping("/get-all")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<List<Flight>> getAll(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            return ResponseEntity.ok(flightService.getAll(authHeader));
+        } catch (Exception e) {
+            return new ResponseEntity<>(new ArrayList<>(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.nure.apz.fatianov.daniil.orderservice.flight;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface FlightRepository extends MongoRepository<Flight, String> {
+}
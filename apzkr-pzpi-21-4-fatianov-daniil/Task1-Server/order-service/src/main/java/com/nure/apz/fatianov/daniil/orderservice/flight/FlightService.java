@@ -0,0 +1,417 @@
+package com.nure.apz.fatianov.daniil.orderservice.flight;
+
+import com.nure.apz.fatianov.daniil.orderservice.order.*;
+import com.nure.apz.fatianov.daniil.orderservice.response.VehicleCapacityResponseEntity;
+import com.nure.apz.fatianov.daniil.orderservice.view.OrderAdminViewService;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Instant;
+import java.util.*;
+
+@Service
+@Profile("!reactive")
+@RequiredArgsConstructor
+public class FlightService {
+
+    private final FlightRepository flightRepository;
+    private final OrderService orderService;
+    private final OrderAdminViewService orderAdminViewService;
+    private final MongoTemplate mongoTemplate;
+    private final RestTemplateBuilder restTemplateBuilder;
+
+    private static final String vehicleStationServiceUrl = "http://localhost:8084/vehicle-station-service";
+
+    private record Route(Integer departureStationId, Integer arrivalStationId) {
+    }
+
+    private record Candidate(Order order, double weight) {
+    }
+
+    /**
+     * An open flight while packing: one vehicle and the orders put on it so far.
+     */
+    private static final class Bin {
+        private final VehicleCapacityResponseEntity vehicle;
+        private final List<Candidate> candidates = new ArrayList<>();
+        private double remaining;
+
+        private Bin(VehicleCapacityResponseEntity vehicle) {
+            this.vehicle = vehicle;
+            this.remaining = vehicle.getLiftingCapacity();
+        }
+
+        private double weight() {
+            return vehicle.getLiftingCapacity() - remaining;
+        }
+    }
+
+    /**
+     * Consolidates processed orders that share departure and arrival stations into multi-order flights.
+     * The orders of each route are packed onto the vehicles already assigned to them with the first-fit decreasing
+     * heuristic: orders are taken from the heaviest, each goes to the first open vehicle with enough capacity left,
+     * and a new vehicle is opened, largest first, only when none has. Since every order was already suitable for its
+     * own vehicle, this never needs more vehicles than before, and usually needs fewer.
+     *
+     * <p>Key operations include:
+     * <ul>
+     *     <li>Verifying administrative access using the provided authorization header.</li>
+     *     <li>Loading all processed orders that are not part of a flight yet and grouping them by route.</li>
+     *     <li>Fetching the lifting capacity of the assigned vehicles with one request.</li>
+     *     <li>Packing every route and, where it saves vehicles, moving its orders with one conditional bulk write
+     *     that only matches orders still processed on their original vehicle.</li>
+     *     <li>Saving a {@link Flight} for every vehicle that carries several orders and releasing the vehicles
+     *     that are no longer used.</li>
+     *     <li>Rebuilding the command that makes the vehicle of a flight ready from the orders that actually moved,
+     *     when only some of them did.</li>
+     * </ul>
+     * </p>
+     *
+     * @param authHeader The authorization header to validate administrative access.
+     * @return The flights that were created.
+     * @throws IllegalStateException If the authorization header is invalid.
+     * @throws RuntimeException If the vehicle capacities can not be fetched.
+     */
+    public List<Flight> consolidate(String authHeader) {
+        if (!orderService.isAdmin(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
+
+        Query query = new Query(Criteria.where("status").is(Status.PROCESSED)
+                .and("vehicleId").ne(null)
+                .and("departureStationId").ne(null)
+                .and("arrivalStationId").ne(null)
+                .and("flightId").exists(false));
+        query.fields().include("number", "vehicleId", "departureStationId", "arrivalStationId", "items");
+
+        Map<Route, List<Candidate>> routes = new HashMap<>();
+        Set<Integer> vehicleIds = new HashSet<>();
+        for (Order order : mongoTemplate.find(query, Order.class)) {
+            Double weight = Item.totalWeight(order.getItems());
+            if (weight == null) {
+                continue;
+            }
+            routes.computeIfAbsent(new Route(order.getDepartureStationId(), order.getArrivalStationId()),
+                    route -> new ArrayList<>()).add(new Candidate(order, weight));
+            vehicleIds.add(order.getVehicleId());
+        }
+        routes.values().removeIf(candidates -> candidates.size() < 2);
+
+        if (routes.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", authHeader);
+        Map<Integer, VehicleCapacityResponseEntity> vehicles = fetchCapacities(vehicleIds, headers);
+
+        List<Flight> flights = new ArrayList<>();
+        Map<String, Integer> originalVehicles = new HashMap<>();
+        Map<String, VehicleCommand> flightCommands = new HashMap<>();
+        Set<Integer> freedVehicleIds = new HashSet<>();
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Order.class);
+        int plannedWrites = 0;
+
+        for (Map.Entry<Route, List<Candidate>> entry : routes.entrySet()) {
+            List<Candidate> candidates = new ArrayList<>();
+            for (Candidate candidate : entry.getValue()) {
+                if (vehicles.containsKey(candidate.order().getVehicleId())) {
+                    candidates.add(candidate);
+                }
+            }
+
+            List<Bin> bins = pack(candidates, vehicles);
+            if (bins == null) {
+                continue;
+            }
+
+            Set<Integer> usedVehicleIds = new HashSet<>();
+            for (Bin bin : bins) {
+                usedVehicleIds.add(bin.vehicle.getId());
+
+                Flight flight = null;
+                if (bin.candidates.size() > 1) {
+                    flight = new Flight();
+                    flight.setId(new ObjectId().toHexString());
+                    flight.setVehicleId(bin.vehicle.getId());
+                    flight.setVehicleNumber(bin.vehicle.getNumber());
+                    flight.setDepartureStationId(entry.getKey().departureStationId());
+                    flight.setArrivalStationId(entry.getKey().arrivalStationId());
+                    flight.setOrderIds(new ArrayList<>());
+                    flight.setTotalWeight(bin.weight());
+                    flight.setLiftingCapacity(bin.vehicle.getLiftingCapacity());
+                    flight.setCreationDate(Instant.now());
+                    flights.add(flight);
+                }
+
+                // Команда підготовки дрона лишається лише в першому замовленні рейсу, з вагою всього рейсу
+                boolean first = true;
+                for (Candidate candidate : bin.candidates) {
+                    Order order = candidate.order();
+                    List<VehicleCommand> commands = new ArrayList<>();
+                    if (first) {
+                        VehicleCommand command = VehicleCommand.makeReady(
+                                bin.vehicle.getNumber(),
+                                bin.vehicle.getId(),
+                                bin.weight(),
+                                order.getDepartureStationId(),
+                                order.getArrivalStationId());
+                        commands.add(command);
+                        if (flight != null) {
+                            flightCommands.put(flight.getId(), command);
+                        }
+                        first = false;
+                    }
+
+                    Update update = new Update()
+                            .set("vehicleId", bin.vehicle.getId())
+                            .set("vehicleCommands", commands);
+                    if (flight != null) {
+                        update.set("flightId", flight.getId());
+                        flight.getOrderIds().add(order.getId());
+                    }
+
+                    bulkOperations.updateOne(new Query(Criteria.where("_id").is(order.getId())
+                            .and("status").is(Status.PROCESSED)
+                            .and("vehicleId").is(order.getVehicleId())
+                            .and("flightId").exists(false)), update);
+                    originalVehicles.put(order.getId(), order.getVehicleId());
+                    plannedWrites++;
+                }
+            }
+
+            for (Candidate candidate : candidates) {
+                if (!usedVehicleIds.contains(candidate.order().getVehicleId())) {
+                    freedVehicleIds.add(candidate.order().getVehicleId());
+                }
+            }
+        }
+
+        if (plannedWrites == 0) {
+            return new ArrayList<>();
+        }
+
+        int matched = bulkOperations.execute().getMatchedCount();
+
+        Map<String, Integer> actualVehicles = new HashMap<>();
+        Query appliedQuery = new Query(Criteria.where("_id").in(originalVehicles.keySet()));
+        appliedQuery.fields().include("vehicleId", "flightId", "items");
+        Map<String, Order> appliedOrders = new HashMap<>();
+        for (Order order : mongoTemplate.find(appliedQuery, Order.class)) {
+            appliedOrders.put(order.getId(), order);
+            actualVehicles.put(order.getId(), order.getVehicleId());
+        }
+
+        if (matched < plannedWrites) {
+            for (Flight flight : flights) {
+                List<String> orderIds = new ArrayList<>();
+                double totalWeight = 0;
+                for (String orderId : flight.getOrderIds()) {
+                    Order order = appliedOrders.get(orderId);
+                    if (order != null && flight.getId().equals(order.getFlightId())) {
+                        orderIds.add(orderId);
+                        totalWeight += Item.totalWeight(order.getItems());
+                    }
+                }
+                if (!orderIds.isEmpty() && orderIds.size() < flight.getOrderIds().size()) {
+                    rebuildCommand(flight, flightCommands.get(flight.getId()), orderIds, totalWeight);
+                }
+                flight.setOrderIds(orderIds);
+                flight.setTotalWeight(totalWeight);
+            }
+            flights.removeIf(flight -> flight.getOrderIds().isEmpty());
+        }
+        flightRepository.saveAll(flights);
+
+        Map<Integer, String> vehicleNumbers = new HashMap<>();
+        for (VehicleCapacityResponseEntity vehicle : vehicles.values()) {
+            vehicleNumbers.put(vehicle.getId(), vehicle.getNumber());
+        }
+        for (Map.Entry<String, Integer> entry : originalVehicles.entrySet()) {
+            Integer vehicleId = actualVehicles.get(entry.getKey());
+            if (vehicleId != null && !vehicleId.equals(entry.getValue())) {
+                orderAdminViewService.update(entry.getKey(), new Update()
+                        .set("vehicleId", vehicleId)
+                        .set("vehicleNumber", vehicleNumbers.get(vehicleId)));
+            }
+        }
+
+        releaseVehicles(freedVehicleIds, vehicleNumbers, headers);
+
+        return flights;
+    }
+
+    /**
+     * Makes the command of a partly moved flight match the orders that did move.
+     * The command was written with the first order of the flight and the weight of all its orders: if that order moved,
+     * only the weight of the command is corrected, otherwise a new command is pushed to the first order that moved.
+     * Both writes only match orders that are still processed on the flight, and a command the relay has already
+     * delivered is left alone.
+     *
+     * @param flight The flight, with the order IDs it was planned with.
+     * @param command The command written with the first order of the flight.
+     * @param orderIds The IDs of the orders that moved to the flight.
+     * @param totalWeight The total weight of those orders.
+     */
+    private void rebuildCommand(Flight flight, VehicleCommand command, List<String> orderIds, double totalWeight) {
+        String firstOrderId = flight.getOrderIds().get(0);
+        if (orderIds.contains(firstOrderId)) {
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("_id").is(firstOrderId)
+                            .and("vehicleCommands.commandId").is(command.getCommandId())),
+                    new Update().set("vehicleCommands.$.weight", totalWeight),
+                    Order.class);
+            return;
+        }
+
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(orderIds.get(0))
+                        .and("status").is(Status.PROCESSED)
+                        .and("flightId").is(flight.getId())),
+                new Update().push("vehicleCommands", VehicleCommand.makeReady(
+                        command.getVehicleNumber(),
+                        command.getVehicleId(),
+                        totalWeight,
+                        command.getDepartureStationId(),
+                        command.getArrivalStationId())),
+                Order.class);
+    }
+
+    /**
+     * Retrieves all flights.
+     *
+     * @param authHeader The authorization header to validate administrative access.
+     * @return All flights in the system.
+     * @throws IllegalStateException If the authorization header is invalid.
+     */
+    public List<Flight> getAll(String authHeader) {
+        if (!orderService.isAdmin(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
+        return flightRepository.findAll();
+    }
+
+    /**
+     * Packs the orders of one route onto their vehicles with first-fit decreasing.
+     *
+     * @return The packed vehicles, or {@code null} if packing does not save any vehicle.
+     */
+    private List<Bin> pack(List<Candidate> candidates, Map<Integer, VehicleCapacityResponseEntity> vehicles) {
+        if (candidates.size() < 2) {
+            return null;
+        }
+
+        List<Candidate> byWeight = new ArrayList<>(candidates);
+        byWeight.sort(Comparator.comparingDouble(Candidate::weight).reversed());
+
+        Set<Integer> routeVehicleIds = new LinkedHashSet<>();
+        for (Candidate candidate : candidates) {
+            routeVehicleIds.add(candidate.order().getVehicleId());
+        }
+        List<VehicleCapacityResponseEntity> unopened = new ArrayList<>();
+        for (Integer vehicleId : routeVehicleIds) {
+            unopened.add(vehicles.get(vehicleId));
+        }
+        unopened.sort(Comparator.comparingDouble(VehicleCapacityResponseEntity::getLiftingCapacity).reversed());
+
+        List<Bin> bins = new ArrayList<>();
+        for (Candidate candidate : byWeight) {
+            Bin target = null;
+            for (Bin bin : bins) {
+                if (bin.remaining >= candidate.weight()) {
+                    target = bin;
+                    break;
+                }
+            }
+
+            if (target == null) {
+                if (unopened.isEmpty() || unopened.get(0).getLiftingCapacity() < candidate.weight()) {
+                    return null;
+                }
+                target = new Bin(unopened.remove(0));
+                bins.add(target);
+            }
+
+            target.candidates.add(candidate);
+            target.remaining -= candidate.weight();
+        }
+
+        return bins.size() < routeVehicleIds.size() ? bins : null;
+    }
+
+    private Map<Integer, VehicleCapacityResponseEntity> fetchCapacities(Set<Integer> vehicleIds, HttpHeaders headers) {
+        try {
+            RestTemplate restTemplate = restTemplateBuilder.build();
+            ResponseEntity<List<VehicleCapacityResponseEntity>> responseEntity = restTemplate.exchange(
+                    vehicleStationServiceUrl.concat("/vehicle/get-capacities"),
+                    HttpMethod.POST,
+                    new HttpEntity<>(new ArrayList<>(vehicleIds), headers),
+                    new ParameterizedTypeReference<>() {
+                    });
+
+            if (!responseEntity.getStatusCode().is2xxSuccessful() || responseEntity.getBody() == null) {
+                throw new IllegalStateException("Vehicle capacities can not be fetched");
+            }
+
+            Map<Integer, VehicleCapacityResponseEntity> vehicles = new HashMap<>();
+            for (VehicleCapacityResponseEntity vehicle : responseEntity.getBody()) {
+                if (vehicle.getLiftingCapacity() != null) {
+                    vehicles.put(vehicle.getId(), vehicle);
+                }
+            }
+            return vehicles;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns vehicles that no longer carry any processed or sent order to the available status.
+     * A failure is only logged: the vehicles stay ready and can still be assigned by hand.
+     */
+    private void releaseVehicles(Set<Integer> freedVehicleIds, Map<Integer, String> vehicleNumbers, HttpHeaders headers) {
+        if (freedVehicleIds.isEmpty()) {
+            return;
+        }
+
+        Query busyQuery = new Query(Criteria.where("status").in(Status.PROCESSED, Status.SENT)
+                .and("vehicleId").in(freedVehicleIds));
+        Set<Integer> stillBusy = new HashSet<>(
+                mongoTemplate.findDistinct(busyQuery, "vehicleId", Order.class, Integer.class));
+
+        List<String> numbers = new ArrayList<>();
+        for (Integer vehicleId : freedVehicleIds) {
+            if (!stillBusy.contains(vehicleId)) {
+                numbers.add(vehicleNumbers.get(vehicleId));
+            }
+        }
+        if (numbers.isEmpty()) {
+            return;
+        }
+
+        try {
+            RestTemplate restTemplate = restTemplateBuilder.build();
+            restTemplate.exchange(
+                    vehicleStationServiceUrl.concat("/vehicle/release-vehicles"),
+                    HttpMethod.PUT,
+                    new HttpEntity<>(numbers, headers),
+                    String[].class);
+        } catch (Exception e) {
+            System.out.println("Cannot release vehicles " + numbers + ": " + e.getMessage());
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.nure.apz.fatianov.daniil.orderservice.order;
 
 import lombok.*;
 
+import java.util.List;
+
 @Setter
 @Getter
 @NoArgsConstructor
@@ -14,4 +16,24 @@ public class Item {
     private Float weight;
     private Boolean isFragile;
 
+    /**
+     * Sums the weight of the items of an order.
+     *
+     * @param items The items of the order.
+     * @return The total weight, or {@code null} if there are no items or an item has no weight.
+     */
+    public static Double totalWeight(List<Item> items) {
+        if (items == null || items.isEmpty()) {
+            return null;
+        }
+
+        double weight = 0;
+        for (Item item : items) {
+            if (item.getWeight() == null || item.getWeight() == 0) {
+                return null;
+            }
+            weight += item.getWeight();
+        }
+        return weight;
+    }
 }
@@ -1,5 +1,6 @@
 package com.nure.apz.fatianov.daniil.orderservice.order;
 
+import com.nure.apz.fatianov.daniil.orderservice.event.OutboxMessage;
 import lombok.*;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
@@ -21,6 +22,7 @@ public class Order {
     private String id;
     private Integer userId;
     private Integer vehicleId;
+    private String flightId;
     private Integer departureStationId;
     private Integer arrivalStationId;
     private String number;
@@ -28,6 +30,8 @@ public class Order {
     private Instant creationDate;
     private Status status;
     private List<Item> items;
+    private List<OutboxMessage> outbox;
+    private List<VehicleCommand> vehicleCommands;
 
     public Order(Integer userId,
                  Integer vehicleId,
@@ -5,17 +5,23 @@ import com.nure.apz.fatianov.daniil.orderservice.request.OrderAddRequestBody;
 import com.nure.apz.fatianov.daniil.orderservice.request.OrderChangeRequestBody;
 import com.nure.apz.fatianov.daniil.orderservice.request.OrderProcessRequestBody;
 import com.nure.apz.fatianov.daniil.orderservice.request.OrderSendRequestBody;
+import com.nure.apz.fatianov.daniil.orderservice.request.OrderStatusUpdateRequestBody;
 import com.nure.apz.fatianov.daniil.orderservice.response.OrderAdminGetResponseEntity;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderAssignmentResponse;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderStatusUpdateResponse;
 import com.nure.apz.fatianov.daniil.orderservice.response.OrderUserGetResponse;
 import com.nure.apz.fatianov.daniil.orderservice.response.OrderVehicleGetResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -23,6 +29,7 @@ import java.util.List;
 @RestController
 @RequestMapping("/order-service")
 @RequiredArgsConstructor
+@Profile("!reactive")
 public class OrderController {
 
     private final OrderService orderService;
@@ -69,6 +76,27 @@ public class OrderController {
         }
     }
 
+    @Operation(summary = "Export all orders",
+            description = "Streams all orders as newline-delimited JSON without loading them into memory. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Orders are being streamed"),
+                    @ApiResponse(responseCode = "500", description = "Failed to export orders due to internal server error")
+            })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(orderService.exportAll(authHeader));
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @Operation(summary = "Change order details",
             description = "Changes details of an existing order. Requires Bearer Authentication for access.",
             security = @SecurityRequirement(name = "Bearer Authentication"),
@@ -115,6 +143,25 @@ public class OrderController {
         }
     }
 
+    @Operation(summary = "Assign vehicles to all created orders",
+            description = "Assigns available vehicles to all created orders with minimal total flight distance and processes them in one bulk write. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Assignment applied, see the result of each order"),
+                    @ApiResponse(responseCode = "500", description = "Failed to assign vehicles due to internal server error")
+            })
+    @PutMapping("/assign-created")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<List<OrderAssignmentResponse>> assignCreatedOrders(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            return ResponseEntity.ok(orderService.assignCreatedOrders(authHeader));
+        } catch (Exception e) {
+            return new ResponseEntity<>(new ArrayList<>(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @Operation(summary = "Update order status",
             description = "Updates the status of an existing order.",
             responses = {
@@ -136,6 +183,23 @@ public class OrderController {
         }
     }
 
+    @Operation(summary = "Update statuses of many orders",
+            description = "Applies a batch of order status updates in one bulk write and returns the result of every item.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Batch processed, see the result of each item"),
+                    @ApiResponse(responseCode = "500", description = "Failed to update order statuses due to internal server error")
+            })
+    @PutMapping("/update-status-batch")
+    public ResponseEntity<List<OrderStatusUpdateResponse>> updateOrderStatuses(
+            @RequestBody List<OrderStatusUpdateRequestBody> requestBody
+    ) {
+        try {
+            return ResponseEntity.ok(orderService.updateOrderStatuses(requestBody));
+        } catch (Exception e) {
+            return new ResponseEntity<>(new ArrayList<>(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @Operation(summary = "Get all order statuses",
             description = "Retrieves all possible statuses of orders from the system.",
             responses = {
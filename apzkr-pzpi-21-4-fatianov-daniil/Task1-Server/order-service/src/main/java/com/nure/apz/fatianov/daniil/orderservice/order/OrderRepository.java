@@ -5,10 +5,10 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
 import java.util.Optional;
 
-public interface OrderRepository extends MongoRepository<Order, String> {
+public interface OrderRepository extends MongoRepository<Order, String>, OrderRepositoryCustom {
     Optional<Order> findByNumberAndStatusNotLike (String number, Status status);
 
-    Optional<Order> findByVehicleIdAndStatusLike(Integer vehicleId, Status status);
+    List<Order> findAllByVehicleIdAndStatus(Integer vehicleId, Status status);
 
     Optional<List<Order>> findAllByUserId(Integer userId);
 }
@@ -0,0 +1,73 @@
+package com.nure.apz.fatianov.daniil.orderservice.order;
+
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface OrderRepositoryCustom {
+
+    /**
+     * Atomically applies an update to an order, but only while the order is in one of the given statuses.
+     *
+     * @param id The ID of the order.
+     * @param statuses The statuses the order is allowed to be in.
+     * @param update The changes to apply.
+     * @return The updated order, or an empty {@link Optional} if the order does not exist or its status did not match.
+     */
+    Optional<Order> updateIfStatusIn(String id, Collection<Status> statuses, Update update);
+
+    /**
+     * Atomically moves an order to the target status together with any additional changes,
+     * but only if the move is legal according to {@link Status#allowedSources(Status)}.
+     * The lifecycle event of the target status is appended to the order outbox in the same operation.
+     *
+     * @param order The order as it was read, for the payload of the event.
+     * @param target The new status of the order.
+     * @param update Additional changes written in the same operation.
+     * @return The updated order, or an empty {@link Optional} if the order does not exist or the transition is not allowed.
+     */
+    Optional<Order> transitionStatus(Order order, Status target, Update update);
+
+    /**
+     * Reads only the status of each of the given orders.
+     *
+     * @param ids The IDs of the orders.
+     * @return A map from order ID to its current status; missing orders are absent from the map.
+     */
+    Map<String, Status> findStatuses(Collection<String> ids);
+
+    /**
+     * Reads only the fields the lifecycle events carry of each of the given orders.
+     *
+     * @param ids The IDs of the orders.
+     * @return A map from order ID to the order; missing orders are absent from the map.
+     */
+    Map<String, Order> findEventFields(Collection<String> ids);
+
+    /**
+     * Applies a list of compare-and-set status changes in a single ordered bulk write.
+     * Each change only matches its order while the order still has the expected status,
+     * and appends the lifecycle event of the target status to the order outbox.
+     *
+     * @param transitions The changes to apply, in order.
+     * @param orders The orders as they were read, for the payload of the events.
+     * @return The number of orders that matched their expected status and were updated.
+     */
+    int compareAndSetStatuses(List<StatusTransition> transitions, Map<String, Order> orders);
+
+    /**
+     * Moves many orders from one status to another in a single ordered bulk write, each with its own additional changes.
+     * Each change only matches its order while the order still has the expected status,
+     * and appends the lifecycle event of the target status to the order outbox.
+     *
+     * @param expected The status every order must still have.
+     * @param target The new status of the orders.
+     * @param orders The orders as they were read, for the payload of the events.
+     * @param updates Additional changes per order ID, written in the same operation as the status change.
+     * @return The number of orders that matched the expected status and were updated.
+     */
+    int transitionStatuses(Status expected, Status target, Map<String, Order> orders, Map<String, Update> updates);
+}
@@ -0,0 +1,93 @@
+package com.nure.apz.fatianov.daniil.orderservice.order;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderUpdates orderUpdates;
+
+    @Override
+    public Optional<Order> updateIfStatusIn(String id, Collection<Status> statuses, Update update) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                orderUpdates.whereStatusIn(id, statuses),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                Order.class));
+    }
+
+    @Override
+    public Optional<Order> transitionStatus(Order order, Status target, Update update) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                orderUpdates.whereTransitionAllowed(order.getId(), target),
+                orderUpdates.transition(order, target, update),
+                FindAndModifyOptions.options().returnNew(true),
+                Order.class));
+    }
+
+    @Override
+    public Map<String, Status> findStatuses(Collection<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("status");
+
+        Map<String, Status> statuses = new HashMap<>();
+        for (Order order : mongoTemplate.find(query, Order.class)) {
+            statuses.put(order.getId(), order.getStatus());
+        }
+        return statuses;
+    }
+
+    @Override
+    public Map<String, Order> findEventFields(Collection<String> ids) {
+        Map<String, Order> orders = new HashMap<>();
+        for (Order order : mongoTemplate.find(orderUpdates.eventFields(ids), Order.class)) {
+            orders.put(order.getId(), order);
+        }
+        return orders;
+    }
+
+    @Override
+    public int compareAndSetStatuses(List<StatusTransition> transitions, Map<String, Order> orders) {
+        if (transitions.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Order.class);
+        for (StatusTransition transition : transitions) {
+            bulkOperations.updateOne(
+                    orderUpdates.whereStatus(transition.getId(), transition.getExpected()),
+                    orderUpdates.transition(orders.get(transition.getId()), transition.getTarget(), new Update()));
+        }
+
+        return bulkOperations.execute().getMatchedCount();
+    }
+
+    @Override
+    public int transitionStatuses(Status expected, Status target, Map<String, Order> orders, Map<String, Update> updates) {
+        if (updates.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Order.class);
+        for (Map.Entry<String, Update> entry : updates.entrySet()) {
+            bulkOperations.updateOne(
+                    orderUpdates.whereStatus(entry.getKey(), expected),
+                    orderUpdates.transition(orders.get(entry.getKey()), target, entry.getValue()));
+        }
+
+        return bulkOperations.execute().getMatchedCount();
+    }
+}
@@ -1,12 +1,20 @@
 package com.nure.apz.fatianov.daniil.orderservice.order;
 
-import com.nure.apz.fatianov.daniil.orderservice.request.IsSuitableRequestEntity;
+import com.nure.apz.fatianov.daniil.orderservice.config.ServiceTokenProvider;
+import com.nure.apz.fatianov.daniil.orderservice.request.AssignmentPlanRequestEntity;
 import com.nure.apz.fatianov.daniil.orderservice.request.OrderAddRequestBody;
 import com.nure.apz.fatianov.daniil.orderservice.request.OrderChangeRequestBody;
 import com.nure.apz.fatianov.daniil.orderservice.request.OrderProcessRequestBody;
+import com.nure.apz.fatianov.daniil.orderservice.request.OrderStatusUpdateRequestBody;
+import com.nure.apz.fatianov.daniil.orderservice.response.AssignmentPlanResponseEntity;
 import com.nure.apz.fatianov.daniil.orderservice.response.OrderAdminGetResponseEntity;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderAssignmentResponse;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderStatusUpdateResponse;
 import com.nure.apz.fatianov.daniil.orderservice.response.OrderUserGetResponse;
 import com.nure.apz.fatianov.daniil.orderservice.response.OrderVehicleGetResponse;
+import com.nure.apz.fatianov.daniil.orderservice.view.OrderAdminView;
+import com.nure.apz.fatianov.daniil.orderservice.view.OrderAdminViewService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springdoc.core.properties.SwaggerUiOAuthProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -14,61 +22,41 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.util.*;
+import java.util.stream.Stream;
 
 @Service
+@Profile("!reactive")
 @RequiredArgsConstructor
 public class OrderService {
 
     private final OrderRepository orderRepository;
     private final RestTemplateBuilder restTemplateBuilder;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final OrderAdminViewService orderAdminViewService;
+    private final OrderUpdates orderUpdates;
+    private final ServiceTokenProvider serviceTokenProvider;
 
     private static final String userServiceUrl = "http://localhost:8082/user-service";
     private static final String vehicleStationServiceUrl = "http://localhost:8084/vehicle-station-service";
 
-    /**
-     * Generates a simple numeric password.
-     * This method uses a {@link Random} object to generate a 6-digit password,
-     * where each digit is randomly chosen from 0 to 9.
-     *
-     * @return A {@link String} representing the generated password, which is 6 digits long.
-     */
-    public String generatePassword() {
-        Random random = new Random();
-
-        StringBuilder passwordBuilder = new StringBuilder();
-        for (int i = 0; i < 6; i++) {
-            int digit = random.nextInt(10);
-            passwordBuilder.append(digit);
-        }
-
-        return passwordBuilder.toString();
-    }
-
-    /**
-     * Generates a unique numeric identifier.
-     * This method utilizes a {@link Random} object to construct a 16-digit number,
-     * randomly selecting each digit from 0 to 9. The resulting number can be used as
-     * a unique identifier or key.
-     *
-     * @return A {@link String} that represents the generated numeric identifier, 16 digits in length.
-     */
-    public String generateNumber() {
-        Random random = new Random();
+    private static final int EXPORT_BATCH_SIZE = 500;// кількість замовлень, що збагачуються за один раз
 
-        StringBuilder passwordBuilder = new StringBuilder();
-        for (int i = 0; i < 16; i++) {
-            int digit = random.nextInt(10);
-            passwordBuilder.append(digit);
-        }
-
-        return passwordBuilder.toString();
-    }
+    private volatile boolean adminViewBackfilled = false;
 
     /**
      * Adds a new order to the system using various details provided in the request body.
@@ -102,7 +90,7 @@ public class OrderService {
         String randomNumber;
 
         while (true) {
-            randomNumber = generateNumber();
+            randomNumber = orderUpdates.generateNumber();
             Optional<Order> optionalOrder =
                     orderRepository.findByNumberAndStatusNotLike(
                             randomNumber,
@@ -138,10 +126,7 @@ public class OrderService {
             throw new RuntimeException(e);
         }
 
-        Order newOrder = new Order();
-        newOrder.setUserId(userId);
-        newOrder.setNumber(randomNumber);
-        newOrder.setItems(requestBody.getItems());
+        Integer arrivalStationId;
 
         String urlToStationService = vehicleStationServiceUrl.concat("/station/get-id?number=" + requestBody.getArrivalStationNumber());
 
@@ -154,7 +139,7 @@ public class OrderService {
             ResponseEntity<Integer> responseEntity = restTemplate.exchange(urlToStationService, HttpMethod.GET, entity, Integer.class);
 
             if (responseEntity.getStatusCode().is2xxSuccessful()) {
-                newOrder.setArrivalStationId(responseEntity.getBody());
+                arrivalStationId = responseEntity.getBody();
             } else {
                 throw new IllegalStateException("Station with number: "
                         + requestBody.getArrivalStationNumber() + " can not be found");
@@ -163,35 +148,41 @@ public class OrderService {
             throw new RuntimeException(e);
         }
 
-        newOrder.setStatus(Status.CREATED);
-        newOrder.setReceiptCode(generatePassword());
-
         Instant creationDateUtc = requestBody.getCreationDate().toInstant();
 
-        newOrder.setCreationDate(creationDateUtc);
-        newOrder.setVehicleId(null);
-        newOrder.setDepartureStationId(null);
+        Order newOrder = orderUpdates.newOrder(
+                randomNumber, userId, requestBody.getItems(), arrivalStationId, creationDateUtc);
+
+        Order savedOrder = orderRepository.save(newOrder);
 
-        orderRepository.save(newOrder);
+        OrderAdminView view = OrderAdminView.fromOrder(savedOrder);
+        view.setArrivalStationNumber(requestBody.getArrivalStationNumber());
+        try {
+            view.setUserEmail(fetchUserEmail(userId, headers));
+        } catch (Exception e) {
+            System.out.println("Cannot fetch email of user " + userId);
+        }
+        orderAdminViewService.save(view);
     }
 
     /**
-     * Retrieves all orders from the system and enriches them with additional details such as user email, vehicle number, and station numbers.
+     * Retrieves all orders from the system together with user email, vehicle number, and station numbers.
      * This method checks if the requester is an admin based on the provided authentication header.
-     * It then retrieves all orders from the repository and supplements each order with associated details fetched via external API calls.
+     * The display fields are not looked up here: they are read from the denormalised admin read model,
+     * which is kept up to date whenever an order or a referenced entity is written.
      *
      * <p>Steps include:
      * <ul>
      *     <li>Verifying the admin status of the requester.</li>
-     *     <li>Fetching all orders from the database.</li>
-     *     <li>Enriching each order with user email, vehicle number, and station numbers (both departure and arrival).</li>
+     *     <li>Reading all entries of the admin read model with a single indexed query.</li>
      * </ul>
      * </p>
      *
      * @param authHeader The authorization header to validate admin access.
      * @return A list of {@link OrderAdminGetResponseEntity} containing detailed information about each order.
-     * @throws IllegalStateException If the authentication header is invalid, or if required data cannot be found for an order.
-     * @throws RuntimeException If an error occurs during external API calls.
+     * @throws IllegalStateException If the authentication header is invalid.
+     * @see #rebuildAdminView(String)
+     * @see #backfillAdminView()
      */
     public List<OrderAdminGetResponseEntity> getAll(String authHeader) {
 
@@ -199,112 +190,309 @@ public class OrderService {
             throw new IllegalStateException("Invalid auth header");
         }
 
-        List<Order> orders = orderRepository.findAll();
-        List<OrderAdminGetResponseEntity> responseEntities = new ArrayList<>();
-        for (Order order : orders) {
-            OrderAdminGetResponseEntity orderAdminGetResponse = new OrderAdminGetResponseEntity();
-            orderAdminGetResponse.setId(order.getId());
-            orderAdminGetResponse.setNumber(order.getNumber());
-            orderAdminGetResponse.setReceiptCode(order.getReceiptCode());
-            orderAdminGetResponse.setStatus(order.getStatus());
-            orderAdminGetResponse.setCreationDate(order.getCreationDate().atZone(ZoneOffset.UTC));
-            orderAdminGetResponse.setItems(order.getItems());
+        return orderAdminViewService.findAll();
+    }
 
-            String token = authHeader.substring(7);
+    /**
+     * Rebuilds the admin read model from the orders collection. Orders created before the read model existed
+     * are added by {@link #backfillAdminView()}; this can be used to repair entries whose update failed.
+     * Orders are streamed from a Mongo cursor and enriched in micro-batches exactly like the export.
+     *
+     * <p>Key operations include:
+     * <ul>
+     *     <li>Verifying administrative access using the authorization header.</li>
+     *     <li>Streaming all orders and enriching each batch with user emails, vehicle numbers and station numbers.</li>
+     *     <li>Replacing the read model entries of each batch with one bulk write.</li>
+     * </ul>
+     * </p>
+     *
+     * @param authHeader The authorization header to validate admin access.
+     * @return The number of rebuilt entries.
+     * @throws IllegalStateException If the authentication header is invalid.
+     * @throws RuntimeException If an error occurs during external API calls.
+     */
+    public long rebuildAdminView(String authHeader) {
+        if (!isAdmin(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
 
-            HttpHeaders headers = new HttpHeaders();
+        String token = authHeader.substring(7);
 
-            headers.set("Authorization", "Bearer " + token);
-            HttpEntity<Void> userHttpEntity = new HttpEntity<>(headers);
-            String urlToUserService = userServiceUrl.concat("/user/get-user-email?id=" + order.getUserId());
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + token);
 
-            try {
-                RestTemplate restTemplate = restTemplateBuilder.build();
-                ResponseEntity<String> responseEntity = restTemplate.exchange(urlToUserService, HttpMethod.GET, userHttpEntity, String.class);
+        return rebuildAdminView(headers);
+    }
 
-                if (responseEntity.getStatusCode().is2xxSuccessful()) {
-                    orderAdminGetResponse.setUserEmail(responseEntity.getBody());
-                } else {
-                    throw new IllegalStateException("User with id "
-                            + order.getUserId() + " can not be found");
+    /**
+     * Keeps the admin read model complete without manual rebuilds. The first run rebuilds the whole model
+     * when it has fewer entries than there are orders, which is the case right after the model is introduced.
+     * Every run fills in the user emails that could not be fetched when their orders were added.
+     * The lookups are made with the service account, because no admin request is involved.
+     */
+    @Scheduled(initialDelayString = "${order-service.admin-view.backfill-initial-delay:10000}",
+            fixedDelayString = "${order-service.admin-view.backfill-delay:600000}")
+    public void backfillAdminView() {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Authorization", serviceTokenProvider.authHeader());
+
+            if (!adminViewBackfilled) {
+                if (orderAdminViewService.count() < mongoTemplate.estimatedCount(Order.class)) {
+                    System.out.println("Admin view rebuilt for " + rebuildAdminView(headers) + " orders");
                 }
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+                adminViewBackfilled = true;
             }
 
-            if (order.getVehicleId() != null) {
-                HttpEntity<Void> vehicleHttpEntity = new HttpEntity<>(headers);
-                String urlToVehicleService = vehicleStationServiceUrl.concat("/vehicle/get-number?id=" + order.getVehicleId());
+            for (Integer userId : orderAdminViewService.findUsersWithoutEmail()) {
                 try {
-                    RestTemplate restTemplate = restTemplateBuilder.build();
-                    ResponseEntity<String> responseEntity = restTemplate.exchange(
-                            urlToVehicleService,
-                            HttpMethod.GET,
-                            vehicleHttpEntity,
-                            String.class);
+                    orderAdminViewService.fillUserEmail(userId, fetchUserEmail(userId, headers));
+                } catch (Exception e) {
+                    System.out.println("Cannot fetch email of user " + userId);
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("Cannot backfill admin view: " + e.getMessage());
+        }
+    }
 
-                    if (responseEntity.getStatusCode().is2xxSuccessful()) {
-                        orderAdminGetResponse.setVehicleNumber(responseEntity.getBody());
-                    } else {
-                        throw new IllegalStateException("Vehicle with id "
-                                + order.getVehicleId() + " can not be found");
+    private long rebuildAdminView(HttpHeaders headers) {
+        Query query = new Query().cursorBatchSize(EXPORT_BATCH_SIZE);
+        List<Order> batch = new ArrayList<>(EXPORT_BATCH_SIZE);
+        long rebuilt = 0;
+
+        try (Stream<Order> orders = mongoTemplate.stream(query, Order.class)) {
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == EXPORT_BATCH_SIZE || !iterator.hasNext()) {
+                    List<OrderAdminGetResponseEntity> responses = enrichBatch(batch, headers);
+                    List<OrderAdminView> views = new ArrayList<>(batch.size());
+                    for (int i = 0; i < batch.size(); i++) {
+                        views.add(OrderAdminView.fromResponse(batch.get(i), responses.get(i)));
                     }
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
+                    orderAdminViewService.saveAll(views);
+                    rebuilt += views.size();
+                    batch.clear();
                 }
-            } else {
-                orderAdminGetResponse.setVehicleNumber(null);
             }
+        }
 
-            String urlToStationService = vehicleStationServiceUrl.concat("/station/get-number?id=");
+        return rebuilt;
+    }
 
-            if (order.getDepartureStationId() != null) {
-                HttpEntity<Void> DepartureStationHttpEntity = new HttpEntity<>(headers);
-                try {
-                    RestTemplate restTemplate = restTemplateBuilder.build();
-                    ResponseEntity<String> responseEntity = restTemplate.exchange(
-                            urlToStationService.concat(String.valueOf(order.getDepartureStationId())),
-                            HttpMethod.GET,
-                            DepartureStationHttpEntity,
-                            String.class);
+    /**
+     * Exports all orders as newline-delimited JSON, one {@link OrderAdminGetResponseEntity} per line.
+     * Unlike {@link #getAll(String)}, this method never materialises the whole collection: orders are read
+     * from a Mongo cursor and written to the response as soon as their micro-batch has been enriched.
+     *
+     * <p>Key operations include:
+     * <ul>
+     *     <li>Verifying administrative access before the response is committed.</li>
+     *     <li>Streaming orders from the database with a cursor batch size of {@value #EXPORT_BATCH_SIZE}.</li>
+     *     <li>Resolving user emails, vehicle numbers and station numbers once per distinct id within each batch.</li>
+     *     <li>Writing each enriched order as a single JSON line and flushing after every batch.</li>
+     * </ul>
+     * </p>
+     *
+     * @param authHeader The authorization header to validate admin access.
+     * @return A {@link StreamingResponseBody} that writes the export to the response output stream.
+     * @throws IllegalStateException If the authentication header is invalid.
+     * @throws RuntimeException If an error occurs during external API calls while the export is being written.
+     */
+    public StreamingResponseBody exportAll(String authHeader) {
+        if (!isAdmin(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
 
-                    if (responseEntity.getStatusCode().is2xxSuccessful()) {
-                        orderAdminGetResponse.setDepartureStationNumber(responseEntity.getBody());
-                    } else {
-                        throw new IllegalStateException("Station with id "
-                                + order.getDepartureStationId() + " can not be found");
+        String token = authHeader.substring(7);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + token);
+
+        return outputStream -> {
+            Query query = new Query().cursorBatchSize(EXPORT_BATCH_SIZE);
+            List<Order> batch = new ArrayList<>(EXPORT_BATCH_SIZE);
+
+            try (Stream<Order> orders = mongoTemplate.stream(query, Order.class)) {
+                Iterator<Order> iterator = orders.iterator();
+                while (iterator.hasNext()) {
+                    batch.add(iterator.next());
+                    if (batch.size() == EXPORT_BATCH_SIZE) {
+                        writeExportBatch(batch, headers, outputStream);
+                        batch.clear();
                     }
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
                 }
-            } else {
-                orderAdminGetResponse.setDepartureStationNumber(null);
             }
 
-            HttpEntity<Void> ArrivalStationHttpEntity = new HttpEntity<>(headers);
-            try {
-                RestTemplate restTemplate = restTemplateBuilder.build();
-                ResponseEntity<String> responseEntity = restTemplate.exchange(
-                        urlToStationService.concat(String.valueOf(order.getArrivalStationId())),
-                        HttpMethod.GET,
-                        ArrivalStationHttpEntity,
-                        String.class);
+            if (!batch.isEmpty()) {
+                writeExportBatch(batch, headers, outputStream);
+            }
+        };
+    }
 
-                if (responseEntity.getStatusCode().is2xxSuccessful()) {
-                    orderAdminGetResponse.setArrivalStationNumber(responseEntity.getBody());
-                } else {
-                    throw new IllegalStateException("Station with id "
-                            + order.getDepartureStationId() + " can not be found");
-                }
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+    /**
+     * Enriches one micro-batch of orders and writes it as newline-delimited JSON.
+     *
+     * @param batch The orders read from the cursor.
+     * @param headers The headers carrying the admin's bearer token for the external lookups.
+     * @param outputStream The response stream to write to.
+     * @throws IOException If writing to the response fails.
+     */
+    private void writeExportBatch(List<Order> batch, HttpHeaders headers, OutputStream outputStream) throws IOException {
+        for (OrderAdminGetResponseEntity orderAdminGetResponse : enrichBatch(batch, headers)) {
+            outputStream.write(objectMapper.writeValueAsBytes(orderAdminGetResponse));
+            outputStream.write('\n');
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * Converts one micro-batch of orders into {@link OrderAdminGetResponseEntity} objects.
+     * Every distinct user, vehicle and station referenced by the batch is looked up only once.
+     *
+     * @param batch The orders to enrich.
+     * @param headers The headers carrying the admin's bearer token for the external lookups.
+     * @return The enriched orders, in the same order as the batch.
+     * @throws RuntimeException If an error occurs during external API calls.
+     */
+    private List<OrderAdminGetResponseEntity> enrichBatch(List<Order> batch, HttpHeaders headers) {
+        Map<Integer, String> userEmails = new HashMap<>();
+        Map<Integer, String> vehicleNumbers = new HashMap<>();
+        Map<Integer, String> stationNumbers = new HashMap<>();
+
+        for (Order order : batch) {
+            if (!userEmails.containsKey(order.getUserId())) {
+                userEmails.put(order.getUserId(), fetchUserEmail(order.getUserId(), headers));
+            }
+            if (order.getVehicleId() != null && !vehicleNumbers.containsKey(order.getVehicleId())) {
+                vehicleNumbers.put(order.getVehicleId(), fetchVehicleNumber(order.getVehicleId(), headers));
+            }
+            if (order.getDepartureStationId() != null && !stationNumbers.containsKey(order.getDepartureStationId())) {
+                stationNumbers.put(order.getDepartureStationId(), fetchStationNumber(order.getDepartureStationId(), headers));
             }
+            if (!stationNumbers.containsKey(order.getArrivalStationId())) {
+                stationNumbers.put(order.getArrivalStationId(), fetchStationNumber(order.getArrivalStationId(), headers));
+            }
+        }
 
+        List<OrderAdminGetResponseEntity> responseEntities = new ArrayList<>(batch.size());
+        for (Order order : batch) {
+            OrderAdminGetResponseEntity orderAdminGetResponse = toAdminResponse(order);
+            orderAdminGetResponse.setUserEmail(userEmails.get(order.getUserId()));
+            orderAdminGetResponse.setVehicleNumber(vehicleNumbers.get(order.getVehicleId()));
+            orderAdminGetResponse.setDepartureStationNumber(stationNumbers.get(order.getDepartureStationId()));
+            orderAdminGetResponse.setArrivalStationNumber(stationNumbers.get(order.getArrivalStationId()));
             responseEntities.add(orderAdminGetResponse);
         }
         return responseEntities;
     }
 
+    /**
+     * Copies the fields stored on the order itself into a new {@link OrderAdminGetResponseEntity}.
+     * Fields that have to be resolved through other services are left empty.
+     *
+     * @param order The order to convert.
+     * @return A partially filled {@link OrderAdminGetResponseEntity}.
+     */
+    private OrderAdminGetResponseEntity toAdminResponse(Order order) {
+        OrderAdminGetResponseEntity orderAdminGetResponse = new OrderAdminGetResponseEntity();
+        orderAdminGetResponse.setId(order.getId());
+        orderAdminGetResponse.setNumber(order.getNumber());
+        orderAdminGetResponse.setReceiptCode(order.getReceiptCode());
+        orderAdminGetResponse.setStatus(order.getStatus());
+        orderAdminGetResponse.setCreationDate(order.getCreationDate().atZone(ZoneOffset.UTC));
+        orderAdminGetResponse.setItems(order.getItems());
+        return orderAdminGetResponse;
+    }
+
+    /**
+     * Fetches the email of a user from the user service.
+     *
+     * @param userId The ID of the user.
+     * @param headers The headers carrying the bearer token.
+     * @return The email of the user.
+     * @throws RuntimeException If the user can not be found or the external API call fails.
+     */
+    private String fetchUserEmail(Integer userId, HttpHeaders headers) {
+        HttpEntity<Void> userHttpEntity = new HttpEntity<>(headers);
+        String urlToUserService = userServiceUrl.concat("/user/get-user-email?id=" + userId);
+
+        try {
+            RestTemplate restTemplate = restTemplateBuilder.build();
+            ResponseEntity<String> responseEntity = restTemplate.exchange(urlToUserService, HttpMethod.GET, userHttpEntity, String.class);
+
+            if (responseEntity.getStatusCode().is2xxSuccessful()) {
+                return responseEntity.getBody();
+            } else {
+                throw new IllegalStateException("User with id "
+                        + userId + " can not be found");
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Fetches the number of a vehicle from the vehicle-station service.
+     *
+     * @param vehicleId The ID of the vehicle.
+     * @param headers The headers carrying the bearer token.
+     * @return The number of the vehicle.
+     * @throws RuntimeException If the vehicle can not be found or the external API call fails.
+     */
+    private String fetchVehicleNumber(Integer vehicleId, HttpHeaders headers) {
+        HttpEntity<Void> vehicleHttpEntity = new HttpEntity<>(headers);
+        String urlToVehicleService = vehicleStationServiceUrl.concat("/vehicle/get-number?id=" + vehicleId);
+        try {
+            RestTemplate restTemplate = restTemplateBuilder.build();
+            ResponseEntity<String> responseEntity = restTemplate.exchange(
+                    urlToVehicleService,
+                    HttpMethod.GET,
+                    vehicleHttpEntity,
+                    String.class);
+
+            if (responseEntity.getStatusCode().is2xxSuccessful()) {
+                return responseEntity.getBody();
+            } else {
+                throw new IllegalStateException("Vehicle with id "
+                        + vehicleId + " can not be found");
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Fetches the number of a station from the vehicle-station service.
+     *
+     * @param stationId The ID of the station.
+     * @param headers The headers carrying the bearer token.
+     * @return The number of the station.
+     * @throws RuntimeException If the station can not be found or the external API call fails.
+     */
+    private String fetchStationNumber(Integer stationId, HttpHeaders headers) {
+        HttpEntity<Void> stationHttpEntity = new HttpEntity<>(headers);
+        String urlToStationService = vehicleStationServiceUrl.concat("/station/get-number?id=" + stationId);
+        try {
+            RestTemplate restTemplate = restTemplateBuilder.build();
+            ResponseEntity<String> responseEntity = restTemplate.exchange(
+                    urlToStationService,
+                    HttpMethod.GET,
+                    stationHttpEntity,
+                    String.class);
+
+            if (responseEntity.getStatusCode().is2xxSuccessful()) {
+                return responseEntity.getBody();
+            } else {
+                throw new IllegalStateException("Station with id "
+                        + stationId + " can not be found");
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Modifies an existing order in the system based on the provided request body. The order can only be modified if it has not been finalized.
      * This method validates user permissions using the provided authorization header and checks the order's current status
@@ -313,9 +501,8 @@ public class OrderService {
      * <p>Key operations include:
      * <ul>
      *     <li>Verifying user permissions using the authorization header.</li>
-     *     <li>Fetching the order from the repository and checking its current status.</li>
-     *     <li>Updating the arrival station by making an external API call to resolve the station ID from the station number.</li>
-     *     <li>Updating the order items and saving changes to the database.</li>
+     *     <li>Resolving the new arrival station ID from the station number by making an external API call.</li>
+     *     <li>Atomically updating the arrival station and items, only if the order is still in an editable status.</li>
      * </ul>
      * </p>
      *
@@ -332,20 +519,6 @@ public class OrderService {
             throw new IllegalStateException("Invalid auth header");
         }
 
-        Optional<Order> optionalOrder = orderRepository.findById(requestBody.getId());
-        if (optionalOrder.isEmpty()) {
-            throw new IllegalStateException("Order with id " + requestBody.getId() + " does not exist");
-        }
-
-        Order newOrder = optionalOrder.get();
-
-        if (newOrder.getStatus() == Status.RECEIVED ||
-                newOrder.getStatus() == Status.DENIED ||
-                newOrder.getStatus() == Status.SENT) {
-            throw new IllegalStateException("Order with id " +
-                    requestBody.getId() + " already has" + newOrder.getStatus());
-        }
-
         String token = authHeader.substring(7);
 
         HttpHeaders headers = new HttpHeaders();
@@ -353,6 +526,8 @@ public class OrderService {
 
         String urlToStationService = vehicleStationServiceUrl.concat("/station/get-id?number=" + requestBody.getArrivalStationNumber());
 
+        Integer arrivalStationId;
+
         HttpEntity<String> arrivalStationHttpEntity = new HttpEntity<>(headers);
         try {
             RestTemplate restTemplate = restTemplateBuilder.build();
@@ -363,7 +538,7 @@ public class OrderService {
                     Integer.class);
 
             if (responseEntity.getStatusCode().is2xxSuccessful()) {
-                newOrder.setArrivalStationId(responseEntity.getBody());
+                arrivalStationId = responseEntity.getBody();
             } else {
                 throw new IllegalStateException("Station with number: "
                         + requestBody.getArrivalStationNumber() + " can not be found");
@@ -371,9 +546,21 @@ public class OrderService {
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
-        newOrder.setItems(requestBody.getItems());
 
-        orderRepository.save(newOrder);
+        Update update = orderUpdates.change(arrivalStationId, requestBody.getItems());
+
+        Optional<Order> changedOrder = orderRepository.updateIfStatusIn(requestBody.getId(), Status.EDITABLE, update);
+        if (changedOrder.isEmpty()) {
+            Optional<Order> optionalOrder = orderRepository.findById(requestBody.getId());
+            if (optionalOrder.isEmpty()) {
+                throw new IllegalStateException("Order with id " + requestBody.getId() + " does not exist");
+            }
+            throw new IllegalStateException("Order with id " +
+                    requestBody.getId() + " already has" + optionalOrder.get().getStatus());
+        }
+
+        orderAdminViewService.update(requestBody.getId(), orderUpdates.changeView(
+                arrivalStationId, requestBody.getArrivalStationNumber(), requestBody.getItems()));
     }
 
     /**
@@ -387,8 +574,10 @@ public class OrderService {
      *     <li>Verifying administrative access using the provided authorization header.</li>
      *     <li>Validating the existence and status of the order.</li>
      *     <li>Fetching and setting the departure station based on the provided station number.</li>
-     *     <li>Assigning a vehicle to the order and validating the vehicle's suitability for the order's requirements.</li>
-     *     <li>Setting the order's status to processed and updating the order details in the repository.</li>
+     *     <li>Assigning a vehicle to the order.</li>
+     *     <li>Atomically writing the order details together with the processed status, only if the order
+     *     can still legally move to that status. The same write stores a command that makes the vehicle ready;
+     *     {@link VehicleCommandRelay} checks the vehicle's suitability and delivers the command afterwards.</li>
      * </ul>
      * </p>
      *
@@ -397,7 +586,7 @@ public class OrderService {
      * @param authHeader  The authorization header to validate administrative access.
      * @throws IllegalStateException If the authentication is invalid, the order does not exist, the order's status
      *                               is not eligible for changes, required entities like stations or vehicles cannot be found,
-     *                               or if the vehicle is not suitable for the order's requirements.
+     *                               or if an item has no weight.
      * @throws RuntimeException If any external API calls fail.
      */
     public void processOrder(
@@ -416,12 +605,7 @@ public class OrderService {
         Order newOrder = optionalOrder.get();
         newOrder.setItems(requestBody.getItems());
 
-        if (newOrder.getStatus() == Status.RECEIVED ||
-                newOrder.getStatus() == Status.DENIED ||
-                newOrder.getStatus() == Status.SENT) {
-            throw new IllegalStateException("Order with id " +
-                    requestBody.getId() + " already has" + newOrder.getStatus());
-        }
+        orderUpdates.checkTransition(newOrder, Status.PROCESSED);
 
         String token = authHeader.substring(7);
 
@@ -465,91 +649,123 @@ public class OrderService {
                         Integer.class);
 
                 if (responseEntity.getStatusCode().is2xxSuccessful()) {
-                    String urlToVechieServiceIsSuitable = vehicleStationServiceUrl
-                            .concat("/vehicle/is-suitable");
+                    newOrder.setVehicleId(responseEntity.getBody());
+                } else {
+                    throw new IllegalStateException("Vehicle with number: "
+                            + requestBody.getVehicleNumber() + " can not be found");
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
 
-                    IsSuitableRequestEntity isSuitableRequestEntity = new IsSuitableRequestEntity();
-                    isSuitableRequestEntity.setArrivalStationId(newOrder.getArrivalStationId());
-                    isSuitableRequestEntity.setDepartureStationId(departureStationId);
+        String assignedVehicleNumber = requestBody.getVehicleNumber().equals(" ") ? null : requestBody.getVehicleNumber();
+        Update update = orderUpdates.process(
+                newOrder, newOrder.getItems(), departureStationId, newOrder.getVehicleId(), assignedVehicleNumber);
 
-                    double weight = 0;
-                    for (Item item : newOrder.getItems()) {
-                        if (item.getWeight() == 0) {
-                            throw new IllegalStateException("Weight can't be 0");
-                        }
+        if (orderRepository.transitionStatus(newOrder, Status.PROCESSED, update).isEmpty()) {
+            throw new IllegalStateException("Order with id " +
+                    requestBody.getId() + " was changed concurrently and can not be processed");
+        }
 
-                        weight += item.getWeight();
-                    }
+        Update viewUpdate = orderUpdates.processView(newOrder.getItems(), departureStationId,
+                requestBody.getDepartureStationNumber(), newOrder.getVehicleId(), assignedVehicleNumber);
+        orderAdminViewService.update(newOrder.getId(), viewUpdate);
+    }
 
-                    isSuitableRequestEntity.setWeight(weight);
-
-                    HttpEntity<IsSuitableRequestEntity> vehicleIsSuitableHttpEntity = new HttpEntity<>(isSuitableRequestEntity, headers);
-                    try {
-                        RestTemplate restTemplateIsSuitable = restTemplateBuilder.build();
-                        ResponseEntity<Boolean> responseEntityIsSuitable = restTemplate.exchange(
-                                urlToVechieServiceIsSuitable,
-                                HttpMethod.GET,
-                                vehicleIsSuitableHttpEntity,
-                                Boolean.class);
-
-                        if (responseEntityIsSuitable.getStatusCode().is2xxSuccessful()) {
-                            if (!responseEntityIsSuitable.getBody()) {
-                                throw new IllegalStateException("Vehicle with number: "
-                                        + requestBody.getVehicleNumber()
-                                        + "cant take this order");
-                            }
-                        }
-
-                    } catch (Exception e) {
-                        System.out.println("Cannot change vehicle status to ready");
-                    }
+    /**
+     * Assigns vehicles to all created orders at once instead of processing them one by one.
+     * The vehicle-station service solves a minimum-distance assignment over all available vehicles; every vehicle
+     * departs from its own station. The resulting plan is applied with one bulk write in which every order
+     * is moved to the processed status only while it is still created, together with its vehicle, its departure
+     * station and the command that makes the vehicle ready, so orders changed in the meantime are skipped
+     * rather than overwritten.
+     *
+     * <p>Procedure includes:
+     * <ul>
+     *     <li>Verifying administrative access using the provided authorization header.</li>
+     *     <li>Loading all created orders and computing their weights.</li>
+     *     <li>Excluding vehicles that already serve processed or sent orders.</li>
+     *     <li>Requesting the assignment plan from the vehicle-station service.</li>
+     *     <li>Applying the plan with one conditional bulk write and updating the admin view of the assigned orders.</li>
+     * </ul>
+     * </p>
+     *
+     * @param authHeader The authorization header to validate administrative access.
+     * @return One {@link OrderAssignmentResponse} per created order.
+     * @throws IllegalStateException If the authorization header is invalid.
+     * @throws RuntimeException If the assignment plan can not be obtained.
+     */
+    public List<OrderAssignmentResponse> assignCreatedOrders(String authHeader) {
+        if (!isAdmin(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
 
-                    newOrder.setVehicleId(responseEntity.getBody());
+        OrderUpdates.Assignment assignment = orderUpdates.prepareAssignment(
+                mongoTemplate.find(orderUpdates.createdOrders(), Order.class));
 
-                    String urlToVehicleServiceGetDroneReady = vehicleStationServiceUrl.concat("/vehicle/get-vehicle-ready?number=" + requestBody.getVehicleNumber());
+        if (assignment.getOrderSpecs().isEmpty()) {
+            return assignment.getResponses();
+        }
 
-                    HttpEntity<Void> vehicleReadyHttpEntity = new HttpEntity<>(headers);
-                    try {
-                        RestTemplate restTemplateVehicleReady = restTemplateBuilder.build();
-                        ResponseEntity<String> responseEntityVehicleReady = restTemplate.exchange(
-                                urlToVehicleServiceGetDroneReady,
-                                HttpMethod.PUT,
-                                vehicleReadyHttpEntity,
-                                String.class);
+        List<Integer> busyVehicleIds = mongoTemplate.findDistinct(
+                orderUpdates.busyVehicles(), "vehicleId", Order.class, Integer.class);
 
-                    } catch (Exception e) {
-                        System.out.println("Cannot change vehicle status to ready");
-                    }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", authHeader);
 
-                } else {
-                    throw new IllegalStateException("Vehicle with number: "
-                            + requestBody.getVehicleNumber() + " can not be found");
-                }
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+        AssignmentPlanResponseEntity plan;
+        try {
+            RestTemplate restTemplate = restTemplateBuilder.build();
+            ResponseEntity<AssignmentPlanResponseEntity> responseEntity = restTemplate.exchange(
+                    vehicleStationServiceUrl.concat("/vehicle/assignment-plan"),
+                    HttpMethod.POST,
+                    new HttpEntity<>(new AssignmentPlanRequestEntity(assignment.getOrderSpecs(), busyVehicleIds), headers),
+                    AssignmentPlanResponseEntity.class);
+
+            plan = responseEntity.getBody();
+            if (!responseEntity.getStatusCode().is2xxSuccessful() || plan == null) {
+                throw new IllegalStateException("Assignment plan can not be computed");
             }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        Map<String, Update> updates = assignment.apply(plan);
+        int matched = orderRepository.transitionStatuses(Status.CREATED, Status.PROCESSED, assignment.getOrders(), updates);
+
+        if (matched < updates.size()) {
+            Map<String, Order> applied = new HashMap<>();
+            for (Order order : mongoTemplate.find(orderUpdates.appliedAssignments(updates.keySet()), Order.class)) {
+                applied.put(order.getId(), order);
+            }
+            assignment.markConflicts(applied);
         }
 
-        newOrder.setStatus(Status.PROCESSED);
+        for (Map.Entry<String, Update> viewUpdate : assignment.finish().entrySet()) {
+            orderAdminViewService.update(viewUpdate.getKey(), viewUpdate.getValue());
+        }
 
-        orderRepository.save(newOrder);
+        return assignment.getResponses();
     }
 
     /**
-     * Updates the status of an existing order in the system. This method checks if the order exists
-     * and updates its status accordingly.
+     * Updates the status of an existing order in the system. The status is changed with a single atomic
+     * operation that only matches the order while its current status is a legal source for the new one,
+     * so concurrent updates can not overwrite each other.
      *
      * <p>Procedure includes:
      * <ul>
-     *     <li>Searching for the order by its identifier in the database.</li>
-     *     <li>Updating the order's status if it exists.</li>
-     *     <li>Saving the updated order back to the repository.</li>
+     *     <li>Reading the order, for the payload of its lifecycle event.</li>
+     *     <li>Resolving the legal source statuses for the requested status.</li>
+     *     <li>Atomically updating the order if it exists and is in one of those statuses.</li>
+     *     <li>Reporting whether the order is missing or the transition is illegal if nothing was updated.</li>
      * </ul>
      * </p>
      *
      * @param id The unique identifier of the order to be updated.
      * @param status The new status to be set for the order.
-     * @throws IllegalStateException If no order with the provided identifier exists.
+     * @throws IllegalStateException If no order with the provided identifier exists or the transition is not allowed.
      */
     public void updateOrderStatus(String id, Status status) {
         Optional<Order> optionalOrder = orderRepository.findById(id);
@@ -557,20 +773,63 @@ public class OrderService {
             throw new IllegalStateException("Order with id: " + id + " does not exist");
         }
 
-        Order order = optionalOrder.get();
-        order.setStatus(status);
-        orderRepository.save(order);
+        if (orderRepository.transitionStatus(optionalOrder.get(), status, new Update()).isPresent()) {
+            orderAdminViewService.update(id, new Update().set("status", status));
+            return;
+        }
+
+        Status current = orderRepository.findById(id).map(Order::getStatus).orElse(null);
+        throw new IllegalStateException("Order with id: " + id
+                + " can not change status from " + current + " to " + status);
+    }
+
+    /**
+     * Updates the statuses of many orders at once, as reported in bursts by the stations.
+     * Every requested change is validated against the legal transitions of {@link Status} and all valid changes
+     * are applied in a single ordered bulk write. Each write is a compare-and-set on the status that was read,
+     * so changes made by someone else in the meantime are detected instead of overwritten.
+     *
+     * <p>Procedure includes:
+     * <ul>
+     *     <li>Reading the current status and event fields of all referenced orders with one query.</li>
+     *     <li>Validating each change in request order, so several changes of the same order can be chained.</li>
+     *     <li>Applying all valid changes with one bulk write.</li>
+     *     <li>Re-reading the statuses if some writes did not match, to mark the affected items as conflicts.</li>
+     * </ul>
+     * </p>
+     *
+     * @param requestBody The list of order IDs and the statuses they should be moved to.
+     * @return One {@link OrderStatusUpdateResponse} per requested change, in request order.
+     */
+    public List<OrderStatusUpdateResponse> updateOrderStatuses(List<OrderStatusUpdateRequestBody> requestBody) {
+        Set<String> ids = new HashSet<>();
+        for (OrderStatusUpdateRequestBody request : requestBody) {
+            ids.add(request.getId());
+        }
+
+        OrderUpdates.StatusUpdatePlan plan = orderUpdates.planStatusUpdates(requestBody, orderRepository.findEventFields(ids));
+
+        int matched = orderRepository.compareAndSetStatuses(plan.getTransitions(), plan.getOrders());
+
+        if (matched < plan.getTransitions().size()) {
+            plan.markConflicts(orderRepository.findStatuses(ids));
+        }
+
+        orderAdminViewService.updateStatuses(plan.updatedStatuses());
+
+        return plan.getResponses();
     }
 
     /**
      * Retrieves detailed information about an order associated with a specific vehicle, based on the vehicle's ID.
      * This method ensures that the requester has administrative privileges and that the order is in a 'PROCESSED' state.
      * It also enriches the order details with the station number of the order's arrival station.
+     * If the vehicle carries a consolidated flight, the items of all its orders are returned together.
      *
      * <p>Key operations include:
      * <ul>
      *     <li>Validating admin access using the authorization header.</li>
-     *     <li>Finding the order associated with the given vehicle ID and checking its status.</li>
+     *     <li>Finding the orders associated with the given vehicle ID and checking their status.</li>
      *     <li>Fetching the arrival station number from an external service and adding it to the response.</li>
      * </ul>
      * </p>
@@ -586,15 +845,13 @@ public class OrderService {
             throw new IllegalStateException("Invalid auth header");
         }
 
-        Optional<Order> optionalOrder = orderRepository.findByVehicleIdAndStatusLike(id, Status.PROCESSED);
-        if (optionalOrder.isEmpty()) {
+        List<Order> orders = orderRepository.findAllByVehicleIdAndStatus(id, Status.PROCESSED);
+        if (orders.isEmpty()) {
             return null;
         }
 
-        Order order = optionalOrder.get();
-        OrderVehicleGetResponse orderVehicleGetResponse = new OrderVehicleGetResponse();
-        orderVehicleGetResponse.setNumber(order.getNumber());
-        orderVehicleGetResponse.setItems(order.getItems());
+        Order order = orders.get(0);
+        OrderVehicleGetResponse orderVehicleGetResponse = orderUpdates.toVehicleResponse(orders);
 
         String token = authHeader.substring(7);
 
@@ -739,6 +996,43 @@ public class OrderService {
 
     }
 
+    /**
+     * Determines which order events the bearer of the token may subscribe to.
+     * Admins receive the events of all orders, users only the events of their own orders.
+     *
+     * @param authHeader The authorization header containing the bearer token.
+     * @return {@code null} for an admin, otherwise the ID of the user whose events may be received.
+     * @throws IllegalStateException If the authentication header is invalid.
+     * @throws RuntimeException If an error occurs during external API calls.
+     */
+    public Integer resolveEventSubscriber(String authHeader) {
+        if (isAdmin(authHeader)) {
+            return null;
+        }
+        if (!isUser(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
+
+        String token = authHeader.substring(7);
+        String urlToUserService = userServiceUrl.concat("/user/get-userId?token=" + token);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + token);
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+        try {
+            RestTemplate restTemplate = restTemplateBuilder.build();
+            ResponseEntity<Integer> responseEntity = restTemplate.exchange(urlToUserService, HttpMethod.GET, entity, Integer.class);
+
+            if (responseEntity.getStatusCode().is2xxSuccessful()) {
+                return responseEntity.getBody();
+            } else {
+                throw new IllegalStateException("Something went wrong");
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Determines if the bearer of the token in the authorization header has administrative privileges.
      *
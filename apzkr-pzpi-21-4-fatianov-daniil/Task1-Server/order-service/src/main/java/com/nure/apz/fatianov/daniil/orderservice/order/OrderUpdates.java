@@ -0,0 +1,529 @@
+package com.nure.apz.fatianov.daniil.orderservice.order;
+
+import com.nure.apz.fatianov.daniil.orderservice.event.OrderEventType;
+import com.nure.apz.fatianov.daniil.orderservice.event.OutboxMessage;
+import com.nure.apz.fatianov.daniil.orderservice.request.AssignmentPlanRequestEntity;
+import com.nure.apz.fatianov.daniil.orderservice.request.OrderStatusUpdateRequestBody;
+import com.nure.apz.fatianov.daniil.orderservice.response.AssignmentPlanResponseEntity;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderAssignmentResponse;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderAssignmentResult;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderStatusUpdateResponse;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderStatusUpdateResult;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderVehicleGetResponse;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Builds the writes of the order lifecycle for both the servlet {@link OrderService} and the reactive order service,
+ * so the two paths validate requests, check status transitions and fill the outbox in exactly the same way.
+ * This class only builds orders, queries and updates and interprets their results; running them is left to
+ * the blocking or the reactive Mongo template of the caller.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Creating new orders together with their first outbox message.</li>
+ *     <li>Building the updates of changing and processing an order, and of the admin read model after them.</li>
+ *     <li>Building the status-conditioned queries and updates of every status transition.</li>
+ *     <li>Planning bulk status updates and vehicle assignments, and detecting the changes that lost a race.</li>
+ * </ul>
+ * </p>
+ */
+@Component
+public class OrderUpdates {
+
+    private static final String[] EVENT_FIELDS =
+            {"number", "userId", "vehicleId", "departureStationId", "arrivalStationId", "status"};
+
+    private final Random random = new Random();
+
+    /**
+     * Generates a 16-digit order number. Callers retry until the number is not used by an active order.
+     *
+     * @return The generated number.
+     */
+    public String generateNumber() {
+        return digits(16);
+    }
+
+    /**
+     * Generates the 6-digit receipt code of an order.
+     *
+     * @return The generated receipt code.
+     */
+    public String generatePassword() {
+        return digits(6);
+    }
+
+    private String digits(int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            builder.append(random.nextInt(10));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Creates a new order in the {@link Status#CREATED} status with the created event already in its outbox.
+     *
+     * @param number The unique number of the order.
+     * @param userId The ID of the user who placed the order.
+     * @param items The items of the order.
+     * @param arrivalStationId The ID of the arrival station.
+     * @param creationDate The moment the order was placed.
+     * @return The order, ready to be saved.
+     */
+    public Order newOrder(String number, Integer userId, List<Item> items, Integer arrivalStationId, Instant creationDate) {
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setNumber(number);
+        order.setItems(items);
+        order.setArrivalStationId(arrivalStationId);
+        order.setStatus(Status.CREATED);
+        order.setReceiptCode(generatePassword());
+        order.setCreationDate(creationDate);
+        order.setVehicleId(null);
+        order.setDepartureStationId(null);
+        order.setOutbox(new ArrayList<>(List.of(OutboxMessage.of(OrderEventType.CREATED, order))));
+        return order;
+    }
+
+    /**
+     * Builds the update that changes the arrival station and items of an order.
+     * It must be applied with {@link #whereStatusIn} and {@link Status#EDITABLE}.
+     */
+    public Update change(Integer arrivalStationId, List<Item> items) {
+        return new Update()
+                .set("arrivalStationId", arrivalStationId)
+                .set("items", items);
+    }
+
+    public Update changeView(Integer arrivalStationId, String arrivalStationNumber, List<Item> items) {
+        return new Update()
+                .set("arrivalStationId", arrivalStationId)
+                .set("arrivalStationNumber", arrivalStationNumber)
+                .set("items", items);
+    }
+
+    /**
+     * Checks that an order read before a write may still move to the target status.
+     *
+     * @param order The order as it was read.
+     * @param target The status the order should be moved to.
+     * @throws IllegalStateException If the transition is not allowed.
+     */
+    public void checkTransition(Order order, Status target) {
+        if (!order.getStatus().canTransitionTo(target)) {
+            throw new IllegalStateException("Order with id " + order.getId() + " already has" + order.getStatus());
+        }
+    }
+
+    /**
+     * Builds the update that processes an order: its items, departure station and vehicle, and the command
+     * that makes the vehicle ready when a new vehicle is assigned. The status change itself is added by
+     * {@link #transition(Order, Status, Update)}.
+     *
+     * @param order The order as it was read.
+     * @param items The items of the order, with their weights.
+     * @param departureStationId The ID of the departure station.
+     * @param vehicleId The ID of the vehicle that carries the order.
+     * @param vehicleNumber The number of a newly assigned vehicle, or {@code null} if the vehicle does not change.
+     * @return The update.
+     * @throws IllegalStateException If a vehicle is assigned and an item has no weight.
+     */
+    public Update process(Order order, List<Item> items, Integer departureStationId, Integer vehicleId, String vehicleNumber) {
+        Update update = new Update()
+                .set("items", items)
+                .set("departureStationId", departureStationId)
+                .set("vehicleId", vehicleId);
+
+        if (vehicleNumber != null) {
+            double weight = 0;
+            for (Item item : items) {
+                if (item.getWeight() == 0) {
+                    throw new IllegalStateException("Weight can't be 0");
+                }
+
+                weight += item.getWeight();
+            }
+
+            update.push("vehicleCommands", VehicleCommand.makeReady(
+                    vehicleNumber,
+                    vehicleId,
+                    weight,
+                    departureStationId,
+                    order.getArrivalStationId()));
+        }
+        return update;
+    }
+
+    public Update processView(List<Item> items,
+                              Integer departureStationId,
+                              String departureStationNumber,
+                              Integer vehicleId,
+                              String vehicleNumber) {
+        Update update = new Update()
+                .set("items", items)
+                .set("departureStationId", departureStationId)
+                .set("departureStationNumber", departureStationNumber)
+                .set("status", Status.PROCESSED);
+        if (vehicleNumber != null) {
+            update.set("vehicleId", vehicleId)
+                    .set("vehicleNumber", vehicleNumber);
+        }
+        return update;
+    }
+
+    /**
+     * Matches an order only while it is in one of the given statuses.
+     */
+    public Query whereStatusIn(String id, Collection<Status> statuses) {
+        return new Query(Criteria.where("_id").is(id).and("status").in(statuses));
+    }
+
+    /**
+     * Matches an order only while it still has the expected status.
+     */
+    public Query whereStatus(String id, Status expected) {
+        return new Query(Criteria.where("_id").is(id).and("status").is(expected));
+    }
+
+    /**
+     * Matches an order only while it may legally move to the target status.
+     */
+    public Query whereTransitionAllowed(String id, Status target) {
+        return whereStatusIn(id, Status.allowedSources(target));
+    }
+
+    /**
+     * Adds the status change and the lifecycle event of the target status to an update,
+     * so both are written by the same operation as the other changes. The event carries the order as it was read,
+     * with the changes of the update and the target status applied.
+     *
+     * @param order The order as it was read, at least with the fields of {@link #eventFields}.
+     * @param target The new status of the order.
+     * @param update The other changes of the operation.
+     * @return The same update, for chaining.
+     */
+    public Update transition(Order order, Status target, Update update) {
+        return update.set("status", target)
+                .push("outbox", OutboxMessage.of(OrderEventType.forStatus(target), changed(order, target, update)));
+    }
+
+    /**
+     * Reads the given orders with only the fields their lifecycle events carry.
+     */
+    public Query eventFields(Collection<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include(EVENT_FIELDS);
+        return query;
+    }
+
+    private static Order changed(Order order, Status target, Update update) {
+        Order changed = new Order(order.getUserId(), order.getVehicleId(), order.getDepartureStationId(),
+                order.getArrivalStationId(), order.getNumber(), null);
+        changed.setId(order.getId());
+        changed.setStatus(target);
+
+        // Зміни з тієї ж операції переносяться в подію, решта полів береться з прочитаного замовлення
+        Object set = update.getUpdateObject().get("$set");
+        if (set instanceof Map<?, ?> values) {
+            if (values.containsKey("vehicleId")) {
+                changed.setVehicleId((Integer) values.get("vehicleId"));
+            }
+            if (values.containsKey("departureStationId")) {
+                changed.setDepartureStationId((Integer) values.get("departureStationId"));
+            }
+            if (values.containsKey("arrivalStationId")) {
+                changed.setArrivalStationId((Integer) values.get("arrivalStationId"));
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Validates a burst of status changes against the orders that were read, in request order,
+     * so several changes of the same order can be chained.
+     *
+     * @param requests The requested changes.
+     * @param currentOrders Every referenced order read with {@link #eventFields}; missing orders are absent.
+     * @return The plan with one response per request and the transitions to write.
+     */
+    public StatusUpdatePlan planStatusUpdates(List<OrderStatusUpdateRequestBody> requests, Map<String, Order> currentOrders) {
+        Map<String, Status> currentStatuses = new HashMap<>();
+        for (Order order : currentOrders.values()) {
+            currentStatuses.put(order.getId(), order.getStatus());
+        }
+        StatusUpdatePlan plan = new StatusUpdatePlan(currentOrders, currentStatuses);
+
+        for (OrderStatusUpdateRequestBody request : requests) {
+            OrderStatusUpdateResponse response = new OrderStatusUpdateResponse();
+            response.setId(request.getId());
+            response.setStatus(request.getStatus());
+
+            Status current = plan.plannedStatuses.get(request.getId());
+            if (current == null) {
+                response.setResult(OrderStatusUpdateResult.NOT_FOUND);
+                response.setMessage("Order with id: " + request.getId() + " does not exist");
+            } else if (request.getStatus() == null || !current.canTransitionTo(request.getStatus())) {
+                response.setResult(OrderStatusUpdateResult.ILLEGAL_TRANSITION);
+                response.setMessage("Order with id: " + request.getId()
+                        + " can not change status from " + current + " to " + request.getStatus());
+            } else {
+                response.setResult(OrderStatusUpdateResult.UPDATED);
+                plan.transitions.add(new StatusTransition(request.getId(), current, request.getStatus()));
+                plan.plannedStatuses.put(request.getId(), request.getStatus());
+                plan.plannedResponses.add(response);
+            }
+            plan.responses.add(response);
+        }
+        return plan;
+    }
+
+    /**
+     * The outcome of {@link #planStatusUpdates}: the transitions to write and the responses to return.
+     */
+    public static final class StatusUpdatePlan {
+        private final Map<String, Order> orders;
+        private final Map<String, Status> plannedStatuses;
+        private final List<OrderStatusUpdateResponse> responses = new ArrayList<>();
+        private final List<OrderStatusUpdateResponse> plannedResponses = new ArrayList<>();
+        private final List<StatusTransition> transitions = new ArrayList<>();
+
+        private StatusUpdatePlan(Map<String, Order> orders, Map<String, Status> plannedStatuses) {
+            this.orders = orders;
+            this.plannedStatuses = plannedStatuses;
+        }
+
+        public List<StatusTransition> getTransitions() {
+            return transitions;
+        }
+
+        /**
+         * Returns the orders as they were read, for the payload of the lifecycle events.
+         */
+        public Map<String, Order> getOrders() {
+            return orders;
+        }
+
+        public List<OrderStatusUpdateResponse> getResponses() {
+            return responses;
+        }
+
+        /**
+         * Marks as conflicts the planned changes whose order does not have the planned final status,
+         * after fewer writes matched than were planned.
+         *
+         * @param actualStatuses The statuses read again after the write.
+         */
+        public void markConflicts(Map<String, Status> actualStatuses) {
+            for (OrderStatusUpdateResponse response : plannedResponses) {
+                if (actualStatuses.get(response.getId()) != plannedStatuses.get(response.getId())) {
+                    response.setResult(OrderStatusUpdateResult.CONFLICT);
+                    response.setMessage("Order with id: " + response.getId() + " was changed concurrently");
+                }
+            }
+        }
+
+        /**
+         * Returns the final status of every order that was updated, for the admin read model.
+         */
+        public Map<String, Status> updatedStatuses() {
+            Map<String, Status> updatedStatuses = new HashMap<>();
+            for (OrderStatusUpdateResponse response : plannedResponses) {
+                if (response.getResult() == OrderStatusUpdateResult.UPDATED) {
+                    updatedStatuses.put(response.getId(), plannedStatuses.get(response.getId()));
+                }
+            }
+            return updatedStatuses;
+        }
+    }
+
+    /**
+     * Reads the created orders with only the fields the assignment needs.
+     */
+    public Query createdOrders() {
+        Query query = new Query(Criteria.where("status").is(Status.CREATED));
+        query.fields().include("number", "userId", "arrivalStationId", "items");
+        return query;
+    }
+
+    /**
+     * Matches the orders whose vehicle is busy, so it is excluded from the assignment.
+     */
+    public Query busyVehicles() {
+        return new Query(Criteria.where("status").in(Status.PROCESSED, Status.SENT)
+                .and("vehicleId").ne(null));
+    }
+
+    /**
+     * Matches the orders of an assignment again, to find out which of them were written.
+     */
+    public Query appliedAssignments(Collection<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("status", "vehicleId");
+        return query;
+    }
+
+    /**
+     * Starts the assignment of vehicles to created orders: computes the weights and rejects the orders
+     * that can not be planned.
+     *
+     * @param createdOrders The orders read with {@link #createdOrders()}.
+     * @return The assignment, with one response per created order.
+     */
+    public Assignment prepareAssignment(List<Order> createdOrders) {
+        Assignment assignment = new Assignment();
+
+        for (Order order : createdOrders) {
+            OrderAssignmentResponse response = new OrderAssignmentResponse();
+            response.setId(order.getId());
+            response.setNumber(order.getNumber());
+            assignment.responses.put(order.getId(), response);
+            assignment.ordersById.put(order.getId(), order);
+
+            Double weight = Item.totalWeight(order.getItems());
+            if (weight == null || order.getArrivalStationId() == null) {
+                response.setResult(OrderAssignmentResult.INVALID_ORDER);
+                response.setMessage("Order with id: " + order.getId() + " has no arrival station or an item without weight");
+                continue;
+            }
+
+            assignment.weights.put(order.getId(), weight);
+            assignment.orderSpecs.add(new AssignmentPlanRequestEntity.OrderSpec(order.getId(), weight, order.getArrivalStationId()));
+        }
+        return assignment;
+    }
+
+    /**
+     * An assignment of vehicles to created orders, from the created orders to the responses.
+     * Every order is moved to the processed status only while it is still created, together with its vehicle,
+     * its departure station and the command that makes the vehicle ready.
+     */
+    public static final class Assignment {
+        private final Map<String, OrderAssignmentResponse> responses = new LinkedHashMap<>();
+        private final Map<String, Order> ordersById = new HashMap<>();
+        private final Map<String, Double> weights = new HashMap<>();
+        private final List<AssignmentPlanRequestEntity.OrderSpec> orderSpecs = new ArrayList<>();
+        private final Map<String, AssignmentPlanResponseEntity.Assignment> assignments = new HashMap<>();
+
+        private Assignment() {
+        }
+
+        public List<AssignmentPlanRequestEntity.OrderSpec> getOrderSpecs() {
+            return orderSpecs;
+        }
+
+        /**
+         * Returns the created orders as they were read, for the payload of the lifecycle events.
+         */
+        public Map<String, Order> getOrders() {
+            return ordersById;
+        }
+
+        /**
+         * Builds the update of every order the plan assigns a vehicle to.
+         *
+         * @param plan The plan computed by the vehicle-station service.
+         * @return The updates per order ID, to be written with the created to processed transition.
+         */
+        public Map<String, Update> apply(AssignmentPlanResponseEntity plan) {
+            Map<String, Update> updates = new HashMap<>();
+            for (AssignmentPlanResponseEntity.Assignment planned : plan.getAssignments()) {
+                Order order = ordersById.get(planned.getOrderId());
+                if (order == null) {
+                    continue;
+                }
+
+                assignments.put(order.getId(), planned);
+
+                updates.put(order.getId(), new Update()
+                        .set("departureStationId", planned.getDepartureStationId())
+                        .set("vehicleId", planned.getVehicleId())
+                        .push("vehicleCommands", VehicleCommand.makeReady(
+                                planned.getVehicleNumber(),
+                                planned.getVehicleId(),
+                                weights.get(order.getId()),
+                                planned.getDepartureStationId(),
+                                order.getArrivalStationId())));
+
+                OrderAssignmentResponse response = responses.get(order.getId());
+                response.setVehicleNumber(planned.getVehicleNumber());
+                response.setDepartureStationNumber(planned.getDepartureStationNumber());
+                response.setDistance(planned.getDistance());
+                response.setResult(OrderAssignmentResult.ASSIGNED);
+            }
+            return updates;
+        }
+
+        /**
+         * Marks as conflicts the assignments that were not written, after fewer writes matched than were planned.
+         *
+         * @param applied The orders read again with {@link #appliedAssignments}.
+         */
+        public void markConflicts(Map<String, Order> applied) {
+            for (AssignmentPlanResponseEntity.Assignment planned : assignments.values()) {
+                Order order = applied.get(planned.getOrderId());
+                if (order == null || order.getStatus() != Status.PROCESSED
+                        || !planned.getVehicleId().equals(order.getVehicleId())) {
+                    OrderAssignmentResponse response = responses.get(planned.getOrderId());
+                    response.setResult(OrderAssignmentResult.CONFLICT);
+                    response.setMessage("Order with id: " + planned.getOrderId() + " was changed concurrently");
+                }
+            }
+        }
+
+        /**
+         * Completes the responses and returns the admin read model update of every assigned order.
+         */
+        public Map<String, Update> finish() {
+            Map<String, Update> viewUpdates = new LinkedHashMap<>();
+            for (OrderAssignmentResponse response : responses.values()) {
+                if (response.getResult() == null) {
+                    response.setResult(OrderAssignmentResult.NO_SUITABLE_VEHICLE);
+                    response.setMessage("No available vehicle can carry order with id: " + response.getId());
+                } else if (response.getResult() == OrderAssignmentResult.ASSIGNED) {
+                    AssignmentPlanResponseEntity.Assignment planned = assignments.get(response.getId());
+                    viewUpdates.put(response.getId(), new Update()
+                            .set("departureStationId", planned.getDepartureStationId())
+                            .set("departureStationNumber", planned.getDepartureStationNumber())
+                            .set("vehicleId", planned.getVehicleId())
+                            .set("vehicleNumber", response.getVehicleNumber())
+                            .set("status", Status.PROCESSED));
+                }
+            }
+            return viewUpdates;
+        }
+
+        public List<OrderAssignmentResponse> getResponses() {
+            return new ArrayList<>(responses.values());
+        }
+    }
+
+    /**
+     * Builds the vehicle's view of the orders it carries: the number of the first order and the items of all of them.
+     *
+     * @param orders The processed orders of one vehicle, all with the same arrival station.
+     * @return An {@link OrderVehicleGetResponse} without the arrival station number.
+     */
+    public OrderVehicleGetResponse toVehicleResponse(List<Order> orders) {
+        List<String> numbers = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        for (Order order : orders) {
+            numbers.add(order.getNumber());
+            if (order.getItems() != null) {
+                items.addAll(order.getItems());
+            }
+        }
+
+        OrderVehicleGetResponse orderVehicleGetResponse = new OrderVehicleGetResponse();
+        orderVehicleGetResponse.setNumber(numbers.get(0));
+        orderVehicleGetResponse.setOrderNumbers(numbers);
+        orderVehicleGetResponse.setItems(items);
+        return orderVehicleGetResponse;
+    }
+}
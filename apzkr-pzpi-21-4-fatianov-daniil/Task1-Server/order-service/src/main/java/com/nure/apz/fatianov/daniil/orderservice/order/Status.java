@@ -1,10 +1,60 @@
 package com.nure.apz.fatianov.daniil.orderservice.order;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum Status {
     CREATED,
     PROCESSED,
     SENT,
     DELIVERED,
     RECEIVED,
-    DENIED
+    DENIED;
+
+    /**
+     * Statuses in which the customer is still allowed to change the order contents.
+     */
+    public static final Set<Status> EDITABLE = Collections.unmodifiableSet(
+            EnumSet.complementOf(EnumSet.of(SENT, RECEIVED, DENIED)));
+
+    private static final Map<Status, Set<Status>> TRANSITIONS = new EnumMap<>(Status.class);
+
+    static {
+        TRANSITIONS.put(CREATED, EnumSet.of(PROCESSED, DENIED));
+        TRANSITIONS.put(PROCESSED, EnumSet.of(PROCESSED, SENT, DENIED));// повторна обробка дозволяє змінити дрон
+        TRANSITIONS.put(SENT, EnumSet.of(DELIVERED));
+        TRANSITIONS.put(DELIVERED, EnumSet.of(RECEIVED));
+        TRANSITIONS.put(RECEIVED, EnumSet.noneOf(Status.class));
+        TRANSITIONS.put(DENIED, EnumSet.noneOf(Status.class));
+    }
+
+    /**
+     * Checks whether an order in this status may be moved to the target status.
+     *
+     * @param target The status the order should be moved to.
+     * @return {@code true} if the transition is legal, otherwise {@code false}.
+     */
+    public boolean canTransitionTo(Status target) {
+        return TRANSITIONS.get(this).contains(target);
+    }
+
+    /**
+     * Returns every status from which an order may legally be moved to the target status.
+     * The result is used as the status condition of atomic updates.
+     *
+     * @param target The status the order should be moved to.
+     * @return The set of legal source statuses, empty if the target can not be reached.
+     */
+    public static Set<Status> allowedSources(Status target) {
+        Set<Status> sources = EnumSet.noneOf(Status.class);
+        for (Map.Entry<Status, Set<Status>> entry : TRANSITIONS.entrySet()) {
+            if (entry.getValue().contains(target)) {
+                sources.add(entry.getKey());
+            }
+        }
+        return sources;
+    }
 }
@@ -0,0 +1,14 @@
+package com.nure.apz.fatianov.daniil.orderservice.order;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StatusTransition {
+    private String id;
+    private Status expected;
+    private Status target;
+}
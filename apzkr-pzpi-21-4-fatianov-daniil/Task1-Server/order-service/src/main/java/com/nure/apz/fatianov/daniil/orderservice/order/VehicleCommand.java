@@ -0,0 +1,57 @@
+package com.nure.apz.fatianov.daniil.orderservice.order;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A vehicle-side effect of an order waiting for delivery to the vehicle-station service.
+ * Commands are embedded in the order document, so they are written by the same atomic operation
+ * that processes the order, and are removed by {@link VehicleCommandRelay} once delivered.
+ * The relay delivers them with the service account of the order service, so no user token is stored in the order.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class VehicleCommand {
+    private String commandId;
+    private String vehicleNumber;
+    private Integer vehicleId;
+    private Double weight;
+    private Integer departureStationId;
+    private Integer arrivalStationId;
+    private Integer attempts;
+    private Instant nextAttemptAt;
+    private Instant createdAt;
+
+    /**
+     * Creates a command that checks the vehicle's suitability for the order and then marks it as ready.
+     *
+     * @param vehicleNumber The number of the assigned vehicle.
+     * @param vehicleId The ID of the assigned vehicle.
+     * @param weight The total weight of the order items.
+     * @param departureStationId The ID of the departure station.
+     * @param arrivalStationId The ID of the arrival station.
+     * @return A command that is due immediately.
+     */
+    public static VehicleCommand makeReady(String vehicleNumber,
+                                           Integer vehicleId,
+                                           Double weight,
+                                           Integer departureStationId,
+                                           Integer arrivalStationId) {
+        Instant now = Instant.now();
+        return new VehicleCommand(
+                UUID.randomUUID().toString(),
+                vehicleNumber,
+                vehicleId,
+                weight,
+                departureStationId,
+                arrivalStationId,
+                0,
+                now,
+                now);
+    }
+}
@@ -0,0 +1,298 @@
+package com.nure.apz.fatianov.daniil.orderservice.order;
+
+import com.nure.apz.fatianov.daniil.orderservice.config.ServiceTokenProvider;
+import com.nure.apz.fatianov.daniil.orderservice.request.IsSuitableBatchRequestEntity;
+import com.nure.apz.fatianov.daniil.orderservice.response.IsSuitableBatchResponseEntity;
+import com.nure.apz.fatianov.daniil.orderservice.view.OrderAdminViewService;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Delivers the vehicle commands stored on processed orders to the vehicle-station service.
+ * All due commands are delivered with the service account of the order service, so all their vehicles
+ * are made ready with a single batch request and a command never depends on the token of the admin who issued it.
+ * The relay runs on the scheduler thread, so it calls the vehicle-station service with blocking {@link WebClient}
+ * requests, which work in the servlet and in the reactive profile alike.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Reading a batch of orders that have due commands through a partial index on the due time.</li>
+ *     <li>Checking the suitability of all assigned vehicles with one suitability matrix request.</li>
+ *     <li>Making all suitable vehicles of a group ready with one request and removing the delivered commands.</li>
+ *     <li>Unassigning a vehicle only when the matrix gives an explicit reason, so the order can be processed again;
+ *     failed or unclear checks are retried.</li>
+ *     <li>Rescheduling failed deliveries with exponential backoff, and unassigning the vehicle after a fixed
+ *     number of attempts, so the order can be processed again.</li>
+ * </ul>
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class VehicleCommandRelay {
+
+    private static final String vehicleStationServiceUrl = "http://localhost:8084/vehicle-station-service";
+    private static final int BATCH_SIZE = 100;
+    private static final int MAX_ATTEMPTS = 10;
+    private static final long BASE_BACKOFF = 1000L;// мс
+    private static final long MAX_BACKOFF = 300000L;// 5 хвилин
+
+    private final MongoTemplate mongoTemplate;
+    private final WebClient.Builder webClientBuilder;
+    private final OrderAdminViewService orderAdminViewService;
+    private final ServiceTokenProvider serviceTokenProvider;
+
+    private volatile boolean indexEnsured = false;
+
+    private record PendingCommand(String orderId, VehicleCommand command) {
+    }
+
+    @Scheduled(initialDelayString = "${order-service.vehicle-commands.relay-initial-delay:10000}",
+            fixedDelayString = "${order-service.vehicle-commands.relay-delay:1000}")
+    public void relay() {
+        Instant now = Instant.now();
+
+        List<Order> orders;
+        try {
+            ensureIndex();
+            Query query = new Query(Criteria.where("vehicleCommands")
+                    .elemMatch(Criteria.where("nextAttemptAt").lte(now))
+                    .and("vehicleCommands.nextAttemptAt").exists(true))
+                    .limit(BATCH_SIZE);
+            query.fields().include("vehicleCommands");
+            orders = mongoTemplate.find(query, Order.class);
+        } catch (Exception e) {
+            System.out.println("Cannot read vehicle commands: " + e.getMessage());
+            return;
+        }
+
+        List<PendingCommand> pendingCommands = new ArrayList<>();
+        for (Order order : orders) {
+            for (VehicleCommand command : order.getVehicleCommands()) {
+                if (!command.getNextAttemptAt().isAfter(now)) {
+                    pendingCommands.add(new PendingCommand(order.getId(), command));
+                }
+            }
+        }
+
+        if (!pendingCommands.isEmpty()) {
+            deliver(pendingCommands);
+        }
+    }
+
+    private void deliver(List<PendingCommand> pendingCommands) {
+        String authHeader;
+        List<String> suitability;
+        try {
+            authHeader = serviceTokenProvider.authHeader();
+            suitability = checkSuitability(pendingCommands, authHeader);
+        } catch (Exception e) {
+            invalidateIfRejected(e);
+            for (PendingCommand pending : pendingCommands) {
+                retry(pending, e);
+            }
+            return;
+        }
+
+        List<PendingCommand> suitableCommands = new ArrayList<>();
+        for (int i = 0; i < pendingCommands.size(); i++) {
+            PendingCommand pending = pendingCommands.get(i);
+            String reason = suitability.get(i);
+            if (reason == null) {
+                suitableCommands.add(pending);
+            } else {
+                reject(pending, reason);
+            }
+        }
+
+        if (suitableCommands.isEmpty()) {
+            return;
+        }
+
+        Set<String> numbers = new LinkedHashSet<>();
+        for (PendingCommand pending : suitableCommands) {
+            numbers.add(pending.command().getVehicleNumber());
+        }
+
+        List<String> missingNumbers;
+        try {
+            missingNumbers = makeReady(new ArrayList<>(numbers), authHeader);
+        } catch (Exception e) {
+            invalidateIfRejected(e);
+            for (PendingCommand pending : suitableCommands) {
+                retry(pending, e);
+            }
+            return;
+        }
+
+        for (PendingCommand pending : suitableCommands) {
+            if (missingNumbers.contains(pending.command().getVehicleNumber())) {
+                reject(pending, "does not exist");
+            } else {
+                remove(pending);
+            }
+        }
+    }
+
+    /**
+     * Checks all pending commands with one suitability matrix request.
+     * Only the explicit reason codes of the matrix reject a command; any other answer fails the whole check,
+     * so the commands are retried instead of losing their vehicle because of an outage or an expired token.
+     *
+     * @return For every pending command, {@code null} if its vehicle is suitable, otherwise the reason it is rejected.
+     * @throws IllegalStateException If the matrix is missing, malformed or contains an unknown code.
+     */
+    private List<String> checkSuitability(List<PendingCommand> pendingCommands, String authHeader) {
+        List<String> vehicleNumbers = new ArrayList<>();
+        List<IsSuitableBatchRequestEntity.OrderSpec> orderSpecs = new ArrayList<>();
+        for (PendingCommand pending : pendingCommands) {
+            VehicleCommand command = pending.command();
+            if (!vehicleNumbers.contains(command.getVehicleNumber())) {
+                vehicleNumbers.add(command.getVehicleNumber());
+            }
+            orderSpecs.add(IsSuitableBatchRequestEntity.OrderSpec.builder()
+                    .orderId(command.getCommandId())
+                    .weight(command.getWeight())
+                    .departureStationId(command.getDepartureStationId())
+                    .arrivalStationId(command.getArrivalStationId())
+                    .build());
+        }
+
+        IsSuitableBatchResponseEntity body = webClientBuilder.build()
+                .post()
+                .uri(vehicleStationServiceUrl.concat("/vehicle/is-suitable-batch"))
+                .header(HttpHeaders.AUTHORIZATION, authHeader)
+                .bodyValue(new IsSuitableBatchRequestEntity(orderSpecs, vehicleNumbers))
+                .retrieve()
+                .bodyToMono(IsSuitableBatchResponseEntity.class)
+                .block();
+
+        if (body == null || body.getMatrix() == null
+                || body.getMatrix().size() != pendingCommands.size()) {
+            throw new IllegalStateException("Something went wrong");
+        }
+
+        List<String> reasons = new ArrayList<>();
+        for (int i = 0; i < pendingCommands.size(); i++) {
+            String row = body.getMatrix().get(i);
+            int column = vehicleNumbers.indexOf(pendingCommands.get(i).command().getVehicleNumber());
+            if (row == null || row.length() != vehicleNumbers.size()) {
+                throw new IllegalStateException("Malformed suitability matrix");
+            }
+            reasons.add(switch (row.charAt(column)) {
+                case '.' -> null;
+                case 'V' -> "does not exist";
+                case 'S' -> "cannot be checked, because a station of the order does not exist";
+                case 'W' -> "is over capacity for this order";
+                case 'D' -> "cannot reach the arrival station of this order";
+                default -> throw new IllegalStateException("Unknown suitability code: " + row.charAt(column));
+            });
+        }
+        return reasons;
+    }
+
+    private List<String> makeReady(List<String> numbers, String authHeader) {
+        List<String> missingNumbers = webClientBuilder.build()
+                .put()
+                .uri(vehicleStationServiceUrl.concat("/vehicle/get-vehicles-ready"))
+                .header(HttpHeaders.AUTHORIZATION, authHeader)
+                .bodyValue(numbers)
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<List<String>>() {})
+                .block();
+
+        if (missingNumbers == null) {
+            throw new IllegalStateException("Something went wrong");
+        }
+        return missingNumbers;
+    }
+
+    private void invalidateIfRejected(Exception e) {
+        // Сервіс дронів відповідає 400 і на недійсний токен, тому наступна спроба автентифікується заново
+        if (e instanceof WebClientResponseException responseException
+                && responseException.getStatusCode().is4xxClientError()) {
+            serviceTokenProvider.invalidate();
+        }
+    }
+
+    private void remove(PendingCommand pending) {
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(pending.orderId())),
+                pullCommand(pending.command()),
+                Order.class);
+    }
+
+    private void reject(PendingCommand pending, String reason) {
+        VehicleCommand command = pending.command();
+        System.out.println("Vehicle with number: " + command.getVehicleNumber() + " " + reason
+                + ", unassigning it from order " + pending.orderId());
+
+        Query query = new Query(Criteria.where("_id").is(pending.orderId())
+                .and("vehicleId").is(command.getVehicleId())
+                .and("status").is(Status.PROCESSED));
+        Update update = pullCommand(command).unset("vehicleId");
+
+        if (mongoTemplate.updateFirst(query, update, Order.class).getMatchedCount() == 0) {
+            remove(pending);// замовлення вже рухається далі, дрон не знімаємо
+            return;
+        }
+
+        orderAdminViewService.update(pending.orderId(), new Update().unset("vehicleId").unset("vehicleNumber"));
+    }
+
+    private void retry(PendingCommand pending, Exception e) {
+        VehicleCommand command = pending.command();
+        int attempts = command.getAttempts() + 1;
+
+        if (attempts >= MAX_ATTEMPTS) {
+            // Дрон так і не став готовим, тож знімаємо його, щоб замовлення можна було обробити знову
+            reject(pending, "could not be made ready after " + attempts + " attempts (" + e.getMessage() + ")");
+            return;
+        }
+
+        long backoff = Math.min(MAX_BACKOFF, BASE_BACKOFF << (attempts - 1));
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(pending.orderId())
+                        .and("vehicleCommands.commandId").is(command.getCommandId())),
+                new Update()
+                        .set("vehicleCommands.$.attempts", attempts)
+                        .set("vehicleCommands.$.nextAttemptAt", Instant.now().plusMillis(backoff)),
+                Order.class);
+    }
+
+    private Update pullCommand(VehicleCommand command) {
+        return new Update().pull("vehicleCommands", new Document("commandId", command.getCommandId()));
+    }
+
+    /**
+     * Creates the partial index the relay reads with, the first time it runs.
+     * Only orders with pending commands are indexed; the existence condition of the index is repeated
+     * in the query, so MongoDB can use the partial index for the due time range.
+     */
+    private void ensureIndex() {
+        if (indexEnsured) {
+            return;
+        }
+
+        mongoTemplate.indexOps(Order.class).ensureIndex(new Index()
+                .on("vehicleCommands.nextAttemptAt", Sort.Direction.ASC)
+                .named("vehicleCommands_due")
+                .partial(PartialIndexFilter.of(Criteria.where("vehicleCommands.nextAttemptAt").exists(true))));
+        indexEnsured = true;
+    }
+}
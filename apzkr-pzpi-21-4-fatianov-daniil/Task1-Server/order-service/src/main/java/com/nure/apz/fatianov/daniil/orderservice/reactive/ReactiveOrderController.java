@@ -0,0 +1,278 @@
+package com.nure.apz.fatianov.daniil.orderservice.reactive;
+
+import com.nure.apz.fatianov.daniil.orderservice.order.Status;
+import com.nure.apz.fatianov.daniil.orderservice.request.OrderAddRequestBody;
+import com.nure.apz.fatianov.daniil.orderservice.request.OrderChangeRequestBody;
+import com.nure.apz.fatianov.daniil.orderservice.request.OrderProcessRequestBody;
+import com.nure.apz.fatianov.daniil.orderservice.request.OrderStatusUpdateRequestBody;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderAdminGetResponseEntity;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderAssignmentResponse;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderStatusUpdateResponse;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderUserGetResponse;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderVehicleGetResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/order-service")
+@RequiredArgsConstructor
+@Profile("reactive")
+public class ReactiveOrderController {
+
+    private final ReactiveOrderService orderService;
+
+    @Operation(summary = "Add an order",
+            description = "Adds a new order to the system. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Order added successfully"),
+                    @ApiResponse(responseCode = "500", description = "Failed to add order due to an internal server error")
+            })
+    @PostMapping("/add")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public Mono<ResponseEntity<String>> addOrder(
+            @RequestBody OrderAddRequestBody requestBody,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        return orderService.addOrder(requestBody, authHeader)
+                .thenReturn(ResponseEntity.ok().body("Order added successfully"))
+                .onErrorResume(e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Failed to add order: " + e.getMessage())));
+    }
+
+    @Operation(summary = "Get all orders",
+            description = "Retrieves all orders from the system. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "All orders retrieved successfully"),
+                    @ApiResponse(responseCode = "500", description = "Failed to retrieve orders due to internal server error")
+            })
+    @GetMapping("/get-all")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public Mono<ResponseEntity<List<OrderAdminGetResponseEntity>>> getAll(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        return orderService.getAll(authHeader)
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(new ResponseEntity<>(new ArrayList<>(), HttpStatus.INTERNAL_SERVER_ERROR)));
+    }
+
+    @Operation(summary = "Export all orders",
+            description = "Streams all orders as newline-delimited JSON without loading them into memory. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Orders are being streamed"),
+                    @ApiResponse(responseCode = "500", description = "Failed to export orders due to internal server error")
+            })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @SecurityRequirement(name = "Bearer Authentication")
+    public Mono<ResponseEntity<Flux<OrderAdminGetResponseEntity>>> exportOrders(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        return orderService.exportAll(authHeader)
+                .map(orders -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .body(orders))
+                .onErrorResume(e -> Mono.just(new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR)));
+    }
+
+    @Operation(summary = "Change order details",
+            description = "Changes details of an existing order. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Order processed successfully"),
+                    @ApiResponse(responseCode = "500", description = "Failed to change order due to internal server error")
+            })
+    @PutMapping("/change")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public Mono<ResponseEntity<String>> changeOrder(
+            @RequestBody OrderChangeRequestBody requestBody,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        return orderService.changeOrder(requestBody, authHeader)
+                .thenReturn(ResponseEntity.ok().body("Order processed successfully"))
+                .onErrorResume(e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Failed to change order: " + e.getMessage())));
+    }
+
+    @Operation(summary = "Process an order",
+            description = "Processes an existing order. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Order changed successfully"),
+                    @ApiResponse(responseCode = "500", description = "Failed to change order due to internal server error")
+            })
+    @PutMapping("/process")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public Mono<ResponseEntity<String>> processOrder(
+            @RequestBody OrderProcessRequestBody requestBody,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        return orderService.processOrder(requestBody, authHeader)
+                .thenReturn(ResponseEntity.ok().body("Order changed successfully"))
+                .onErrorResume(e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Failed to change order: " + e.getMessage())));
+    }
+
+    @Operation(summary = "Assign vehicles to all created orders",
+            description = "Assigns available vehicles to all created orders with minimal total flight distance and processes them in one bulk write. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Assignment applied, see the result of each order"),
+                    @ApiResponse(responseCode = "500", description = "Failed to assign vehicles due to internal server error")
+            })
+    @PutMapping("/assign-created")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public Mono<ResponseEntity<List<OrderAssignmentResponse>>> assignCreatedOrders(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        return orderService.assignCreatedOrders(authHeader)
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(new ResponseEntity<>(new ArrayList<>(), HttpStatus.INTERNAL_SERVER_ERROR)));
+    }
+
+    @Operation(summary = "Update order status",
+            description = "Updates the status of an existing order.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Order status updated successfully"),
+                    @ApiResponse(responseCode = "500", description = "Failed to update order status due to internal server error")
+            })
+    @PutMapping("/update-status")
+    public Mono<ResponseEntity<String>> updateOrderStatus(
+            @RequestParam String id,
+            @RequestParam Status status
+    ) {
+        return orderService.updateOrderStatus(id, status)
+                .thenReturn(ResponseEntity.ok().body("Order status updated successfully"))
+                .onErrorResume(e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Failed to update order status: " + e.getMessage())));
+    }
+
+    @Operation(summary = "Update statuses of many orders",
+            description = "Applies a batch of order status updates in one bulk write and returns the result of every item.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Batch processed, see the result of each item"),
+                    @ApiResponse(responseCode = "500", description = "Failed to update order statuses due to internal server error")
+            })
+    @PutMapping("/update-status-batch")
+    public Mono<ResponseEntity<List<OrderStatusUpdateResponse>>> updateOrderStatuses(
+            @RequestBody List<OrderStatusUpdateRequestBody> requestBody
+    ) {
+        return orderService.updateOrderStatuses(requestBody)
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(new ResponseEntity<>(new ArrayList<>(), HttpStatus.INTERNAL_SERVER_ERROR)));
+    }
+
+    @Operation(summary = "Get all order statuses",
+            description = "Retrieves all possible statuses of orders from the system.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "All order statuses retrieved successfully")
+            })
+    @GetMapping("/statuses")
+    public Mono<ResponseEntity<Status[]>> getAllStatuses() {
+        return Mono.just(ResponseEntity.ok(Status.values()));
+    }
+
+    @Operation(summary = "Get order for a vehicle",
+            description = "Retrieves the order assigned to a specific vehicle based on the drone ID. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Order for the vehicle retrieved successfully"),
+                    @ApiResponse(responseCode = "500", description = "Failed to retrieve order due to internal server error")
+            })
+    @GetMapping("/get-order-for-vehicle")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public Mono<ResponseEntity<OrderVehicleGetResponse>> getOrderForVehicle(
+            @RequestParam Integer droneId,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        return orderService.getOrderForVehicle(droneId, authHeader)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.ok().build())
+                .onErrorResume(e -> Mono.just(new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR)));
+    }
+
+    @Operation(summary = "Get orders for a user",
+            description = "Retrieves all orders associated with a user based on their authentication token. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "All orders for the user retrieved successfully"),
+                    @ApiResponse(responseCode = "500", description = "Failed to retrieve orders due to internal server error")
+            })
+    @GetMapping("/get-orders-for-user")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public Mono<ResponseEntity<List<OrderUserGetResponse>>> getOrderForUser(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String token
+    ) {
+        return orderService.getOrdersForUser(token)
+                .map(ResponseEntity::ok)
+                .onErrorResume(e -> Mono.just(new ResponseEntity<>(new ArrayList<>(), HttpStatus.INTERNAL_SERVER_ERROR)));
+    }
+
+    @Operation(summary = "Rebuild the admin order view",
+            description = "Recomputes the denormalised admin view of all orders from the orders collection. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Admin view rebuilt successfully"),
+                    @ApiResponse(responseCode = "500", description = "Failed to rebuild admin view due to internal server error")
+            })
+    @PostMapping("/admin-view/rebuild")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public Mono<ResponseEntity<String>> rebuildAdminView(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        return orderService.rebuildAdminView(authHeader)
+                .map(rebuilt -> ResponseEntity.ok().body("Admin view rebuilt for " + rebuilt + " orders"))
+                .onErrorResume(e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Failed to rebuild admin view: " + e.getMessage())));
+    }
+
+    @Operation(summary = "Propagate a changed vehicle number",
+            description = "Updates the vehicle number stored in the admin view of every order carried by the vehicle. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Admin view updated successfully"),
+                    @ApiResponse(responseCode = "500", description = "Failed to update admin view due to internal server error")
+            })
+    @PutMapping("/admin-view/vehicle-changed")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public Mono<ResponseEntity<String>> vehicleChanged(
+            @RequestParam Integer id,
+            @RequestParam String number,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        return orderService.changeVehicleNumber(id, number, authHeader)
+                .map(updated -> ResponseEntity.ok().body("Admin view updated for " + updated + " orders"))
+                .onErrorResume(e -> Mono.just(ResponseEntity
+                        .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Failed to update admin view: " + e.getMessage())));
+    }
+
+    @Operation(summary = "Ping test",
+            description = "Simple ping operation to test the availability and responsiveness of the service. Returns a static response to indicate the service is operational.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Service is available and responsive")
+            })
+    @GetMapping("/ping")
+    public Mono<ResponseEntity<String>> ping() {
+        return Mono.just(ResponseEntity.ok("pong"));
+    }
+}
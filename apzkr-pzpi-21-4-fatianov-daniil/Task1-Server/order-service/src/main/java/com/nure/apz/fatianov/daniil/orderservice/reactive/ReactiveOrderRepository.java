@@ -0,0 +1,17 @@
+package com.nure.apz.fatianov.daniil.orderservice.reactive;
+
+import com.nure.apz.fatianov.daniil.orderservice.order.Order;
+import com.nure.apz.fatianov.daniil.orderservice.order.Status;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Profile("reactive")
+public interface ReactiveOrderRepository extends ReactiveMongoRepository<Order, String> {
+    Mono<Boolean> existsByNumberAndStatusNot(String number, Status status);
+
+    Flux<Order> findAllByVehicleIdAndStatus(Integer vehicleId, Status status);
+
+    Flux<Order> findAllByUserId(Integer userId);
+}
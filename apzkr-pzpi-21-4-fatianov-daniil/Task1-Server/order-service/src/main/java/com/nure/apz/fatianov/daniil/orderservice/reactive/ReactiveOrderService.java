@@ -0,0 +1,683 @@
+package com.nure.apz.fatianov.daniil.orderservice.reactive;
+
+import com.nure.apz.fatianov.daniil.orderservice.config.ServiceTokenProvider;
+import com.nure.apz.fatianov.daniil.orderservice.order.*;
+import com.nure.apz.fatianov.daniil.orderservice.request.AssignmentPlanRequestEntity;
+import com.nure.apz.fatianov.daniil.orderservice.request.OrderAddRequestBody;
+import com.nure.apz.fatianov.daniil.orderservice.request.OrderChangeRequestBody;
+import com.nure.apz.fatianov.daniil.orderservice.request.OrderProcessRequestBody;
+import com.nure.apz.fatianov.daniil.orderservice.request.OrderStatusUpdateRequestBody;
+import com.nure.apz.fatianov.daniil.orderservice.response.AssignmentPlanResponseEntity;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderAdminGetResponseEntity;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderAssignmentResponse;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderStatusUpdateResponse;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderUserGetResponse;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderVehicleGetResponse;
+import com.nure.apz.fatianov.daniil.orderservice.view.OrderAdminView;
+import com.mongodb.bulk.BulkWriteResult;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Non-blocking implementation of the order operations, used when the {@code reactive} profile is active.
+ * It builds its writes with the same {@link OrderUpdates} as {@link OrderService}, but every database access goes through the reactive Mongo driver
+ * and every call to the user and vehicle-station services goes through {@link WebClient}, so no thread is held
+ * while waiting for a response. Independent lookups, such as the authorization check and the station and vehicle IDs
+ * of a request, are started together and joined with {@link Mono#zip}.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Creating, changing and processing orders with the same atomic status conditions as the servlet version.</li>
+ *     <li>Writing the lifecycle outbox and the vehicle commands in the same operation as the order.</li>
+ *     <li>Keeping the admin read model up to date after each write, and rebuilding or backfilling it.</li>
+ *     <li>Enriching exported and user orders with concurrent, per-request cached lookups.</li>
+ * </ul>
+ * </p>
+ */
+@Service
+@Profile("reactive")
+public class ReactiveOrderService {
+
+    private final ReactiveOrderRepository orderRepository;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final WebClient webClient;
+    private final OrderUpdates orderUpdates;
+    private final ServiceTokenProvider serviceTokenProvider;
+
+    private static final String userServiceUrl = "http://localhost:8082/user-service";
+    private static final String vehicleStationServiceUrl = "http://localhost:8084/vehicle-station-service";
+
+    private static final int LOOKUP_CONCURRENCY = 16;// кількість замовлень, що збагачуються одночасно
+    private static final int VIEW_BATCH_SIZE = 500;// кількість записів представлення в одному пакетному записі
+
+    private volatile boolean viewIndexesEnsured = false;
+    private volatile boolean adminViewBackfilled = false;
+
+    public ReactiveOrderService(ReactiveOrderRepository orderRepository,
+                                ReactiveMongoTemplate mongoTemplate,
+                                WebClient.Builder webClientBuilder,
+                                OrderUpdates orderUpdates,
+                                ServiceTokenProvider serviceTokenProvider) {
+        this.orderRepository = orderRepository;
+        this.mongoTemplate = mongoTemplate;
+        // Клієнт створюється один раз: побудова кодеків на кожен виклик коштує більше, ніж сам виклик
+        this.webClient = webClientBuilder.build();
+        this.orderUpdates = orderUpdates;
+        this.serviceTokenProvider = serviceTokenProvider;
+    }
+
+    /**
+     * Adds a new order. The unique number, the user ID and the arrival station ID are resolved concurrently,
+     * and the user email for the admin read model is fetched while the order is being saved.
+     *
+     * @param requestBody The {@link OrderAddRequestBody} containing details like items, station number, etc.
+     * @param authHeader The authorization header used to validate the request and fetch the user ID.
+     * @return A {@link Mono} that completes when the order is saved.
+     */
+    public Mono<Void> addOrder(OrderAddRequestBody requestBody, String authHeader) {
+        return authorized(checkToken("is-valid", authHeader), Mono.zip(
+                uniqueNumber(),
+                fetchUserId(authHeader),
+                fetchStationId(requestBody.getArrivalStationNumber(), authHeader)))
+                .flatMap(tuple -> {
+                    Order newOrder = orderUpdates.newOrder(tuple.getT1(), tuple.getT2(), requestBody.getItems(),
+                            tuple.getT3(), requestBody.getCreationDate().toInstant());
+
+                    Mono<Optional<String>> userEmail = fetchUserEmail(newOrder.getUserId(), authHeader)
+                            .map(Optional::of)
+                            .onErrorResume(e -> {
+                                System.out.println("Cannot fetch email of user " + newOrder.getUserId());
+                                return Mono.just(Optional.empty());
+                            });
+
+                    return Mono.zip(orderRepository.save(newOrder), userEmail);
+                })
+                .flatMap(tuple -> {
+                    OrderAdminView view = OrderAdminView.fromOrder(tuple.getT1());
+                    view.setArrivalStationNumber(requestBody.getArrivalStationNumber());
+                    view.setUserEmail(tuple.getT2().orElse(null));
+                    return saveView(view);
+                });
+    }
+
+    /**
+     * Retrieves all orders from the admin read model.
+     *
+     * @param authHeader The authorization header to validate admin access.
+     * @return A {@link Mono} with the list of {@link OrderAdminGetResponseEntity}, ordered by creation date.
+     */
+    public Mono<List<OrderAdminGetResponseEntity>> getAll(String authHeader) {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "creationDate"));
+
+        return authorized(checkToken("is-admin", authHeader),
+                mongoTemplate.find(query, OrderAdminView.class)
+                        .map(OrderAdminView::toResponse)
+                        .collectList());
+    }
+
+    /**
+     * Exports all orders. The orders are read from a cursor with backpressure and enriched with up to
+     * {@link #LOOKUP_CONCURRENCY} orders in flight; every distinct user, vehicle and station is looked up once.
+     *
+     * @param authHeader The authorization header to validate admin access.
+     * @return A {@link Mono} that fails if the requester is not an admin, otherwise emits the export stream.
+     */
+    public Mono<Flux<OrderAdminGetResponseEntity>> exportAll(String authHeader) {
+        return authorized(checkToken("is-admin", authHeader), Mono.just(Flux.defer(() -> {
+            Lookups lookups = new Lookups(authHeader);
+            return mongoTemplate.find(new Query(), Order.class)
+                    .flatMapSequential(order -> enrich(order, lookups), LOOKUP_CONCURRENCY);
+        })));
+    }
+
+    /**
+     * Rebuilds the admin read model from the orders collection, as {@link OrderService#rebuildAdminView} does.
+     * The rebuild starts only after the admin check, because it writes the read model.
+     *
+     * @param authHeader The authorization header to validate admin access.
+     * @return A {@link Mono} with the number of rebuilt entries.
+     */
+    public Mono<Long> rebuildAdminView(String authHeader) {
+        return checkToken("is-admin", authHeader)
+                .flatMap(admin -> admin
+                        ? rebuildView(authHeader)
+                        : Mono.error(new IllegalStateException("Invalid auth header")));
+    }
+
+    /**
+     * Propagates a changed vehicle number to every order carried by that vehicle.
+     *
+     * @param vehicleId The ID of the vehicle.
+     * @param number The new vehicle number.
+     * @param authHeader The authorization header to validate admin access.
+     * @return A {@link Mono} with the number of updated entries.
+     */
+    public Mono<Long> changeVehicleNumber(Integer vehicleId, String number, String authHeader) {
+        return checkToken("is-admin", authHeader)
+                .flatMap(admin -> admin
+                        ? mongoTemplate.updateMulti(
+                                new Query(Criteria.where("vehicleId").is(vehicleId)),
+                                new Update().set("vehicleNumber", number),
+                                OrderAdminView.class)
+                        .map(result -> result.getModifiedCount())
+                        : Mono.error(new IllegalStateException("Invalid auth header")));
+    }
+
+    /**
+     * Keeps the admin read model complete without manual rebuilds, as {@link OrderService#backfillAdminView} does.
+     * It runs on the scheduler thread, so it waits for the reactive pipelines to finish.
+     */
+    @Scheduled(initialDelayString = "${order-service.admin-view.backfill-initial-delay:10000}",
+            fixedDelayString = "${order-service.admin-view.backfill-delay:600000}")
+    public void backfillAdminView() {
+        try {
+            String authHeader = serviceTokenProvider.authHeader();
+
+            if (!adminViewBackfilled) {
+                Long views = mongoTemplate.estimatedCount(OrderAdminView.class).block();
+                Long orders = mongoTemplate.estimatedCount(Order.class).block();
+                if (views < orders) {
+                    System.out.println("Admin view rebuilt for " + rebuildView(authHeader).block() + " orders");
+                }
+                adminViewBackfilled = true;
+            }
+
+            mongoTemplate.findDistinct(new Query(Criteria.where("userEmail").is(null)),
+                            "userId", OrderAdminView.class, Integer.class)
+                    .concatMap(userId -> fetchUserEmail(userId, authHeader)
+                            .flatMap(email -> mongoTemplate.updateMulti(
+                                    new Query(Criteria.where("userId").is(userId).and("userEmail").is(null)),
+                                    new Update().set("userEmail", email),
+                                    OrderAdminView.class))
+                            .then()
+                            .onErrorResume(e -> {
+                                System.out.println("Cannot fetch email of user " + userId);
+                                return Mono.empty();
+                            }))
+                    .blockLast();
+        } catch (Exception e) {
+            System.out.println("Cannot backfill admin view: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Changes the arrival station and items of an order while it is still editable.
+     *
+     * @param requestBody The {@link OrderChangeRequestBody} containing the new details for the order.
+     * @param authHeader The authorization header to validate user access.
+     * @return A {@link Mono} that completes when the order is changed.
+     */
+    public Mono<Void> changeOrder(OrderChangeRequestBody requestBody, String authHeader) {
+        String id = requestBody.getId();
+
+        return authorized(checkToken("is-user", authHeader),
+                fetchStationId(requestBody.getArrivalStationNumber(), authHeader))
+                .flatMap(arrivalStationId -> {
+                    Update update = orderUpdates.change(arrivalStationId, requestBody.getItems());
+
+                    return updateIfStatusIn(id, Status.EDITABLE, update)
+                            .switchIfEmpty(Mono.defer(() -> failedUpdate(id,
+                                    "Order with id " + id + " does not exist",
+                                    status -> "Order with id " + id + " already has" + status)))
+                            .then(Mono.defer(() -> updateView(id, orderUpdates.changeView(
+                                    arrivalStationId, requestBody.getArrivalStationNumber(), requestBody.getItems()))));
+                });
+    }
+
+    /**
+     * Processes an order. The order, the departure station ID and the vehicle ID are loaded concurrently,
+     * and the order is moved to {@link Status#PROCESSED} with a single atomic write that also stores
+     * the vehicle command.
+     *
+     * @param requestBody The {@link OrderProcessRequestBody} containing the departure station and vehicle number.
+     * @param authHeader The authorization header to validate administrative access.
+     * @return A {@link Mono} that completes when the order is processed.
+     */
+    public Mono<Void> processOrder(OrderProcessRequestBody requestBody, String authHeader) {
+        String id = requestBody.getId();
+        boolean hasVehicle = !requestBody.getVehicleNumber().equals(" ");
+
+        Mono<Optional<Integer>> vehicleId = hasVehicle
+                ? fetchVehicleId(requestBody.getVehicleNumber(), authHeader).map(Optional::of)
+                : Mono.just(Optional.empty());
+
+        return authorized(checkToken("is-admin", authHeader), Mono.zip(
+                orderRepository.findById(id)
+                        .switchIfEmpty(Mono.error(new IllegalStateException("Order with id " + id + " does not exist"))),
+                fetchStationId(requestBody.getDepartureStationNumber(), authHeader),
+                vehicleId))
+                .flatMap(tuple -> {
+                    Order order = tuple.getT1();
+                    orderUpdates.checkTransition(order, Status.PROCESSED);
+
+                    Integer departureStationId = tuple.getT2();
+                    Integer assignedVehicleId = tuple.getT3().orElse(order.getVehicleId());
+                    String assignedVehicleNumber = hasVehicle ? requestBody.getVehicleNumber() : null;
+
+                    Update update = orderUpdates.process(
+                            order, requestBody.getItems(), departureStationId, assignedVehicleId, assignedVehicleNumber);
+                    Update viewUpdate = orderUpdates.processView(requestBody.getItems(), departureStationId,
+                            requestBody.getDepartureStationNumber(), assignedVehicleId, assignedVehicleNumber);
+
+                    return transitionStatus(order, Status.PROCESSED, update)
+                            .switchIfEmpty(Mono.error(new IllegalStateException("Order with id " +
+                                    id + " was changed concurrently and can not be processed")))
+                            .then(Mono.defer(() -> updateView(id, viewUpdate)));
+                });
+    }
+
+    /**
+     * Updates the status of an order with one atomic operation, as {@link OrderService#updateOrderStatus} does.
+     *
+     * @param id The unique identifier of the order to be updated.
+     * @param status The new status to be set for the order.
+     * @return A {@link Mono} that completes when the status is changed.
+     */
+    public Mono<Void> updateOrderStatus(String id, Status status) {
+        return orderRepository.findById(id)
+                .switchIfEmpty(Mono.error(new IllegalStateException("Order with id: " + id + " does not exist")))
+                .flatMap(order -> transitionStatus(order, status, new Update()))
+                .switchIfEmpty(Mono.defer(() -> failedUpdate(id,
+                        "Order with id: " + id + " does not exist",
+                        current -> "Order with id: " + id + " can not change status from " + current + " to " + status)))
+                .then(Mono.defer(() -> updateView(id, new Update().set("status", status))));
+    }
+
+    /**
+     * Updates the statuses of many orders with one bulk write, as {@link OrderService#updateOrderStatuses} does.
+     *
+     * @param requestBody The list of order IDs and the statuses they should be moved to.
+     * @return A {@link Mono} with one {@link OrderStatusUpdateResponse} per requested change, in request order.
+     */
+    public Mono<List<OrderStatusUpdateResponse>> updateOrderStatuses(List<OrderStatusUpdateRequestBody> requestBody) {
+        Set<String> ids = new HashSet<>();
+        for (OrderStatusUpdateRequestBody request : requestBody) {
+            ids.add(request.getId());
+        }
+
+        return findEventFields(ids).flatMap(currentOrders -> {
+            OrderUpdates.StatusUpdatePlan plan = orderUpdates.planStatusUpdates(requestBody, currentOrders);
+
+            return compareAndSetStatuses(plan.getTransitions(), plan.getOrders())
+                    .flatMap(matched -> matched < plan.getTransitions().size()
+                            ? findStatuses(ids).doOnNext(plan::markConflicts).then()
+                            : Mono.<Void>empty())
+                    .then(Mono.defer(() -> updateViewStatuses(plan.updatedStatuses())))
+                    .thenReturn(plan.getResponses());
+        });
+    }
+
+    /**
+     * Assigns vehicles to all created orders, as {@link OrderService#assignCreatedOrders} does.
+     * The created orders, the busy vehicles and the admin check are read concurrently, and the plan is requested
+     * from the vehicle-station service without holding a thread.
+     *
+     * @param authHeader The authorization header to validate administrative access.
+     * @return A {@link Mono} with one {@link OrderAssignmentResponse} per created order.
+     */
+    public Mono<List<OrderAssignmentResponse>> assignCreatedOrders(String authHeader) {
+        return authorized(checkToken("is-admin", authHeader), Mono.zip(
+                mongoTemplate.find(orderUpdates.createdOrders(), Order.class).collectList(),
+                mongoTemplate.findDistinct(orderUpdates.busyVehicles(), "vehicleId", Order.class, Integer.class).collectList()))
+                .flatMap(tuple -> {
+                    OrderUpdates.Assignment assignment = orderUpdates.prepareAssignment(tuple.getT1());
+                    if (assignment.getOrderSpecs().isEmpty()) {
+                        return Mono.just(assignment.getResponses());
+                    }
+
+                    return webClient
+                            .post()
+                            .uri(vehicleStationServiceUrl.concat("/vehicle/assignment-plan"))
+                            .header(HttpHeaders.AUTHORIZATION, authHeader)
+                            .bodyValue(new AssignmentPlanRequestEntity(assignment.getOrderSpecs(), tuple.getT2()))
+                            .retrieve()
+                            .bodyToMono(AssignmentPlanResponseEntity.class)
+                            .switchIfEmpty(Mono.error(new IllegalStateException("Assignment plan can not be computed")))
+                            .flatMap(plan -> {
+                                Map<String, Update> updates = assignment.apply(plan);
+                                return transitionStatuses(Status.CREATED, Status.PROCESSED, assignment.getOrders(), updates)
+                                        .flatMap(matched -> matched < updates.size()
+                                                ? mongoTemplate.find(orderUpdates.appliedAssignments(updates.keySet()), Order.class)
+                                                        .collectMap(Order::getId)
+                                                        .doOnNext(assignment::markConflicts)
+                                                        .then()
+                                                : Mono.<Void>empty())
+                                        .then(Mono.defer(() -> Flux.fromIterable(assignment.finish().entrySet())
+                                                .concatMap(viewUpdate -> updateView(viewUpdate.getKey(), viewUpdate.getValue()))
+                                                .then()))
+                                        .thenReturn(assignment.getResponses());
+                            });
+                });
+    }
+
+    /**
+     * Retrieves the processed order assigned to a vehicle. The admin check and the order query run concurrently.
+     *
+     * @param id The ID of the vehicle associated with the order to be retrieved.
+     * @param authHeader The authorization header used to verify administrative access.
+     * @return A {@link Mono} with the order details, or an empty {@link Mono} if no such order exists.
+     */
+    public Mono<OrderVehicleGetResponse> getOrderForVehicle(Integer id, String authHeader) {
+        return authorized(checkToken("is-admin", authHeader),
+                orderRepository.findAllByVehicleIdAndStatus(id, Status.PROCESSED).collectList())
+                .filter(orders -> !orders.isEmpty())
+                .flatMap(orders -> fetchStationNumber(orders.get(0).getArrivalStationId(), authHeader)
+                        .map(arrivalStationNumber -> {
+                            OrderVehicleGetResponse orderVehicleGetResponse = orderUpdates.toVehicleResponse(orders);
+                            orderVehicleGetResponse.setArrivalStationNumber(arrivalStationNumber);
+                            return orderVehicleGetResponse;
+                        }));
+    }
+
+    /**
+     * Retrieves all orders of the authenticated user. The station numbers of all orders are looked up concurrently,
+     * and each distinct station only once.
+     *
+     * @param authHeader The authorization header containing the Bearer token used for user authentication.
+     * @return A {@link Mono} with the list of {@link OrderUserGetResponse}.
+     */
+    public Mono<List<OrderUserGetResponse>> getOrdersForUser(String authHeader) {
+        Lookups lookups = new Lookups(authHeader);
+
+        return fetchUserId(authHeader)
+                .flatMapMany(orderRepository::findAllByUserId)
+                .flatMapSequential(order -> Mono.zip(
+                                lookups.stationNumber(order.getArrivalStationId()),
+                                lookups.stationNumber(order.getDepartureStationId()))
+                        .map(tuple -> {
+                            OrderUserGetResponse orderUserGetResponse = new OrderUserGetResponse();
+                            orderUserGetResponse.setId(order.getId());
+                            orderUserGetResponse.setNumber(order.getNumber());
+                            orderUserGetResponse.setItems(order.getItems());
+                            orderUserGetResponse.setReceiptCode(order.getReceiptCode());
+                            orderUserGetResponse.setCreationDate(order.getCreationDate().atZone(ZoneOffset.UTC));
+                            orderUserGetResponse.setStatus(order.getStatus());
+                            orderUserGetResponse.setArrivalStationNumber(tuple.getT1().orElse(null));
+                            orderUserGetResponse.setDepartureStationNumber(tuple.getT2().orElse(null));
+                            return orderUserGetResponse;
+                        }), LOOKUP_CONCURRENCY)
+                .collectList();
+    }
+
+    /**
+     * Lookups of one request, each distinct ID is fetched once and shared by all orders that reference it.
+     */
+    private final class Lookups {
+        private final String authHeader;
+        private final Map<Integer, Mono<Optional<String>>> userEmails = new ConcurrentHashMap<>();
+        private final Map<Integer, Mono<Optional<String>>> vehicleNumbers = new ConcurrentHashMap<>();
+        private final Map<Integer, Mono<Optional<String>>> stationNumbers = new ConcurrentHashMap<>();
+
+        private Lookups(String authHeader) {
+            this.authHeader = authHeader;
+        }
+
+        Mono<Optional<String>> userEmail(Integer id) {
+            return cached(userEmails, id, key -> fetchUserEmail(key, authHeader));
+        }
+
+        Mono<Optional<String>> vehicleNumber(Integer id) {
+            return cached(vehicleNumbers, id, key -> fetchVehicleNumber(key, authHeader));
+        }
+
+        Mono<Optional<String>> stationNumber(Integer id) {
+            return cached(stationNumbers, id, key -> fetchStationNumber(key, authHeader));
+        }
+
+        private Mono<Optional<String>> cached(Map<Integer, Mono<Optional<String>>> cache,
+                                              Integer id,
+                                              Function<Integer, Mono<String>> fetch) {
+            if (id == null) {
+                return Mono.just(Optional.empty());
+            }
+            return cache.computeIfAbsent(id, key -> fetch.apply(key).map(Optional::of).cache());
+        }
+    }
+
+    private Mono<OrderAdminGetResponseEntity> enrich(Order order, Lookups lookups) {
+        return Mono.zip(
+                        lookups.userEmail(order.getUserId()),
+                        lookups.vehicleNumber(order.getVehicleId()),
+                        lookups.stationNumber(order.getDepartureStationId()),
+                        lookups.stationNumber(order.getArrivalStationId()))
+                .map(tuple -> {
+                    OrderAdminGetResponseEntity orderAdminGetResponse = OrderAdminView.fromOrder(order).toResponse();
+                    orderAdminGetResponse.setUserEmail(tuple.getT1().orElse(null));
+                    orderAdminGetResponse.setVehicleNumber(tuple.getT2().orElse(null));
+                    orderAdminGetResponse.setDepartureStationNumber(tuple.getT3().orElse(null));
+                    orderAdminGetResponse.setArrivalStationNumber(tuple.getT4().orElse(null));
+                    return orderAdminGetResponse;
+                });
+    }
+
+    private Mono<String> uniqueNumber() {
+        return Mono.fromSupplier(orderUpdates::generateNumber)
+                .filterWhen(number -> orderRepository
+                        .existsByNumberAndStatusNot(number, Status.RECEIVED)
+                        .map(exists -> !exists))
+                .repeatWhenEmpty(repeat -> repeat);
+    }
+
+    private Mono<Order> updateIfStatusIn(String id, Collection<Status> statuses, Update update) {
+        return mongoTemplate.findAndModify(orderUpdates.whereStatusIn(id, statuses), update,
+                FindAndModifyOptions.options().returnNew(true), Order.class);
+    }
+
+    private Mono<Order> transitionStatus(Order order, Status target, Update update) {
+        return mongoTemplate.findAndModify(orderUpdates.whereTransitionAllowed(order.getId(), target),
+                orderUpdates.transition(order, target, update),
+                FindAndModifyOptions.options().returnNew(true), Order.class);
+    }
+
+    private <T> Mono<T> failedUpdate(String id, String notFoundMessage, Function<Status, String> illegalMessage) {
+        return orderRepository.findById(id)
+                .switchIfEmpty(Mono.error(new IllegalStateException(notFoundMessage)))
+                .flatMap(order -> Mono.error(new IllegalStateException(illegalMessage.apply(order.getStatus()))));
+    }
+
+    private Mono<Map<String, Status>> findStatuses(Collection<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("status");
+
+        return mongoTemplate.find(query, Order.class)
+                .collect(HashMap::new, (statuses, order) -> statuses.put(order.getId(), order.getStatus()));
+    }
+
+    private Mono<Map<String, Order>> findEventFields(Collection<String> ids) {
+        return mongoTemplate.find(orderUpdates.eventFields(ids), Order.class).collectMap(Order::getId);
+    }
+
+    private Mono<Integer> compareAndSetStatuses(List<StatusTransition> transitions, Map<String, Order> orders) {
+        if (transitions.isEmpty()) {
+            return Mono.just(0);
+        }
+
+        ReactiveBulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Order.class);
+        for (StatusTransition transition : transitions) {
+            bulkOperations.updateOne(
+                    orderUpdates.whereStatus(transition.getId(), transition.getExpected()),
+                    orderUpdates.transition(orders.get(transition.getId()), transition.getTarget(), new Update()));
+        }
+
+        return bulkOperations.execute().map(BulkWriteResult::getMatchedCount);
+    }
+
+    private Mono<Integer> transitionStatuses(Status expected, Status target, Map<String, Order> orders, Map<String, Update> updates) {
+        if (updates.isEmpty()) {
+            return Mono.just(0);
+        }
+
+        ReactiveBulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Order.class);
+        for (Map.Entry<String, Update> entry : updates.entrySet()) {
+            bulkOperations.updateOne(
+                    orderUpdates.whereStatus(entry.getKey(), expected),
+                    orderUpdates.transition(orders.get(entry.getKey()), target, entry.getValue()));
+        }
+
+        return bulkOperations.execute().map(BulkWriteResult::getMatchedCount);
+    }
+
+    private Mono<Void> saveView(OrderAdminView view) {
+        return ensureViewIndexes()
+                .then(mongoTemplate.save(view))
+                .then()
+                .onErrorResume(e -> {
+                    System.out.println("Cannot update admin view for order " + view.getId());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Long> rebuildView(String authHeader) {
+        Lookups lookups = new Lookups(authHeader);
+        return ensureViewIndexes().then(mongoTemplate.find(new Query(), Order.class)
+                .flatMapSequential(order -> enrich(order, lookups)
+                        .map(response -> OrderAdminView.fromResponse(order, response)), LOOKUP_CONCURRENCY)
+                .buffer(VIEW_BATCH_SIZE)
+                .concatMap(views -> {
+                    ReactiveBulkOperations bulkOperations =
+                            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderAdminView.class);
+                    for (OrderAdminView view : views) {
+                        bulkOperations.replaceOne(
+                                new Query(Criteria.where("_id").is(view.getId())),
+                                view,
+                                FindAndReplaceOptions.options().upsert());
+                    }
+                    return bulkOperations.execute().thenReturn((long) views.size());
+                })
+                .reduce(0L, Long::sum));
+    }
+
+    private Mono<Void> updateView(String orderId, Update update) {
+        return mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(orderId)), update, OrderAdminView.class)
+                .then()
+                .onErrorResume(e -> {
+                    System.out.println("Cannot update admin view for order " + orderId);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> updateViewStatuses(Map<String, Status> statuses) {
+        if (statuses.isEmpty()) {
+            return Mono.empty();
+        }
+
+        ReactiveBulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderAdminView.class);
+        for (Map.Entry<String, Status> entry : statuses.entrySet()) {
+            bulkOperations.updateOne(
+                    new Query(Criteria.where("_id").is(entry.getKey())),
+                    new Update().set("status", entry.getValue()));
+        }
+
+        return bulkOperations.execute()
+                .then()
+                .onErrorResume(e -> {
+                    System.out.println("Cannot update admin view for orders " + statuses.keySet());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> ensureViewIndexes() {
+        if (viewIndexesEnsured) {
+            return Mono.empty();
+        }
+
+        ReactiveIndexOperations indexOperations = mongoTemplate.indexOps(OrderAdminView.class);
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        return Flux.fromIterable(resolver.resolveIndexFor(OrderAdminView.class))
+                .concatMap(indexOperations::ensureIndex)
+                .then()
+                .doOnSuccess(ignored -> viewIndexesEnsured = true);
+    }
+
+    /**
+     * Joins an authorization check with work that was started at the same time.
+     *
+     * @param check The authorization check.
+     * @param work The work to return if the check succeeds.
+     * @return The result of the work, or an error if the check failed.
+     */
+    private <T> Mono<T> authorized(Mono<Boolean> check, Mono<T> work) {
+        return Mono.zip(check, work).flatMap(tuple -> tuple.getT1()
+                ? Mono.just(tuple.getT2())
+                : Mono.error(new IllegalStateException("Invalid auth header")));
+    }
+
+    private Mono<Boolean> checkToken(String check, String authHeader) {
+        if (authHeader == null || authHeader.isEmpty()) {
+            return Mono.just(false);
+        }
+
+        String token = authHeader.substring(7);
+        return webClient
+                .get()
+                .uri(userServiceUrl.concat("/auth/" + check + "?token=" + token))
+                .retrieve()
+                .bodyToMono(Boolean.class)
+                .defaultIfEmpty(false);
+    }
+
+    private Mono<Integer> fetchUserId(String authHeader) {
+        String token = authHeader.substring(7);
+        return lookup(userServiceUrl.concat("/user/get-userId?token=" + token), authHeader,
+                Integer.class, "Something went wrong");
+    }
+
+    private Mono<String> fetchUserEmail(Integer userId, String authHeader) {
+        return lookup(userServiceUrl.concat("/user/get-user-email?id=" + userId), authHeader,
+                String.class, "User with id " + userId + " can not be found");
+    }
+
+    private Mono<Integer> fetchStationId(String number, String authHeader) {
+        return lookup(vehicleStationServiceUrl.concat("/station/get-id?number=" + number), authHeader,
+                Integer.class, "Station with number: " + number + " can not be found");
+    }
+
+    private Mono<String> fetchStationNumber(Integer stationId, String authHeader) {
+        return lookup(vehicleStationServiceUrl.concat("/station/get-number?id=" + stationId), authHeader,
+                String.class, "Station with id " + stationId + " can not be found");
+    }
+
+    private Mono<Integer> fetchVehicleId(String number, String authHeader) {
+        return lookup(vehicleStationServiceUrl.concat("/vehicle/get-id?number=" + number), authHeader,
+                Integer.class, "Vehicle with number: " + number + " can not be found");
+    }
+
+    private Mono<String> fetchVehicleNumber(Integer vehicleId, String authHeader) {
+        return lookup(vehicleStationServiceUrl.concat("/vehicle/get-number?id=" + vehicleId), authHeader,
+                String.class, "Vehicle with id " + vehicleId + " can not be found");
+    }
+
+    private <T> Mono<T> lookup(String url, String authHeader, Class<T> type, String errorMessage) {
+        return webClient
+                .get()
+                .uri(url)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + authHeader.substring(7))
+                .retrieve()
+                .bodyToMono(type)
+                .onErrorMap(WebClientResponseException.class, e -> new IllegalStateException(errorMessage))
+                .switchIfEmpty(Mono.error(new IllegalStateException(errorMessage)));
+    }
+}
@@ -0,0 +1,27 @@
+package com.nure.apz.fatianov.daniil.orderservice.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AssignmentPlanRequestEntity {
+    private List<OrderSpec> orders;
+    private List<Integer> excludedVehicleIds;
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class OrderSpec {
+        private String orderId;
+        private Double weight;
+        private Integer arrivalStationId;
+    }
+}
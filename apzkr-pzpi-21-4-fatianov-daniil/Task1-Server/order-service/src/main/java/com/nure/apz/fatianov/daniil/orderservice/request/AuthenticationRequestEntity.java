@@ -0,0 +1,17 @@
+package com.nure.apz.fatianov.daniil.orderservice.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString(exclude = "password")
+public class AuthenticationRequestEntity {
+    private String email;
+    private String password;
+}
@@ -10,6 +10,7 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 public class IsSuitableRequestEntity {
+    private String vehicleNumber;
     private Double weight;
     private Integer departureStationId;
     private Integer arrivalStationId;
@@ -0,0 +1,16 @@
+package com.nure.apz.fatianov.daniil.orderservice.request;
+
+import com.nure.apz.fatianov.daniil.orderservice.order.Status;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderStatusUpdateRequestBody {
+    private String id;
+    private Status status;
+}
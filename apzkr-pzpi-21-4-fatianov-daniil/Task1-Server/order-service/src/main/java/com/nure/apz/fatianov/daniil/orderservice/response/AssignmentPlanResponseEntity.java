@@ -0,0 +1,31 @@
+package com.nure.apz.fatianov.daniil.orderservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AssignmentPlanResponseEntity {
+    private List<Assignment> assignments;
+    private List<String> unassignedOrderIds;
+    private Double totalDistance;
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Assignment {
+        private String orderId;
+        private Integer vehicleId;
+        private String vehicleNumber;
+        private Integer departureStationId;
+        private String departureStationNumber;
+        private Double distance;
+    }
+}
@@ -0,0 +1,21 @@
+package com.nure.apz.fatianov.daniil.orderservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class IsSuitableBatchResponseEntity {
+    private List<String> orderIds;
+    private List<String> vehicleNumbers;
+    private List<String> matrix;// рядок на замовлення, символ на дрон
+    private Map<Character, String> legend;
+    private Integer suitableCount;
+}
@@ -0,0 +1,20 @@
+package com.nure.apz.fatianov.daniil.orderservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderAssignmentResponse {
+    private String id;
+    private String number;
+    private String vehicleNumber;
+    private String departureStationNumber;
+    private Double distance;
+    private OrderAssignmentResult result;
+    private String message;
+}
@@ -0,0 +1,8 @@
+package com.nure.apz.fatianov.daniil.orderservice.response;
+
+public enum OrderAssignmentResult {
+    ASSIGNED,
+    NO_SUITABLE_VEHICLE,
+    INVALID_ORDER,
+    CONFLICT
+}
@@ -0,0 +1,18 @@
+package com.nure.apz.fatianov.daniil.orderservice.response;
+
+import com.nure.apz.fatianov.daniil.orderservice.order.Status;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderStatusUpdateResponse {
+    private String id;
+    private Status status;
+    private OrderStatusUpdateResult result;
+    private String message;
+}
@@ -0,0 +1,8 @@
+package com.nure.apz.fatianov.daniil.orderservice.response;
+
+public enum OrderStatusUpdateResult {
+    UPDATED,
+    NOT_FOUND,
+    ILLEGAL_TRANSITION,
+    CONFLICT
+}
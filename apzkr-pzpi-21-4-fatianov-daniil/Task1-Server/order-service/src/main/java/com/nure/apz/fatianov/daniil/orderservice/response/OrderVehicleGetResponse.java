@@ -15,5 +15,6 @@ import java.util.List;
 public class OrderVehicleGetResponse {
     private String arrivalStationNumber;
     private String number;
+    private List<String> orderNumbers;
     private List<Item> items;
 }
@@ -0,0 +1,86 @@
+package com.nure.apz.fatianov.daniil.orderservice.view;
+
+import com.nure.apz.fatianov.daniil.orderservice.order.Item;
+import com.nure.apz.fatianov.daniil.orderservice.order.Order;
+import com.nure.apz.fatianov.daniil.orderservice.order.Status;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderAdminGetResponseEntity;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Denormalised copy of an {@link Order} that already contains every display field needed by the admin panel,
+ * so admin reads do not have to call the user and vehicle-station services.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Document("order_admin_view")
+public class OrderAdminView {
+    @Id
+    private String id;
+    @Indexed
+    private Integer userId;
+    private String userEmail;
+    @Indexed(sparse = true)
+    private Integer vehicleId;
+    private String vehicleNumber;
+    @Indexed(sparse = true)
+    private Integer departureStationId;
+    private String departureStationNumber;
+    @Indexed
+    private Integer arrivalStationId;
+    private String arrivalStationNumber;
+    private String number;
+    private String receiptCode;
+    @Indexed
+    private Instant creationDate;
+    private Status status;
+    private List<Item> items;
+
+    public static OrderAdminView fromOrder(Order order) {
+        OrderAdminView view = new OrderAdminView();
+        view.setId(order.getId());
+        view.setUserId(order.getUserId());
+        view.setVehicleId(order.getVehicleId());
+        view.setDepartureStationId(order.getDepartureStationId());
+        view.setArrivalStationId(order.getArrivalStationId());
+        view.setNumber(order.getNumber());
+        view.setReceiptCode(order.getReceiptCode());
+        view.setCreationDate(order.getCreationDate());
+        view.setStatus(order.getStatus());
+        view.setItems(order.getItems());
+        return view;
+    }
+
+    public static OrderAdminView fromResponse(Order order, OrderAdminGetResponseEntity response) {
+        OrderAdminView view = fromOrder(order);
+        view.setUserEmail(response.getUserEmail());
+        view.setVehicleNumber(response.getVehicleNumber());
+        view.setDepartureStationNumber(response.getDepartureStationNumber());
+        view.setArrivalStationNumber(response.getArrivalStationNumber());
+        return view;
+    }
+
+    public OrderAdminGetResponseEntity toResponse() {
+        OrderAdminGetResponseEntity response = new OrderAdminGetResponseEntity();
+        response.setId(id);
+        response.setUserEmail(userEmail);
+        response.setVehicleNumber(vehicleNumber);
+        response.setDepartureStationNumber(departureStationNumber);
+        response.setArrivalStationNumber(arrivalStationNumber);
+        response.setNumber(number);
+        response.setReceiptCode(receiptCode);
+        response.setCreationDate(creationDate.atZone(ZoneOffset.UTC));
+        response.setStatus(status);
+        response.setItems(items);
+        return response;
+    }
+}
@@ -0,0 +1,71 @@
+package com.nure.apz.fatianov.daniil.orderservice.view;
+
+import com.nure.apz.fatianov.daniil.orderservice.order.OrderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/order-service/admin-view")
+@RequiredArgsConstructor
+@Profile("!reactive")
+public class OrderAdminViewController {
+
+    private final OrderService orderService;
+    private final OrderAdminViewService orderAdminViewService;
+
+    @Operation(summary = "Rebuild the admin order view",
+            description = "Recomputes the denormalised admin view of all orders from the orders collection. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Admin view rebuilt successfully"),
+                    @ApiResponse(responseCode = "500", description = "Failed to rebuild admin view due to internal server error")
+            })
+    @PostMapping("/rebuild")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<String> rebuild(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            long rebuilt = orderService.rebuildAdminView(authHeader);
+            return ResponseEntity.ok().body("Admin view rebuilt for " + rebuilt + " orders");
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to rebuild admin view: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Propagate a changed vehicle number",
+            description = "Updates the vehicle number stored in the admin view of every order carried by the vehicle. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Admin view updated successfully"),
+                    @ApiResponse(responseCode = "500", description = "Failed to update admin view due to internal server error")
+            })
+    @PutMapping("/vehicle-changed")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<String> vehicleChanged(
+            @RequestParam Integer id,
+            @RequestParam String number,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            if (!orderService.isAdmin(authHeader)) {
+                throw new IllegalStateException("Invalid auth header");
+            }
+            long updated = orderAdminViewService.changeVehicleNumber(id, number);
+            return ResponseEntity.ok().body("Admin view updated for " + updated + " orders");
+        } catch (Exception e) {
+            return ResponseEntity
+                    .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Failed to update admin view: " + e.getMessage());
+        }
+    }
+}
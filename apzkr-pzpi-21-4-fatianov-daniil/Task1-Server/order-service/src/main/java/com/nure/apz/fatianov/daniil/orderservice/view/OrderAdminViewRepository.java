@@ -0,0 +1,6 @@
+package com.nure.apz.fatianov.daniil.orderservice.view;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface OrderAdminViewRepository extends MongoRepository<OrderAdminView, String> {
+}
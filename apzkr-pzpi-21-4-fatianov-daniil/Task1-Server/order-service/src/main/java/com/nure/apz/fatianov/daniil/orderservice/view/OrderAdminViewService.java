@@ -0,0 +1,179 @@
+package com.nure.apz.fatianov.daniil.orderservice.view;
+
+import com.nure.apz.fatianov.daniil.orderservice.order.Status;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderAdminGetResponseEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class OrderAdminViewService {
+
+    private final OrderAdminViewRepository orderAdminViewRepository;
+    private final MongoTemplate mongoTemplate;
+
+    private volatile boolean indexesEnsured = false;
+
+    /**
+     * Reads the whole admin read model with one indexed query, ordered by creation date.
+     *
+     * @return A list of {@link OrderAdminGetResponseEntity} built only from the stored display fields.
+     */
+    public List<OrderAdminGetResponseEntity> findAll() {
+        List<OrderAdminGetResponseEntity> responseEntities = new ArrayList<>();
+        for (OrderAdminView view : orderAdminViewRepository.findAll(Sort.by(Sort.Direction.ASC, "creationDate"))) {
+            responseEntities.add(view.toResponse());
+        }
+        return responseEntities;
+    }
+
+    /**
+     * Stores the read model entry of an order, replacing any previous one.
+     * A failure is only logged, because the order itself is already saved and the view can be rebuilt.
+     *
+     * @param view The entry to store.
+     */
+    public void save(OrderAdminView view) {
+        try {
+            ensureIndexes();
+            orderAdminViewRepository.save(view);
+        } catch (Exception e) {
+            System.out.println("Cannot update admin view for order " + view.getId());
+        }
+    }
+
+    /**
+     * Replaces many read model entries with one bulk write.
+     *
+     * @param views The entries to store.
+     */
+    public void saveAll(List<OrderAdminView> views) {
+        if (views.isEmpty()) {
+            return;
+        }
+
+        ensureIndexes();
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderAdminView.class);
+        for (OrderAdminView view : views) {
+            bulkOperations.replaceOne(
+                    new Query(Criteria.where("_id").is(view.getId())),
+                    view,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        bulkOperations.execute();
+    }
+
+    /**
+     * Applies a partial change to the read model entry of one order.
+     * A failure is only logged, because the order itself is already saved and the view can be rebuilt.
+     *
+     * @param orderId The ID of the order.
+     * @param update The fields to change.
+     */
+    public void update(String orderId, Update update) {
+        try {
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(orderId)), update, OrderAdminView.class);
+        } catch (Exception e) {
+            System.out.println("Cannot update admin view for order " + orderId);
+        }
+    }
+
+    /**
+     * Copies new order statuses into the read model with one bulk write.
+     *
+     * @param statuses A map from order ID to its new status.
+     */
+    public void updateStatuses(Map<String, Status> statuses) {
+        if (statuses.isEmpty()) {
+            return;
+        }
+
+        try {
+            BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderAdminView.class);
+            for (Map.Entry<String, Status> entry : statuses.entrySet()) {
+                bulkOperations.updateOne(
+                        new Query(Criteria.where("_id").is(entry.getKey())),
+                        new Update().set("status", entry.getValue()));
+            }
+            bulkOperations.execute();
+        } catch (Exception e) {
+            System.out.println("Cannot update admin view for orders " + statuses.keySet());
+        }
+    }
+
+    /**
+     * Counts the read model entries from the collection metadata.
+     *
+     * @return The estimated number of entries.
+     */
+    public long count() {
+        return mongoTemplate.estimatedCount(OrderAdminView.class);
+    }
+
+    /**
+     * Finds the users whose email could not be fetched when one of their orders was added.
+     *
+     * @return The distinct IDs of those users.
+     */
+    public List<Integer> findUsersWithoutEmail() {
+        return mongoTemplate.findDistinct(
+                new Query(Criteria.where("userEmail").is(null)), "userId", OrderAdminView.class, Integer.class);
+    }
+
+    /**
+     * Stores the email of a user in every entry of that user that has none yet.
+     *
+     * @param userId The ID of the user.
+     * @param email The email of the user.
+     */
+    public void fillUserEmail(Integer userId, String email) {
+        mongoTemplate.updateMulti(
+                new Query(Criteria.where("userId").is(userId).and("userEmail").is(null)),
+                new Update().set("userEmail", email),
+                OrderAdminView.class);
+    }
+
+    /**
+     * Propagates a changed vehicle number to every order carried by that vehicle.
+     *
+     * @param vehicleId The ID of the vehicle.
+     * @param number The new vehicle number.
+     * @return The number of updated entries.
+     */
+    public long changeVehicleNumber(Integer vehicleId, String number) {
+        return mongoTemplate.updateMulti(
+                new Query(Criteria.where("vehicleId").is(vehicleId)),
+                new Update().set("vehicleNumber", number),
+                OrderAdminView.class).getModifiedCount();
+    }
+
+    /**
+     * Creates the indexes declared on {@link OrderAdminView} the first time the view is written.
+     * Automatic index creation is disabled in Spring Boot, and creating them at startup would
+     * require the database to be reachable while the context starts.
+     */
+    private void ensureIndexes() {
+        if (indexesEnsured) {
+            return;
+        }
+
+        IndexOperations indexOperations = mongoTemplate.indexOps(OrderAdminView.class);
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        resolver.resolveIndexFor(OrderAdminView.class).forEach(indexOperations::ensureIndex);
+        indexesEnsured = true;
+    }
+}
@@ -3,7 +3,10 @@ package com.nure.apz.fatianov.daniil.orderservice;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+		"order-service.service-account.email=admin@example.com",
+		"order-service.service-account.password=admin"
+})
 class OrderServiceApplicationTests {
 
 	@Test
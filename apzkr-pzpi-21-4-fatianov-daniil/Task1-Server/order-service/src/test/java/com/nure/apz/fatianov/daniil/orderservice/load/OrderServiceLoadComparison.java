@@ -0,0 +1,236 @@
+package com.nure.apz.fatianov.daniil.orderservice.load;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.nure.apz.fatianov.daniil.orderservice.OrderServiceApplication;
+import com.nure.apz.fatianov.daniil.orderservice.order.Item;
+import com.nure.apz.fatianov.daniil.orderservice.order.Order;
+import com.nure.apz.fatianov.daniil.orderservice.order.Status;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Compares the throughput of the servlet and the reactive profile of order-service under the same load.
+ * Not a unit test: it is run by hand with {@code java -cp target/test-classes:target/classes:<test classpath>
+ * com.nure.apz.fatianov.daniil.orderservice.load.OrderServiceLoadComparison [clients] [seconds] [orders] [delayMs]}.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Starting an in-memory MongoDB and seeding the orders of one user, each with its own departure and arrival
+ *     station.</li>
+ *     <li>Stubbing AuthService and vehicle-station-service on their usual ports; every stubbed call answers after a
+ *     fixed delay, like a remote service would.</li>
+ *     <li>Starting each profile in turn and calling {@code /order-service/get-orders-for-user} from a fixed number of
+ *     concurrent clients, after a warm-up.</li>
+ *     <li>Reporting requests per second, requests per second per core, CPU time per request and latency
+ *     percentiles of each profile.</li>
+ * </ul>
+ * </p>
+ */
+public class OrderServiceLoadComparison {
+
+    private static final int APP_PORT = 18083;
+    private static final int WARM_UP_SECONDS = 5;
+    private static final int MAX_LATENCY_MS = 60000;
+
+    private record Result(String profile, long requests, long errors, double seconds, double cpuSeconds,
+                          long p50, long p90, long p99) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = intArg(args, 0, 256);
+        int seconds = intArg(args, 1, 20);
+        int orders = intArg(args, 2, 8);
+        int delayMs = intArg(args, 3, 20);
+
+        MongoServer mongo = new MongoServer(new MemoryBackend());
+        InetSocketAddress mongoAddress = mongo.bind();
+        String mongoUri = "mongodb://" + mongoAddress.getHostString() + ":" + mongoAddress.getPort() + "/ddp_orders";
+        seed(mongoUri, orders);
+
+        ScheduledExecutorService responders = Executors.newSingleThreadScheduledExecutor();
+        HttpServer userService = stub(8082, delayMs, responders, path ->
+                path.startsWith("/user-service/user/get-userId") ? "1" : "true");
+        HttpServer vehicleStationService = stub(8084, delayMs, responders, path ->
+                "ST-" + path.substring(path.indexOf("id=") + 3));
+
+        List<Result> results = new ArrayList<>();
+        try {
+            for (String profile : List.of("default", "reactive")) {
+                results.add(measure(profile, mongoUri, clients, seconds));
+            }
+        } finally {
+            userService.stop(0);
+            vehicleStationService.stop(0);
+            responders.shutdownNow();
+            mongo.shutdown();
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%n%d clients, %d s, %d orders per request, %d ms per remote call, %d core(s)%n",
+                clients, seconds, orders, delayMs, cores);
+        System.out.printf("%-9s %9s %7s %9s %12s %14s %8s %8s %8s%n",
+                "profile", "requests", "errors", "req/s", "req/s/core", "cpu ms/req", "p50 ms", "p90 ms", "p99 ms");
+        for (Result result : results) {
+            double perSecond = result.requests() / result.seconds();
+            System.out.printf("%-9s %9d %7d %9.1f %12.1f %14.2f %8d %8d %8d%n",
+                    result.profile(), result.requests(), result.errors(), perSecond, perSecond / cores,
+                    result.requests() == 0 ? 0 : result.cpuSeconds() * 1000 / result.requests(),
+                    result.p50(), result.p90(), result.p99());
+        }
+    }
+
+    private static Result measure(String profile, String mongoUri, int clients, int seconds) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(OrderServiceApplication.class)
+                .profiles(profile)
+                .run("--server.port=" + APP_PORT,
+                        "--spring.data.mongodb.uri=" + mongoUri,
+                        "--server.tomcat.max-connections=" + Math.max(8192, clients * 2),
+                        "--logging.level.root=WARN");
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(Executors.newFixedThreadPool(4))
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            HttpRequest request = HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + APP_PORT + "/order-service/get-orders-for-user"))
+                    .header("Authorization", "Bearer load-test-token")
+                    .timeout(Duration.ofMillis(MAX_LATENCY_MS))
+                    .GET()
+                    .build();
+
+            run(client, request, clients, WARM_UP_SECONDS, null, new LongAdder(), new LongAdder());
+
+            AtomicIntegerArray latencies = new AtomicIntegerArray(MAX_LATENCY_MS + 1);
+            LongAdder requests = new LongAdder();
+            LongAdder errors = new LongAdder();
+            long cpuBefore = processCpuTime();
+            long startedAt = System.nanoTime();
+            run(client, request, clients, seconds, latencies, requests, errors);
+            double elapsed = (System.nanoTime() - startedAt) / 1e9;
+            double cpuSeconds = (processCpuTime() - cpuBefore) / 1e9;
+
+            return new Result(profile, requests.sum(), errors.sum(), elapsed, cpuSeconds,
+                    percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99));
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void run(HttpClient client, HttpRequest request, int clients, int seconds,
+                            AtomicIntegerArray latencies, LongAdder requests, LongAdder errors)
+            throws InterruptedException {
+        // Кожен клієнт надсилає наступний запит лише після відповіді на попередній
+        Semaphore inFlight = new Semaphore(clients);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        while (System.nanoTime() < deadline) {
+            if (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                continue;
+            }
+            long sentAt = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (System.nanoTime() <= deadline) {
+                            if (error == null && response.statusCode() == 200) {
+                                requests.increment();
+                                if (latencies != null) {
+                                    int latency = (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sentAt);
+                                    latencies.incrementAndGet(Math.min(latency, MAX_LATENCY_MS));
+                                }
+                            } else {
+                                errors.increment();
+                            }
+                        }
+                        inFlight.release();
+                    });
+        }
+        inFlight.acquire(clients);
+    }
+
+    private static void seed(String mongoUri, int orders) {
+        try (MongoClient mongoClient = MongoClients.create(mongoUri)) {
+            MongoTemplate mongoTemplate = new MongoTemplate(mongoClient, "ddp_orders");
+            for (int i = 0; i < orders; i++) {
+                Order order = new Order(1, 100 + i, 200 + i, 300 + i, "ORD-" + i,
+                        List.of(new Item("Item " + i, "Load test item", 1, 1.5f, false)));
+                order.setReceiptCode("0000");
+                order.setCreationDate(Instant.now());
+                order.setStatus(Status.SENT);
+                mongoTemplate.insert(order);
+            }
+        }
+    }
+
+    private static HttpServer stub(int port, int delayMs, ScheduledExecutorService responders,
+                                   Function<String, String> body) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", port), 1024);
+        server.createContext("/", exchange -> {
+            String response = body.apply(exchange.getRequestURI().toString());
+            responders.schedule(() -> respond(exchange, response), delayMs, TimeUnit.MILLISECONDS);
+        });
+        server.setExecutor(Executors.newFixedThreadPool(2));
+        server.start();
+        return server;
+    }
+
+    private static void respond(HttpExchange exchange, String response) {
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        } catch (IOException e) {
+            System.out.println("Cannot answer stubbed call: " + e.getMessage());
+        }
+    }
+
+    private static long percentile(AtomicIntegerArray latencies, double fraction) {
+        long total = 0;
+        for (int i = 0; i < latencies.length(); i++) {
+            total += latencies.get(i);
+        }
+        long rank = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int i = 0; i < latencies.length(); i++) {
+            seen += latencies.get(i);
+            if (seen >= rank && seen > 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static long processCpuTime() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+                .getProcessCpuTime();
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+}
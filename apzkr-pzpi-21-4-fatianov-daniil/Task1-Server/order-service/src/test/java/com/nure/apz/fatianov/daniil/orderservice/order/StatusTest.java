@@ -0,0 +1,76 @@
+package com.nure.apz.fatianov.daniil.orderservice.order;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.nure.apz.fatianov.daniil.orderservice.order.Status.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatusTest {
+
+    private static final Map<Status, Set<Status>> EXPECTED = Map.of(
+            CREATED, EnumSet.of(PROCESSED, DENIED),
+            PROCESSED, EnumSet.of(PROCESSED, SENT, DENIED),
+            SENT, EnumSet.of(DELIVERED),
+            DELIVERED, EnumSet.of(RECEIVED),
+            RECEIVED, EnumSet.noneOf(Status.class),
+            DENIED, EnumSet.noneOf(Status.class));
+
+    @Test
+    void allowsExactlyTheTransitionsOfTheLifecycle() {
+        for (Status source : Status.values()) {
+            for (Status target : Status.values()) {
+                assertEquals(EXPECTED.get(source).contains(target), source.canTransitionTo(target),
+                        source + " -> " + target);
+            }
+        }
+    }
+
+    @Test
+    void allowedSourcesAreTheInverseOfTheTable() {
+        for (Status target : Status.values()) {
+            Set<Status> sources = EnumSet.noneOf(Status.class);
+            for (Status source : Status.values()) {
+                if (source.canTransitionTo(target)) {
+                    sources.add(source);
+                }
+            }
+            assertEquals(sources, Status.allowedSources(target), "sources of " + target);
+        }
+        assertTrue(Status.allowedSources(CREATED).isEmpty(), "no order goes back to created");
+    }
+
+    @Test
+    void finalStatusesCanNotBeLeft() {
+        for (Status target : Status.values()) {
+            assertFalse(RECEIVED.canTransitionTo(target));
+            assertFalse(DENIED.canTransitionTo(target));
+        }
+    }
+
+    @Test
+    void everyStatusIsReachableFromCreated() {
+        Set<Status> reached = EnumSet.of(CREATED);
+        boolean grown = true;
+        while (grown) {
+            grown = false;
+            for (Status source : EnumSet.copyOf(reached)) {
+                for (Status target : Status.values()) {
+                    if (source.canTransitionTo(target)) {
+                        grown |= reached.add(target);
+                    }
+                }
+            }
+        }
+        assertEquals(EnumSet.allOf(Status.class), reached);
+    }
+
+    @Test
+    void ordersAreEditableUnlessSentReceivedOrDenied() {
+        assertEquals(EnumSet.of(CREATED, PROCESSED, DELIVERED), Status.EDITABLE);
+        assertThrows(UnsupportedOperationException.class, () -> Status.EDITABLE.add(SENT));
+    }
+}
@@ -0,0 +1,144 @@
+package com.nure.apz.fatianov.daniil.orderservice.order;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.nure.apz.fatianov.daniil.orderservice.event.OrderEventType;
+import com.nure.apz.fatianov.daniil.orderservice.event.OutboxMessage;
+import com.nure.apz.fatianov.daniil.orderservice.request.OrderStatusUpdateRequestBody;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderStatusUpdateResponse;
+import com.nure.apz.fatianov.daniil.orderservice.response.OrderStatusUpdateResult;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+
+import static com.nure.apz.fatianov.daniil.orderservice.order.Status.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plans status changes with {@link OrderUpdates} and writes them with {@link OrderRepositoryCustomImpl}
+ * against an in-memory MongoDB, without a Spring context.
+ */
+class StatusTransitionTest {
+
+    private final OrderUpdates orderUpdates = new OrderUpdates();
+    private MongoServer mongoServer;
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+    private OrderRepositoryCustomImpl repository;
+
+    @BeforeEach
+    void startMongo() {
+        mongoServer = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = mongoServer.bind();
+        mongoClient = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        mongoTemplate = new MongoTemplate(mongoClient, "ddp_orders");
+        repository = new OrderRepositoryCustomImpl(mongoTemplate, orderUpdates);
+    }
+
+    @AfterEach
+    void stopMongo() {
+        mongoClient.close();
+        mongoServer.shutdown();
+    }
+
+    @Test
+    void planChainsChangesOfTheSameOrderInRequestOrder() {
+        Order order = insert("1", PROCESSED);
+
+        OrderUpdates.StatusUpdatePlan plan = orderUpdates.planStatusUpdates(List.of(
+                request("1", SENT),
+                request("1", DELIVERED),
+                request("1", SENT),
+                request("2", SENT),
+                request("1", null)), Map.of("1", order));
+
+        assertEquals(List.of(new StatusTransition("1", PROCESSED, SENT), new StatusTransition("1", SENT, DELIVERED)),
+                plan.getTransitions());
+        assertEquals(List.of(OrderStatusUpdateResult.UPDATED, OrderStatusUpdateResult.UPDATED,
+                        OrderStatusUpdateResult.ILLEGAL_TRANSITION, OrderStatusUpdateResult.NOT_FOUND,
+                        OrderStatusUpdateResult.ILLEGAL_TRANSITION),
+                plan.getResponses().stream().map(OrderStatusUpdateResponse::getResult).toList());
+        assertEquals(Map.of("1", DELIVERED), plan.updatedStatuses());
+    }
+
+    @Test
+    void plannedTransitionsAreWrittenWithTheirEvents() {
+        Order order = insert("1", PROCESSED);
+        OrderUpdates.StatusUpdatePlan plan = orderUpdates.planStatusUpdates(
+                List.of(request("1", SENT), request("1", DELIVERED)), Map.of("1", order));
+
+        assertEquals(2, repository.compareAndSetStatuses(plan.getTransitions(), plan.getOrders()));
+
+        Order stored = mongoTemplate.findById("1", Order.class);
+        assertEquals(DELIVERED, stored.getStatus());
+        assertEquals(List.of(OrderEventType.SENT, OrderEventType.DELIVERED),
+                stored.getOutbox().stream().map(OutboxMessage::getType).toList());
+        assertEquals(DELIVERED, stored.getOutbox().get(1).getStatus());
+        assertEquals(7, stored.getOutbox().get(1).getVehicleId());
+    }
+
+    @Test
+    void transitionFromAnUnexpectedStatusMatchesNothing() {
+        Order order = insert("1", PROCESSED);
+        OrderUpdates.StatusUpdatePlan plan = orderUpdates.planStatusUpdates(
+                List.of(request("1", SENT)), Map.of("1", order));
+
+        // Замовлення змінили між читанням і записом
+        mongoTemplate.updateFirst(orderUpdates.whereStatus("1", PROCESSED), new Update().set("status", DENIED), Order.class);
+
+        assertEquals(0, repository.compareAndSetStatuses(plan.getTransitions(), plan.getOrders()));
+        plan.markConflicts(repository.findStatuses(List.of("1")));
+
+        assertEquals(DENIED, mongoTemplate.findById("1", Order.class).getStatus());
+        assertNull(mongoTemplate.findById("1", Order.class).getOutbox());
+        assertEquals(OrderStatusUpdateResult.CONFLICT, plan.getResponses().get(0).getResult());
+        assertTrue(plan.updatedStatuses().isEmpty());
+    }
+
+    @Test
+    void singleTransitionIsWrittenOnlyFromAnAllowedSource() {
+        Order created = insert("1", CREATED);
+        Order sent = insert("2", SENT);
+
+        assertTrue(repository.transitionStatus(created, PROCESSED,
+                new Update().set("vehicleId", 9)).isPresent());
+        assertTrue(repository.transitionStatus(sent, PROCESSED, new Update()).isEmpty());
+
+        Order processed = mongoTemplate.findById("1", Order.class);
+        assertEquals(PROCESSED, processed.getStatus());
+        assertEquals(9, processed.getOutbox().get(0).getVehicleId(), "the event carries the change of the same write");
+        assertEquals(SENT, mongoTemplate.findById("2", Order.class).getStatus());
+        assertNull(mongoTemplate.findById("2", Order.class).getOutbox());
+    }
+
+    @Test
+    void checkTransitionRejectsIllegalChanges() {
+        Order order = new Order(1, 2, 3, 4, "0000000000000001", List.of());
+        order.setId("1");
+        order.setStatus(RECEIVED);
+
+        assertThrows(IllegalStateException.class, () -> orderUpdates.checkTransition(order, DENIED));
+        order.setStatus(CREATED);
+        assertDoesNotThrow(() -> orderUpdates.checkTransition(order, DENIED));
+    }
+
+    private Order insert(String id, Status status) {
+        Order order = new Order(1, 7, 3, 4, "000000000000000" + id, List.of());
+        order.setId(id);
+        order.setStatus(status);
+        mongoTemplate.insert(order);
+        return mongoTemplate.findOne(orderUpdates.eventFields(List.of(id)), Order.class);
+    }
+
+    private static OrderStatusUpdateRequestBody request(String id, Status status) {
+        return new OrderStatusUpdateRequestBody(id, status);
+    }
+}
@@ -1,10 +1,14 @@
 package com.nure.apz.fatianov.daniil.vehiclestationservice.config;
 
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.RouteHttpMessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
 public class WebMvcConfig {
 
@@ -17,6 +21,12 @@ public class WebMvcConfig {
                         .allowedOrigins("*")
                         .allowedMethods("*");
             }
+
+            @Override
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                // Додається в кінець, щоб JSON залишався форматом за замовчуванням
+                converters.add(new RouteHttpMessageConverter());
+            }
         };
     }
 }
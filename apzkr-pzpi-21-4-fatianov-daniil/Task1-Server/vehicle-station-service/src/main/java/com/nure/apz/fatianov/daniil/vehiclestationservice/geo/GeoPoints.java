@@ -0,0 +1,203 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.geo;
+
+import java.util.Arrays;
+
+/**
+ * Points on the Earth kept as unit vectors in three primitive arrays, for computing many great-circle distances fast.
+ * The trigonometry of a point is done once, when it is stored; after that, the straight chord between two points
+ * takes a few multiplications, and the distance follows from it as {@code 2R * asin(chord / 2)},
+ * which is the same great circle as {@link GeoUtils#haversine}.
+ * A "closer than" test needs no trigonometry at all: it compares the squared chord with {@link #chordLimit(double)}.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Converting coordinates to unit vectors, one point at a time or from a single query point.</li>
+ *     <li>Computing the distance between two stored points or between a query point and a stored point.</li>
+ *     <li>Computing the squared chords from a query point to a range or a list of stored points in one call;
+ *     the loop over a range is simple enough for the JIT to vectorize on its own.</li>
+ * </ul>
+ * </p>
+ */
+public final class GeoPoints {
+
+    private final double[] x;
+    private final double[] y;
+    private final double[] z;
+
+    public GeoPoints(int size) {
+        this.x = new double[size];
+        this.y = new double[size];
+        this.z = new double[size];
+    }
+
+    public static GeoPoints of(double[] latitudes, double[] longitudes) {
+        GeoPoints points = new GeoPoints(latitudes.length);
+        for (int i = 0; i < latitudes.length; i++) {
+            points.set(i, latitudes[i], longitudes[i]);
+        }
+        return points;
+    }
+
+    public int size() {
+        return x.length;
+    }
+
+    public void set(int index, double latitude, double longitude) {
+        double phi = Math.toRadians(latitude);
+        double lambda = Math.toRadians(longitude);
+        double cosPhi = Math.cos(phi);
+        x[index] = cosPhi * Math.cos(lambda);
+        y[index] = cosPhi * Math.sin(lambda);
+        z[index] = Math.sin(phi);
+    }
+
+    /**
+     * Returns the unit vector of a point that is not stored, for queries against the stored points.
+     */
+    public static double[] unit(double latitude, double longitude) {
+        double phi = Math.toRadians(latitude);
+        double lambda = Math.toRadians(longitude);
+        double cosPhi = Math.cos(phi);
+        return new double[]{cosPhi * Math.cos(lambda), cosPhi * Math.sin(lambda), Math.sin(phi)};
+    }
+
+    /**
+     * Returns the squared chord of a great-circle distance; two points are closer than the distance
+     * exactly when their squared chord is smaller.
+     *
+     * @param distance The distance in kilometers.
+     * @return The squared chord between unit vectors.
+     */
+    public static double chordLimit(double distance) {
+        double halfChord = Math.sin(Math.min(distance / (2 * GeoUtils.EARTH_RADIUS), Math.PI / 2));
+        return 4 * halfChord * halfChord;
+    }
+
+    /**
+     * Converts a squared chord between unit vectors to the great-circle distance.
+     *
+     * @param chordSquared The squared chord.
+     * @return The distance in kilometers.
+     */
+    public static double toDistance(double chordSquared) {
+        return 2 * GeoUtils.EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(chordSquared) / 2));
+    }
+
+    public double chordSquared(int from, int to) {
+        double dx = x[from] - x[to];
+        double dy = y[from] - y[to];
+        double dz = z[from] - z[to];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    public double chordSquared(int index, double[] unit) {
+        double dx = x[index] - unit[0];
+        double dy = y[index] - unit[1];
+        double dz = z[index] - unit[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Returns the great-circle distance between two stored points in kilometers.
+     */
+    public double distance(int from, int to) {
+        return toDistance(chordSquared(from, to));
+    }
+
+    /**
+     * Returns the great-circle distance between a stored point and a query point in kilometers.
+     */
+    public double distance(int index, double[] unit) {
+        return toDistance(chordSquared(index, unit));
+    }
+
+    /**
+     * Computes the squared chords from a query point to the stored points {@code from .. to - 1}.
+     *
+     * @param unit The unit vector of the query point.
+     * @param from The first stored point.
+     * @param to The end of the range, exclusive.
+     * @param scratch An array to write the result into; a larger one is allocated if it is too small.
+     * @return The array with the chord of point {@code from + k} at position {@code k}.
+     */
+    public double[] chordsSquared(double[] unit, int from, int to, double[] scratch) {
+        double[] out = ensure(scratch, to - from);
+        rangeChords(x, y, z, from, to, unit[0], unit[1], unit[2], out);
+        return out;
+    }
+
+    /**
+     * Computes the squared chords from a query point to the listed stored points.
+     *
+     * @param unit The unit vector of the query point.
+     * @param indices The stored points.
+     * @param scratch An array to write the result into; a larger one is allocated if it is too small.
+     * @return The array with the chord of point {@code indices[k]} at position {@code k}.
+     */
+    public double[] chordsSquared(double[] unit, int[] indices, double[] scratch) {
+        double[] out = ensure(scratch, indices.length);
+        listedChords(x, y, z, indices, indices.length, unit[0], unit[1], unit[2], out);
+        return out;
+    }
+
+    /**
+     * Computes the squared chords from a stored point to the stored points {@code from .. to - 1},
+     * like {@link #chordsSquared(double[], int, int, double[])}.
+     */
+    public double[] chordsSquared(int index, int from, int to, double[] scratch) {
+        double[] out = ensure(scratch, to - from);
+        rangeChords(x, y, z, from, to, x[index], y[index], z[index], out);
+        return out;
+    }
+
+    /**
+     * Computes the squared chords from a stored point to the listed stored points,
+     * like {@link #chordsSquared(double[], int[], double[])}.
+     */
+    public double[] chordsSquared(int index, int[] indices, double[] scratch) {
+        double[] out = ensure(scratch, indices.length);
+        listedChords(x, y, z, indices, indices.length, x[index], y[index], z[index], out);
+        return out;
+    }
+
+    /**
+     * Returns the unit vector of a stored point.
+     */
+    public double[] unit(int index) {
+        return new double[]{x[index], y[index], z[index]};
+    }
+
+    /**
+     * Writes the squared chords from {@code (qx, qy, qz)} to the vectors {@code from .. to - 1} into {@code out[0 .. to - from)}.
+     */
+    private static void rangeChords(double[] x, double[] y, double[] z, int from, int to,
+                                    double qx, double qy, double qz, double[] out) {
+        for (int i = from; i < to; i++) {
+            double dx = x[i] - qx;
+            double dy = y[i] - qy;
+            double dz = z[i] - qz;
+            out[i - from] = dx * dx + dy * dy + dz * dz;
+        }
+    }
+
+    /**
+     * Writes the squared chords from {@code (qx, qy, qz)} to the vectors {@code indices[0 .. count)} into {@code out[0 .. count)}.
+     */
+    private static void listedChords(double[] x, double[] y, double[] z, int[] indices, int count,
+                                     double qx, double qy, double qz, double[] out) {
+        for (int k = 0; k < count; k++) {
+            int i = indices[k];
+            double dx = x[i] - qx;
+            double dy = y[i] - qy;
+            double dz = z[i] - qz;
+            out[k] = dx * dx + dy * dy + dz * dz;
+        }
+    }
+
+    private static double[] ensure(double[] scratch, int length) {
+        if (scratch != null && scratch.length >= length) {
+            return scratch;
+        }
+        return scratch == null ? new double[Math.max(16, length)] : Arrays.copyOf(scratch, Math.max(length, scratch.length * 2));
+    }
+}
@@ -0,0 +1,31 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.geo;
+
+/**
+ * Geographic helper functions shared by the spatial indexes and the route planner.
+ */
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS = 6371;// Радіус Землі в кілометрах
+
+    private GeoUtils() {
+    }
+
+    /**
+     * Calculates the great-circle distance between two points with the haversine formula.
+     *
+     * @param lat1 The latitude of the first point in degrees.
+     * @param lon1 The longitude of the first point in degrees.
+     * @param lat2 The latitude of the second point in degrees.
+     * @param lon2 The longitude of the second point in degrees.
+     * @return The distance in kilometers.
+     */
+    public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double sinDlat = Math.sin((phi2 - phi1) / 2);
+        double sinDlon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+
+        double a = sinDlat * sinDlat + Math.cos(phi1) * Math.cos(phi2) * sinDlon * sinDlon;
+        return 2 * EARTH_RADIUS * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -0,0 +1,78 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The best route found so far between two points, improved in the background by {@link AnytimeSearch}.
+ */
+public class AnytimeRoute {
+
+    /**
+     * An immutable view of the route at one moment.
+     *
+     * @param route The route, or {@code null} while no route has been found.
+     * @param bound The factor by which the route can at most be longer than the shortest one, or {@code null} without a route.
+     * @param status The state of the route.
+     * @param error The reason of the failure, if the route has failed.
+     */
+    public record Snapshot(List<Point> route, Double bound, AnytimeRouteStatus status, String error) {
+    }
+
+    private final long createdAt = System.currentTimeMillis();
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+    private volatile Snapshot snapshot = new Snapshot(null, null, AnytimeRouteStatus.PENDING, null);
+
+    void improve(List<Point> route, double bound) {
+        if (route.isEmpty()) {
+            snapshot = new Snapshot(List.of(), null, AnytimeRouteStatus.NO_ROUTE, null);
+        } else {
+            snapshot = new Snapshot(List.copyOf(route), bound,
+                    bound <= 1 ? AnytimeRouteStatus.OPTIMAL : AnytimeRouteStatus.SUBOPTIMAL, null);
+        }
+    }
+
+    void finish() {
+        finished.complete(null);
+    }
+
+    void fail(String error) {
+        snapshot = new Snapshot(null, null, AnytimeRouteStatus.FAILED, error);
+        finished.complete(null);
+    }
+
+    /**
+     * Waits until the refinement finishes or the deadline passes, and returns the route at that moment.
+     *
+     * @param deadline The deadline as a {@link System#nanoTime()} value.
+     * @return The current snapshot.
+     */
+    public Snapshot await(long deadline) {
+        try {
+            finished.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Бюджет вичерпано, повертаємо найкращий маршрут на цей момент
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return snapshot;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    boolean isFinished() {
+        return finished.isDone();
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+}
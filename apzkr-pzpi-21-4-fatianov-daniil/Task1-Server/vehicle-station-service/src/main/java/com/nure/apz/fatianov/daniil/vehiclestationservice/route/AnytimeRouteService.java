@@ -0,0 +1,108 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plans routes within a latency budget. The first request for a pair of points starts an {@link AnytimeSearch}
+ * on a refinement worker and waits at most the budget for it; the search keeps improving the cached route after
+ * the request has returned, so later requests for the same pair get a better route, or the shortest one.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Answering station pairs from the {@link StationRouteTable} at once.</li>
+ *     <li>Sharing one refinement between all requests for the same pair of points.</li>
+ *     <li>Stopping a refinement after the configured limit and evicting finished routes after their time to live.</li>
+ * </ul>
+ * </p>
+ */
+@Service
+public class AnytimeRouteService {
+
+    private record RouteKey(double startLatitude, double startLongitude, double endLatitude, double endLongitude) {
+    }
+
+    private final RoutePlanner routePlanner;
+    private final StationRouteTable stationRouteTable;
+    private final ExecutorService refiners;
+    private final long refineLimit;
+    private final long routeTtl;
+    private final Map<RouteKey, AnytimeRoute> routes = new ConcurrentHashMap<>();
+
+    public AnytimeRouteService(RoutePlanner routePlanner,
+                               StationRouteTable stationRouteTable,
+                               @Value("${vehicle-station.route.anytime.workers:2}") int workers,
+                               @Value("${vehicle-station.route.anytime.refine-limit:30000}") long refineLimit,
+                               @Value("${vehicle-station.route.anytime.route-ttl:600000}") long routeTtl) {
+        this.routePlanner = routePlanner;
+        this.stationRouteTable = stationRouteTable;
+        this.refineLimit = refineLimit;
+        this.routeTtl = routeTtl;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.refiners = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "route-refiner-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refiners.shutdownNow();
+    }
+
+    /**
+     * Returns the best route between two points that can be found within the budget.
+     *
+     * @param start The starting point of the route.
+     * @param end The destination point of the route.
+     * @param budget The time budget in milliseconds.
+     * @return The route with its suboptimality bound; {@link AnytimeRouteStatus#PENDING} if no route was found in time.
+     */
+    public AnytimeRoute.Snapshot plan(Point start, Point end, long budget) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, budget));
+
+        Optional<List<Point>> precomputed = stationRouteTable.find(start, end);
+        if (precomputed.isPresent()) {
+            return new AnytimeRoute.Snapshot(precomputed.get(), 1.0, AnytimeRouteStatus.OPTIMAL, null);
+        }
+
+        RouteKey key = new RouteKey(start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude());
+        AnytimeRoute route = routes.computeIfAbsent(key, k -> {
+            AnytimeRoute created = new AnytimeRoute();
+            refiners.execute(() -> refine(k, created, start, end));
+            return created;
+        });
+        return route.await(deadline);
+    }
+
+    private void refine(RouteKey key, AnytimeRoute route, Point start, Point end) {
+        try {
+            SearchGraph graph = routePlanner.searchGraph(start, end);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(refineLimit);
+            AnytimeSearch.run(graph, deadline, route::improve);
+            route.finish();
+        } catch (Exception e) {
+            route.fail(e.getMessage());
+            routes.remove(key, route);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        routes.values().removeIf(route -> route.isFinished() && now - route.getCreatedAt() > routeTtl);
+    }
+}
@@ -0,0 +1,9 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+public enum AnytimeRouteStatus {
+    PENDING,
+    SUBOPTIMAL,
+    OPTIMAL,
+    NO_ROUTE,
+    FAILED
+}
@@ -0,0 +1,193 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+
+import java.util.*;
+
+/**
+ * Anytime Repairing A* (ARA*) over a {@link SearchGraph}.
+ * The first path is found quickly with a heavily inflated heuristic, {@code f = g + ε·h}; the inflation is then
+ * lowered step by step down to 1, and every step reuses the search effort of the previous ones instead of starting
+ * over. After every step the path is reported together with its suboptimality bound, the factor by which it can
+ * at most be longer than the shortest path.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Expanding nodes in order of the inflated key until no open node can improve the path to the destination.</li>
+ *     <li>Keeping nodes improved after they were expanded in the current step in an inconsistent list, which is
+ *     merged back into the open list for the next step.</li>
+ *     <li>Computing the bound as min(ε, g(destination) / min(g + h) over the open and inconsistent nodes).</li>
+ *     <li>Stopping at the deadline with the last reported path.</li>
+ * </ul>
+ * </p>
+ */
+final class AnytimeSearch {
+
+    private static final double[] INFLATIONS = {3.0, 2.0, 1.5, 1.25, 1.1, 1.05, 1.0};
+
+    /**
+     * Receives every improved path. An empty path with the bound 1 means that there is no path.
+     */
+    interface Listener {
+        void improved(List<Point> path, double bound);
+    }
+
+    private final SearchGraph graph;
+    private final int start;
+    private final int end;
+    private final double[] score;
+    private final int[] cameFrom;
+    private final double[] heuristic;
+    private final boolean[] open;
+    private final boolean[] inconsistent;
+    private final int[] closedStep;
+    private final List<Integer> inconsistentNodes = new ArrayList<>();
+    private MinHeap heap = new MinHeap();
+    private double inflation;
+    private int step = 1;
+
+    private AnytimeSearch(SearchGraph graph) {
+        this.graph = graph;
+        this.start = graph.start();
+        this.end = graph.end();
+        int size = graph.size();
+        this.score = new double[size];
+        this.cameFrom = new int[size];
+        this.heuristic = new double[size];
+        this.open = new boolean[size];
+        this.inconsistent = new boolean[size];
+        this.closedStep = new int[size];
+        Arrays.fill(score, Double.POSITIVE_INFINITY);
+        Arrays.fill(cameFrom, -1);
+        Arrays.fill(heuristic, Double.NaN);
+    }
+
+    /**
+     * Runs the search until the path is proven shortest or the deadline passes.
+     *
+     * @param graph The graph to search.
+     * @param deadline The deadline as a {@link System#nanoTime()} value.
+     * @param listener Receives every improved path.
+     */
+    static void run(SearchGraph graph, long deadline, Listener listener) {
+        new AnytimeSearch(graph).run(deadline, listener);
+    }
+
+    private void run(long deadline, Listener listener) {
+        int next = 0;
+        inflation = INFLATIONS[next++];
+        score[start] = 0;
+        open[start] = true;
+        heap.push(start, key(start));
+
+        while (true) {
+            if (!improvePath(deadline)) {
+                return;
+            }
+            if (score[end] == Double.POSITIVE_INFINITY) {
+                // Навіть із завищеною евристикою відкритий список вичерпано, отже шляху немає
+                listener.improved(Collections.emptyList(), 1);
+                return;
+            }
+
+            double bound = Math.min(inflation, score[end] / lowerBound());
+            listener.improved(path(), Math.max(1, bound));
+            if (bound <= 1) {
+                return;
+            }
+
+            while (next < INFLATIONS.length - 1 && INFLATIONS[next] >= bound) {
+                next++;
+            }
+            inflation = INFLATIONS[next++];
+            reopen();
+        }
+    }
+
+    /**
+     * Expands nodes until the destination has the smallest key, or the open list is empty.
+     *
+     * @return {@code false} if the deadline passed first.
+     */
+    private boolean improvePath(long deadline) {
+        int expanded = 0;
+        while (true) {
+            while (!heap.isEmpty() && (!open[heap.peekNode()] || heap.peekKey() != key(heap.peekNode()))) {
+                heap.pop();
+            }
+            if (heap.isEmpty() || score[end] <= heap.peekKey()) {
+                return true;
+            }
+            if ((++expanded & 63) == 0 && System.nanoTime() > deadline) {
+                return false;
+            }
+
+            int current = heap.pop();
+            open[current] = false;
+            closedStep[current] = step;
+            for (int i = 0, degree = graph.degree(current); i < degree; i++) {
+                int neighbour = graph.neighbour(current, i);
+                double tentative = score[current] + graph.weight(current, i);
+                if (tentative < score[neighbour]) {
+                    score[neighbour] = tentative;
+                    cameFrom[neighbour] = current;
+                    if (closedStep[neighbour] != step) {
+                        open[neighbour] = true;
+                        heap.push(neighbour, key(neighbour));
+                    } else if (!inconsistent[neighbour]) {
+                        inconsistent[neighbour] = true;
+                        inconsistentNodes.add(neighbour);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the inconsistent nodes into the open list and rebuilds it for the new inflation; the closed list is cleared.
+     */
+    private void reopen() {
+        for (int node : inconsistentNodes) {
+            inconsistent[node] = false;
+            open[node] = true;
+        }
+        inconsistentNodes.clear();
+        heap = new MinHeap();
+        for (int node = 0; node < open.length; node++) {
+            if (open[node]) {
+                heap.push(node, key(node));
+            }
+        }
+        step++;
+    }
+
+    private double lowerBound() {
+        double min = Double.POSITIVE_INFINITY;
+        for (int node = 0; node < open.length; node++) {
+            if (open[node] || inconsistent[node]) {
+                min = Math.min(min, score[node] + heuristic(node));
+            }
+        }
+        return min;
+    }
+
+    private double key(int node) {
+        return score[node] + inflation * heuristic(node);
+    }
+
+    private double heuristic(int node) {
+        if (Double.isNaN(heuristic[node])) {
+            heuristic[node] = graph.distance(node, end);
+        }
+        return heuristic[node];
+    }
+
+    private List<Point> path() {
+        List<Point> path = new ArrayList<>();
+        for (int node = end; node >= 0; node = cameFrom[node]) {
+            path.add(graph.point(node));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
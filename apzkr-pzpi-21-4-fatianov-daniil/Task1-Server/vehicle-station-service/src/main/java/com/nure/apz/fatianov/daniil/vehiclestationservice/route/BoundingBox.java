@@ -0,0 +1,48 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+
+/**
+ * A latitude/longitude rectangle in degrees, used to query crossings around a route.
+ */
+public record BoundingBox(double minLat, double minLon, double maxLat, double maxLon) {
+
+    /**
+     * Creates the box that contains both points with a buffer on every side.
+     *
+     * @param start The first point.
+     * @param end The second point.
+     * @param buffer The buffer in degrees.
+     * @return The buffered box.
+     */
+    public static BoundingBox around(Point start, Point end, double buffer) {
+        return new BoundingBox(
+                Math.min(start.getLatitude(), end.getLatitude()) - buffer,
+                Math.min(start.getLongitude(), end.getLongitude()) - buffer,
+                Math.max(start.getLatitude(), end.getLatitude()) + buffer,
+                Math.max(start.getLongitude(), end.getLongitude()) + buffer);
+    }
+
+    public boolean intersects(BoundingBox other) {
+        return minLat <= other.maxLat && other.minLat <= maxLat
+                && minLon <= other.maxLon && other.minLon <= maxLon;
+    }
+
+    public boolean contains(Point point) {
+        return point.getLatitude() >= minLat && point.getLatitude() <= maxLat
+                && point.getLongitude() >= minLon && point.getLongitude() <= maxLon;
+    }
+
+    public boolean contains(BoundingBox other) {
+        return other.minLat >= minLat && other.maxLat <= maxLat
+                && other.minLon >= minLon && other.maxLon <= maxLon;
+    }
+
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(
+                Math.min(minLat, other.minLat),
+                Math.min(minLon, other.minLon),
+                Math.max(maxLat, other.maxLat),
+                Math.max(maxLon, other.maxLon));
+    }
+}
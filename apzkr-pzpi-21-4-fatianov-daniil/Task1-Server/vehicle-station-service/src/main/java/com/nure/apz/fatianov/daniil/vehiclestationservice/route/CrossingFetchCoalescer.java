@@ -0,0 +1,138 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent crossing requests for overlapping areas into a single Overpass query.
+ * The first request for an area opens a fetch. It sends the fetch at once, unless a fetch overlapping its area
+ * is already running: then more requests for the area are likely, and it waits for the coalescing window first.
+ * Requests that arrive meanwhile and overlap the area widen the fetch to the union of the boxes and wait for it.
+ * A request whose box lies inside a fetch that is already running waits for that fetch as well.
+ * Requests on {@link java.util.concurrent.ForkJoinPool} workers never wait for the window, so a batch planned
+ * on the common pool does not park its workers.
+ * Every request then gets only the crossings inside its own box, the same slicing {@link RoutePlanner#planAll} does
+ * for the routes of a batch.
+ *
+ * <p>Fetches are shared only while they run; nothing is kept after a fetch completes.</p>
+ */
+final class CrossingFetchCoalescer {
+
+    private static final class Fetch {
+
+        private BoundingBox box;
+        private boolean started;
+        private final CompletableFuture<Set<Point>> result = new CompletableFuture<>();
+
+        private Fetch(BoundingBox box) {
+            this.box = box;
+        }
+    }
+
+    private final long window;
+    private final double maxSpan;
+    private final List<Fetch> inFlight = new ArrayList<>();
+
+    /**
+     * @param window How long the first request of a busy area waits for others to join, in milliseconds.
+     * @param maxSpan The largest height and width in degrees a fetch may be widened to.
+     */
+    CrossingFetchCoalescer(long window, double maxSpan) {
+        this.window = window;
+        this.maxSpan = maxSpan;
+    }
+
+    /**
+     * Returns the crossings inside a box, fetched alone or together with concurrent requests for overlapping boxes.
+     *
+     * @param box The box to load.
+     * @param fetcher Loads the crossings of a box; called once per coalesced fetch.
+     * @return The crossings inside the box.
+     * @throws RuntimeException If the shared fetch fails; every request that waited for it gets the failure.
+     */
+    Set<Point> load(BoundingBox box, Function<BoundingBox, Set<Point>> fetcher) {
+        Fetch fetch;
+        boolean leader = false;
+        boolean busy = false;
+        synchronized (this) {
+            fetch = join(box);
+            if (fetch == null) {
+                for (Fetch running : inFlight) {
+                    busy |= running.box.intersects(box);
+                }
+                fetch = new Fetch(box);
+                inFlight.add(fetch);
+                leader = true;
+            }
+        }
+        if (leader) {
+            run(fetch, fetcher, busy && !ForkJoinTask.inForkJoinPool());
+        }
+
+        Set<Point> crossings;
+        try {
+            crossings = fetch.result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new RuntimeException(e.getCause());
+        }
+        if (box.contains(fetch.box)) {
+            return crossings;
+        }
+        Set<Point> own = new HashSet<>();
+        for (Point crossing : crossings) {
+            if (box.contains(crossing)) {
+                own.add(crossing);
+            }
+        }
+        return own;
+    }
+
+    private Fetch join(BoundingBox box) {
+        for (Fetch fetch : inFlight) {
+            if (fetch.box.contains(box)) {
+                return fetch;
+            }
+            if (!fetch.started && fetch.box.intersects(box)) {
+                BoundingBox union = fetch.box.union(box);
+                if (union.maxLat() - union.minLat() <= maxSpan && union.maxLon() - union.minLon() <= maxSpan) {
+                    fetch.box = union;
+                    return fetch;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void run(Fetch fetch, Function<BoundingBox, Set<Point>> fetcher, boolean wait) {
+        if (wait && window > 0) {
+            try {
+                Thread.sleep(window);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        BoundingBox box;
+        synchronized (this) {
+            fetch.started = true;
+            box = fetch.box;
+        }
+        try {
+            fetch.result.complete(fetcher.apply(box));
+        } catch (RuntimeException e) {
+            fetch.result.completeExceptionally(e);
+        } finally {
+            synchronized (this) {
+                inFlight.remove(fetch);
+            }
+        }
+    }
+}
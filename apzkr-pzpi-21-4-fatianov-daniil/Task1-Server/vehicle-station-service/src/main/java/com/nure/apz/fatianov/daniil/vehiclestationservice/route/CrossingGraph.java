@@ -0,0 +1,157 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoPoints;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoUtils;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+
+import java.util.*;
+
+/**
+ * Graph over the start, the destination and the crossings of a route, where two points are connected
+ * when they are closer than the maximal edge length. Points are put into a grid of cells as large as
+ * the maximal edge, so the neighbours of a point are searched only in the 3x3 cells around it instead
+ * of in all crossings. Neighbour lists are computed on first use, because a search visits only a part of the graph.
+ * Distances are computed from the unit vectors of the points in {@link GeoPoints}, so finding the neighbours
+ * of a point compares squared chords without any trigonometry.
+ *
+ * <p>A graph belongs to one search and is not thread-safe.</p>
+ */
+final class CrossingGraph implements SearchGraph {
+
+    static final int START = 0;
+    static final int END = 1;
+
+    private static final double KILOMETERS_PER_DEGREE = Math.toRadians(GeoUtils.EARTH_RADIUS);
+
+    private final Point[] points;
+    private final GeoPoints geoPoints;
+    private final double maxEdge;
+    private final double maxChord;
+    private final double cellLat;
+    private final double cellLon;
+    private final Map<Long, int[]> cells;
+    private final int[][] neighbours;
+    private double[] chords;
+
+    CrossingGraph(Point start, Point end, Collection<Point> crossings, double maxEdge) {
+        this.points = new Point[crossings.size() + 2];
+        this.points[START] = start;
+        this.points[END] = end;
+        int index = 2;
+        double maxAbsLat = Math.max(Math.abs(start.getLatitude()), Math.abs(end.getLatitude()));
+        for (Point crossing : crossings) {
+            points[index++] = crossing;
+            maxAbsLat = Math.max(maxAbsLat, Math.abs(crossing.getLatitude()));
+        }
+
+        this.geoPoints = new GeoPoints(points.length);
+        for (int i = 0; i < points.length; i++) {
+            geoPoints.set(i, points[i].getLatitude(), points[i].getLongitude());
+        }
+
+        this.maxEdge = maxEdge;
+        this.maxChord = GeoPoints.chordLimit(maxEdge);
+        this.cellLat = maxEdge / KILOMETERS_PER_DEGREE;
+        // Градус довготи найкоротший на найбільш віддаленій від екватора широті, тому клітинка розраховується для неї
+        this.cellLon = maxEdge / (KILOMETERS_PER_DEGREE * Math.max(Math.cos(Math.toRadians(Math.min(maxAbsLat, 89.9))), 1e-6));
+
+        Map<Long, List<Integer>> buckets = new HashMap<>();
+        for (int i = 0; i < points.length; i++) {
+            buckets.computeIfAbsent(cellKey(cellY(points[i]), cellX(points[i])), key -> new ArrayList<>()).add(i);
+        }
+        this.cells = new HashMap<>(buckets.size() * 2);
+        buckets.forEach((key, members) -> cells.put(key, members.stream().mapToInt(Integer::intValue).toArray()));
+        this.neighbours = new int[points.length][];
+    }
+
+    @Override
+    public int size() {
+        return points.length;
+    }
+
+    @Override
+    public int start() {
+        return START;
+    }
+
+    @Override
+    public int end() {
+        return END;
+    }
+
+    @Override
+    public int degree(int node) {
+        return neighbours(node).length;
+    }
+
+    @Override
+    public int neighbour(int node, int index) {
+        return neighbours(node)[index];
+    }
+
+    @Override
+    public double weight(int node, int index) {
+        return distance(node, neighbours(node)[index]);
+    }
+
+    @Override
+    public Point point(int node) {
+        return points[node];
+    }
+
+    /**
+     * Returns the nodes closer than the maximal edge length to a node.
+     *
+     * @param node The node.
+     * @return The neighbouring nodes.
+     */
+    int[] neighbours(int node) {
+        int[] cached = neighbours[node];
+        if (cached != null) {
+            return cached;
+        }
+
+        Point point = points[node];
+        int y = cellY(point);
+        int x = cellX(point);
+        int[] found = new int[8];
+        int count = 0;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int[] cell = cells.get(cellKey(y + dy, x + dx));
+                if (cell == null) {
+                    continue;
+                }
+                chords = geoPoints.chordsSquared(node, cell, chords);
+                for (int k = 0; k < cell.length; k++) {
+                    if (cell[k] != node && chords[k] < maxChord) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count++] = cell[k];
+                    }
+                }
+            }
+        }
+        int[] result = Arrays.copyOf(found, count);
+        neighbours[node] = result;
+        return result;
+    }
+
+    @Override
+    public double distance(int from, int to) {
+        return geoPoints.distance(from, to);
+    }
+
+    private int cellY(Point point) {
+        return (int) Math.floor(point.getLatitude() / cellLat);
+    }
+
+    private int cellX(Point point) {
+        return (int) Math.floor(point.getLongitude() / cellLon);
+    }
+
+    private static long cellKey(int y, int x) {
+        return ((long) y << 32) | (x & 0xffffffffL);
+    }
+}
@@ -0,0 +1,387 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Disk cache of the raw crossings loaded from the Overpass API, so routes can still be planned while Overpass
+ * is unreachable. The world is divided into square tiles of {@code tile-size} degrees, and every tile is kept in its own
+ * file together with the time it was fetched.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Answering a box from its tiles when all of them are younger than {@code max-age}.</li>
+ *     <li>Otherwise fetching the tile-aligned box with a single query and rewriting all of its tiles.</li>
+ *     <li>Falling back to stale tiles when the fetch fails, and never fetching in offline mode.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>File layout, little-endian: {@link #MAGIC}, version, the fetch time in epoch milliseconds as a long,
+ * the number of crossings and the length of the uncompressed payload, followed by the payload compressed with
+ * {@link Deflater}. The payload holds the crossings sorted by latitude as zigzag varint deltas of the coordinates
+ * in 1e-7 degrees, the precision of OpenStreetMap. Files are read whole through a channel that is closed right away,
+ * so no mapping keeps a tile open while it is replaced, and they are written next to the target and moved over it,
+ * like {@link RegionGraph} files. The most recently used tiles are kept decoded in memory, so a tile is inflated
+ * once rather than on every load.</p>
+ */
+@Component
+public class CrossingTileCache {
+
+    static final int MAGIC = 0x314c5443;// "CTL1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES + Long.BYTES + 2 * Integer.BYTES;
+    private static final double PRECISION = 1e7;
+    private static final String EXTENSION = ".ctl";
+
+    private record Tile(long fetchedAt, double[] latitudes, double[] longitudes) {
+    }
+
+    private final Path directory;
+    private final boolean enabled;
+    private final boolean offline;
+    private final double tileSize;
+    private final long maxAge;
+    private final Map<Path, Tile> decoded;
+
+    public CrossingTileCache(@Value("${vehicle-station.route.crossing-cache.dir:crossing-cache}") String directory,
+                             @Value("${vehicle-station.route.crossing-cache.enabled:true}") boolean enabled,
+                             @Value("${vehicle-station.route.crossing-cache.offline:false}") boolean offline,
+                             @Value("${vehicle-station.route.crossing-cache.tile-size:0.05}") double tileSize,
+                             @Value("${vehicle-station.route.crossing-cache.max-age:604800000}") long maxAge,
+                             @Value("${vehicle-station.route.crossing-cache.decoded-tiles:256}") int decodedTiles) {
+        this.directory = Paths.get(directory);
+        this.enabled = enabled;
+        this.offline = offline;
+        this.tileSize = tileSize;
+        this.maxAge = maxAge;
+        this.decoded = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Tile> eldest) {
+                return size() > decodedTiles;
+            }
+        });
+    }
+
+    /**
+     * Returns the raw crossings inside a box from the cached tiles, fetching the tiles first when some of them
+     * are missing or older than the maximal age.
+     *
+     * @param box The box to load.
+     * @param fetcher Loads the raw crossings of a box from the Overpass API.
+     * @return The crossings inside the box, as coordinates with the longitude as {@code x}.
+     * @throws RuntimeException If the fetch fails and not every tile of the box is cached.
+     * @throws IllegalStateException If the cache is offline and not every tile of the box is cached.
+     */
+    public Set<Coordinate> load(BoundingBox box, Function<BoundingBox, Set<Coordinate>> fetcher) {
+        if (!enabled) {
+            return fetcher.apply(box);
+        }
+
+        long minRow = (long) Math.floor(box.minLat() / tileSize);
+        long maxRow = (long) Math.floor(box.maxLat() / tileSize);
+        long minColumn = (long) Math.floor(box.minLon() / tileSize);
+        long maxColumn = (long) Math.floor(box.maxLon() / tileSize);
+
+        List<Tile> tiles = new ArrayList<>();
+        boolean complete = true;
+        long oldest = Long.MAX_VALUE;
+        for (long row = minRow; row <= maxRow; row++) {
+            for (long column = minColumn; column <= maxColumn; column++) {
+                Tile tile = read(row, column);
+                if (tile == null) {
+                    complete = false;
+                } else {
+                    tiles.add(tile);
+                    oldest = Math.min(oldest, tile.fetchedAt());
+                }
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (!complete || now - oldest > maxAge) {
+            if (offline) {
+                if (!complete) {
+                    throw new IllegalStateException("No cached crossings for " + box + " in offline mode");
+                }
+            } else {
+                BoundingBox aligned = new BoundingBox(minRow * tileSize, minColumn * tileSize,
+                        (maxRow + 1) * tileSize, (maxColumn + 1) * tileSize);
+                try {
+                    Set<Coordinate> fetched = fetcher.apply(aligned);
+                    write(fetched, minRow, maxRow, minColumn, maxColumn, now);
+                    return inside(fetched, box);
+                } catch (RuntimeException e) {
+                    if (!complete) {
+                        throw e;
+                    }
+                    System.out.println("Cannot fetch crossings, using tiles cached " + (now - oldest) / 60000
+                            + " minutes ago: " + e.getMessage());
+                }
+            }
+        }
+
+        Set<Coordinate> crossings = new HashSet<>();
+        for (Tile tile : tiles) {
+            for (int i = 0; i < tile.latitudes().length; i++) {
+                double latitude = tile.latitudes()[i];
+                double longitude = tile.longitudes()[i];
+                if (latitude >= box.minLat() && latitude <= box.maxLat()
+                        && longitude >= box.minLon() && longitude <= box.maxLon()) {
+                    crossings.add(new Coordinate(longitude, latitude));
+                }
+            }
+        }
+        return crossings;
+    }
+
+    /**
+     * Tells whether every tile of a box is cached and younger than the maximal age, reading only the tile headers,
+     * so {@link #load} will answer the box without fetching.
+     *
+     * @param box The box to check.
+     * @return {@code true} if the box can be answered from the cache alone.
+     */
+    public boolean isFresh(BoundingBox box) {
+        if (!enabled) {
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        for (long row = (long) Math.floor(box.minLat() / tileSize); row <= (long) Math.floor(box.maxLat() / tileSize); row++) {
+            for (long column = (long) Math.floor(box.minLon() / tileSize); column <= (long) Math.floor(box.maxLon() / tileSize); column++) {
+                Tile tile = decoded.get(file(row, column));
+                Long fetchedAt = tile != null ? Long.valueOf(tile.fetchedAt()) : fetchedAt(row, column);
+                if (fetchedAt == null || now - fetchedAt > maxAge) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static Set<Coordinate> inside(Set<Coordinate> crossings, BoundingBox box) {
+        Set<Coordinate> result = new HashSet<>();
+        for (Coordinate crossing : crossings) {
+            if (crossing.y >= box.minLat() && crossing.y <= box.maxLat()
+                    && crossing.x >= box.minLon() && crossing.x <= box.maxLon()) {
+                result.add(crossing);
+            }
+        }
+        return result;
+    }
+
+    private void write(Set<Coordinate> crossings, long minRow, long maxRow, long minColumn, long maxColumn, long fetchedAt) {
+        int columns = (int) (maxColumn - minColumn + 1);
+        List<List<Coordinate>> byTile = new ArrayList<>();
+        for (long i = 0; i < (maxRow - minRow + 1) * columns; i++) {
+            byTile.add(new ArrayList<>());
+        }
+        for (Coordinate crossing : crossings) {
+            long row = (long) Math.floor(crossing.y / tileSize);
+            long column = (long) Math.floor(crossing.x / tileSize);
+            // Точки на зовнішній межі рамки належать сусідній плитці, яку цей запит не оновлює
+            if (row >= minRow && row <= maxRow && column >= minColumn && column <= maxColumn) {
+                byTile.get((int) ((row - minRow) * columns + (column - minColumn))).add(crossing);
+            }
+        }
+
+        try {
+            Files.createDirectories(directory);
+            for (long row = minRow; row <= maxRow; row++) {
+                for (long column = minColumn; column <= maxColumn; column++) {
+                    Path file = file(row, column);
+                    decoded.put(file, writeTile(file, byTile.get((int) ((row - minRow) * columns + (column - minColumn))), fetchedAt));
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Cannot write crossing tiles: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a tile and returns it as it will be read back.
+     */
+    private static Tile writeTile(Path file, List<Coordinate> crossings, long fetchedAt) throws IOException {
+        crossings.sort(Comparator.<Coordinate>comparingDouble(crossing -> crossing.y).thenComparingDouble(crossing -> crossing.x));
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(crossings.size() * 6);
+        double[] latitudes = new double[crossings.size()];
+        double[] longitudes = new double[crossings.size()];
+        long previousLatitude = 0;
+        long previousLongitude = 0;
+        for (int i = 0; i < crossings.size(); i++) {
+            long latitude = Math.round(crossings.get(i).y * PRECISION);
+            long longitude = Math.round(crossings.get(i).x * PRECISION);
+            writeVarint(payload, zigzag(latitude - previousLatitude));
+            writeVarint(payload, zigzag(longitude - previousLongitude));
+            previousLatitude = latitude;
+            previousLongitude = longitude;
+            latitudes[i] = latitude / PRECISION;
+            longitudes[i] = longitude / PRECISION;
+        }
+        byte[] raw = payload.toByteArray();
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 2 + 16);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                compressed.write(chunk, 0, deflater.deflate(chunk));
+            }
+        } finally {
+            deflater.end();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + compressed.size()).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(fetchedAt).putInt(crossings.size()).putInt(raw.length);
+        buffer.put(compressed.toByteArray());
+        buffer.flip();
+
+        // Окремий тимчасовий файл для кожного запису, бо ту саму плитку можуть одночасно оновлювати два запити
+        Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new Tile(fetchedAt, latitudes, longitudes);
+    }
+
+    /**
+     * Reads a tile, from memory if it was decoded recently, or returns {@code null} if it is not cached or can not be read.
+     */
+    private Tile read(long row, long column) {
+        Path file = file(row, column);
+        Tile tile = decoded.get(file);
+        if (tile != null) {
+            return tile;
+        }
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            if (bytes.length < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IllegalStateException("unknown format");
+            }
+            long fetchedAt = buffer.getLong(8);
+            int count = buffer.getInt(16);
+            byte[] raw = new byte[buffer.getInt(20)];
+
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(bytes, HEADER_BYTES, bytes.length - HEADER_BYTES);
+                int length = 0;
+                while (length < raw.length && !inflater.finished()) {
+                    length += inflater.inflate(raw, length, raw.length - length);
+                    if (inflater.needsInput()) {
+                        break;
+                    }
+                }
+                if (length != raw.length) {
+                    throw new IllegalStateException("truncated payload");
+                }
+            } finally {
+                inflater.end();
+            }
+
+            double[] latitudes = new double[count];
+            double[] longitudes = new double[count];
+            int[] position = {0};
+            long latitude = 0;
+            long longitude = 0;
+            for (int i = 0; i < count; i++) {
+                latitude += unzigzag(readVarint(raw, position));
+                longitude += unzigzag(readVarint(raw, position));
+                latitudes[i] = latitude / PRECISION;
+                longitudes[i] = longitude / PRECISION;
+            }
+            tile = new Tile(fetchedAt, latitudes, longitudes);
+            decoded.put(file, tile);
+            return tile;
+        } catch (IOException | DataFormatException | RuntimeException e) {
+            System.out.println("Cannot read crossing tile " + file.getFileName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the fetch time from the header of a tile, or returns {@code null} if it is not cached or can not be read.
+     */
+    private Long fetchedAt(long row, long column) {
+        Path file = file(row, column);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    return null;
+                }
+            }
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                return null;
+            }
+            return header.getLong(8);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Path file(long row, long column) {
+        return directory.resolve(tileSize + "_" + row + "_" + column + EXTENSION);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream output, long value) {
+        while ((value & ~0x7fL) != 0) {
+            output.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+
+    private static long readVarint(byte[] bytes, int[] position) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
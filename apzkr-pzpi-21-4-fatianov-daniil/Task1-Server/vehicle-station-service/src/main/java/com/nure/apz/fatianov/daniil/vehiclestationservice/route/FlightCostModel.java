@@ -0,0 +1,124 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoUtils;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Three-dimensional cost of a flight, expressed as the horizontal distance with the same energy use, in kilometers.
+ * A vehicle climbs from the departure station to the altitude of its band, flies level and descends to the arrival
+ * station; every kilometer climbed costs as much as {@code climb-factor} kilometers of level flight,
+ * and every kilometer descended as much as {@code descent-factor}.
+ *
+ * <p>Band {@code b} flies at {@code base-altitude + b * band-height} meters above sea level, the same for every route,
+ * so the climb depends only on the departure station and the descent only on the arrival station.
+ * Callers that check many pairs of stations therefore compute {@link #climbTerm} and {@link #descentTerm} once
+ * per station and add them to the horizontal distance of every pair.
+ * Crossings carry no elevation data, so the route between the stations is taken as level and the path search itself
+ * is not affected.</p>
+ */
+@Component
+public class FlightCostModel {
+
+    private final double climbFactor;
+    private final double descentFactor;
+    private final double baseAltitude;
+    private final double bandHeight;
+    private final double clearance;
+    private final int rangeCheckBand;
+
+    public FlightCostModel(ReservationTable reservationTable,
+                           @Value("${vehicle-station.route.altitude.climb-factor:10}") double climbFactor,
+                           @Value("${vehicle-station.route.altitude.descent-factor:2}") double descentFactor,
+                           @Value("${vehicle-station.route.altitude.base-altitude:250}") double baseAltitude,
+                           @Value("${vehicle-station.route.altitude.band-height:30}") double bandHeight,
+                           @Value("${vehicle-station.route.altitude.clearance:60}") double clearance) {
+        this.climbFactor = climbFactor;
+        this.descentFactor = descentFactor;
+        this.baseAltitude = baseAltitude;
+        this.bandHeight = bandHeight;
+        this.clearance = clearance;
+        this.rangeCheckBand = reservationTable.bands() - 1;
+    }
+
+    /**
+     * Returns the band used by range checks made before a route is scheduled: the highest one,
+     * so a vehicle that passes the check can fly in any band.
+     */
+    public int rangeCheckBand() {
+        return rangeCheckBand;
+    }
+
+    /**
+     * Returns the altitude of a band in meters above sea level.
+     */
+    public double cruiseAltitude(int band) {
+        return baseAltitude + band * bandHeight;
+    }
+
+    /**
+     * Returns the cost of climbing from a station to a band.
+     *
+     * @param altitude The altitude of the station in meters, or {@code null} if unknown.
+     * @param band The band.
+     * @return The cost in kilometers of level flight.
+     */
+    public double climbTerm(Double altitude, int band) {
+        return climbFactor * verticalDistance(altitude, band);
+    }
+
+    /**
+     * Returns the cost of descending from a band to a station.
+     *
+     * @param altitude The altitude of the station in meters, or {@code null} if unknown.
+     * @param band The band.
+     * @return The cost in kilometers of level flight.
+     */
+    public double descentTerm(Double altitude, int band) {
+        return descentFactor * verticalDistance(altitude, band);
+    }
+
+    /**
+     * Returns the cost of a flight between two stations.
+     *
+     * @param horizontalDistance The horizontal length of the flight in kilometers.
+     * @param startAltitude The altitude of the departure station in meters, or {@code null} if unknown.
+     * @param endAltitude The altitude of the arrival station in meters, or {@code null} if unknown.
+     * @param band The band.
+     * @return The cost in kilometers of level flight.
+     */
+    public double tripCost(double horizontalDistance, Double startAltitude, Double endAltitude, int band) {
+        return horizontalDistance + climbTerm(startAltitude, band) + descentTerm(endAltitude, band);
+    }
+
+    /**
+     * Returns the cost of flying a route between two stations.
+     *
+     * @param route The waypoints of the route.
+     * @param startAltitude The altitude of the departure station in meters, or {@code null} if unknown.
+     * @param endAltitude The altitude of the arrival station in meters, or {@code null} if unknown.
+     * @param band The band.
+     * @return The cost in kilometers of level flight.
+     */
+    public double routeCost(List<Point> route, Double startAltitude, Double endAltitude, int band) {
+        double length = 0;
+        for (int i = 1; i < route.size(); i++) {
+            Point from = route.get(i - 1);
+            Point to = route.get(i);
+            length += GeoUtils.haversine(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+        }
+        return tripCost(length, startAltitude, endAltitude, band);
+    }
+
+    /**
+     * Returns the height in kilometers between a station and a band. A vehicle always rises at least by the clearance,
+     * also from a station above the band or of unknown altitude.
+     */
+    private double verticalDistance(Double altitude, int band) {
+        double height = altitude == null ? clearance + band * bandHeight : cruiseAltitude(band) - altitude;
+        return Math.max(clearance, height) / 1000;
+    }
+}
@@ -0,0 +1,76 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of nodes keyed by a double, kept in primitive arrays so it can be reused between searches
+ * without allocating. A node may be pushed more than once; the search skips the outdated entries.
+ */
+final class MinHeap {
+
+    private int[] nodes = new int[64];
+    private double[] keys = new double[64];
+    private int size;
+
+    void clear() {
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int peekNode() {
+        return nodes[0];
+    }
+
+    double peekKey() {
+        return keys[0];
+    }
+
+    void push(int node, double key) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        int index = size++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            nodes[index] = nodes[parent];
+            keys[index] = keys[parent];
+            index = parent;
+        }
+        nodes[index] = node;
+        keys[index] = key;
+    }
+
+    int pop() {
+        int top = nodes[0];
+        int node = nodes[--size];
+        double key = keys[size];
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            nodes[index] = nodes[child];
+            keys[index] = keys[child];
+            index = child;
+        }
+        nodes[index] = node;
+        keys[index] = key;
+        return top;
+    }
+}
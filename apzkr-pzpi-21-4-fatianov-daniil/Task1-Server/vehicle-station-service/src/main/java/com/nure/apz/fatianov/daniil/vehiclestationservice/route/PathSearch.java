@@ -0,0 +1,148 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+
+import java.util.*;
+
+import static com.nure.apz.fatianov.daniil.vehiclestationservice.route.SearchWorkspace.BACKWARD;
+import static com.nure.apz.fatianov.daniil.vehiclestationservice.route.SearchWorkspace.FORWARD;
+
+/**
+ * Shortest path searches over a {@link SearchGraph}, from its start to its end.
+ * The straight-line distance is used as the heuristic; it never overestimates, because no edge is shorter than a straight line.
+ * The search state lives in a per-thread {@link SearchWorkspace}, so a search allocates nothing but the returned path.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>A* search from the start.</li>
+ *     <li>Bidirectional A* search that expands the smaller of the two frontiers and stops once no path through
+ *     the unexplored nodes can be shorter than the best path found where the frontiers met.</li>
+ * </ul>
+ * </p>
+ */
+final class PathSearch {
+
+    private static final ThreadLocal<SearchWorkspace> WORKSPACE = ThreadLocal.withInitial(SearchWorkspace::new);
+
+    private PathSearch() {
+    }
+
+    /**
+     * The found path together with the number of nodes the search expanded.
+     */
+    record Result(List<Point> path, int expanded) {
+    }
+
+    static Result aStar(SearchGraph graph) {
+        SearchWorkspace workspace = WORKSPACE.get();
+        workspace.reset(graph.size());
+        MinHeap open = workspace.open(FORWARD);
+        int start = graph.start();
+        int end = graph.end();
+
+        workspace.reach(FORWARD, start, 0, -1);
+        open.push(start, graph.distance(start, end));
+
+        int expanded = 0;
+        while (!open.isEmpty()) {
+            int current = open.pop();
+            if (workspace.isClosed(FORWARD, current)) {
+                continue;
+            }
+            if (current == end) {
+                return new Result(path(graph, workspace, current, false), expanded);
+            }
+            workspace.close(FORWARD, current);
+            expanded++;
+            double currentScore = workspace.score(FORWARD, current);
+            for (int i = 0, degree = graph.degree(current); i < degree; i++) {
+                int neighbour = graph.neighbour(current, i);
+                if (workspace.isClosed(FORWARD, neighbour)) {
+                    continue;
+                }
+                double tentative = currentScore + graph.weight(current, i);
+                if (tentative < workspace.score(FORWARD, neighbour)) {
+                    workspace.reach(FORWARD, neighbour, tentative, current);
+                    open.push(neighbour, tentative + graph.distance(neighbour, end));
+                }
+            }
+        }
+        return new Result(Collections.emptyList(), expanded);
+    }
+
+    static Result bidirectionalAStar(SearchGraph graph) {
+        SearchWorkspace workspace = WORKSPACE.get();
+        workspace.reset(graph.size());
+        MinHeap forward = workspace.open(FORWARD);
+        MinHeap backward = workspace.open(BACKWARD);
+
+        // Середній потенціал (h_до_кінця - h_до_початку) / 2 узгоджений для обох напрямків,
+        // тому пошук можна зупинити, щойно сума верхівок черг досягне найкращого знайденого шляху
+        workspace.reach(FORWARD, graph.start(), 0, -1);
+        workspace.reach(BACKWARD, graph.end(), 0, -1);
+        forward.push(graph.start(), workspace.potential(graph, graph.start()));
+        backward.push(graph.end(), -workspace.potential(graph, graph.end()));
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        int expanded = 0;
+        while (true) {
+            skipClosed(workspace, FORWARD);
+            skipClosed(workspace, BACKWARD);
+            if (forward.isEmpty() || backward.isEmpty() || forward.peekKey() + backward.peekKey() >= best) {
+                break;
+            }
+
+            int direction = forward.size() <= backward.size() ? FORWARD : BACKWARD;
+            int other = 1 - direction;
+            double sign = direction == FORWARD ? 1 : -1;
+
+            int current = workspace.open(direction).pop();
+            workspace.close(direction, current);
+            expanded++;
+            double currentScore = workspace.score(direction, current);
+            for (int i = 0, degree = graph.degree(current); i < degree; i++) {
+                int neighbour = graph.neighbour(current, i);
+                if (workspace.isClosed(direction, neighbour)) {
+                    continue;
+                }
+                double tentative = currentScore + graph.weight(current, i);
+                if (tentative < workspace.score(direction, neighbour)) {
+                    workspace.reach(direction, neighbour, tentative, current);
+                    workspace.open(direction).push(neighbour, tentative + sign * workspace.potential(graph, neighbour));
+                    double through = tentative + workspace.score(other, neighbour);
+                    if (through < best) {
+                        best = through;
+                        meeting = neighbour;
+                    }
+                }
+            }
+        }
+
+        if (meeting < 0) {
+            return new Result(Collections.emptyList(), expanded);
+        }
+        return new Result(path(graph, workspace, meeting, true), expanded);
+    }
+
+    private static void skipClosed(SearchWorkspace workspace, int direction) {
+        MinHeap open = workspace.open(direction);
+        while (!open.isEmpty() && workspace.isClosed(direction, open.peekNode())) {
+            open.pop();
+        }
+    }
+
+    private static List<Point> path(SearchGraph graph, SearchWorkspace workspace, int meeting, boolean bidirectional) {
+        List<Point> path = new ArrayList<>();
+        for (int node = meeting; node >= 0; node = workspace.cameFrom(FORWARD, node)) {
+            path.add(graph.point(node));
+        }
+        Collections.reverse(path);
+        if (bidirectional) {
+            for (int node = workspace.cameFrom(BACKWARD, meeting); node >= 0; node = workspace.cameFrom(BACKWARD, node)) {
+                path.add(graph.point(node));
+            }
+        }
+        return path;
+    }
+}
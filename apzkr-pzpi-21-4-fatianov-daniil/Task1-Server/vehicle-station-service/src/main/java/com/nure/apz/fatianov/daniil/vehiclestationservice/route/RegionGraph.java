@@ -0,0 +1,442 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoPoints;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoUtils;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Crossing graph of a whole region, built once and kept in a memory-mapped file.
+ * Nodes are the clustered crossings of the region and edges connect the pairs closer than the maximal edge length.
+ * The adjacency is stored in compressed sparse row form: the neighbours of node {@code v} are
+ * {@code targets[offsets[v] .. offsets[v + 1])}, with the edge lengths at the same positions of {@code weights}.
+ * Nodes are ordered by the grid cell they fall into, and {@code cellStarts} points at the first node of every cell,
+ * so the nodes near a point are found without scanning the region.
+ *
+ * <p>File layout, little-endian: the header ({@link #MAGIC}, version, node count, edge count, grid rows, grid columns,
+ * then the region bounds, the cell size and the maximal edge length as doubles), followed by
+ * {@code double latitudes[n]}, {@code double longitudes[n]}, {@code int offsets[n + 1]}, {@code int targets[m]},
+ * {@code float weights[m]} and {@code int cellStarts[rows * columns + 1]}.</p>
+ *
+ * <p>The graph is read through views of the mapped file, so opening it costs only the mapping,
+ * and searching it with {@link #query(Point, Point)} does not copy or allocate per node.
+ * The first query also converts the coordinates to unit vectors in {@link GeoPoints}, which are kept in memory,
+ * so the distances of the search and the crossings near its ends are computed without trigonometry.</p>
+ */
+public final class RegionGraph {
+
+    static final int MAGIC = 0x31475243;// "CRG1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 6 * Integer.BYTES + 7 * Double.BYTES;
+    private static final double KILOMETERS_PER_DEGREE = Math.toRadians(GeoUtils.EARTH_RADIUS);
+
+    private final String name;
+    private final BoundingBox bounds;
+    private final int nodeCount;
+    private final int edgeCount;
+    private final int rows;
+    private final int columns;
+    private final double cellLat;
+    private final double cellLon;
+    private final double maxEdge;
+    private final DoubleBuffer latitudes;
+    private final DoubleBuffer longitudes;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final FloatBuffer weights;
+    private final IntBuffer cellStarts;
+    private volatile GeoPoints geoPoints;
+
+    private RegionGraph(String name, ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Region graph " + name + " has an unknown format");
+        }
+        this.name = name;
+        this.nodeCount = buffer.getInt(8);
+        this.edgeCount = buffer.getInt(12);
+        this.rows = buffer.getInt(16);
+        this.columns = buffer.getInt(20);
+        int position = 6 * Integer.BYTES;
+        this.bounds = new BoundingBox(buffer.getDouble(position), buffer.getDouble(position + 8),
+                buffer.getDouble(position + 16), buffer.getDouble(position + 24));
+        this.cellLat = buffer.getDouble(position + 32);
+        this.cellLon = buffer.getDouble(position + 40);
+        this.maxEdge = buffer.getDouble(position + 48);
+
+        position = HEADER_BYTES;
+        this.latitudes = slice(buffer, position, nodeCount * Double.BYTES).asDoubleBuffer();
+        position += nodeCount * Double.BYTES;
+        this.longitudes = slice(buffer, position, nodeCount * Double.BYTES).asDoubleBuffer();
+        position += nodeCount * Double.BYTES;
+        this.offsets = slice(buffer, position, (nodeCount + 1) * Integer.BYTES).asIntBuffer();
+        position += (nodeCount + 1) * Integer.BYTES;
+        this.targets = slice(buffer, position, edgeCount * Integer.BYTES).asIntBuffer();
+        position += edgeCount * Integer.BYTES;
+        this.weights = slice(buffer, position, edgeCount * Float.BYTES).asFloatBuffer();
+        position += edgeCount * Float.BYTES;
+        this.cellStarts = slice(buffer, position, (rows * columns + 1) * Integer.BYTES).asIntBuffer();
+    }
+
+    /**
+     * Maps a region graph file into memory.
+     *
+     * @param name The name of the region.
+     * @param file The graph file.
+     * @return The mapped graph.
+     * @throws IOException If the file can not be read.
+     * @throws IllegalStateException If the file is not a region graph.
+     */
+    public static RegionGraph open(String name, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new RegionGraph(name, buffer);
+        }
+    }
+
+    /**
+     * Builds the graph of a region and writes it to a file. The file is written to a temporary file next to the target
+     * and then moved to it, so a graph file is never seen half-written. The target should be a new file:
+     * a file that is still mapped can not be replaced on every platform, see {@link RegionGraphStore}.
+     *
+     * <p>Key operations include:
+     * <ul>
+     *     <li>Keeping the crossings inside the region and ordering them by grid cell.</li>
+     *     <li>Connecting every crossing with the crossings closer than the maximal edge length in the 3x3 cells around it;
+     *     the nodes of a cell are contiguous, so their chords to the crossing are computed in one batch.</li>
+     *     <li>Writing the header and the arrays of the layout described in {@link RegionGraph}.</li>
+     * </ul>
+     * </p>
+     *
+     * @param file The target file.
+     * @param region The bounds of the region.
+     * @param crossings The clustered crossings of the region.
+     * @param maxEdge The maximal edge length in kilometers.
+     * @throws IOException If the file can not be written.
+     */
+    public static void write(Path file, BoundingBox region, Collection<Point> crossings, double maxEdge) throws IOException {
+        double maxAbsLat = Math.min(Math.max(Math.abs(region.minLat()), Math.abs(region.maxLat())), 89.9);
+        double cellLat = maxEdge / KILOMETERS_PER_DEGREE;
+        double cellLon = maxEdge / (KILOMETERS_PER_DEGREE * Math.cos(Math.toRadians(maxAbsLat)));
+        int rows = Math.max(1, (int) Math.ceil((region.maxLat() - region.minLat()) / cellLat));
+        int columns = Math.max(1, (int) Math.ceil((region.maxLon() - region.minLon()) / cellLon));
+
+        List<Point> nodes = new ArrayList<>();
+        for (Point crossing : crossings) {
+            if (region.contains(crossing)) {
+                nodes.add(crossing);
+            }
+        }
+        int nodeCount = nodes.size();
+        int[] cellOf = new int[nodeCount];
+        Integer[] order = new Integer[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            cellOf[i] = cell(nodes.get(i), region, cellLat, cellLon, rows, columns);
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> cellOf[i]));
+
+        double[] lat = new double[nodeCount];
+        double[] lon = new double[nodeCount];
+        int[] sortedCell = new int[nodeCount];
+        int[] cellStarts = new int[rows * columns + 1];
+        for (int i = 0; i < nodeCount; i++) {
+            Point point = nodes.get(order[i]);
+            lat[i] = point.getLatitude();
+            lon[i] = point.getLongitude();
+            sortedCell[i] = cellOf[order[i]];
+            cellStarts[sortedCell[i] + 1]++;
+        }
+        for (int c = 0; c < rows * columns; c++) {
+            cellStarts[c + 1] += cellStarts[c];
+        }
+
+        GeoPoints points = GeoPoints.of(lat, lon);
+        double maxChord = GeoPoints.chordLimit(maxEdge);
+        double[] chords = null;
+        int[] offsets = new int[nodeCount + 1];
+        int[] targets = new int[Math.max(16, nodeCount * 4)];
+        float[] weights = new float[targets.length];
+        int edgeCount = 0;
+        for (int v = 0; v < nodeCount; v++) {
+            int row = sortedCell[v] / columns;
+            int column = sortedCell[v] % columns;
+            for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+                for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+                    int first = cellStarts[r * columns + c];
+                    int last = cellStarts[r * columns + c + 1];
+                    chords = points.chordsSquared(v, first, last, chords);
+                    for (int u = first; u < last; u++) {
+                        double chord = chords[u - first];
+                        if (u == v || chord >= maxChord) {
+                            continue;
+                        }
+                        if (edgeCount == targets.length) {
+                            targets = Arrays.copyOf(targets, edgeCount * 2);
+                            weights = Arrays.copyOf(weights, edgeCount * 2);
+                        }
+                        targets[edgeCount] = u;
+                        // Округлення вгору, щоб довжина ребра не була меншою за евристику
+                        weights[edgeCount] = Math.nextUp((float) GeoPoints.toDistance(chord));
+                        edgeCount++;
+                    }
+                }
+            }
+            offsets[v + 1] = edgeCount;
+        }
+
+        int size = HEADER_BYTES + 2 * nodeCount * Double.BYTES + (nodeCount + 1) * Integer.BYTES
+                + edgeCount * (Integer.BYTES + Float.BYTES) + cellStarts.length * Integer.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(nodeCount).putInt(edgeCount).putInt(rows).putInt(columns);
+        buffer.putDouble(region.minLat()).putDouble(region.minLon()).putDouble(region.maxLat()).putDouble(region.maxLon());
+        buffer.putDouble(cellLat).putDouble(cellLon).putDouble(maxEdge);
+        buffer.asDoubleBuffer().put(lat).put(lon);
+        buffer.position(buffer.position() + 2 * nodeCount * Double.BYTES);
+        buffer.asIntBuffer().put(offsets).put(targets, 0, edgeCount);
+        buffer.position(buffer.position() + (nodeCount + 1 + edgeCount) * Integer.BYTES);
+        buffer.asFloatBuffer().put(weights, 0, edgeCount);
+        buffer.position(buffer.position() + edgeCount * Float.BYTES);
+        buffer.asIntBuffer().put(cellStarts);
+        buffer.rewind();
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BoundingBox getBounds() {
+        return bounds;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Checks whether the whole box lies inside the region, so a route in the box can be searched over this graph.
+     */
+    public boolean covers(BoundingBox box) {
+        return box.minLat() >= bounds.minLat() && box.maxLat() <= bounds.maxLat()
+                && box.minLon() >= bounds.minLon() && box.maxLon() <= bounds.maxLon();
+    }
+
+    /**
+     * Returns the graph extended by the start and the destination of a route, which are connected
+     * to the crossings closer than the maximal edge length.
+     *
+     * @param start The start of the route.
+     * @param end The destination of the route.
+     * @return The graph to search.
+     */
+    SearchGraph query(Point start, Point end) {
+        return new Query(start, end);
+    }
+
+    private GeoPoints geoPoints() {
+        GeoPoints points = geoPoints;
+        if (points == null) {
+            synchronized (this) {
+                points = geoPoints;
+                if (points == null) {
+                    points = new GeoPoints(nodeCount);
+                    for (int v = 0; v < nodeCount; v++) {
+                        points.set(v, latitudes.get(v), longitudes.get(v));
+                    }
+                    geoPoints = points;
+                }
+            }
+        }
+        return points;
+    }
+
+    private int[] near(Point point, double[] unit) {
+        int row = (int) Math.floor((point.getLatitude() - bounds.minLat()) / cellLat);
+        int column = (int) Math.floor((point.getLongitude() - bounds.minLon()) / cellLon);
+        GeoPoints points = geoPoints();
+        double maxChord = GeoPoints.chordLimit(maxEdge);
+        double[] chords = null;
+        int[] found = new int[16];
+        int count = 0;
+        for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+            for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+                int first = cellStarts.get(r * columns + c);
+                int last = cellStarts.get(r * columns + c + 1);
+                chords = points.chordsSquared(unit, first, last, chords);
+                for (int v = first; v < last; v++) {
+                    if (chords[v - first] < maxChord) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count++] = v;
+                    }
+                }
+            }
+        }
+        int[] result = Arrays.copyOf(found, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static int cell(Point point, BoundingBox region, double cellLat, double cellLon, int rows, int columns) {
+        int row = Math.min(rows - 1, (int) ((point.getLatitude() - region.minLat()) / cellLat));
+        int column = Math.min(columns - 1, (int) ((point.getLongitude() - region.minLon()) / cellLon));
+        return row * columns + column;
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+        return buffer.slice(position, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * The region graph with two virtual nodes, the start ({@code n}) and the destination ({@code n + 1}).
+     * A crossing near the start or the destination gets an extra edge to it after its stored edges.
+     */
+    private final class Query implements SearchGraph {
+
+        private final Point start;
+        private final Point end;
+        private final GeoPoints points;
+        private final double[] startUnit;
+        private final double[] endUnit;
+        private final int[] nearStart;
+        private final int[] nearEnd;
+        private final boolean adjacent;
+
+        Query(Point start, Point end) {
+            this.start = start;
+            this.end = end;
+            this.points = geoPoints();
+            this.startUnit = GeoPoints.unit(start.getLatitude(), start.getLongitude());
+            this.endUnit = GeoPoints.unit(end.getLatitude(), end.getLongitude());
+            this.nearStart = near(start, startUnit);
+            this.nearEnd = near(end, endUnit);
+            this.adjacent = distance(start(), end()) < maxEdge;
+        }
+
+        @Override
+        public int size() {
+            return nodeCount + 2;
+        }
+
+        @Override
+        public int start() {
+            return nodeCount;
+        }
+
+        @Override
+        public int end() {
+            return nodeCount + 1;
+        }
+
+        @Override
+        public int degree(int node) {
+            if (node == start()) {
+                return nearStart.length + (adjacent ? 1 : 0);
+            }
+            if (node == end()) {
+                return nearEnd.length + (adjacent ? 1 : 0);
+            }
+            return offsets.get(node + 1) - offsets.get(node)
+                    + (isNear(nearStart, node) ? 1 : 0) + (isNear(nearEnd, node) ? 1 : 0);
+        }
+
+        @Override
+        public int neighbour(int node, int index) {
+            if (node == start()) {
+                return index < nearStart.length ? nearStart[index] : end();
+            }
+            if (node == end()) {
+                return index < nearEnd.length ? nearEnd[index] : start();
+            }
+            int stored = offsets.get(node + 1) - offsets.get(node);
+            if (index < stored) {
+                return targets.get(offsets.get(node) + index);
+            }
+            return index == stored && isNear(nearStart, node) ? start() : end();
+        }
+
+        @Override
+        public double weight(int node, int index) {
+            if (node < nodeCount && index < offsets.get(node + 1) - offsets.get(node)) {
+                return weights.get(offsets.get(node) + index);
+            }
+            return distance(node, neighbour(node, index));
+        }
+
+        @Override
+        public double distance(int from, int to) {
+            if (from < nodeCount) {
+                return to < nodeCount ? points.distance(from, to) : points.distance(from, unit(to));
+            }
+            if (to < nodeCount) {
+                return points.distance(to, unit(from));
+            }
+            double[] a = unit(from);
+            double[] b = unit(to);
+            double dx = a[0] - b[0];
+            double dy = a[1] - b[1];
+            double dz = a[2] - b[2];
+            return GeoPoints.toDistance(dx * dx + dy * dy + dz * dz);
+        }
+
+        @Override
+        public Point point(int node) {
+            return new Point(latitude(node), longitude(node));
+        }
+
+        private double latitude(int node) {
+            if (node < nodeCount) {
+                return latitudes.get(node);
+            }
+            return node == start() ? start.getLatitude() : end.getLatitude();
+        }
+
+        private double longitude(int node) {
+            if (node < nodeCount) {
+                return longitudes.get(node);
+            }
+            return node == start() ? start.getLongitude() : end.getLongitude();
+        }
+
+        private double[] unit(int node) {
+            return node == start() ? startUnit : endUnit;
+        }
+
+        private boolean isNear(int[] near, int node) {
+            return Arrays.binarySearch(near, node) >= 0;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+/**
+ * Published when region graphs have been loaded or a region graph has been rebuilt.
+ *
+ * @param name The name of the rebuilt region, or {@code null} when all graphs have been loaded.
+ */
+public record RegionGraphChangedEvent(String name) {
+}
@@ -0,0 +1,61 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.response.RegionGraphResponseEntity;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/vehicle-station-service/region-graphs")
+@RequiredArgsConstructor
+public class RegionGraphController {
+
+    private final RegionGraphService regionGraphService;
+
+    @Operation(summary = "Build the crossing graph of a region",
+            description = "Loads the crossings of the region, builds their graph and stores it, so routes inside the region are planned without loading crossings. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Region graph built successfully"),
+                    @ApiResponse(responseCode = "400", description = "Error occurred during building the region graph")
+            })
+    @PostMapping("/build")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<RegionGraphResponseEntity> build(
+            @RequestParam String name,
+            @RequestParam Double minLatitude,
+            @RequestParam Double minLongitude,
+            @RequestParam Double maxLatitude,
+            @RequestParam Double maxLongitude,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            BoundingBox bounds = new BoundingBox(minLatitude, minLongitude, maxLatitude, maxLongitude);
+            return ResponseEntity.ok().body(regionGraphService.build(name, bounds, authHeader));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Get all region graphs",
+            description = "Returns the bounds and sizes of all loaded region graphs.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Region graphs retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Error occurred during retrieving the region graphs")
+            })
+    @GetMapping("/get-all")
+    public ResponseEntity<List<RegionGraphResponseEntity>> getAll() {
+        try {
+            return ResponseEntity.ok().body(regionGraphService.getAll());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ArrayList<>());
+        }
+    }
+}
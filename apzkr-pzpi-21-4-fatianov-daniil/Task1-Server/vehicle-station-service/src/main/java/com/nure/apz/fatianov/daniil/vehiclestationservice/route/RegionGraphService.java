@@ -0,0 +1,47 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.response.RegionGraphResponseEntity;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.VehicleService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Builds and lists the prebuilt crossing graphs of regions.
+ */
+@Service
+@RequiredArgsConstructor
+public class RegionGraphService {
+
+    private final VehicleService vehicleService;
+    private final RoutePlanner routePlanner;
+    private final RegionGraphStore regionGraphStore;
+
+    /**
+     * Builds the crossing graph of a region and stores it, replacing the previous graph of the region.
+     *
+     * @param name The name of the region.
+     * @param bounds The bounds of the region.
+     * @param authHeader The authorization header used to verify administrative access.
+     * @return The built region graph.
+     * @throws IllegalStateException If the authorization header is invalid, the name is invalid or the bounds are empty.
+     * @throws RuntimeException If the crossings can not be loaded or the graph can not be stored.
+     */
+    public RegionGraphResponseEntity build(String name, BoundingBox bounds, String authHeader) {
+        if (!vehicleService.isAdmin(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
+        if (bounds.minLat() >= bounds.maxLat() || bounds.minLon() >= bounds.maxLon()) {
+            throw new IllegalStateException("Region bounds are empty");
+        }
+
+        return RegionGraphResponseEntity.of(routePlanner.buildRegion(name, bounds));
+    }
+
+    public List<RegionGraphResponseEntity> getAll() {
+        return regionGraphStore.getAll().stream()
+                .map(RegionGraphResponseEntity::of)
+                .toList();
+    }
+}
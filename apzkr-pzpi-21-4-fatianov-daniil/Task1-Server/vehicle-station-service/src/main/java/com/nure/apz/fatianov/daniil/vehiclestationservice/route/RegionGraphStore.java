@@ -0,0 +1,175 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Keeps the prebuilt {@link RegionGraph}s of the service in the graph directory.
+ * Every build of a region is written to a new file, {@code <name>.<version>.crg}, and mapped from there:
+ * the file of the previous build may still be mapped by searches in progress, and a mapped file can not be replaced
+ * or deleted on every platform. Files of older builds are deleted when possible, and otherwise at the next start.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Mapping the newest graph file of every region when the application is ready.</li>
+ *     <li>Writing a newly built region graph to a new file and replacing the loaded graph of the region.</li>
+ *     <li>Publishing a {@link RegionGraphChangedEvent} after every change.</li>
+ *     <li>Finding the smallest region that covers the bounding box of a route.</li>
+ * </ul>
+ * </p>
+ */
+@Component
+public class RegionGraphStore {
+
+    private static final String EXTENSION = ".crg";
+
+    private final Path directory;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile Map<String, RegionGraph> regions = Map.of();
+
+    public RegionGraphStore(@Value("${vehicle-station.route.graph-dir:route-graphs}") String directory,
+                            ApplicationEventPublisher eventPublisher) {
+        this.directory = Paths.get(directory);
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Map<String, Path> newest = new HashMap<>();
+        Map<String, Long> versions = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String base = fileName.substring(0, fileName.length() - EXTENSION.length());
+                int separator = base.lastIndexOf('.');
+                String name = separator < 0 ? base : base.substring(0, separator);
+                long version;
+                try {
+                    version = separator < 0 ? 0 : Long.parseLong(base.substring(separator + 1));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                if (!versions.containsKey(name) || version > versions.get(name)) {
+                    versions.put(name, version);
+                    newest.put(name, file);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Cannot read region graph directory: " + e.getMessage());
+        }
+
+        Map<String, RegionGraph> loaded = new HashMap<>();
+        for (Map.Entry<String, Path> entry : newest.entrySet()) {
+            String name = entry.getKey();
+            long startedAt = System.nanoTime();
+            try {
+                RegionGraph graph = RegionGraph.open(name, entry.getValue());
+                loaded.put(name, graph);
+                System.out.println("Loaded region graph " + name + " with " + graph.getNodeCount() + " nodes and "
+                        + graph.getEdgeCount() + " edges in " + (System.nanoTime() - startedAt) / 1_000_000 + " ms");
+                deleteOlderFiles(name, entry.getValue());
+            } catch (Exception e) {
+                System.out.println("Cannot load region graph " + name + ": " + e.getMessage());
+            }
+        }
+        regions = Map.copyOf(loaded);
+        if (!loaded.isEmpty()) {
+            eventPublisher.publishEvent(new RegionGraphChangedEvent(null));
+        }
+    }
+
+    /**
+     * Writes the graph of a region to a new file and loads it in place of the previous graph of the region.
+     *
+     * @param name The name of the region; letters, digits, '-' and '_' only.
+     * @param bounds The bounds of the region.
+     * @param crossings The clustered crossings of the region.
+     * @param maxEdge The maximal edge length in kilometers.
+     * @return The loaded graph.
+     * @throws IllegalStateException If the name is invalid.
+     * @throws IOException If the graph can not be written or read.
+     */
+    public synchronized RegionGraph save(String name, BoundingBox bounds, Collection<Point> crossings, double maxEdge) throws IOException {
+        if (name == null || !name.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalStateException("Invalid region name: " + name);
+        }
+        long version = System.currentTimeMillis();
+        Path file = directory.resolve(name + "." + version + EXTENSION);
+        while (Files.exists(file)) {
+            file = directory.resolve(name + "." + ++version + EXTENSION);
+        }
+        RegionGraph.write(file, bounds, crossings, maxEdge);
+        RegionGraph graph = RegionGraph.open(name, file);
+
+        Map<String, RegionGraph> updated = new HashMap<>(regions);
+        updated.put(name, graph);
+        regions = Map.copyOf(updated);
+        eventPublisher.publishEvent(new RegionGraphChangedEvent(name));
+        deleteOlderFiles(name, file);
+        return graph;
+    }
+
+    /**
+     * Finds the smallest loaded region that covers a box.
+     *
+     * @param box The bounding box of a route.
+     * @return The region graph, or an empty {@link Optional} if no region covers the box.
+     */
+    public Optional<RegionGraph> find(BoundingBox box) {
+        RegionGraph best = null;
+        for (RegionGraph graph : regions.values()) {
+            if (graph.covers(box) && (best == null || area(graph.getBounds()) < area(best.getBounds()))) {
+                best = graph;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    public List<RegionGraph> getAll() {
+        List<RegionGraph> all = new ArrayList<>(regions.values());
+        all.sort(Comparator.comparing(RegionGraph::getName));
+        return all;
+    }
+
+    /**
+     * Deletes the graph files of a region other than the current one. A file that is still mapped
+     * can not be deleted on some platforms; it is left for the next start.
+     */
+    private void deleteOlderFiles(String name, Path current) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, name + "*" + EXTENSION)) {
+            for (Path file : files) {
+                String base = file.getFileName().toString();
+                base = base.substring(0, base.length() - EXTENSION.length());
+                boolean sameRegion = base.equals(name) || base.matches(name + "\\.\\d+");
+                if (sameRegion && !file.equals(current)) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        System.out.println("Cannot delete old region graph file " + file.getFileName() + ": " + e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Cannot read region graph directory: " + e.getMessage());
+        }
+    }
+
+    private static double area(BoundingBox box) {
+        return (box.maxLat() - box.minLat()) * (box.maxLon() - box.minLon());
+    }
+}
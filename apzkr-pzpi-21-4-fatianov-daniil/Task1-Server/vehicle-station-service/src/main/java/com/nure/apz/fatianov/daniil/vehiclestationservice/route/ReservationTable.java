@@ -0,0 +1,282 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoUtils;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Space-time reservations of the airspace, used to keep concurrently planned routes apart.
+ * The airspace is divided into cells of a fixed size, altitude bands and time slots; every cell a vehicle flies through
+ * during a slot is reserved for that vehicle, and other vehicles plan around it.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Checking whether a flight between two points is free, without locking, so route searches run in parallel.</li>
+ *     <li>Committing all cells of a route at once: the cells are guarded by striped locks taken in a fixed order,
+ *     so commits of routes in different parts of the airspace do not wait for each other.</li>
+ *     <li>Replacing the previous reservation of a vehicle and dropping reservations of routes that have ended.</li>
+ * </ul>
+ * </p>
+ */
+@Component
+public class ReservationTable {
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(GeoUtils.EARTH_RADIUS * 1000);
+    private static final int LATITUDE_BITS = 21;
+    private static final int LONGITUDE_BITS = 22;
+    private static final int BAND_BITS = 3;
+    private static final int SLOT_BITS = 64 - LATITUDE_BITS - LONGITUDE_BITS - BAND_BITS;
+
+    private record Reservation(long[] cells, long lastSlot) {
+    }
+
+    private final double cellSize;
+    private final long slotLength;
+    private final int bands;
+    private final ReentrantLock[] stripes;
+    private final Map<Long, String> cells = new ConcurrentHashMap<>();
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+
+    public ReservationTable(@Value("${vehicle-station.route.reservation.cell-size:50}") double cellSize,
+                            @Value("${vehicle-station.route.reservation.slot:5000}") long slotLength,
+                            @Value("${vehicle-station.route.reservation.bands:4}") int bands,
+                            @Value("${vehicle-station.route.reservation.stripes:64}") int stripes) {
+        this.cellSize = cellSize;
+        this.slotLength = slotLength;
+        this.bands = Math.max(1, Math.min(bands, 1 << BAND_BITS));
+        this.stripes = new ReentrantLock[Math.max(1, stripes)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public int bands() {
+        return bands;
+    }
+
+    public long slotLength() {
+        return slotLength;
+    }
+
+    public int size() {
+        return cells.size();
+    }
+
+    /**
+     * Checks whether a vehicle can fly straight between two points in an altitude band without entering a cell
+     * reserved by another vehicle.
+     *
+     * @param from The point the flight starts at.
+     * @param fromTime The time the flight starts, in epoch milliseconds.
+     * @param to The point the flight ends at; the same point for hovering.
+     * @param toTime The time the flight ends, in epoch milliseconds.
+     * @param band The altitude band.
+     * @param owner The number of the vehicle, whose own reservations do not block it.
+     * @return {@code true} if no cell on the way is reserved by another vehicle.
+     */
+    public boolean isFree(Point from, long fromTime, Point to, long toTime, int band, String owner) {
+        return sweep(from, fromTime, to, toTime, band, cell -> {
+            String reserved = cells.get(cell);
+            return reserved == null || reserved.equals(owner);
+        });
+    }
+
+    /**
+     * Checks whether a whole route is free for a vehicle.
+     *
+     * @param route The route.
+     * @param owner The number of the vehicle.
+     * @return {@code true} if no cell of the route is reserved by another vehicle.
+     */
+    public boolean isFree(ScheduledRoute route, String owner) {
+        List<ScheduledWaypoint> waypoints = route.waypoints();
+        for (int i = 1; i < waypoints.size(); i++) {
+            ScheduledWaypoint from = waypoints.get(i - 1);
+            ScheduledWaypoint to = waypoints.get(i);
+            if (!isFree(from.point(), from.time(), to.point(), to.time(), route.altitudeBand(), owner)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reserves all cells of a route for a vehicle, or none of them if one is already reserved by another vehicle.
+     * The previous reservation of the vehicle is released in the same step.
+     *
+     * @param owner The number of the vehicle.
+     * @param route The route to reserve.
+     * @return {@code true} if the route was reserved.
+     */
+    public boolean reserve(String owner, ScheduledRoute route) {
+        long[] routeCells = cellsOf(route);
+        long lastSlot = Math.floorDiv(route.arrival(), slotLength);
+
+        while (true) {
+            Reservation previous = reservations.get(owner);
+            int[] locked = stripesOf(routeCells, previous, owner);
+            lock(locked);
+            try {
+                // Попередню бронь могли замінити до захоплення блокувань, тоді потрібні інші смуги
+                if (reservations.get(owner) != previous) {
+                    continue;
+                }
+                for (long cell : routeCells) {
+                    String reserved = cells.get(cell);
+                    if (reserved != null && !reserved.equals(owner)) {
+                        return false;
+                    }
+                }
+                if (previous != null) {
+                    for (long cell : previous.cells()) {
+                        cells.remove(cell, owner);
+                    }
+                }
+                for (long cell : routeCells) {
+                    cells.put(cell, owner);
+                }
+                reservations.put(owner, new Reservation(routeCells, lastSlot));
+                return true;
+            } finally {
+                unlock(locked);
+            }
+        }
+    }
+
+    /**
+     * Releases the reservation of a vehicle.
+     *
+     * @param owner The number of the vehicle.
+     */
+    public void release(String owner) {
+        release(owner, reservations.get(owner));
+    }
+
+    @Scheduled(fixedDelayString = "${vehicle-station.route.reservation.slot:5000}")
+    public void evictFinished() {
+        long currentSlot = Math.floorDiv(System.currentTimeMillis(), slotLength);
+        reservations.forEach((owner, reservation) -> {
+            if (reservation.lastSlot() < currentSlot) {
+                release(owner, reservation);
+            }
+        });
+    }
+
+    private void release(String owner, Reservation previous) {
+        if (previous == null) {
+            return;
+        }
+        int[] locked = stripesOf(new long[0], previous, owner);
+        lock(locked);
+        try {
+            if (reservations.remove(owner, previous)) {
+                for (long cell : previous.cells()) {
+                    cells.remove(cell, owner);
+                }
+            }
+        } finally {
+            unlock(locked);
+        }
+    }
+
+    private long[] cellsOf(ScheduledRoute route) {
+        long[][] buffer = {new long[64]};
+        int[] count = {0};
+        List<ScheduledWaypoint> waypoints = route.waypoints();
+        for (int i = 1; i < waypoints.size(); i++) {
+            ScheduledWaypoint from = waypoints.get(i - 1);
+            ScheduledWaypoint to = waypoints.get(i);
+            sweep(from.point(), from.time(), to.point(), to.time(), route.altitudeBand(), cell -> {
+                if (count[0] == buffer[0].length) {
+                    buffer[0] = Arrays.copyOf(buffer[0], count[0] * 2);
+                }
+                buffer[0][count[0]++] = cell;
+                return true;
+            });
+        }
+        return Arrays.stream(buffer[0], 0, count[0]).sorted().distinct().toArray();
+    }
+
+    /**
+     * Visits the cells swept by a straight flight, sampled at least twice per cell and twice per slot,
+     * until the visitor returns {@code false}.
+     */
+    private boolean sweep(Point from, long fromTime, Point to, long toTime, int band, LongPredicate visitor) {
+        double latitudeScale = METERS_PER_DEGREE / cellSize;
+        double dy = (to.getLatitude() - from.getLatitude()) * METERS_PER_DEGREE;
+        double dx = (to.getLongitude() - from.getLongitude()) * METERS_PER_DEGREE
+                * Math.cos(Math.toRadians(from.getLatitude()));
+        long duration = Math.max(0, toTime - fromTime);
+
+        int steps = (int) Math.max(1, Math.max(
+                Math.ceil(Math.sqrt(dx * dx + dy * dy) * 2 / cellSize),
+                Math.ceil(duration * 2.0 / slotLength)));
+
+        long previous = 0;
+        for (int i = 0; i <= steps; i++) {
+            double fraction = (double) i / steps;
+            double latitude = from.getLatitude() + (to.getLatitude() - from.getLatitude()) * fraction;
+            double longitude = from.getLongitude() + (to.getLongitude() - from.getLongitude()) * fraction;
+            long time = fromTime + Math.round(duration * fraction);
+
+            // Ширина клітинки за довготою залежить лише від ряду, тому всі маршрути ділять простір однаково
+            long row = (long) Math.floor(latitude * latitudeScale);
+            double rowCos = Math.cos(Math.toRadians((row + 0.5) / latitudeScale));
+            long cell = cell(row, (long) Math.floor(longitude * latitudeScale * rowCos), band, Math.floorDiv(time, slotLength));
+            if (i > 0 && cell == previous) {
+                continue;
+            }
+            previous = cell;
+            if (!visitor.test(cell)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long cell(long latitude, long longitude, int band, long slot) {
+        long key = latitude & ((1L << LATITUDE_BITS) - 1);
+        key = (key << LONGITUDE_BITS) | (longitude & ((1L << LONGITUDE_BITS) - 1));
+        key = (key << BAND_BITS) | band;
+        return (key << SLOT_BITS) | (slot & ((1L << SLOT_BITS) - 1));
+    }
+
+    private int[] stripesOf(long[] routeCells, Reservation previous, String owner) {
+        int previousCount = previous == null ? 0 : previous.cells().length;
+        int[] indexes = new int[routeCells.length + previousCount + 1];
+        int count = 0;
+        for (long cell : routeCells) {
+            indexes[count++] = stripe(Long.hashCode(cell));
+        }
+        for (int i = 0; i < previousCount; i++) {
+            indexes[count++] = stripe(Long.hashCode(previous.cells()[i]));
+        }
+        indexes[count] = stripe(owner.hashCode());
+        return Arrays.stream(indexes).sorted().distinct().toArray();
+    }
+
+    private int stripe(int hash) {
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+
+    private void lock(int[] indexes) {
+        for (int index : indexes) {
+            stripes[index].lock();
+        }
+    }
+
+    private void unlock(int[] indexes) {
+        for (int i = indexes.length - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+/**
+ * Compact encodings of a route, much smaller than a JSON array of points.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Encoding a route as an encoded polyline string with 5 decimal places, readable by common map libraries.</li>
+ *     <li>Encoding a route as binary: the number of points followed by the zigzag varint deltas of the coordinates in microdegrees.</li>
+ * </ul>
+ * </p>
+ */
+public final class RouteEncoding {
+
+    private static final double POLYLINE_PRECISION = 1e5;
+    private static final double BINARY_PRECISION = 1e6;
+
+    private RouteEncoding() {
+    }
+
+    /**
+     * Encodes a route with the encoded polyline algorithm.
+     *
+     * @param route The route to encode.
+     * @return The encoded polyline.
+     */
+    public static String polyline(List<Point> route) {
+        StringBuilder builder = new StringBuilder();
+        long previousLatitude = 0;
+        long previousLongitude = 0;
+        for (Point point : route) {
+            long latitude = Math.round(point.getLatitude() * POLYLINE_PRECISION);
+            long longitude = Math.round(point.getLongitude() * POLYLINE_PRECISION);
+            appendPolylineValue(builder, latitude - previousLatitude);
+            appendPolylineValue(builder, longitude - previousLongitude);
+            previousLatitude = latitude;
+            previousLongitude = longitude;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Encodes a route as delta-encoded binary.
+     * The first coordinates are stored as deltas from zero, so every value is written the same way.
+     *
+     * @param route The route to encode.
+     * @return The encoded bytes.
+     */
+    public static byte[] binary(List<Point> route) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(4 + route.size() * 6);
+        writeVarint(output, route.size());
+        long previousLatitude = 0;
+        long previousLongitude = 0;
+        for (Point point : route) {
+            long latitude = Math.round(point.getLatitude() * BINARY_PRECISION);
+            long longitude = Math.round(point.getLongitude() * BINARY_PRECISION);
+            writeVarint(output, zigzag(latitude - previousLatitude));
+            writeVarint(output, zigzag(longitude - previousLongitude));
+            previousLatitude = latitude;
+            previousLongitude = longitude;
+        }
+        return output.toByteArray();
+    }
+
+    private static void appendPolylineValue(StringBuilder builder, long value) {
+        long shifted = value < 0 ? ~(value << 1) : value << 1;
+        while (shifted >= 0x20) {
+            builder.append((char) ((0x20 | (shifted & 0x1f)) + 63));
+            shifted >>= 5;
+        }
+        builder.append((char) (shifted + 63));
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream output, long value) {
+        while ((value & ~0x7fL) != 0) {
+            output.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+}
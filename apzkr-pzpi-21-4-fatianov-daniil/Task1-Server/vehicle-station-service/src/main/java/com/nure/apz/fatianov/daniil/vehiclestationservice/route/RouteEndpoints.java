@@ -0,0 +1,14 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+
+/**
+ * The start and the destination of a route that has to be planned,
+ * with the altitudes of the stations in meters when they are known.
+ */
+public record RouteEndpoints(Point start, Point end, Double startAltitude, Double endAltitude) {
+
+    public RouteEndpoints(Point start, Point end) {
+        this(start, end, null, null);
+    }
+}
@@ -0,0 +1,74 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes a route ({@code List<Point>}) in a compact encoding when the client asks for it in the {@code Accept} header.
+ * Clients that accept JSON keep getting JSON, because this converter is registered after the JSON converter.
+ *
+ * @see RouteEncoding
+ */
+public class RouteHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<Point>> {
+
+    public static final String POLYLINE_VALUE = "application/x-polyline";
+    public static final String BINARY_VALUE = "application/x-route-binary";
+    public static final MediaType POLYLINE = MediaType.parseMediaType(POLYLINE_VALUE);
+    public static final MediaType BINARY = MediaType.parseMediaType(BINARY_VALUE);
+
+    public RouteHttpMessageConverter() {
+        super(POLYLINE, BINARY);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return isRoute(type) && canWrite(mediaType);
+    }
+
+    @Override
+    protected void writeInternal(List<Point> route, Type type, HttpOutputMessage outputMessage) throws IOException {
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        if (contentType != null && BINARY.isCompatibleWith(contentType)) {
+            outputMessage.getBody().write(RouteEncoding.binary(route));
+        } else {
+            outputMessage.getBody().write(RouteEncoding.polyline(route).getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Override
+    public List<Point> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Encoded routes can not be read", inputMessage);
+    }
+
+    @Override
+    protected List<Point> readInternal(Class<? extends List<Point>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Encoded routes can not be read", inputMessage);
+    }
+
+    private static boolean isRoute(Type type) {
+        return type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() instanceof Class<?> raw
+                && List.class.isAssignableFrom(raw)
+                && parameterized.getActualTypeArguments()[0] == Point.class;
+    }
+}
@@ -0,0 +1,53 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A route planning request of one vehicle, executed by {@link RouteJobService}.
+ * The state is written by the worker thread and read by request threads, so every field is volatile.
+ */
+@Getter
+public class RouteJob {
+    private final String id = UUID.randomUUID().toString();
+    private final String vehicleNumber;
+    private final Instant submittedAt = Instant.now();
+    private volatile RouteJobStatus status = RouteJobStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile List<Point> route;
+    private volatile String error;
+    private final CompletableFuture<RouteJob> completion = new CompletableFuture<>();
+
+    public RouteJob(String vehicleNumber) {
+        this.vehicleNumber = vehicleNumber;
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        status = RouteJobStatus.RUNNING;
+    }
+
+    void succeed(List<Point> route) {
+        this.route = route;
+        finishedAt = Instant.now();
+        status = RouteJobStatus.DONE;
+        completion.complete(this);
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        status = RouteJobStatus.FAILED;
+        completion.complete(this);
+    }
+
+    public boolean isFinished() {
+        return status == RouteJobStatus.DONE || status == RouteJobStatus.FAILED;
+    }
+}
@@ -0,0 +1,103 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.response.RouteJobResponseEntity;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/vehicle-station-service/route-jobs")
+@RequiredArgsConstructor
+public class RouteJobController {
+
+    private static final long STREAM_TIMEOUT = 120000;// мс очікування результату в потоці
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    private final RouteJobService routeJobService;
+
+    @Operation(summary = "Submit a route planning job",
+            description = "Queues the route planning of a vehicle and returns the job. Returns 429 when the planning queue is full.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Route planning job queued"),
+                    @ApiResponse(responseCode = "400", description = "Error occurred during submitting the job"),
+                    @ApiResponse(responseCode = "429", description = "Planning queue is full, retry later")
+            })
+    @PostMapping("/submit")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<RouteJobResponseEntity> submit(
+            @RequestParam String number,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(RouteJobResponseEntity.of(routeJobService.submit(number, authHeader)));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Get a route planning job",
+            description = "Returns the status of a route planning job and, once it is done, the route.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Job retrieved successfully"),
+                    @ApiResponse(responseCode = "404", description = "Job does not exist or has expired")
+            })
+    @GetMapping("/{id}")
+    public ResponseEntity<RouteJobResponseEntity> get(@PathVariable String id) {
+        return routeJobService.get(id)
+                .map(job -> ResponseEntity.ok(RouteJobResponseEntity.of(job)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Stream a route planning job",
+            description = "Sends the current state of a route planning job as a server-sent event and another one when the job finishes.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Job events are streamed"),
+                    @ApiResponse(responseCode = "404", description = "Job does not exist or has expired")
+            })
+    @GetMapping("/{id}/stream")
+    public ResponseEntity<SseEmitter> stream(@PathVariable String id) {
+        Optional<RouteJob> optionalJob = routeJobService.get(id);
+        if (optionalJob.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        RouteJob job = optionalJob.get();
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT);
+        try {
+            emitter.send(SseEmitter.event().name("job").data(RouteJobResponseEntity.of(job)));
+            if (job.isFinished()) {
+                emitter.complete();
+                return ResponseEntity.ok(emitter);
+            }
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return ResponseEntity.ok(emitter);
+        }
+
+        job.getCompletion().thenAccept(finishedJob -> {
+            try {
+                emitter.send(SseEmitter.event().name("job").data(RouteJobResponseEntity.of(finishedJob)));
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return ResponseEntity.ok(emitter);
+    }
+}
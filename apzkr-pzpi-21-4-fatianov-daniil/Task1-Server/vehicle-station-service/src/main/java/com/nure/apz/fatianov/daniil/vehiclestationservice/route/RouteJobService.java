@@ -0,0 +1,151 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.VehicleService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs route planning outside of the request threads on a dedicated, bounded pool of workers.
+ * Planning calls the Overpass API and searches the crossing graph, which takes seconds, so it is submitted as a
+ * {@link RouteJob} and the caller polls or streams the result. When all workers are busy and the queue is full,
+ * new jobs are rejected instead of piling up, and the caller is expected to retry later.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Submitting route planning jobs to a fixed-size executor with a bounded queue.</li>
+ *     <li>Keeping finished jobs for a limited time so that their results can be read.</li>
+ *     <li>Publishing queue depth, active workers, rejections, queue wait and planning time as metrics.</li>
+ * </ul>
+ * </p>
+ */
+@Service
+public class RouteJobService {
+
+    private final VehicleService vehicleService;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, RouteJob> jobs = new ConcurrentHashMap<>();
+    private final long jobTtl;
+
+    private final Timer planningTimer;
+    private final Timer failedPlanningTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+
+    public RouteJobService(VehicleService vehicleService,
+                           MeterRegistry meterRegistry,
+                           @Value("${vehicle-station.route.workers:4}") int workers,
+                           @Value("${vehicle-station.route.queue-capacity:16}") int queueCapacity,
+                           @Value("${vehicle-station.route.job-ttl:600000}") long jobTtl) {
+        this.vehicleService = vehicleService;
+        this.jobTtl = jobTtl;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "route-planner-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("route.jobs.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Route planning jobs waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("route.jobs.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Route planning jobs being executed")
+                .register(meterRegistry);
+        this.planningTimer = Timer.builder("route.planning.time")
+                .description("Time spent planning a route")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failedPlanningTimer = Timer.builder("route.planning.time")
+                .description("Time spent planning a route")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("route.jobs.queue.wait")
+                .description("Time a route planning job waited for a worker")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("route.jobs.rejected")
+                .description("Route planning jobs rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Submits the route planning of a vehicle.
+     *
+     * @param number The number of the vehicle.
+     * @param authHeader The authorization header used to verify administrative access.
+     * @return The queued job.
+     * @throws IllegalStateException If the authorization header is invalid.
+     * @throws RejectedExecutionException If all workers are busy and the queue is full.
+     */
+    public RouteJob submit(String number, String authHeader) {
+        if (!vehicleService.isAdmin(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
+
+        RouteJob job = new RouteJob(number);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, authHeader));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            rejectedCounter.increment();
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Returns a job by its ID.
+     *
+     * @param id The ID of the job.
+     * @return The job, or an empty {@link Optional} if it does not exist or has expired.
+     */
+    public Optional<RouteJob> get(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void run(RouteJob job, String authHeader) {
+        job.start();
+        queueWaitTimer.record(Duration.between(job.getSubmittedAt(), job.getStartedAt()));
+
+        long startedAt = System.nanoTime();
+        try {
+            job.succeed(vehicleService.planVehicleRoute(job.getVehicleNumber(), authHeader));
+            planningTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            job.fail(e.getMessage());
+            failedPlanningTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpiredJobs() {
+        Instant expiredBefore = Instant.now().minusMillis(jobTtl);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(expiredBefore));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,8 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+public enum RouteJobStatus {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
@@ -0,0 +1,19 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+
+import java.util.List;
+
+/**
+ * The outcome of planning one route of a batch: either the route or the reason it could not be planned.
+ */
+public record RoutePlan(List<Point> route, String error) {
+
+    public static RoutePlan of(List<Point> route) {
+        return new RoutePlan(route, null);
+    }
+
+    public static RoutePlan failed(String error) {
+        return new RoutePlan(null, error);
+    }
+}
@@ -0,0 +1,508 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoUtils;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.math3.ml.clustering.Cluster;
+import org.apache.commons.math3.ml.clustering.DBSCANClusterer;
+import org.apache.commons.math3.ml.clustering.DoublePoint;
+import org.locationtech.jts.geom.Coordinate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Plans the flight route of a vehicle between two points over the road crossings of OpenStreetMap.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Loading crossings and turning circles around the straight line between the points from the Overpass API;
+ *     concurrent requests for overlapping areas share one query, see {@link CrossingFetchCoalescer}, and the crossings
+ *     are kept in the {@link CrossingTileCache}, which serves them while Overpass is unreachable.</li>
+ *     <li>Using a prebuilt {@link RegionGraph} instead when one covers the route.</li>
+ *     <li>Serving routes between stations from the precomputed {@link StationRouteTable}.</li>
+ *     <li>Clustering nearby crossings into single waypoints.</li>
+ *     <li>Searching the shortest path over the waypoints, from the start or from both ends.</li>
+ * </ul>
+ * </p>
+ */
+@Service
+public class RoutePlanner {
+
+    private static final Double BUFFER_RADIUS = 0.009;// буферний радіус 1км
+    private static final double EPS = 0.00018; // радіус для 20 метрів
+    private static final int MIN_POINTS = 2; // мінімальна кількість точок у кластері
+    private static final double MIN_NEIGHBOUR_DISTANCE = 0.5;// мінімальна дистанція до сусідньої точки в км
+
+    private final RegionGraphStore regionGraphStore;
+    private final StationRouteTable stationRouteTable;
+    private final ForkJoinPool batchPool;
+    private final double bidirectionalThreshold;
+    private final CrossingFetchCoalescer crossingFetchCoalescer;
+    private final CrossingTileCache crossingTileCache;
+    private final String overpassUrl;
+    private final double maxGroupSpan;
+
+    private final Map<SearchMode, Timer> searchTimers = new EnumMap<>(SearchMode.class);
+    private final Map<SearchMode, DistributionSummary> expandedNodes = new EnumMap<>(SearchMode.class);
+    private final Timer batchTimer;
+    private final DistributionSummary batchCrossingRequests;
+
+    public RoutePlanner(RegionGraphStore regionGraphStore,
+                        StationRouteTable stationRouteTable,
+                        CrossingTileCache crossingTileCache,
+                        MeterRegistry meterRegistry,
+                        @Value("${vehicle-station.route.overpass.url:https://overpass-api.de/api/interpreter}") String overpassUrl,
+                        @Value("${vehicle-station.route.batch-parallelism:0}") int batchParallelism,
+                        @Value("${vehicle-station.route.bidirectional-threshold:5}") double bidirectionalThreshold,
+                        @Value("${vehicle-station.route.overpass.coalesce-window:50}") long coalesceWindow,
+                        @Value("${vehicle-station.route.overpass.max-span:0.5}") double maxCoalescedSpan) {
+        this.regionGraphStore = regionGraphStore;
+        this.stationRouteTable = stationRouteTable;
+        this.batchPool = new ForkJoinPool(batchParallelism > 0 ? batchParallelism : Runtime.getRuntime().availableProcessors());
+        this.bidirectionalThreshold = bidirectionalThreshold;
+        this.crossingFetchCoalescer = new CrossingFetchCoalescer(coalesceWindow, maxCoalescedSpan);
+        this.crossingTileCache = crossingTileCache;
+        this.overpassUrl = overpassUrl;
+        this.maxGroupSpan = maxCoalescedSpan;
+
+        for (SearchMode mode : List.of(SearchMode.UNIDIRECTIONAL, SearchMode.BIDIRECTIONAL)) {
+            searchTimers.put(mode, Timer.builder("route.search.time")
+                    .description("Time spent searching the path of a route")
+                    .tag("mode", mode.name())
+                    .register(meterRegistry));
+            expandedNodes.put(mode, DistributionSummary.builder("route.search.expanded")
+                    .description("Nodes expanded by a route search")
+                    .tag("mode", mode.name())
+                    .register(meterRegistry));
+        }
+        this.batchTimer = Timer.builder("route.batch.time")
+                .description("Time spent planning a batch of routes")
+                .register(meterRegistry);
+        this.batchCrossingRequests = DistributionSummary.builder("route.batch.crossing-requests")
+                .description("Crossing requests made by a batch of routes")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchPool.shutdown();
+    }
+
+    /**
+     * Plans the route between two points.
+     *
+     * @param start The starting point of the route.
+     * @param end The destination point of the route.
+     * @return A list of {@link Point} objects representing the route, or an empty list if no route is found.
+     * @throws RuntimeException If the crossings can not be loaded.
+     */
+    public List<Point> plan(Point start, Point end) {
+        return plan(start, end, SearchMode.AUTO);
+    }
+
+    /**
+     * Plans the route between two points with the given search.
+     * With {@link SearchMode#AUTO}, a route between two stations is first looked up in the {@link StationRouteTable}.
+     * When a prebuilt region graph covers the route, the route is searched over it;
+     * otherwise the crossings around the route are loaded from the Overpass API.
+     *
+     * @param start The starting point of the route.
+     * @param end The destination point of the route.
+     * @param mode The search to use; {@link SearchMode#AUTO} chooses it by the distance between the points.
+     * @return A list of {@link Point} objects representing the route, or an empty list if no route is found.
+     * @throws RuntimeException If the crossings can not be loaded.
+     */
+    public List<Point> plan(Point start, Point end, SearchMode mode) {
+        if (mode == null || mode == SearchMode.AUTO) {
+            Optional<List<Point>> precomputed = stationRouteTable.find(start, end);
+            if (precomputed.isPresent()) {
+                return precomputed.get();
+            }
+        }
+
+        BoundingBox box = BoundingBox.around(start, end, BUFFER_RADIUS);
+        Optional<RegionGraph> region = regionGraphStore.find(box);
+        if (region.isPresent()) {
+            return search(region.get().query(start, end), start, end, mode);
+        }
+        return findShortestPath(start, end, loadCrossings(box), mode);
+    }
+
+    /**
+     * Returns the graph a route between two points is searched over: the region graph that covers the route,
+     * or the graph of the crossings around the route loaded from the Overpass API.
+     *
+     * @param start The starting point of the route.
+     * @param end The destination point of the route.
+     * @return The graph to search.
+     * @throws RuntimeException If the crossings can not be loaded.
+     */
+    SearchGraph searchGraph(Point start, Point end) {
+        BoundingBox box = BoundingBox.around(start, end, BUFFER_RADIUS);
+        Optional<RegionGraph> region = regionGraphStore.find(box);
+        if (region.isPresent()) {
+            return region.get().query(start, end);
+        }
+        return new CrossingGraph(start, end, loadCrossings(box), MIN_NEIGHBOUR_DISTANCE);
+    }
+
+    /**
+     * Searches a route over the region graph that covers it, without logging; used to precompute station routes.
+     *
+     * @param start The starting point of the route.
+     * @param end The destination point of the route.
+     * @return The route, empty if there is none, or an empty {@link Optional} if no region graph covers the route.
+     */
+    Optional<List<Point>> findRegionRoute(Point start, Point end) {
+        return regionGraphStore.find(BoundingBox.around(start, end, BUFFER_RADIUS))
+                .map(region -> runSearch(region.query(start, end), resolveMode(start, end, SearchMode.AUTO)).path());
+    }
+
+    /**
+     * Builds the crossing graph of a region from the Overpass API and stores it, so routes inside the region
+     * are planned without loading crossings.
+     *
+     * @param name The name of the region.
+     * @param bounds The bounds of the region.
+     * @return The stored region graph.
+     * @throws RuntimeException If the crossings can not be loaded or the graph can not be stored.
+     */
+    public RegionGraph buildRegion(String name, BoundingBox bounds) {
+        Set<Point> crossings = loadCrossings(bounds);
+        try {
+            return regionGraphStore.save(name, bounds, crossings, MIN_NEIGHBOUR_DISTANCE);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Plans many routes at once on a dedicated fork-join pool.
+     * Routes covered by a prebuilt region graph are searched over it. Of the other routes, those whose buffered bounding boxes overlap are merged into one group, and the crossings of every group
+     * are loaded from the Overpass API by a single request over the union of its boxes. Each route is then
+     * searched over its own copy of the group crossings that lie inside its own box, so every route is searched
+     * over the same area as if it had been planned alone.
+     *
+     * <p>Key operations include:
+     * <ul>
+     *     <li>Resolving the endpoints of every item in parallel; an item that fails is reported without stopping the others.</li>
+     *     <li>Taking the routes covered by a region graph from the station route table or searching them directly.</li>
+     *     <li>Grouping the remaining routes by overlapping bounding boxes, as long as the box of a group stays within
+     *     {@code vehicle-station.route.overpass.max-span}.</li>
+     *     <li>Loading the crossings once per group, with the groups loaded in parallel.</li>
+     *     <li>Searching the shortest path of every route in parallel.</li>
+     * </ul>
+     * </p>
+     *
+     * @param items The items to plan routes for, for example vehicle numbers.
+     * @param resolver Resolves the start and destination of the route of an item.
+     * @return One {@link RoutePlan} per item, in the order of the items.
+     */
+    public <T> List<RoutePlan> planAll(List<T> items, Function<T, RouteEndpoints> resolver) {
+        try {
+            return batchPool.submit(() -> doPlanAll(items, resolver)).join();
+        } catch (CompletionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private <T> List<RoutePlan> doPlanAll(List<T> items, Function<T, RouteEndpoints> resolver) {
+        long startedAt = System.nanoTime();
+        int size = items.size();
+        RoutePlan[] plans = new RoutePlan[size];
+        RouteEndpoints[] endpoints = new RouteEndpoints[size];
+
+        IntStream.range(0, size).parallel().forEach(i -> {
+            try {
+                endpoints[i] = resolver.apply(items.get(i));
+            } catch (Exception e) {
+                plans[i] = RoutePlan.failed(e.getMessage());
+            }
+        });
+
+        List<Integer> resolved = new ArrayList<>();
+        List<Integer> covered = new ArrayList<>();
+        BoundingBox[] boxes = new BoundingBox[size];
+        RegionGraph[] regions = new RegionGraph[size];
+        for (int i = 0; i < size; i++) {
+            if (endpoints[i] != null) {
+                boxes[i] = BoundingBox.around(endpoints[i].start(), endpoints[i].end(), BUFFER_RADIUS);
+                regions[i] = regionGraphStore.find(boxes[i]).orElse(null);
+                (regions[i] != null ? covered : resolved).add(i);
+            }
+        }
+
+        covered.parallelStream().forEach(i -> {
+            try {
+                Point start = endpoints[i].start();
+                Point end = endpoints[i].end();
+                plans[i] = RoutePlan.of(stationRouteTable.find(start, end)
+                        .orElseGet(() -> search(regions[i].query(start, end), start, end, SearchMode.AUTO)));
+            } catch (Exception e) {
+                plans[i] = RoutePlan.failed(e.getMessage());
+            }
+        });
+
+        // Групи маршрутів з перетинними рамками; рамка групи розширюється, доки не перестане перетинатися з іншими
+        // або доки не досягне того самого розміру, до якого розширюються об'єднані запити до Overpass
+        List<List<Integer>> groups = new ArrayList<>();
+        List<BoundingBox> groupBoxes = new ArrayList<>();
+        for (int i : resolved) {
+            List<Integer> group = new ArrayList<>(List.of(i));
+            BoundingBox box = boxes[i];
+            boolean merged = true;
+            while (merged) {
+                merged = false;
+                for (int g = groups.size() - 1; g >= 0; g--) {
+                    if (!groupBoxes.get(g).intersects(box)) {
+                        continue;
+                    }
+                    BoundingBox union = box.union(groupBoxes.get(g));
+                    if (union.maxLat() - union.minLat() <= maxGroupSpan && union.maxLon() - union.minLon() <= maxGroupSpan) {
+                        box = union;
+                        groupBoxes.remove(g);
+                        group.addAll(groups.remove(g));
+                        merged = true;
+                    }
+                }
+            }
+            groups.add(group);
+            groupBoxes.add(box);
+        }
+
+        IntStream.range(0, groups.size()).parallel().forEach(g -> {
+            List<Integer> group = groups.get(g);
+            Set<Point> crossings;
+            try {
+                crossings = loadCrossings(groupBoxes.get(g));
+            } catch (Exception e) {
+                group.forEach(i -> plans[i] = RoutePlan.failed(e.getMessage()));
+                return;
+            }
+            group.parallelStream().forEach(i -> {
+                try {
+                    Set<Point> own = new HashSet<>();
+                    for (Point crossing : crossings) {
+                        if (boxes[i].contains(crossing)) {
+                            own.add(crossing);
+                        }
+                    }
+                    plans[i] = RoutePlan.of(findShortestPath(endpoints[i].start(), endpoints[i].end(), own, SearchMode.AUTO));
+                } catch (Exception e) {
+                    plans[i] = RoutePlan.failed(e.getMessage());
+                }
+            });
+        });
+
+        batchCrossingRequests.record(groups.size());
+        batchTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        return Arrays.asList(plans);
+    }
+
+    private Set<Point> loadCrossings(BoundingBox box) {
+        Function<BoundingBox, Set<Point>> loader = fetched -> {
+            try {
+                return loadCrossingsFromOpenStreetMap(fetched.minLat(), fetched.minLon(), fetched.maxLat(), fetched.maxLon());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        };
+        // Рамка зі свіжих плиток не звертається до Overpass, тому об'єднувати її з іншими запитами немає сенсу
+        return crossingTileCache.isFresh(box) ? loader.apply(box) : crossingFetchCoalescer.load(box, loader);
+    }
+
+    /**
+     * Clusters a set of geographical coordinates using the DBSCAN clustering algorithm.
+     * This method converts each coordinate into a double point (longitude, latitude) and applies DBSCAN to find clusters.
+     * It computes the mean latitude and longitude for the points in each cluster to create new, representative points.
+     * Points that are not part of any clusters are included individually.
+     *
+     * <p>Key operations include:
+     * <ul>
+     *     <li>Transforming coordinates into double points for clustering.</li>
+     *     <li>Applying the DBSCAN clustering algorithm to the points.</li>
+     *     <li>Calculating the centroid for each cluster to represent the cluster by a single point.</li>
+     *     <li>Incorporating any unclustered points directly into the result.</li>
+     * </ul>
+     * </p>
+     *
+     * @param coordinates A set of {@link Coordinate} objects representing geographical locations.
+     * @return A set of {@link Point} objects representing the clustered and/or individual points.
+     * @see DBSCANClusterer The clustering algorithm used to group points.
+     */
+    private Set<Point> clusterPoints(Set<Coordinate> coordinates) {
+        List<DoublePoint> doublePoints = new ArrayList<>();
+        for (Coordinate coordinate : coordinates) {
+            doublePoints.add(new DoublePoint(new double[]{coordinate.y, coordinate.x}));
+        }
+
+        DBSCANClusterer<DoublePoint> clusterer = new DBSCANClusterer<>(EPS, MIN_POINTS);
+        List<Cluster<DoublePoint>> clusters = clusterer.cluster(doublePoints);
+
+        Set<Point> clusteredPoints = new HashSet<>();
+        Set<DoublePoint> clusteredDoublePoints = new HashSet<>();
+
+        for (Cluster<DoublePoint> cluster : clusters) {
+            double sumLat = 0, sumLon = 0;
+            for (DoublePoint doublePoint : cluster.getPoints()) {
+                double[] values = doublePoint.getPoint();
+                sumLat += values[0];
+                sumLon += values[1];
+                clusteredDoublePoints.add(doublePoint);
+            }
+            double meanLat = sumLat / cluster.getPoints().size();
+            double meanLon = sumLon / cluster.getPoints().size();
+            clusteredPoints.add(new Point(meanLat, meanLon));
+        }
+
+        for (DoublePoint doublePoint : doublePoints) {
+            if (!clusteredDoublePoints.contains(doublePoint)) {
+                double[] values = doublePoint.getPoint();
+                clusteredPoints.add(new Point(values[0], values[1]));
+            }
+        }
+
+        return clusteredPoints;
+    }
+
+    /**
+     * Retrieves and processes crossing and turning circle data from OpenStreetMap (OSM) within specified geographic boundaries.
+     * The raw points are taken from the {@link CrossingTileCache}, which queries the OSM Overpass API for nodes tagged as
+     * "crossing" or "turning_circle" when its tiles are missing or stale.
+     * It then clusters the returned points to minimize data and simplify further processing.
+     *
+     * <p>Key operations include:
+     * <ul>
+     *     <li>Loading the raw points of the boundaries from the tile cache, or from the Overpass API through it.</li>
+     *     <li>Clustering the geographic points to reduce data complexity and improve manageability.</li>
+     * </ul>
+     * </p>
+     *
+     * @param minLat The minimum latitude of the bounding box.
+     * @param minLon The minimum longitude of the bounding box.
+     * @param maxLat The maximum latitude of the bounding box.
+     * @param maxLon The maximum longitude of the bounding box.
+     * @return A set of {@link Point} objects representing clustered geographic points of crossings and turning circles.
+     * @throws Exception If there is an error in fetching or processing the data from the API.
+     */
+    public Set<Point> loadCrossingsFromOpenStreetMap(double minLat, double minLon, double maxLat,  double maxLon) throws Exception {
+        Set<Coordinate> crossings = crossingTileCache.load(new BoundingBox(minLat, minLon, maxLat, maxLon), this::fetchCrossings);
+
+        Set<Point> clusteredCrossings = clusterPoints(crossings);
+
+        return clusteredCrossings;
+    }
+
+    /**
+     * Sends a query to the Overpass API for the crossings and turning circles in a box. The API is configured with
+     * {@code vehicle-station.route.overpass.url}, so a local Overpass instance or a stand-in can replace the public one.
+     *
+     * @param box The box to query.
+     * @return The raw points, as coordinates with the longitude as {@code x}.
+     * @throws RuntimeException If the API can not be reached or its response can not be read.
+     */
+    private Set<Coordinate> fetchCrossings(BoundingBox box) {
+        String bounds = box.minLat() + "," + box.minLon() + "," + box.maxLat() + "," + box.maxLon();
+        String data = "[out:json];" +
+                "(node[\"highway\"=\"crossing\"](" + bounds + ");" +
+                "node[\"highway\"=\"turning_circle\"](" + bounds + "););" +
+                "out;";
+        String fullUrl = overpassUrl + "?data=" + data;
+
+        RestTemplate restTemplate = new RestTemplate();
+        ResponseEntity<String> response = restTemplate.getForEntity(fullUrl, String.class);
+
+        Set<Coordinate> crossings = new HashSet<>();
+
+        if (response.getStatusCode().is2xxSuccessful()) {
+            try {
+                JsonNode elements = new ObjectMapper().readTree(response.getBody()).path("elements");
+                for (JsonNode element : elements) {
+                    double lat = element.get("lat").asDouble();
+                    double lon = element.get("lon").asDouble();
+                    crossings.add(new Coordinate(lon, lat));
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to read crossings data", e);
+            }
+        } else {
+            throw new RuntimeException("Failed to fetch crossings data");
+        }
+        return crossings;
+    }
+
+    /**
+     * Calculates the shortest path between two points using a set of possible crossing points.
+     * The start, the destination and the crossings form a {@link CrossingGraph} in which points closer than
+     * {@code MIN_NEIGHBOUR_DISTANCE} are connected, and the path is searched over it by A* from the start,
+     * or by bidirectional A* from both ends, which expands far fewer nodes on long routes.
+     *
+     * <p>Key operations include:
+     * <ul>
+     *     <li>Choosing the search: {@link SearchMode#AUTO} searches bidirectionally when the straight distance
+     *     between the points exceeds the configured threshold.</li>
+     *     <li>Building the crossing graph and running the chosen search over it.</li>
+     *     <li>Recording the number of expanded nodes and the search time per search mode.</li>
+     * </ul>
+     * </p>
+     *
+     * @param start The starting point of the path.
+     * @param end The destination point of the path.
+     * @param crossings A set of points representing possible waypoints or crossings on the path.
+     * @param mode The search to use.
+     * @return A list of {@link Point} objects representing the shortest path from start to end.
+     *         Returns an empty list if no path is found.
+     */
+    private List<Point> findShortestPath(Point start, Point end, Set<Point> crossings, SearchMode mode) {
+        return search(new CrossingGraph(start, end, crossings, MIN_NEIGHBOUR_DISTANCE), start, end, mode);
+    }
+
+    private List<Point> search(SearchGraph graph, Point start, Point end, SearchMode mode) {
+        SearchMode resolved = resolveMode(start, end, mode);
+        long startedAt = System.nanoTime();
+        PathSearch.Result result = runSearch(graph, resolved);
+        searchTimers.get(resolved).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        expandedNodes.get(resolved).record(result.expanded());
+        return result.path();
+    }
+
+    private PathSearch.Result runSearch(SearchGraph graph, SearchMode mode) {
+        return mode == SearchMode.BIDIRECTIONAL ? PathSearch.bidirectionalAStar(graph) : PathSearch.aStar(graph);
+    }
+
+    private SearchMode resolveMode(Point start, Point end, SearchMode mode) {
+        if (mode != null && mode != SearchMode.AUTO) {
+            return mode;
+        }
+        return distance(start, end) > bidirectionalThreshold ? SearchMode.BIDIRECTIONAL : SearchMode.UNIDIRECTIONAL;
+    }
+
+    /**
+     * Calculates the geodesic distance between two points specified by latitude and longitude using the Haversine formula.
+     * This method converts latitude and longitude from degrees to radians and then computes the distance based on the curvature of the Earth.
+     *
+     * <p>The Haversine formula is particularly useful in navigation for calculating the shortest distance between two points on the surface of a sphere.</p>
+     *
+     * @param p1 The first point with geographic coordinates (latitude, longitude).
+     * @param p2 The second point with geographic coordinates (latitude, longitude).
+     * @return The distance between the two points in kilometers.
+     */
+    private double distance(Point p1, Point p2) {
+        return GeoUtils.haversine(p1.getLatitude(), p1.getLongitude(), p2.getLatitude(), p2.getLongitude());
+    }
+}
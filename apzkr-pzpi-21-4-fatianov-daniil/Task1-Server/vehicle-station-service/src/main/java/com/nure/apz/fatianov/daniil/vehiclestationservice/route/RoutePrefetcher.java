@@ -0,0 +1,205 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Plans the routes of vehicles in the background as soon as they are made ready, so sending a vehicle usually finds
+ * its route already planned. The crossings of the route are loaded and clustered while the vehicle is prepared,
+ * instead of while the request that sends it waits.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Resolving the endpoints and planning the route of a vehicle on a prefetch worker; vehicles made ready
+ *     together are planned with {@link RoutePlanner#planAll}, so routes in the same area share one crossing request.</li>
+ *     <li>Sharing one prefetched route between all vehicles flying the same pair of points, and letting a request that
+ *     arrives while the route is still being planned wait for it instead of planning it a second time.</li>
+ *     <li>Evicting routes after their time to live and dropping all of them when a region graph changes.</li>
+ * </ul>
+ * </p>
+ */
+@Service
+public class RoutePrefetcher {
+
+    private record RouteKey(double startLatitude, double startLongitude, double endLatitude, double endLongitude) {
+
+        static RouteKey of(Point start, Point end) {
+            return new RouteKey(start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude());
+        }
+    }
+
+    private record Prefetched(CompletableFuture<List<Point>> route, long createdAt) {
+    }
+
+    private final RoutePlanner routePlanner;
+    private final ExecutorService prefetchers;
+    private final boolean enabled;
+    private final long routeTtl;
+    private final Map<RouteKey, Prefetched> routes = new ConcurrentHashMap<>();
+    private final Counter plannedCounter;
+
+    public RoutePrefetcher(RoutePlanner routePlanner,
+                           MeterRegistry meterRegistry,
+                           @Value("${vehicle-station.route.prefetch.enabled:true}") boolean enabled,
+                           @Value("${vehicle-station.route.prefetch.workers:2}") int workers,
+                           @Value("${vehicle-station.route.prefetch.route-ttl:900000}") long routeTtl) {
+        this.routePlanner = routePlanner;
+        this.enabled = enabled;
+        this.routeTtl = routeTtl;
+        this.plannedCounter = Counter.builder("route.prefetch.planned")
+                .description("Routes planned in the background because they were not prefetched yet")
+                .register(meterRegistry);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.prefetchers = Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+            Thread thread = new Thread(runnable, "route-prefetch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prefetchers.shutdownNow();
+    }
+
+    /**
+     * Starts planning the route of a vehicle in the background. Failures are only logged; sending the vehicle
+     * then plans the route itself and reports the error.
+     *
+     * @param owner The number of the vehicle, for logging.
+     * @param resolver Resolves the start and destination of the route; called on the prefetch worker.
+     */
+    public void prefetch(String owner, Supplier<RouteEndpoints> resolver) {
+        if (!enabled) {
+            return;
+        }
+        prefetchers.execute(() -> {
+            try {
+                RouteEndpoints endpoints = resolver.get();
+                CompletableFuture<List<Point>> route = new CompletableFuture<>();
+                if (routes.putIfAbsent(RouteKey.of(endpoints.start(), endpoints.end()),
+                        new Prefetched(route, System.currentTimeMillis())) != null) {
+                    return;
+                }
+                plannedCounter.increment();
+                try {
+                    route.complete(List.copyOf(routePlanner.plan(endpoints.start(), endpoints.end())));
+                } catch (Exception e) {
+                    fail(route, e);
+                }
+            } catch (Exception e) {
+                System.out.println("Cannot prefetch route of vehicle " + owner + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Starts planning the routes of many vehicles in the background with a single {@link RoutePlanner#planAll} call.
+     * Routes that are already prefetched or being prefetched are not planned again.
+     *
+     * @param items The items to plan routes for, for example vehicle numbers.
+     * @param resolver Resolves the start and destination of the route of an item; called on the prefetch workers.
+     */
+    public <T> void prefetchAll(List<T> items, Function<T, RouteEndpoints> resolver) {
+        if (!enabled || items.isEmpty()) {
+            return;
+        }
+        prefetchers.execute(() -> {
+            // Маршрути, які вже плануються, не передаються в planAll повторно
+            List<RouteEndpoints> toPlan = new ArrayList<>();
+            List<CompletableFuture<List<Point>>> claimed = new ArrayList<>();
+            for (T item : items) {
+                try {
+                    RouteEndpoints endpoints = resolver.apply(item);
+                    CompletableFuture<List<Point>> route = new CompletableFuture<>();
+                    if (routes.putIfAbsent(RouteKey.of(endpoints.start(), endpoints.end()),
+                            new Prefetched(route, System.currentTimeMillis())) == null) {
+                        toPlan.add(endpoints);
+                        claimed.add(route);
+                    }
+                } catch (Exception e) {
+                    System.out.println("Cannot prefetch route of " + item + ": " + e.getMessage());
+                }
+            }
+            if (toPlan.isEmpty()) {
+                return;
+            }
+
+            plannedCounter.increment(toPlan.size());
+            List<RoutePlan> plans;
+            try {
+                plans = routePlanner.planAll(toPlan, Function.identity());
+            } catch (Exception e) {
+                claimed.forEach(route -> fail(route, e));
+                return;
+            }
+            for (int i = 0; i < toPlan.size(); i++) {
+                RoutePlan plan = plans.get(i);
+                if (plan.error() == null) {
+                    claimed.get(i).complete(List.copyOf(plan.route()));
+                } else {
+                    fail(claimed.get(i), new IllegalStateException(plan.error()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the prefetched route between two points. If the route is still being planned, waits until it is done.
+     *
+     * @param start The starting point of the route.
+     * @param end The destination point of the route.
+     * @return A copy of the route, or an empty {@link Optional} if it was not prefetched or its planning failed.
+     */
+    public Optional<List<Point>> find(Point start, Point end) {
+        Prefetched prefetched = routes.get(RouteKey.of(start, end));
+        if (prefetched == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new ArrayList<>(prefetched.route().join()));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    public int size() {
+        return routes.size();
+    }
+
+    @EventListener
+    public void onRegionGraphChanged(RegionGraphChangedEvent event) {
+        // Маршрути, сплановані без нового графа регіону, можуть бути гіршими, тому вони плануються заново при відправці
+        routes.values().removeIf(prefetched -> prefetched.route().isDone());
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        routes.values().removeIf(prefetched -> prefetched.route().isDone() && now - prefetched.createdAt() > routeTtl);
+    }
+
+    private void fail(CompletableFuture<List<Point>> route, Exception e) {
+        routes.values().removeIf(prefetched -> prefetched.route() == route);
+        route.completeExceptionally(e);
+        System.out.println("Cannot prefetch route: " + e.getMessage());
+    }
+}
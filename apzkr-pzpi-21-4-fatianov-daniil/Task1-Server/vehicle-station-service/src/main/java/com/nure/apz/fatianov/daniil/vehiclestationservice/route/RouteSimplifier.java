@@ -0,0 +1,127 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoUtils;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Removes waypoints that do not change the shape of a route, with the Douglas-Peucker algorithm.
+ * A waypoint is kept only if it lies farther than the tolerance from the segment between the waypoints kept around it,
+ * so straight runs of crossings along the same road collapse into their two ends.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Projecting the route to a local equirectangular plane in meters, centered on the route.</li>
+ *     <li>Splitting the route at its farthest waypoint until every part is within the tolerance, without recursion.</li>
+ *     <li>Returning a new list, so routes shared with caches such as the {@link StationRouteTable} are never changed.</li>
+ * </ul>
+ * </p>
+ */
+@Component
+public class RouteSimplifier {
+
+    private final double defaultTolerance;
+
+    public RouteSimplifier(@Value("${vehicle-station.route.simplify-tolerance:10}") double defaultTolerance) {
+        this.defaultTolerance = defaultTolerance;
+    }
+
+    /**
+     * Simplifies a route with the configured tolerance.
+     *
+     * @param route The route to simplify.
+     * @return The simplified route.
+     */
+    public List<Point> simplify(List<Point> route) {
+        return simplify(route, null);
+    }
+
+    /**
+     * Simplifies a route. The first and the last waypoints are always kept.
+     *
+     * @param route The route to simplify.
+     * @param tolerance The largest allowed distance in meters between a removed waypoint and the simplified route,
+     *                  {@code null} for the configured tolerance, or {@code 0} to return the route unchanged.
+     * @return The simplified route.
+     */
+    public List<Point> simplify(List<Point> route, Double tolerance) {
+        double limit = tolerance == null ? defaultTolerance : tolerance;
+        if (route == null || route.size() < 3 || limit <= 0) {
+            return route;
+        }
+
+        int size = route.size();
+        double latitudeSum = 0;
+        for (Point point : route) {
+            latitudeSum += point.getLatitude();
+        }
+        double metersPerDegree = Math.toRadians(GeoUtils.EARTH_RADIUS * 1000);
+        double xScale = metersPerDegree * Math.cos(Math.toRadians(latitudeSum / size));
+
+        double[] x = new double[size];
+        double[] y = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = route.get(i).getLongitude() * xScale;
+            y[i] = route.get(i).getLatitude() * metersPerDegree;
+        }
+
+        boolean[] keep = new boolean[size];
+        keep[0] = true;
+        keep[size - 1] = true;
+
+        double limitSquared = limit * limit;
+        int[] stack = new int[2 * size];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = size - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+
+            int farthest = -1;
+            double farthestDistance = limitSquared;
+            for (int i = first + 1; i < last; i++) {
+                double distance = segmentDistanceSquared(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (distance > farthestDistance) {
+                    farthest = i;
+                    farthestDistance = distance;
+                }
+            }
+
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                if (farthest - first > 1) {
+                    stack[top++] = first;
+                    stack[top++] = farthest;
+                }
+                if (last - farthest > 1) {
+                    stack[top++] = farthest;
+                    stack[top++] = last;
+                }
+            }
+        }
+
+        List<Point> simplified = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) {
+                simplified.add(route.get(i));
+            }
+        }
+        return simplified;
+    }
+
+    private static double segmentDistanceSquared(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+}
@@ -0,0 +1,17 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import java.util.List;
+
+/**
+ * A route reserved in the {@link ReservationTable}: the altitude band the vehicle flies in and its timed waypoints.
+ */
+public record ScheduledRoute(int altitudeBand, List<ScheduledWaypoint> waypoints) {
+
+    public long departure() {
+        return waypoints.get(0).time();
+    }
+
+    public long arrival() {
+        return waypoints.get(waypoints.size() - 1).time();
+    }
+}
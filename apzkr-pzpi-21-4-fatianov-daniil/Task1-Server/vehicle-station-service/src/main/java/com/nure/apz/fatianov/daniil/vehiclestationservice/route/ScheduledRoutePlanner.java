@@ -0,0 +1,140 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoUtils;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plans routes that do not conflict in space and time with the routes of other vehicles,
+ * and reserves them in the {@link ReservationTable}.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Timing the shortest route at cruise speed and reserving it in the lowest altitude band where it is free,
+ *     which needs no extra search while the airspace is not crowded; lower bands also cost less climb,
+ *     see {@link FlightCostModel}.</li>
+ *     <li>Otherwise searching every band with the {@link SpaceTimeSearch} and taking the earliest arrival, the lower band
+ *     on a tie; the route may then take off later than requested.</li>
+ *     <li>Committing the chosen route; when a concurrently planned route took one of its cells first, planning again
+ *     against the updated reservations.</li>
+ * </ul>
+ * </p>
+ */
+@Service
+public class ScheduledRoutePlanner {
+
+    private final RoutePlanner routePlanner;
+    private final ReservationTable reservationTable;
+    private final double msPerKm;
+    private final long maxDelay;
+    private final int maxExpansions;
+    private final int commitAttempts;
+    private final Timer searchTimer;
+    private final DistributionSummary searchDelay;
+
+    public ScheduledRoutePlanner(RoutePlanner routePlanner,
+                                 ReservationTable reservationTable,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${vehicle-station.route.reservation.speed:40}") double speed,
+                                 @Value("${vehicle-station.route.reservation.max-delay:300000}") long maxDelay,
+                                 @Value("${vehicle-station.route.reservation.max-expansions:50000}") int maxExpansions,
+                                 @Value("${vehicle-station.route.reservation.commit-attempts:3}") int commitAttempts) {
+        this.routePlanner = routePlanner;
+        this.reservationTable = reservationTable;
+        this.msPerKm = 3_600_000 / speed;
+        this.maxDelay = maxDelay;
+        this.maxExpansions = maxExpansions;
+        this.commitAttempts = Math.max(1, commitAttempts);
+        this.searchTimer = Timer.builder("route.space-time.time")
+                .description("Time spent searching every band for a conflict-free route")
+                .register(meterRegistry);
+        this.searchDelay = DistributionSummary.builder("route.space-time.delay")
+                .description("Delay of the arrival of a conflict-free route against the shortest route")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Plans and reserves a conflict-free route for a vehicle departing now.
+     * The previous reservation of the vehicle is replaced.
+     *
+     * @param owner The number of the vehicle.
+     * @param endpoints The start and the destination of the route.
+     * @return The reserved route, or an empty {@link Optional} if there is no route between the points.
+     * @throws IllegalStateException If no conflict-free route arrives within the maximum delay, or the route
+     *         could not be reserved in the configured number of attempts.
+     * @throws RuntimeException If the crossings can not be loaded.
+     */
+    public Optional<ScheduledRoute> plan(String owner, RouteEndpoints endpoints) {
+        Point start = endpoints.start();
+        Point end = endpoints.end();
+        List<Point> path = routePlanner.plan(start, end);
+        if (path.isEmpty()) {
+            return Optional.empty();
+        }
+
+        long departure = System.currentTimeMillis();
+        for (int attempt = 0; attempt < commitAttempts; attempt++) {
+            ScheduledRoute route = find(owner, start, end, path, departure);
+            if (reservationTable.reserve(owner, route)) {
+                return Optional.of(route);
+            }
+        }
+        throw new IllegalStateException("Route of vehicle " + owner + " could not be reserved");
+    }
+
+    private ScheduledRoute find(String owner, Point start, Point end, List<Point> path, long departure) {
+        ScheduledRoute timed = null;
+        for (int band = 0; band < reservationTable.bands(); band++) {
+            timed = time(path, departure, band);
+            if (reservationTable.isFree(timed, owner)) {
+                return timed;
+            }
+        }
+
+        long startedAt = System.nanoTime();
+        SearchGraph graph = routePlanner.searchGraph(start, end);
+        double[] remaining = SpaceTimeSearch.remainingDistances(graph);
+        long latestArrival = timed.arrival() + maxDelay;
+        ScheduledRoute best = null;
+        for (int band = 0; band < reservationTable.bands(); band++) {
+            ScheduledRoute found = SpaceTimeSearch.search(graph, remaining, departure, latestArrival, band,
+                    reservationTable, owner, msPerKm, maxExpansions);
+            if (found != null && (best == null || found.arrival() < best.arrival())) {
+                best = found;
+                latestArrival = found.arrival() - 1;
+            }
+        }
+        searchTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+
+        if (best == null) {
+            throw new IllegalStateException("No conflict-free route for vehicle " + owner + " within " + maxDelay + " ms of delay");
+        }
+        searchDelay.record(best.arrival() - timed.arrival());
+        return best;
+    }
+
+    private ScheduledRoute time(List<Point> path, long departure, int band) {
+        List<ScheduledWaypoint> waypoints = new ArrayList<>(path.size());
+        double time = departure;
+        Point previous = null;
+        for (Point point : path) {
+            if (previous != null) {
+                time += GeoUtils.haversine(previous.getLatitude(), previous.getLongitude(),
+                        point.getLatitude(), point.getLongitude()) * msPerKm;
+            }
+            waypoints.add(new ScheduledWaypoint(point, (long) Math.ceil(time)));
+            previous = point;
+        }
+        return new ScheduledRoute(band, waypoints);
+    }
+}
@@ -0,0 +1,10 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+
+/**
+ * A waypoint of a scheduled route with the time the vehicle reaches it, in epoch milliseconds.
+ * Two consecutive waypoints at the same point mean that the vehicle hovers there between the two times.
+ */
+public record ScheduledWaypoint(Point point, long time) {
+}
@@ -0,0 +1,32 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+
+/**
+ * A graph searched by {@link PathSearch}. Nodes are numbered from zero to {@link #size()} - 1,
+ * and edges are symmetric, so the neighbours of a node are also its predecessors.
+ */
+interface SearchGraph {
+
+    int size();
+
+    int start();
+
+    int end();
+
+    int degree(int node);
+
+    int neighbour(int node, int index);
+
+    /**
+     * Returns the length of an edge in kilometers; it is never shorter than the straight distance between its nodes.
+     */
+    double weight(int node, int index);
+
+    /**
+     * Returns the straight distance between two nodes in kilometers, used as the search heuristic.
+     */
+    double distance(int from, int to);
+
+    Point point(int node);
+}
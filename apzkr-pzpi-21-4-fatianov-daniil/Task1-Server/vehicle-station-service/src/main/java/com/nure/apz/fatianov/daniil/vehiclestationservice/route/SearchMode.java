@@ -0,0 +1,13 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+/**
+ * The shortest path search used by the {@link RoutePlanner}.
+ */
+public enum SearchMode {
+    /** A* search from the start towards the destination. */
+    UNIDIRECTIONAL,
+    /** A* searches from both ends that stop when their frontiers meet. */
+    BIDIRECTIONAL,
+    /** Bidirectional for routes longer than the configured threshold, unidirectional otherwise. */
+    AUTO
+}
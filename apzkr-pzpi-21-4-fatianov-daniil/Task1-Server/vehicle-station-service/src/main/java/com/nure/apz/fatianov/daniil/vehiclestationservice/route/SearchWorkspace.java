@@ -0,0 +1,85 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread state of {@link PathSearch}: scores, predecessors and closed marks for both search directions.
+ * Entries are valid only when their stamp equals the current generation, so starting a new search
+ * does not have to clear the arrays, and the arrays only grow when a larger graph is searched.
+ */
+final class SearchWorkspace {
+
+    static final int FORWARD = 0;
+    static final int BACKWARD = 1;
+
+    private final double[][] score = new double[2][0];
+    private final int[][] cameFrom = new int[2][0];
+    private final int[][] reached = new int[2][0];
+    private final int[][] closed = new int[2][0];
+    private double[] potential = new double[0];
+    private int[] potentialReached = new int[0];
+    private final MinHeap[] open = {new MinHeap(), new MinHeap()};
+    private int generation;
+
+    void reset(int size) {
+        if (potential.length < size) {
+            int capacity = Math.max(size, potential.length * 2);
+            for (int direction = FORWARD; direction <= BACKWARD; direction++) {
+                score[direction] = new double[capacity];
+                cameFrom[direction] = new int[capacity];
+                reached[direction] = new int[capacity];
+                closed[direction] = new int[capacity];
+            }
+            potential = new double[capacity];
+            potentialReached = new int[capacity];
+            generation = 0;
+        }
+        if (++generation == Integer.MAX_VALUE) {
+            for (int direction = FORWARD; direction <= BACKWARD; direction++) {
+                Arrays.fill(reached[direction], 0);
+                Arrays.fill(closed[direction], 0);
+            }
+            Arrays.fill(potentialReached, 0);
+            generation = 1;
+        }
+        open[FORWARD].clear();
+        open[BACKWARD].clear();
+    }
+
+    MinHeap open(int direction) {
+        return open[direction];
+    }
+
+    double score(int direction, int node) {
+        return reached[direction][node] == generation ? score[direction][node] : Double.POSITIVE_INFINITY;
+    }
+
+    int cameFrom(int direction, int node) {
+        return reached[direction][node] == generation ? cameFrom[direction][node] : -1;
+    }
+
+    void reach(int direction, int node, double value, int from) {
+        reached[direction][node] = generation;
+        score[direction][node] = value;
+        cameFrom[direction][node] = from;
+    }
+
+    boolean isClosed(int direction, int node) {
+        return closed[direction][node] == generation;
+    }
+
+    void close(int direction, int node) {
+        closed[direction][node] = generation;
+    }
+
+    /**
+     * Returns the averaged potential (distance to the end - distance to the start) / 2 of a node, computing it on first use.
+     */
+    double potential(SearchGraph graph, int node) {
+        if (potentialReached[node] != generation) {
+            potentialReached[node] = generation;
+            potential[node] = (graph.distance(node, graph.end()) - graph.distance(graph.start(), node)) / 2;
+        }
+        return potential[node];
+    }
+}
@@ -0,0 +1,160 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+
+import java.util.*;
+
+/**
+ * Space-time A* over a {@link SearchGraph}: finds the earliest arrival in one altitude band that does not enter
+ * any cell reserved in the {@link ReservationTable} by another vehicle. Besides flying along an edge, a vehicle
+ * may hover at a node for one time slot, which lets it wait until a reserved cell ahead is free again.
+ * Before takeoff the vehicle waits on the ground at the start, which needs no airspace, so a vehicle can always
+ * delay its departure.
+ * The heuristic is the exact remaining flight time without reservations, computed once per graph by
+ * {@link #remainingDistances(SearchGraph)}; with it the search follows the shortest route and only leaves it around
+ * reserved cells, instead of spreading over the whole graph in every time slot.
+ */
+final class SpaceTimeSearch {
+
+    private record State(int node, long time, boolean airborne, State parent) {
+    }
+
+    private record Entry(State state, double f) {
+    }
+
+    private SpaceTimeSearch() {
+    }
+
+    /**
+     * Computes the shortest distance from every node to the end of the graph with a backward Dijkstra search,
+     * which is possible because edges are symmetric.
+     *
+     * @param graph The graph.
+     * @return The distance of every node to the end in kilometers, infinite for nodes that can not reach it.
+     */
+    static double[] remainingDistances(SearchGraph graph) {
+        double[] remaining = new double[graph.size()];
+        Arrays.fill(remaining, Double.POSITIVE_INFINITY);
+        remaining[graph.end()] = 0;
+
+        MinHeap heap = new MinHeap();
+        heap.push(graph.end(), 0);
+        while (!heap.isEmpty()) {
+            double key = heap.peekKey();
+            int node = heap.pop();
+            if (key > remaining[node]) {
+                continue;
+            }
+            for (int i = 0; i < graph.degree(node); i++) {
+                int neighbour = graph.neighbour(node, i);
+                double distance = key + graph.weight(node, i);
+                if (distance < remaining[neighbour]) {
+                    remaining[neighbour] = distance;
+                    heap.push(neighbour, distance);
+                }
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Searches the earliest conflict-free route.
+     *
+     * @param graph The graph to search.
+     * @param remaining The distances to the end computed by {@link #remainingDistances(SearchGraph)}.
+     * @param departure The departure time in epoch milliseconds.
+     * @param latestArrival The latest acceptable arrival time; later states are not expanded.
+     * @param band The altitude band.
+     * @param table The reservations to plan around.
+     * @param owner The number of the vehicle.
+     * @param msPerKm The time the vehicle needs to fly one kilometer, in milliseconds.
+     * @param maxExpansions The largest number of states to expand.
+     * @return The timed route, or {@code null} if there is no conflict-free route in time.
+     */
+    static ScheduledRoute search(SearchGraph graph, double[] remaining, long departure, long latestArrival, int band,
+                                 ReservationTable table, String owner, double msPerKm, int maxExpansions) {
+        int end = graph.end();
+        long slot = table.slotLength();
+
+        if (Double.isInfinite(remaining[graph.start()])) {
+            return null;
+        }
+
+        // При однаковій оцінці першим розкривається пізніший стан, тобто той, що ближчий до кінця
+        PriorityQueue<Entry> open = new PriorityQueue<>(Comparator.comparingDouble(Entry::f)
+                .thenComparing(entry -> -entry.state().time()));
+        Set<Long> closed = new HashSet<>();
+        open.add(new Entry(new State(graph.start(), departure, false, null), departure + remaining[graph.start()] * msPerKm));
+
+        int expanded = 0;
+        while (!open.isEmpty() && expanded < maxExpansions) {
+            Entry entry = open.poll();
+            if (entry.f() > latestArrival) {
+                // Оцінка точна без броней, тому жоден з решти станів не встигне до найпізнішого прибуття
+                return null;
+            }
+            State current = entry.state();
+            if (current.node() == end) {
+                return new ScheduledRoute(band, reconstruct(graph, current));
+            }
+            if (!closed.add(key(current.node(), current.time(), departure, slot))) {
+                continue;
+            }
+            expanded++;
+
+            Point point = graph.point(current.node());
+            for (int i = 0; i < graph.degree(current.node()); i++) {
+                int neighbour = graph.neighbour(current.node(), i);
+                long arrival = current.time() + (long) Math.ceil(graph.weight(current.node(), i) * msPerKm);
+                if (arrival > latestArrival || closed.contains(key(neighbour, arrival, departure, slot))) {
+                    continue;
+                }
+                if (Double.isInfinite(remaining[neighbour])) {
+                    continue;
+                }
+                if (table.isFree(point, current.time(), graph.point(neighbour), arrival, band, owner)) {
+                    open.add(new Entry(new State(neighbour, arrival, true, current), arrival + remaining[neighbour] * msPerKm));
+                }
+            }
+
+            // Зависання на місці на один часовий слот; до зльоту дрон чекає на землі і повітря не займає
+            long resumed = current.time() + slot;
+            if (resumed <= latestArrival
+                    && (!current.airborne() || table.isFree(point, current.time(), point, resumed, band, owner))) {
+                open.add(new Entry(new State(current.node(), resumed, current.airborne(), current),
+                        resumed + remaining[current.node()] * msPerKm));
+            }
+        }
+        return null;
+    }
+
+    private static long key(int node, long time, long departure, long slot) {
+        return ((long) node << 32) | ((time - departure) / slot);
+    }
+
+    /**
+     * Rebuilds the timed route; the route starts at takeoff, and a run of hovering states at one node
+     * is kept as its first and last waypoint.
+     */
+    private static List<ScheduledWaypoint> reconstruct(SearchGraph graph, State last) {
+        List<State> states = new ArrayList<>();
+        for (State state = last; state != null; state = state.parent()) {
+            states.add(state);
+            if (!state.airborne()) {
+                break;
+            }
+        }
+        Collections.reverse(states);
+
+        List<ScheduledWaypoint> waypoints = new ArrayList<>();
+        for (int i = 0; i < states.size(); i++) {
+            State state = states.get(i);
+            boolean hoveringBefore = i > 0 && states.get(i - 1).node() == state.node();
+            boolean hoveringAfter = i + 1 < states.size() && states.get(i + 1).node() == state.node();
+            if (!(hoveringBefore && hoveringAfter)) {
+                waypoints.add(new ScheduledWaypoint(graph.point(state.node()), state.time()));
+            }
+        }
+        return waypoints;
+    }
+}
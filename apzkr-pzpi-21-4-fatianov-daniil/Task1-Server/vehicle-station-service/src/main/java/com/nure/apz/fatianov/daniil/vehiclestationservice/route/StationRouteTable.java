@@ -0,0 +1,58 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Precomputed routes between all pairs of stations, keyed by the exact coordinates of the two stations.
+ * The table is replaced as a whole by the {@link StationRouteTableBuilder}, so readers always see one consistent version.
+ */
+@Component
+public class StationRouteTable {
+
+    private record RouteKey(double startLatitude, double startLongitude, double endLatitude, double endLongitude) {
+
+        static RouteKey of(Point start, Point end) {
+            return new RouteKey(start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude());
+        }
+    }
+
+    private volatile Map<RouteKey, List<Point>> routes = Map.of();
+
+    /**
+     * Returns the precomputed route between two stations.
+     *
+     * @param start The coordinates of the departure station.
+     * @param end The coordinates of the arrival station.
+     * @return A copy of the route, or an empty {@link Optional} if the pair is not in the table.
+     */
+    public Optional<List<Point>> find(Point start, Point end) {
+        List<Point> route = routes.get(RouteKey.of(start, end));
+        return route == null ? Optional.empty() : Optional.of(new ArrayList<>(route));
+    }
+
+    public int size() {
+        return routes.size();
+    }
+
+    /**
+     * Replaces the table with routes computed for pairs of stations. Every route is stored for both directions;
+     * an empty route records that the pair has no route.
+     *
+     * @param pairs The pairs of stations.
+     * @param computed The route of every pair, in the order of the pairs.
+     */
+    void replace(List<RouteEndpoints> pairs, List<List<Point>> computed) {
+        Map<RouteKey, List<Point>> table = new HashMap<>(pairs.size() * 4);
+        for (int i = 0; i < pairs.size(); i++) {
+            RouteEndpoints pair = pairs.get(i);
+            List<Point> reversed = new ArrayList<>(computed.get(i));
+            Collections.reverse(reversed);
+            table.put(RouteKey.of(pair.start(), pair.end()), List.copyOf(computed.get(i)));
+            table.put(RouteKey.of(pair.end(), pair.start()), List.copyOf(reversed));
+        }
+        routes = table;
+    }
+}
@@ -0,0 +1,109 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.Station;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.StationRepository;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Rebuilds the {@link StationRouteTable} in the background whenever the region graphs or the stations change.
+ * Only the pairs whose route is covered by a region graph are precomputed; the other pairs need crossings
+ * from the Overpass API and are planned on request.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Collapsing the refresh requests that arrive while a rebuild is waiting into one rebuild.</li>
+ *     <li>Searching the route of every pair of located stations over the region graph that covers it.</li>
+ *     <li>Swapping the finished table in at once; until then the previous table keeps serving requests.</li>
+ * </ul>
+ * </p>
+ */
+@Component
+public class StationRouteTableBuilder {
+
+    private final RoutePlanner routePlanner;
+    private final StationRepository stationRepository;
+    private final StationRouteTable stationRouteTable;
+    private final boolean enabled;
+    private final int maxStations;
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "station-route-table-builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StationRouteTableBuilder(RoutePlanner routePlanner,
+                                    StationRepository stationRepository,
+                                    StationRouteTable stationRouteTable,
+                                    @Value("${vehicle-station.route.station-table.enabled:true}") boolean enabled,
+                                    @Value("${vehicle-station.route.station-table.max-stations:200}") int maxStations) {
+        this.routePlanner = routePlanner;
+        this.stationRepository = stationRepository;
+        this.stationRouteTable = stationRouteTable;
+        this.enabled = enabled;
+        this.maxStations = maxStations;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        builder.shutdownNow();
+    }
+
+    @EventListener
+    public void onRegionGraphChanged(RegionGraphChangedEvent event) {
+        refresh();
+    }
+
+    /**
+     * Schedules a rebuild of the table, unless one is already waiting.
+     */
+    public void refresh() {
+        if (enabled && pending.compareAndSet(false, true)) {
+            builder.execute(this::rebuild);
+        }
+    }
+
+    private void rebuild() {
+        pending.set(false);
+        try {
+            long startedAt = System.nanoTime();
+            List<Point> stations = new ArrayList<>();
+            for (Station station : stationRepository.findAll()) {
+                if (station.getLatitude() != null && station.getLongitude() != null) {
+                    stations.add(new Point(station.getLatitude(), station.getLongitude()));
+                }
+            }
+            if (stations.size() > maxStations) {
+                System.out.println("Station route table is not built: " + stations.size()
+                        + " stations exceed the limit of " + maxStations);
+                return;
+            }
+
+            List<RouteEndpoints> pairs = new ArrayList<>();
+            List<List<Point>> routes = new ArrayList<>();
+            for (int i = 0; i < stations.size(); i++) {
+                for (int j = i + 1; j < stations.size(); j++) {
+                    Optional<List<Point>> route = routePlanner.findRegionRoute(stations.get(i), stations.get(j));
+                    if (route.isPresent()) {
+                        pairs.add(new RouteEndpoints(stations.get(i), stations.get(j)));
+                        routes.add(route.get());
+                    }
+                }
+            }
+            stationRouteTable.replace(pairs, routes);
+            System.out.println("Built station route table with " + pairs.size() + " station pairs in "
+                    + (System.nanoTime() - startedAt) / 1_000_000 + " ms");
+        } catch (Exception e) {
+            System.out.println("Cannot build station route table: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route.response;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.RegionGraph;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RegionGraphResponseEntity {
+    private String name;
+    private Double minLatitude;
+    private Double minLongitude;
+    private Double maxLatitude;
+    private Double maxLongitude;
+    private Integer nodes;
+    private Integer edges;
+
+    public static RegionGraphResponseEntity of(RegionGraph graph) {
+        return RegionGraphResponseEntity.builder()
+                .name(graph.getName())
+                .minLatitude(graph.getBounds().minLat())
+                .minLongitude(graph.getBounds().minLon())
+                .maxLatitude(graph.getBounds().maxLat())
+                .maxLongitude(graph.getBounds().maxLon())
+                .nodes(graph.getNodeCount())
+                .edges(graph.getEdgeCount())
+                .build();
+    }
+}
@@ -0,0 +1,39 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route.response;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.RouteJob;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.RouteJobStatus;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RouteJobResponseEntity {
+    private String id;
+    private String vehicleNumber;
+    private RouteJobStatus status;
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private List<Point> route;
+    private String error;
+
+    public static RouteJobResponseEntity of(RouteJob job) {
+        return new RouteJobResponseEntity(
+                job.getId(),
+                job.getVehicleNumber(),
+                job.getStatus(),
+                job.getSubmittedAt(),
+                job.getStartedAt(),
+                job.getFinishedAt(),
+                job.getRoute(),
+                job.getError());
+    }
+}
@@ -0,0 +1,25 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.station;
+
+/**
+ * Immutable copy of the fields of a {@link Station} that are kept in {@link StationSpatialIndex}.
+ */
+public record IndexedStation(
+        Integer id,
+        String number,
+        String description,
+        Type type,
+        double latitude,
+        double longitude,
+        Double altitude
+) {
+    public static IndexedStation of(Station station) {
+        return new IndexedStation(
+                station.getId(),
+                station.getNumber(),
+                station.getDescription(),
+                station.getType(),
+                station.getLatitude(),
+                station.getLongitude(),
+                station.getAltitude());
+    }
+}
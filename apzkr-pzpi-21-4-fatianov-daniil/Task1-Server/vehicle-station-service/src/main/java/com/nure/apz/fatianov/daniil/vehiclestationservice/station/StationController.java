@@ -2,6 +2,7 @@ package com.nure.apz.fatianov.daniil.vehiclestationservice.station;
 
 import com.nure.apz.fatianov.daniil.vehiclestationservice.station.request.StationAddRequest;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.station.request.StationChangeRequest;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.response.StationDistanceResponseEntity;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.station.response.StationGetAllResponseEntity;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -100,6 +101,56 @@ public class StationController {
         }
     }
 
+    @Operation(summary = "Find nearest stations",
+            description = "Returns the k stations closest to the given station or coordinates, optionally only of one type, ordered by distance in kilometers.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Nearest stations retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Error occurred while searching stations")
+            })
+    @GetMapping("/nearest")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<List<StationDistanceResponseEntity>> findNearestStations(
+            @RequestParam(required = false) String number,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(defaultValue = "5") int k,
+            @RequestParam(required = false) Type type,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            return ResponseEntity.ok().body(
+                    stationService.findNearestStations(number, latitude, longitude, k, type, authHeader));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ArrayList<>());
+        }
+    }
+
+    @Operation(summary = "Find stations within a radius",
+            description = "Returns all stations within the radius in kilometers of the given station or coordinates, optionally only of one type, ordered by distance.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Stations within the radius retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Error occurred while searching stations")
+            })
+    @GetMapping("/within-radius")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<List<StationDistanceResponseEntity>> findStationsWithinRadius(
+            @RequestParam(required = false) String number,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam double radius,
+            @RequestParam(required = false) Type type,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            return ResponseEntity.ok().body(
+                    stationService.findStationsWithinRadius(number, latitude, longitude, radius, type, authHeader));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ArrayList<>());
+        }
+    }
+
     @Operation(summary = "Change station details",
             description = "Updates the details of an existing station.",
             security = @SecurityRequirement(name = "Bearer Authentication"),
@@ -1,7 +1,9 @@
 package com.nure.apz.fatianov.daniil.vehiclestationservice.station;
 
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.StationRouteTableBuilder;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.station.request.StationAddRequest;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.station.request.StationChangeRequest;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.response.StationDistanceResponseEntity;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.station.response.StationGetAllResponseEntity;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.station.response.objects.VehicleEntityForStation;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.Vehicle;
@@ -27,6 +29,8 @@ public class StationService {
 
     private final StationRepository stationRepository;
     private final RestTemplateBuilder restTemplateBuilder;
+    private final StationSpatialIndex stationSpatialIndex;
+    private final StationRouteTableBuilder stationRouteTableBuilder;
 
     /**
      * Adds a new station to the system based on the provided request details.
@@ -58,6 +62,8 @@ public class StationService {
         station.setAltitude(requestBody.getAltitude());
         station.setType(requestBody.getType());
         stationRepository.saveAndFlush(station);
+        stationSpatialIndex.put(station);
+        stationRouteTableBuilder.refresh();
     }
 
     /**
@@ -181,6 +187,8 @@ public class StationService {
         station.setAltitude(requestBody.getAltitude());
         station.setType(requestBody.getType());
         stationRepository.saveAndFlush(station);
+        stationSpatialIndex.put(station);
+        stationRouteTableBuilder.refresh();
     }
 
     /**
@@ -216,6 +224,8 @@ public class StationService {
             throw new IllegalStateException("Station with number: " + number + " has vehicles");
         }
         stationRepository.delete(station);
+        stationSpatialIndex.remove(station.getId());
+        stationRouteTableBuilder.refresh();
     }
 
     /**
@@ -248,6 +258,128 @@ public class StationService {
         return optionalStation.get().getId();
     }
 
+    /**
+     * Finds the stations closest to a point or to another station using the in-memory spatial index.
+     * The center is either the station with the given number, which is then excluded from the result,
+     * or the given coordinates.
+     *
+     * <p>Key operations include:
+     * <ul>
+     *     <li>Validating the authorization header to ensure it is still active and valid.</li>
+     *     <li>Resolving the center of the search from the station number or the coordinates.</li>
+     *     <li>Querying the spatial index for the nearest stations of the requested type.</li>
+     * </ul>
+     * </p>
+     *
+     * @param number The number of the station to search around, or {@code null} to use the coordinates.
+     * @param latitude The latitude of the center, used when no station number is given.
+     * @param longitude The longitude of the center, used when no station number is given.
+     * @param k The number of stations to return.
+     * @param type The type of stations to search for, or {@code null} for all types.
+     * @param authHeader The authorization header used to validate access permissions.
+     * @return Up to {@code k} stations ordered by distance, with the distance in kilometers.
+     * @throws IllegalStateException If the authorization header is invalid, the station does not exist, or no center is given.
+     */
+    public List<StationDistanceResponseEntity> findNearestStations(String number,
+                                                                   Double latitude,
+                                                                   Double longitude,
+                                                                   int k,
+                                                                   Type type,
+                                                                   String authHeader) {
+        if (!isValid(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
+
+        IndexedStation center = resolveCenter(number, latitude, longitude);
+        int limit = center.id() == null ? k : k + 1;
+
+        return toDistanceResponses(
+                stationSpatialIndex.nearest(center.latitude(), center.longitude(), limit, type), center.id(), k);
+    }
+
+    /**
+     * Finds all stations within a radius of a point or of another station using the in-memory spatial index.
+     * The center is either the station with the given number, which is then excluded from the result,
+     * or the given coordinates.
+     *
+     * <p>Key operations include:
+     * <ul>
+     *     <li>Validating the authorization header to ensure it is still active and valid.</li>
+     *     <li>Resolving the center of the search from the station number or the coordinates.</li>
+     *     <li>Querying the spatial index for the stations of the requested type within the radius.</li>
+     * </ul>
+     * </p>
+     *
+     * @param number The number of the station to search around, or {@code null} to use the coordinates.
+     * @param latitude The latitude of the center, used when no station number is given.
+     * @param longitude The longitude of the center, used when no station number is given.
+     * @param radius The radius in kilometers.
+     * @param type The type of stations to search for, or {@code null} for all types.
+     * @param authHeader The authorization header used to validate access permissions.
+     * @return The stations within the radius ordered by distance, with the distance in kilometers.
+     * @throws IllegalStateException If the authorization header is invalid, the station does not exist, or no center is given.
+     */
+    public List<StationDistanceResponseEntity> findStationsWithinRadius(String number,
+                                                                        Double latitude,
+                                                                        Double longitude,
+                                                                        double radius,
+                                                                        Type type,
+                                                                        String authHeader) {
+        if (!isValid(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
+
+        IndexedStation center = resolveCenter(number, latitude, longitude);
+
+        return toDistanceResponses(
+                stationSpatialIndex.withinRadius(center.latitude(), center.longitude(), radius, type),
+                center.id(),
+                Integer.MAX_VALUE);
+    }
+
+    private IndexedStation resolveCenter(String number, Double latitude, Double longitude) {
+        if (number != null) {
+            Optional<Station> optionalStation = stationRepository.findByNumber(number);
+            if (optionalStation.isEmpty()) {
+                throw new IllegalStateException("Station with number: " + number + " does not exist");
+            }
+            return IndexedStation.of(optionalStation.get());
+        }
+
+        if (latitude == null || longitude == null) {
+            throw new IllegalStateException("Station number or coordinates must be provided");
+        }
+        return new IndexedStation(null, null, null, null, latitude, longitude, null);
+    }
+
+    private List<StationDistanceResponseEntity> toDistanceResponses(List<StationSpatialIndex.Hit> hits,
+                                                                    Integer excludedId,
+                                                                    int limit) {
+        List<StationDistanceResponseEntity> stationDistanceResponseEntities = new ArrayList<>();
+        for (StationSpatialIndex.Hit hit : hits) {
+            if (stationDistanceResponseEntities.size() == limit) {
+                break;
+            }
+
+            IndexedStation station = hit.station();
+            if (station.id().equals(excludedId)) {
+                continue;
+            }
+
+            StationDistanceResponseEntity stationDistanceResponseEntity = new StationDistanceResponseEntity();
+            stationDistanceResponseEntity.setId(station.id());
+            stationDistanceResponseEntity.setNumber(station.number());
+            stationDistanceResponseEntity.setDescription(station.description());
+            stationDistanceResponseEntity.setLatitude(station.latitude());
+            stationDistanceResponseEntity.setLongitude(station.longitude());
+            stationDistanceResponseEntity.setAltitude(station.altitude());
+            stationDistanceResponseEntity.setType(station.type());
+            stationDistanceResponseEntity.setDistance(hit.distance());
+            stationDistanceResponseEntities.add(stationDistanceResponseEntity);
+        }
+        return stationDistanceResponseEntities;
+    }
+
     /**
      * Checks if the bearer of the token included in the authorization header has administrative privileges.
      * This method sends a request to a user service endpoint to validate the administrative status of the token bearer.
@@ -0,0 +1,219 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.station;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoUtils;
+import lombok.RequiredArgsConstructor;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.strtree.ItemBoundable;
+import org.locationtech.jts.index.strtree.ItemDistance;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * In-memory R-tree over all stations, used for nearest-station and radius queries.
+ * Stations are projected to an equirectangular plane in kilometers, which keeps the tree distances
+ * close to real distances for a regional network; every result is then checked and ordered
+ * by the exact haversine distance.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Loading all stations when the application is ready.</li>
+ *     <li>Replacing the whole index on every station change, so readers always see a consistent, immutable snapshot.</li>
+ *     <li>Answering k-nearest and within-radius queries, optionally restricted to one station {@link Type}.</li>
+ * </ul>
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class StationSpatialIndex {
+
+    private static final int NODE_CAPACITY = 10;
+    private static final ItemDistance PLANAR_DISTANCE = (ItemBoundable item1, ItemBoundable item2) ->
+            ((Envelope) item1.getBounds()).distance((Envelope) item2.getBounds());
+
+    private final StationRepository stationRepository;
+
+    private volatile Snapshot snapshot = Snapshot.build(Map.of());
+
+    /**
+     * Immutable state of the index. A new snapshot is built for every change and swapped in atomically.
+     */
+    private record Snapshot(Map<Integer, IndexedStation> stations,
+                            double referenceCos,
+                            STRtree all,
+                            Map<Type, STRtree> byType) {
+
+        static Snapshot build(Map<Integer, IndexedStation> stations) {
+            double latitudeSum = 0;
+            for (IndexedStation station : stations.values()) {
+                latitudeSum += station.latitude();
+            }
+            double referenceLatitude = stations.isEmpty() ? 0 : latitudeSum / stations.size();
+            double referenceCos = Math.cos(Math.toRadians(referenceLatitude));
+
+            STRtree all = new STRtree(NODE_CAPACITY);
+            Map<Type, STRtree> byType = new EnumMap<>(Type.class);
+            for (IndexedStation station : stations.values()) {
+                Envelope envelope = project(station.latitude(), station.longitude(), referenceCos);
+                all.insert(envelope, station);
+                if (station.type() != null) {
+                    byType.computeIfAbsent(station.type(), type -> new STRtree(NODE_CAPACITY)).insert(envelope, station);
+                }
+            }
+            all.build();
+            byType.values().forEach(STRtree::build);
+
+            return new Snapshot(Collections.unmodifiableMap(stations), referenceCos, all, byType);
+        }
+
+        STRtree tree(Type type) {
+            return type == null ? all : byType.get(type);
+        }
+    }
+
+    /**
+     * A station found by a query together with its exact distance from the query point.
+     */
+    public record Hit(IndexedStation station, double distance) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            Map<Integer, IndexedStation> stations = new HashMap<>();
+            for (Station station : stationRepository.findAll()) {
+                if (isLocated(station)) {
+                    stations.put(station.getId(), IndexedStation.of(station));
+                }
+            }
+            snapshot = Snapshot.build(stations);
+        } catch (Exception e) {
+            System.out.println("Cannot load stations into the spatial index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds a station to the index or replaces its previous position.
+     *
+     * @param station The saved station.
+     */
+    public synchronized void put(Station station) {
+        Map<Integer, IndexedStation> stations = new HashMap<>(snapshot.stations());
+        if (isLocated(station)) {
+            stations.put(station.getId(), IndexedStation.of(station));
+        } else {
+            stations.remove(station.getId());
+        }
+        snapshot = Snapshot.build(stations);
+    }
+
+    /**
+     * Removes a station from the index.
+     *
+     * @param id The ID of the deleted station.
+     */
+    public synchronized void remove(Integer id) {
+        if (!snapshot.stations().containsKey(id)) {
+            return;
+        }
+        Map<Integer, IndexedStation> stations = new HashMap<>(snapshot.stations());
+        stations.remove(id);
+        snapshot = Snapshot.build(stations);
+    }
+
+    /**
+     * Finds the {@code k} stations closest to a point.
+     * The tree returns the {@code k} nearest stations on the projected plane; the largest exact distance among them
+     * is then used as the radius of an exact query, so the result is correct even where the projection is distorted.
+     *
+     * @param latitude The latitude of the query point.
+     * @param longitude The longitude of the query point.
+     * @param k The number of stations to return.
+     * @param type The station type to search for, or {@code null} for all types.
+     * @return Up to {@code k} stations ordered by distance.
+     */
+    public List<Hit> nearest(double latitude, double longitude, int k, Type type) {
+        Snapshot current = snapshot;
+        STRtree tree = current.tree(type);
+        if (tree == null || tree.isEmpty() || k <= 0) {
+            return new ArrayList<>();
+        }
+
+        Envelope query = project(latitude, longitude, current.referenceCos());
+        Object[] candidates = tree.nearestNeighbour(query, query, PLANAR_DISTANCE, Math.min(k, tree.size()));
+
+        double radius = 0;
+        for (Object candidate : candidates) {
+            IndexedStation station = (IndexedStation) candidate;
+            radius = Math.max(radius, GeoUtils.haversine(latitude, longitude, station.latitude(), station.longitude()));
+        }
+
+        List<Hit> hits = withinRadius(current, tree, latitude, longitude, radius);
+        return hits.size() > k ? new ArrayList<>(hits.subList(0, k)) : hits;
+    }
+
+    /**
+     * Finds all stations within a radius of a point.
+     *
+     * @param latitude The latitude of the query point.
+     * @param longitude The longitude of the query point.
+     * @param radius The radius in kilometers.
+     * @param type The station type to search for, or {@code null} for all types.
+     * @return The stations within the radius ordered by distance.
+     */
+    public List<Hit> withinRadius(double latitude, double longitude, double radius, Type type) {
+        Snapshot current = snapshot;
+        STRtree tree = current.tree(type);
+        if (tree == null || tree.isEmpty() || radius < 0) {
+            return new ArrayList<>();
+        }
+        return withinRadius(current, tree, latitude, longitude, radius);
+    }
+
+    /**
+     * Returns the indexed copy of a station.
+     *
+     * @param id The ID of the station.
+     * @return The station, or an empty {@link Optional} if it is not indexed.
+     */
+    public Optional<IndexedStation> get(Integer id) {
+        return Optional.ofNullable(snapshot.stations().get(id));
+    }
+
+    private List<Hit> withinRadius(Snapshot current, STRtree tree, double latitude, double longitude, double radius) {
+        // На площині відстань по осі x спотворюється на cos(опорної широти) / cos(широти),
+        // тому вікно розширюється для найбільш віддаленої від екватора широти в межах радіуса
+        double latitudeBand = Math.toDegrees(radius / GeoUtils.EARTH_RADIUS);
+        double extremeLatitude = Math.min(89.9, Math.abs(latitude) + latitudeBand);
+        double halfWidth = radius * current.referenceCos() / Math.cos(Math.toRadians(extremeLatitude));
+
+        Envelope center = project(latitude, longitude, current.referenceCos());
+        Envelope window = new Envelope(
+                center.getMinX() - halfWidth, center.getMaxX() + halfWidth,
+                center.getMinY() - radius, center.getMaxY() + radius);
+
+        List<Hit> hits = new ArrayList<>();
+        for (Object item : tree.query(window)) {
+            IndexedStation station = (IndexedStation) item;
+            double distance = GeoUtils.haversine(latitude, longitude, station.latitude(), station.longitude());
+            if (distance <= radius) {
+                hits.add(new Hit(station, distance));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::distance));
+        return hits;
+    }
+
+    private static Envelope project(double latitude, double longitude, double referenceCos) {
+        double x = GeoUtils.EARTH_RADIUS * Math.toRadians(longitude) * referenceCos;
+        double y = GeoUtils.EARTH_RADIUS * Math.toRadians(latitude);
+        return new Envelope(x, x, y, y);
+    }
+
+    private static boolean isLocated(Station station) {
+        return station.getLatitude() != null && station.getLongitude() != null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.station.response;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.Type;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StationDistanceResponseEntity {
+    private Integer id;
+    private String number;
+    private String description;
+    private Double latitude;
+    private Double longitude;
+    private Double altitude;
+    private Type type;
+    private Double distance;
+}
@@ -0,0 +1,228 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoUtils;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.IndexedStation;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.StationSpatialIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * In-memory index of the fleet, used to pick vehicles for an order without reading every vehicle from the database.
+ * Available vehicles are kept sorted by lifting capacity, so a query only looks at the vehicles that can lift the payload.
+ * Station coordinates are taken from the {@link StationSpatialIndex}.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Loading all vehicles when the application is ready.</li>
+ *     <li>Replacing the whole index on every vehicle change, so readers always see a consistent, immutable snapshot.</li>
+ *     <li>Ranking the available vehicles that can carry a payload between two stations.</li>
+ * </ul>
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class FleetIndex {
+
+    private final VehicleRepository vehicleRepository;
+    private final StationSpatialIndex stationSpatialIndex;
+
+    private volatile Snapshot snapshot = Snapshot.build(Map.of());
+
+    /**
+     * Immutable state of the index. A new snapshot is built for every change and swapped in atomically.
+     */
+    private record Snapshot(Map<Integer, IndexedVehicle> vehicles,
+                            IndexedVehicle[] availableByCapacity,
+                            double[] capacities) {
+
+        static Snapshot build(Map<Integer, IndexedVehicle> vehicles) {
+            IndexedVehicle[] available = vehicles.values().stream()
+                    .filter(vehicle -> vehicle.status() == Status.AVAILABLE && vehicle.stationId() != null)
+                    .sorted(Comparator.comparingDouble(IndexedVehicle::liftingCapacity))
+                    .toArray(IndexedVehicle[]::new);
+
+            double[] capacities = new double[available.length];
+            for (int i = 0; i < available.length; i++) {
+                capacities[i] = available[i].liftingCapacity();
+            }
+
+            return new Snapshot(Collections.unmodifiableMap(vehicles), available, capacities);
+        }
+
+        int firstWithCapacity(double weight) {
+            int low = 0;
+            int high = capacities.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (capacities[middle] < weight) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * An available vehicle that can carry a payload, together with the distances used to rank it.
+     *
+     * @param vehicle The vehicle.
+     * @param station The station where the vehicle is located.
+     * @param distanceToDeparture The distance from the vehicle's station to the departure station in kilometers.
+     * @param tripDistance The cost of the whole trip from the vehicle's station in kilometers.
+     * @param rangeReserve The flight distance left after the trip and the safety margin, in kilometers.
+     */
+    public record Candidate(IndexedVehicle vehicle,
+                            IndexedStation station,
+                            double distanceToDeparture,
+                            double tripDistance,
+                            double rangeReserve) {
+    }
+
+    /**
+     * Candidates closest to the departure station come first; among equally close ones the vehicle with the
+     * smallest sufficient lifting capacity and then the smallest range reserve is preferred,
+     * so larger vehicles stay free for heavier and longer orders.
+     */
+    public static final Comparator<Candidate> RANKING = Comparator
+            .comparingDouble(Candidate::distanceToDeparture)
+            .thenComparingDouble(candidate -> candidate.vehicle().liftingCapacity())
+            .thenComparingDouble(Candidate::rangeReserve)
+            .thenComparing(candidate -> candidate.vehicle().number());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            Map<Integer, IndexedVehicle> vehicles = new HashMap<>();
+            for (Vehicle vehicle : vehicleRepository.findAll()) {
+                vehicles.put(vehicle.getId(), IndexedVehicle.of(vehicle));
+            }
+            snapshot = Snapshot.build(vehicles);
+        } catch (Exception e) {
+            System.out.println("Cannot load vehicles into the fleet index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds a vehicle to the index or replaces its previous state.
+     *
+     * @param vehicle The saved vehicle.
+     */
+    public synchronized void put(Vehicle vehicle) {
+        Map<Integer, IndexedVehicle> vehicles = new HashMap<>(snapshot.vehicles());
+        vehicles.put(vehicle.getId(), IndexedVehicle.of(vehicle));
+        snapshot = Snapshot.build(vehicles);
+    }
+
+    /**
+     * Adds many vehicles to the index, or replaces their previous state, with a single rebuild.
+     *
+     * @param changedVehicles The saved vehicles.
+     */
+    public synchronized void putAll(Collection<Vehicle> changedVehicles) {
+        if (changedVehicles.isEmpty()) {
+            return;
+        }
+        Map<Integer, IndexedVehicle> vehicles = new HashMap<>(snapshot.vehicles());
+        for (Vehicle vehicle : changedVehicles) {
+            vehicles.put(vehicle.getId(), IndexedVehicle.of(vehicle));
+        }
+        snapshot = Snapshot.build(vehicles);
+    }
+
+    /**
+     * Removes a vehicle from the index.
+     *
+     * @param id The ID of the deleted vehicle.
+     */
+    public synchronized void remove(Integer id) {
+        if (!snapshot.vehicles().containsKey(id)) {
+            return;
+        }
+        Map<Integer, IndexedVehicle> vehicles = new HashMap<>(snapshot.vehicles());
+        vehicles.remove(id);
+        snapshot = Snapshot.build(vehicles);
+    }
+
+    /**
+     * Returns the indexed copy of a vehicle.
+     *
+     * @param id The ID of the vehicle.
+     * @return The vehicle, or an empty {@link Optional} if it is not indexed.
+     */
+    public Optional<IndexedVehicle> get(Integer id) {
+        return Optional.ofNullable(snapshot.vehicles().get(id));
+    }
+
+    /**
+     * Returns all available vehicles that are located at a station, ordered by lifting capacity.
+     *
+     * @return An immutable list of the available vehicles.
+     */
+    public List<IndexedVehicle> available() {
+        return List.of(snapshot.availableByCapacity());
+    }
+
+    /**
+     * Finds the best available vehicles that can lift {@code weight} and fly the trip from their own station with the safety margin.
+     * The trip depends only on the station of a vehicle, so it is computed once per station.
+     *
+     * @param departure The departure station.
+     * @param weight The payload weight in kilograms.
+     * @param tripDistance The cost of the whole trip of a vehicle located at the given station, in kilometers.
+     * @param margin The flight distance that must remain unused, in kilometers.
+     * @param limit The maximum number of candidates to return.
+     * @return Up to {@code limit} candidates ordered by {@link #RANKING}.
+     */
+    public List<Candidate> findCandidates(IndexedStation departure,
+                                          double weight,
+                                          ToDoubleFunction<IndexedStation> tripDistance,
+                                          double margin,
+                                          int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        Snapshot current = snapshot;
+        IndexedVehicle[] available = current.availableByCapacity();
+
+        // Найгірший кандидат на вершині купи, щоб тримати лише limit найкращих
+        PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        Map<Integer, Double> distanceByStation = new HashMap<>();
+        Map<Integer, Double> tripByStation = new HashMap<>();
+
+        for (int i = current.firstWithCapacity(weight); i < available.length; i++) {
+            IndexedVehicle vehicle = available[i];
+
+            Optional<IndexedStation> optionalStation = stationSpatialIndex.get(vehicle.stationId());
+            if (optionalStation.isEmpty()) {
+                continue;
+            }
+            IndexedStation station = optionalStation.get();
+
+            double trip = tripByStation.computeIfAbsent(station.id(), id -> tripDistance.applyAsDouble(station));
+            double rangeReserve = vehicle.flightDistance() - margin - trip;
+            if (rangeReserve < 0) {
+                continue;
+            }
+
+            double distanceToDeparture = distanceByStation.computeIfAbsent(station.id(), id -> GeoUtils.haversine(
+                    station.latitude(), station.longitude(), departure.latitude(), departure.longitude()));
+
+            best.add(new Candidate(vehicle, station, distanceToDeparture, trip, rangeReserve));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<Candidate> candidates = new ArrayList<>(best);
+        candidates.sort(RANKING);
+        return candidates;
+    }
+}
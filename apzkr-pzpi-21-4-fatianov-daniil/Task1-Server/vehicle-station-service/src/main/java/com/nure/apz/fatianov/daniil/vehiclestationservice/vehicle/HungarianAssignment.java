@@ -0,0 +1,135 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment of rows to columns with the Hungarian algorithm (Kuhn-Munkres with potentials).
+ * Runs in O(n^2 * m) for n rows and m columns, which keeps a matrix of several hundred orders and vehicles
+ * well below a second. Forbidden cells are expressed with {@link #FORBIDDEN}; the solver first minimises the number
+ * of forbidden cells used and then the total cost, so a row is only left on a forbidden cell if it cannot be served.
+ */
+public final class HungarianAssignment {
+
+    public static final double FORBIDDEN = Double.POSITIVE_INFINITY;
+
+    private HungarianAssignment() {
+    }
+
+    /**
+     * Solves the assignment problem for a rectangular cost matrix.
+     *
+     * @param cost The cost of assigning row {@code i} to column {@code j}, or {@link #FORBIDDEN}.
+     * @return For every row, the assigned column, or {@code -1} if the row is unassigned or only forbidden cells were left.
+     */
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        int columns = rows == 0 ? 0 : cost[0].length;
+        int[] assignment = new int[rows];
+        Arrays.fill(assignment, -1);
+        if (rows == 0 || columns == 0) {
+            return assignment;
+        }
+
+        // Заборонені клітинки замінюються ціною, більшою за будь-яке допустиме призначення
+        double maxCost = 0;
+        for (double[] row : cost) {
+            for (double value : row) {
+                if (value != FORBIDDEN) {
+                    maxCost = Math.max(maxCost, value);
+                }
+            }
+        }
+        double penalty = (maxCost + 1) * (Math.min(rows, columns) + 1);
+
+        boolean transposed = rows > columns;
+        int n = transposed ? columns : rows;
+        int m = transposed ? rows : columns;
+        double[][] matrix = new double[n][m];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                double value = transposed ? cost[j][i] : cost[i][j];
+                matrix[i][j] = value == FORBIDDEN ? penalty : value;
+            }
+        }
+
+        int[] columnOwner = solveSquareOrWide(matrix, n, m);
+
+        for (int j = 0; j < m; j++) {
+            int i = columnOwner[j];
+            if (i < 0 || matrix[i][j] >= penalty) {
+                continue;
+            }
+            if (transposed) {
+                assignment[j] = i;
+            } else {
+                assignment[i] = j;
+            }
+        }
+        return assignment;
+    }
+
+    /**
+     * Assigns every one of {@code n} rows to a distinct one of {@code m >= n} columns.
+     *
+     * @return For every column, the row assigned to it, or {@code -1}.
+     */
+    private static int[] solveSquareOrWide(double[][] matrix, int n, int m) {
+        double[] rowPotential = new double[n + 1];
+        double[] columnPotential = new double[m + 1];
+        int[] owner = new int[m + 1];// 1-based row that owns column j, 0 for free
+        int[] way = new int[m + 1];
+        double[] minSlack = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+
+        for (int row = 1; row <= n; row++) {
+            owner[0] = row;
+            int freeColumn = 0;
+            Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+
+            do {
+                used[freeColumn] = true;
+                int currentRow = owner[freeColumn];
+                double delta = Double.POSITIVE_INFINITY;
+                int nextColumn = 0;
+
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    double slack = matrix[currentRow - 1][j - 1] - rowPotential[currentRow] - columnPotential[j];
+                    if (slack < minSlack[j]) {
+                        minSlack[j] = slack;
+                        way[j] = freeColumn;
+                    }
+                    if (minSlack[j] < delta) {
+                        delta = minSlack[j];
+                        nextColumn = j;
+                    }
+                }
+
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        rowPotential[owner[j]] += delta;
+                        columnPotential[j] -= delta;
+                    } else {
+                        minSlack[j] -= delta;
+                    }
+                }
+                freeColumn = nextColumn;
+            } while (owner[freeColumn] != 0);
+
+            do {
+                int previousColumn = way[freeColumn];
+                owner[freeColumn] = owner[previousColumn];
+                freeColumn = previousColumn;
+            } while (freeColumn != 0);
+        }
+
+        int[] columnOwner = new int[m];
+        for (int j = 1; j <= m; j++) {
+            columnOwner[j - 1] = owner[j] - 1;
+        }
+        return columnOwner;
+    }
+}
@@ -0,0 +1,23 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle;
+
+/**
+ * Immutable copy of the fields of a {@link Vehicle} that are kept in {@link FleetIndex}.
+ */
+public record IndexedVehicle(
+        Integer id,
+        String number,
+        double liftingCapacity,
+        double flightDistance,
+        Integer stationId,
+        Status status
+) {
+    public static IndexedVehicle of(Vehicle vehicle) {
+        return new IndexedVehicle(
+                vehicle.getId(),
+                vehicle.getNumber(),
+                vehicle.getLiftingCapacity() == null ? 0 : vehicle.getLiftingCapacity(),
+                vehicle.getFlightDistance() == null ? 0 : vehicle.getFlightDistance(),
+                vehicle.getStation() == null ? null : vehicle.getStation().getId(),
+                vehicle.getStatus());
+    }
+}
@@ -0,0 +1,23 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle;
+
+/**
+ * The outcome of checking one vehicle against one order, as returned in the suitability matrix.
+ * Every reason is encoded as a single character so that a row of the matrix is a short string.
+ */
+public enum SuitabilityReason {
+    SUITABLE('.'),
+    VEHICLE_NOT_FOUND('V'),
+    STATION_NOT_FOUND('S'),
+    OVER_CAPACITY('W'),
+    OUT_OF_RANGE('D');
+
+    private final char code;
+
+    SuitabilityReason(char code) {
+        this.code = code;
+    }
+
+    public char getCode() {
+        return code;
+    }
+}
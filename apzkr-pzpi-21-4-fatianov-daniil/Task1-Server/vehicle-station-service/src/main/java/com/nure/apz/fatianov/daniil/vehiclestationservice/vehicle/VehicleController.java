@@ -1,15 +1,27 @@
 package com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle;
 
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.RouteHttpMessageConverter;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.SearchMode;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.request.AssignmentPlanRequest;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.request.IsSuitableBatchRequest;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.request.IsSuitableRequest;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.request.VehicleAddRequest;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.request.VehicleChangeRequest;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.AnytimeRouteResponseEntity;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.AssignmentPlanResponseEntity;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.IsSuitableBatchResponseEntity;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.ScheduledRouteResponseEntity;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.VehicleCandidateResponseEntity;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.VehicleCapacityResponseEntity;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.VehicleGetAllResponseEntity;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.VehicleRouteResponseEntity;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -125,7 +137,8 @@ public class VehicleController {
     }
 
     @Operation(summary = "Set vehicle ready for dispatch",
-            description = "Changes the status of a vehicle to 'Ready for dispatch' based on the vehicle number provided.",
+            description = "Changes the status of a vehicle to 'Ready for dispatch' based on the vehicle number provided. "
+                    + "The route of its order starts being planned in the background, so sending the vehicle is faster.",
             security = @SecurityRequirement(name = "Bearer Authentication"),
             responses = {
                     @ApiResponse(responseCode = "200", description = "Vehicle status updated to ready successfully"),
@@ -145,6 +158,66 @@ public class VehicleController {
         }
     }
 
+    @Operation(summary = "Set many vehicles ready for dispatch",
+            description = "Changes the status of every vehicle in the list to 'Ready for dispatch' in one request and returns the numbers that were not found.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Vehicle statuses updated, see the list of missing numbers"),
+                    @ApiResponse(responseCode = "400", description = "Error occurred during updating vehicles")
+            })
+    @PutMapping("/get-vehicles-ready")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<List<String>> getVehiclesReady(
+            @RequestBody List<String> numbers,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            return ResponseEntity.ok().body(vehicleService.getVehiclesReady(numbers, authHeader));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ArrayList<>());
+        }
+    }
+
+    @Operation(summary = "Release vehicles",
+            description = "Changes the status of every ready vehicle in the list back to 'Available' and returns the numbers that were released.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Vehicle statuses updated, see the list of released numbers"),
+                    @ApiResponse(responseCode = "400", description = "Error occurred during updating vehicles")
+            })
+    @PutMapping("/release-vehicles")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<List<String>> releaseVehicles(
+            @RequestBody List<String> numbers,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            return ResponseEntity.ok().body(vehicleService.releaseVehicles(numbers, authHeader));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ArrayList<>());
+        }
+    }
+
+    @Operation(summary = "Get lifting capacities of vehicles",
+            description = "Returns the number and lifting capacity of every existing vehicle in the list of IDs.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Vehicle capacities retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Error occurred during fetching vehicle capacities")
+            })
+    @PostMapping("/get-capacities")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<List<VehicleCapacityResponseEntity>> getCapacities(
+            @RequestBody List<Integer> ids,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            return ResponseEntity.ok().body(vehicleService.getCapacities(ids, authHeader));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ArrayList<>());
+        }
+    }
+
     @Operation(summary = "Delete a vehicle",
             description = "Deletes a vehicle from the system based on the vehicle number provided.",
             security = @SecurityRequirement(name = "Bearer Authentication"),
@@ -167,21 +240,102 @@ public class VehicleController {
     }
 
 
-    @GetMapping("/send")
+    @Operation(summary = "Send a vehicle within a time budget",
+            description = "Plans the route of a vehicle and returns the best route found within the budget together with its suboptimality bound. The route keeps being refined in the background, so repeating the request returns a better route. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Best route found within the budget; status PENDING if none was found yet"),
+                    @ApiResponse(responseCode = "400", description = "Error occurred during planning the route")
+            })
+    @GetMapping("/send-within")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<AnytimeRouteResponseEntity> sendVehicleWithin(
+            @RequestParam String number,
+            @RequestParam(defaultValue = "500") Long budget,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            return ResponseEntity.ok().body(vehicleService.sendVehicleWithin(number, authHeader, budget));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Send a vehicle",
+            description = "Plans the route of a vehicle and returns its waypoints. Waypoints closer than the tolerance (in meters) to the simplified route are removed; tolerance 0 keeps every waypoint. "
+                    + "The route is returned as JSON, or in a compact encoding when requested in the Accept header: " + RouteHttpMessageConverter.POLYLINE_VALUE + " for an encoded polyline, "
+                    + RouteHttpMessageConverter.BINARY_VALUE + " for delta-encoded binary. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Route planned successfully"),
+                    @ApiResponse(responseCode = "400", description = "Error occurred during planning the route")
+            })
+    @GetMapping(value = "/send", produces = {MediaType.APPLICATION_JSON_VALUE, RouteHttpMessageConverter.POLYLINE_VALUE, RouteHttpMessageConverter.BINARY_VALUE})
     @SecurityRequirement(name = "Bearer Authentication")
     public ResponseEntity<List<Point>> sendVehicle(
             @RequestParam String number,
+            @RequestParam(required = false) SearchMode mode,
+            @RequestParam(required = false) Double tolerance,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            return ResponseEntity.ok().body(vehicleService.sendVehicle(number, authHeader, mode, tolerance));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ArrayList<>());
+        }
+    }
+
+    @Operation(summary = "Send a vehicle with a reserved route",
+            description = "Plans the route of a vehicle so that it does not meet other vehicles in flight, and reserves it. Returns the altitude band and the time every waypoint is reached; a repeated waypoint means hovering until the later time. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Route planned and reserved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Error occurred during planning or reserving the route")
+            })
+    @GetMapping("/send-scheduled")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<ScheduledRouteResponseEntity> sendVehicleScheduled(
+            @RequestParam String number,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            return ResponseEntity.ok().body(vehicleService.sendVehicleScheduled(number, authHeader));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Send many vehicles",
+            description = "Plans the routes of all given vehicles in parallel and returns them together, in the order of the request. Requires Bearer Authentication for access.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Routes planned; a vehicle whose route could not be planned has an error instead of a route"),
+                    @ApiResponse(responseCode = "400", description = "Failed to plan routes due to invalid auth header")
+            })
+    @PostMapping("/send-batch")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<List<VehicleRouteResponseEntity>> sendVehicles(
+            @RequestBody List<String> numbers,
+            @RequestParam(required = false) Double tolerance,
             @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
     ) {
         try {
-            return ResponseEntity.ok().body(vehicleService.sendVehicle(number, authHeader));
+            return ResponseEntity.ok().body(vehicleService.sendVehicles(numbers, authHeader, tolerance));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(new ArrayList<>());
         }
     }
 
 
-    @GetMapping("/is-suitable")
+    @Operation(summary = "Check suitability of a vehicle for an order",
+            description = "Returns false only when the vehicle cannot lift the weight or reach the arrival station. Missing vehicles or stations and failed checks are reported as errors, not as an unsuitable vehicle.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Suitability checked successfully"),
+                    @ApiResponse(responseCode = "400", description = "Invalid auth header, or the vehicle or a station does not exist"),
+                    @ApiResponse(responseCode = "500", description = "Suitability could not be checked, for example because the user service is unreachable")
+            })
+    @RequestMapping(value = "/is-suitable", method = {RequestMethod.GET, RequestMethod.POST})
     @SecurityRequirement(name = "Bearer Authentication")
     public ResponseEntity<Boolean> isSuitable(
             @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
@@ -189,9 +343,75 @@ public class VehicleController {
     ) {
         try {
             return ResponseEntity.ok().body(vehicleService.isSuitable(request, authHeader));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.ok().body(false);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(summary = "Check suitability of many vehicles for many orders",
+            description = "Returns one row per order with one character per vehicle: '.' suitable, 'V' vehicle not found, 'S' station not found, 'W' over capacity, 'D' out of range.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Suitability matrix computed successfully"),
+                    @ApiResponse(responseCode = "400", description = "Error occurred while computing suitability matrix")
+            })
+    @PostMapping("/is-suitable-batch")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<IsSuitableBatchResponseEntity> isSuitableBatch(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
+            @RequestBody IsSuitableBatchRequest request
+    ) {
+        try {
+            return ResponseEntity.ok().body(vehicleService.isSuitableBatch(request, authHeader));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Plan vehicle assignment for orders",
+            description = "Assigns available vehicles to the given orders with minimal total flight cost (distance plus climb and descent), respecting lifting capacity and flight distance.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Assignment plan computed successfully"),
+                    @ApiResponse(responseCode = "400", description = "Error occurred while computing assignment plan")
+            })
+    @PostMapping("/assignment-plan")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<AssignmentPlanResponseEntity> planAssignments(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
+            @RequestBody AssignmentPlanRequest request
+    ) {
+        try {
+            return ResponseEntity.ok().body(vehicleService.planAssignments(request, authHeader));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Find suitable vehicles",
+            description = "Returns the best available vehicles that can carry the weight between the stations, closest to the departure station first.",
+            security = @SecurityRequirement(name = "Bearer Authentication"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Suitable vehicles retrieved successfully"),
+                    @ApiResponse(responseCode = "400", description = "Error occurred while searching vehicles")
+            })
+    @GetMapping("/find-suitable")
+    @SecurityRequirement(name = "Bearer Authentication")
+    public ResponseEntity<List<VehicleCandidateResponseEntity>> findSuitableVehicles(
+            @RequestParam Integer departureStationId,
+            @RequestParam Integer arrivalStationId,
+            @RequestParam Double weight,
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader
+    ) {
+        try {
+            return ResponseEntity.ok().body(vehicleService.findSuitableVehicles(
+                    departureStationId, arrivalStationId, weight, limit, authHeader));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ArrayList<>());
         }
     }
 
@@ -3,11 +3,15 @@ package com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface VehicleRepository extends JpaRepository<Vehicle, Integer> {
     Optional<Vehicle> findByNumber(String number);
 
+    List<Vehicle> findAllByNumberIn(Collection<String> numbers);
+
     @Query(value = "SELECT nextval('vehicle_seq')", nativeQuery = true)
     Integer getNextSequenceValue();
 }
@@ -1,20 +1,39 @@
 package com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoPoints;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoUtils;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.AnytimeRoute;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.AnytimeRouteService;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.FlightCostModel;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.RouteEndpoints;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.RoutePlan;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.RoutePlanner;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.RoutePrefetcher;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.RouteSimplifier;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.ScheduledRoute;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.ScheduledRoutePlanner;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.ScheduledWaypoint;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.SearchMode;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.IndexedStation;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.station.Station;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.station.StationRepository;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.StationSpatialIndex;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.request.AssignmentPlanRequest;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.request.IsSuitableBatchRequest;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.request.IsSuitableRequest;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.request.VehicleAddRequest;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.request.VehicleChangeRequest;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.AnytimeRouteResponseEntity;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.AssignmentPlanResponseEntity;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.IsSuitableBatchResponseEntity;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.ScheduledRouteResponseEntity;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.VehicleCandidateResponseEntity;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.VehicleCapacityResponseEntity;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.VehicleGetAllResponseEntity;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.VehicleRouteResponseEntity;
 import com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response.objects.Order;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.math3.ml.clustering.Cluster;
-import org.apache.commons.math3.ml.clustering.DBSCANClusterer;
-import org.apache.commons.math3.ml.clustering.DoublePoint;
-import org.locationtech.jts.geom.Coordinate;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -25,16 +44,13 @@ import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
 import java.util.List;
+import java.util.function.ToDoubleFunction;
 
 @Service
 @RequiredArgsConstructor
 public class VehicleService {
 
-    private static final Double BUFFER_RADIUS = 0.009;// буферний радіус 1км
     private static final int MARGIN_DISTANCE = 10;// дистанція відхилення від
-    private static final double EPS = 0.00018; // радіус для 20 метрів
-    private static final int MIN_POINTS = 2; // мінімальна кількість точок у кластері
-    private static final double MIN_NEIGHBOUR_DISTANCE = 0.5;// мінімальна дистанція до сусідньої точки в км
 
     private static final String orderServiceUrl = "http://localhost:8083/order-service";// посилання на сервіс заказів
     private static final String userServiceUrl = "http://localhost:8082/user-service";// посилання на сервіс юзерів
@@ -46,6 +62,17 @@ public class VehicleService {
 
     private final RestTemplateBuilder restTemplateBuilder;
 
+    private final FleetIndex fleetIndex;
+
+    private final StationSpatialIndex stationSpatialIndex;
+
+    private final RoutePlanner routePlanner;
+    private final RoutePrefetcher routePrefetcher;
+    private final AnytimeRouteService anytimeRouteService;
+    private final RouteSimplifier routeSimplifier;
+    private final ScheduledRoutePlanner scheduledRoutePlanner;
+    private final FlightCostModel flightCostModel;
+
     /**
      * Adds a new vehicle to the system based on the specifications provided in the request body.
      * This method verifies that the requester has administrative privileges and checks if the specified station exists in the database.
@@ -85,6 +112,7 @@ public class VehicleService {
         vehicle.setStation(optionalStation.get());
 
         vehicleRepository.saveAndFlush(vehicle);
+        fleetIndex.put(vehicle);
     }
 
     /**
@@ -212,11 +240,40 @@ public class VehicleService {
         }
 
         Vehicle vehicle = optionalVehicle.get();
+        boolean numberChanged = !vehicle.getNumber().equals(requestBody.getNumber());
         vehicle.setNumber(requestBody.getNumber());
         vehicle.setLiftingCapacity(requestBody.getLiftingCapacity());
         vehicle.setFlightDistance(requestBody.getFlightDistance());
 
         vehicleRepository.saveAndFlush(vehicle);
+        fleetIndex.put(vehicle);
+
+        if (numberChanged) {
+            notifyVehicleNumberChanged(vehicle, authHeader);
+        }
+    }
+
+    /**
+     * Tells the order service that a vehicle number changed, so that its admin view of orders stays in sync.
+     * A failure is only logged: the order service can rebuild its view at any time.
+     *
+     * @param vehicle The changed vehicle.
+     * @param authHeader The admin authorization header of the original request.
+     */
+    private void notifyVehicleNumberChanged(Vehicle vehicle, String authHeader) {
+        String url = orderServiceUrl.concat("/admin-view/vehicle-changed?id="
+                + vehicle.getId() + "&number=" + vehicle.getNumber());
+
+        try {
+            RestTemplate restTemplate = restTemplateBuilder.build();
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Authorization", authHeader);
+
+            restTemplate.exchange(url, HttpMethod.PUT, new HttpEntity<>(headers), String.class);
+        } catch (Exception e) {
+            System.out.println("Cannot notify order service about vehicle " + vehicle.getId());
+        }
     }
 
     /**
@@ -229,6 +286,8 @@ public class VehicleService {
      *     <li>Verifying administrative privileges using the authorization header.</li>
      *     <li>Searching for the vehicle by its number in the repository.</li>
      *     <li>Updating the vehicle's status to 'READY' and saving the changes to the database.</li>
+     *     <li>Starting to plan the route of its order in the background with the {@link RoutePrefetcher},
+     *     so {@link #sendVehicle(String, String, SearchMode, Double)} usually finds it planned.</li>
      * </ul>
      * </p>
      *
@@ -249,6 +308,117 @@ public class VehicleService {
         Vehicle vehicle = optionalVehicle.get();
         vehicle.setStatus(Status.READY);
         vehicleRepository.saveAndFlush(vehicle);
+        fleetIndex.put(vehicle);
+        routePrefetcher.prefetch(number, () -> resolveRouteEndpoints(number, authHeader));
+    }
+
+    /**
+     * Sets the status of many vehicles to 'READY' with a single query and a single batch write.
+     * Unlike {@link #getVehicleReady(String, String)}, missing vehicles do not fail the whole request.
+     *
+     * <p>Key operations include:
+     * <ul>
+     *     <li>Verifying administrative privileges using the authorization header.</li>
+     *     <li>Loading all requested vehicles by their numbers at once.</li>
+     *     <li>Updating their status to 'READY' and saving them together.</li>
+     *     <li>Starting to plan the routes of their orders in the background, as one batch.</li>
+     * </ul>
+     * </p>
+     *
+     * @param numbers The numbers of the vehicles to be updated.
+     * @param authHeader The authorization header used to verify administrative access.
+     * @return The numbers for which no vehicle exists.
+     * @throws IllegalStateException If the authorization header is invalid.
+     */
+    public List<String> getVehiclesReady(List<String> numbers, String authHeader) {
+        if (!isAdmin(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
+
+        List<Vehicle> vehicles = vehicleRepository.findAllByNumberIn(numbers);
+
+        Set<String> foundNumbers = new HashSet<>();
+        for (Vehicle vehicle : vehicles) {
+            vehicle.setStatus(Status.READY);
+            foundNumbers.add(vehicle.getNumber());
+        }
+        vehicleRepository.saveAllAndFlush(vehicles);
+        fleetIndex.putAll(vehicles);
+        routePrefetcher.prefetchAll(new ArrayList<>(foundNumbers), found -> resolveRouteEndpoints(found, authHeader));
+
+        List<String> missingNumbers = new ArrayList<>();
+        for (String number : numbers) {
+            if (!foundNumbers.contains(number)) {
+                missingNumbers.add(number);
+            }
+        }
+        return missingNumbers;
+    }
+
+    /**
+     * Returns vehicles that were made ready for dispatch but are no longer needed to the 'AVAILABLE' status,
+     * for example after their orders were consolidated onto another vehicle. Vehicles that were already sent are not changed.
+     *
+     * <p>Key operations include:
+     * <ul>
+     *     <li>Verifying administrative privileges using the authorization header.</li>
+     *     <li>Loading all requested vehicles by their numbers at once.</li>
+     *     <li>Updating the status of the ready ones to 'AVAILABLE' and saving them together.</li>
+     * </ul>
+     * </p>
+     *
+     * @param numbers The numbers of the vehicles to be released.
+     * @param authHeader The authorization header used to verify administrative access.
+     * @return The numbers of the vehicles that were released.
+     * @throws IllegalStateException If the authorization header is invalid.
+     */
+    public List<String> releaseVehicles(List<String> numbers, String authHeader) {
+        if (!isAdmin(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
+
+        List<Vehicle> releasedVehicles = new ArrayList<>();
+        for (Vehicle vehicle : vehicleRepository.findAllByNumberIn(numbers)) {
+            if (vehicle.getStatus() == Status.READY) {
+                vehicle.setStatus(Status.AVAILABLE);
+                releasedVehicles.add(vehicle);
+            }
+        }
+        vehicleRepository.saveAllAndFlush(releasedVehicles);
+        fleetIndex.putAll(releasedVehicles);
+
+        List<String> releasedNumbers = new ArrayList<>();
+        for (Vehicle vehicle : releasedVehicles) {
+            releasedNumbers.add(vehicle.getNumber());
+        }
+        return releasedNumbers;
+    }
+
+    /**
+     * Returns the lifting capacity of the given vehicles from the in-memory {@link FleetIndex}.
+     *
+     * @param ids The IDs of the vehicles.
+     * @param authHeader The authorization header used to verify administrative access.
+     * @return A list of {@link VehicleCapacityResponseEntity} for every vehicle that exists.
+     * @throws IllegalStateException If the authorization header is invalid.
+     */
+    public List<VehicleCapacityResponseEntity> getCapacities(List<Integer> ids, String authHeader) {
+        if (!isAdmin(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
+
+        List<VehicleCapacityResponseEntity> vehicleCapacityResponseEntities = new ArrayList<>();
+        for (Integer id : ids) {
+            Optional<IndexedVehicle> optionalVehicle = fleetIndex.get(id);
+            if (optionalVehicle.isEmpty()) {
+                continue;
+            }
+
+            IndexedVehicle vehicle = optionalVehicle.get();
+            vehicleCapacityResponseEntities.add(
+                    new VehicleCapacityResponseEntity(vehicle.id(), vehicle.number(), vehicle.liftingCapacity()));
+        }
+        return vehicleCapacityResponseEntities;
     }
 
     /**
@@ -303,6 +473,7 @@ public class VehicleService {
         }
 
         vehicleRepository.delete(vehicle);
+        fleetIndex.remove(vehicle.getId());
     }
 
     /**
@@ -339,7 +510,8 @@ public class VehicleService {
     /**
      * Determines if a specified vehicle is suitable for a transport request based on its weight capacity and flight distance.
      * This method verifies that the requester has administrative privileges and checks the vehicle's capacity against the request's weight,
-     * as well as the flight distance against the computed distance between departure and arrival stations.
+     * as well as the flight distance against the cost of the flight between departure and arrival stations,
+     * which includes the climb and the descent computed by the {@link FlightCostModel}.
      *
      * <p>Key operations include:
      * <ul>
@@ -351,8 +523,8 @@ public class VehicleService {
      *
      * @param request The {@link IsSuitableRequest} containing the vehicle number, weight of the cargo, and IDs of the departure and arrival stations.
      * @param authHeader The authorization header used to verify administrative access.
-     * @return A Boolean indicating whether the vehicle is suitable for the request. Returns {@code true} if suitable, otherwise throws an exception.
-     * @throws IllegalStateException If the authorization header is invalid, if the vehicle or stations do not exist, or if the vehicle cannot handle the weight or distance required.
+     * @return A Boolean indicating whether the vehicle is suitable for the request. Returns {@code false} if the vehicle cannot handle the weight or distance required.
+     * @throws IllegalStateException If the authorization header is invalid or if the vehicle or stations do not exist.
      */
     public Boolean isSuitable(IsSuitableRequest request, String authHeader) {
         if (!isAdmin(authHeader)) {
@@ -368,8 +540,8 @@ public class VehicleService {
         Vehicle vehicle = optionalVehicle.get();
 
         if (request.getWeight() > vehicle.getLiftingCapacity()) {
-            throw new IllegalStateException("Vehicle with number: "
-                    + request.getVehicleNumber() + " is over capacity");
+            System.out.println("Vehicle with number: " + request.getVehicleNumber() + " is over capacity");
+            return false;
         }
 
         Optional<Station> optionalArrivalStation = stationRepository.findById(request.getArrivalStationId());
@@ -379,385 +551,590 @@ public class VehicleService {
 
         Optional<Station> optionalDepartureStation = stationRepository.findById(request.getDepartureStationId());
         if (optionalDepartureStation.isEmpty()) {
-            throw new IllegalStateException("Arrival station with id: " + request.getArrivalStationId() + " does not exist");
+            throw new IllegalStateException("Departure station with id: " + request.getDepartureStationId() + " does not exist");
         }
 
         Station arrivalStation = optionalArrivalStation.get();
         Station departureStation = optionalDepartureStation.get();
 
-        double distance = distance(
-                departureStation.getLatitude(),
-                departureStation.getLongitude(),
-                arrivalStation.getLatitude(),
-                arrivalStation.getLongitude()
+        double distance = flightCostModel.tripCost(
+                distance(
+                        departureStation.getLatitude(),
+                        departureStation.getLongitude(),
+                        arrivalStation.getLatitude(),
+                        arrivalStation.getLongitude()),
+                departureStation.getAltitude(),
+                arrivalStation.getAltitude(),
+                flightCostModel.rangeCheckBand()
         );
 
         if (distance > vehicle.getFlightDistance() - MARGIN_DISTANCE) {
-            throw new IllegalStateException("Vehicle with id: "
+            System.out.println("Vehicle with number: "
                     + request.getVehicleNumber()
                     + " and flight distance: " + vehicle.getFlightDistance()
                     + " can't reach distance: " + distance);
+            return false;
         }
 
         return true;
     }
 
     /**
-     * Calculates the optimal route for a vehicle to travel from its current station to a destination station.
-     * This method ensures the user has administrative privileges, fetches the order associated with the vehicle,
-     * and verifies the details of the order and the existence of the arrival station. It then calculates the route using
-     * geographic data and pathfinding algorithms.
+     * Checks many vehicles against many orders at once and returns a compact suitability matrix.
+     * Each cell applies the same rules as {@link #isSuitable(IsSuitableRequest, String)}, but instead of failing on the
+     * first problem it records a {@link SuitabilityReason}. All vehicles and stations are loaded with two queries
+     * and the administrative check is done once for the whole matrix.
      *
      * <p>Key operations include:
      * <ul>
-     *     <li>Verifying administrative privileges using the provided authorization header.</li>
-     *     <li>Fetching the order associated with the vehicle and validating the order details.</li>
-     *     <li>Fetching geographic coordinates for the departure and arrival stations.</li>
-     *     <li>Calculating the shortest path between the two stations using loaded geographic data.</li>
+     *     <li>Verifying administrative privileges using the authorization header.</li>
+     *     <li>Loading all requested vehicles and all stations referenced by the orders.</li>
+     *     <li>Computing the flight cost of every order once, climb and descent included, and checking it against every vehicle.</li>
      * </ul>
      * </p>
      *
-     * @param number The number of the vehicle for which the route needs to be determined.
+     * @param request The {@link IsSuitableBatchRequest} containing the orders and the vehicle numbers to check.
      * @param authHeader The authorization header used to verify administrative access.
-     * @return A list of {@link Point} objects representing the calculated route.
-     * @throws IllegalStateException If the authorization header is invalid, the vehicle or station does not exist, or the order is incorrect.
-     * @throws RuntimeException If there is an error in fetching data or calculating the path due to external API or internal logic failure.
+     * @return An {@link IsSuitableBatchResponseEntity} with one row per order and one character per vehicle.
+     * @throws IllegalStateException If the authorization header is invalid or an order has no weight.
      */
-    public List<Point> sendVehicle(String number, String authHeader) {
+    public IsSuitableBatchResponseEntity isSuitableBatch(IsSuitableBatchRequest request, String authHeader) {
         if (!isAdmin(authHeader)) {
             throw new IllegalStateException("Invalid auth header");
         }
 
-        Optional<Vehicle> optionalVehicle = vehicleRepository.findByNumber(number);
-        if (optionalVehicle.isEmpty()) {
-            throw new IllegalStateException("Vehicle with number: " + number + " does not exist");
+        List<IsSuitableBatchRequest.OrderSpec> orders =
+                request.getOrders() == null ? List.of() : request.getOrders();
+        List<String> vehicleNumbers =
+                request.getVehicleNumbers() == null ? List.of() : request.getVehicleNumbers();
+
+        Map<String, Vehicle> vehiclesByNumber = new HashMap<>();
+        for (Vehicle vehicle : vehicleRepository.findAllByNumberIn(vehicleNumbers)) {
+            vehiclesByNumber.put(vehicle.getNumber(), vehicle);
         }
 
-        Vehicle vehicle = optionalVehicle.get();
-        String token = authHeader.substring(7);
+        Set<Integer> stationIds = new HashSet<>();
+        for (IsSuitableBatchRequest.OrderSpec order : orders) {
+            if (order.getWeight() == null) {
+                throw new IllegalStateException("Order: " + order.getOrderId() + " has no weight");
+            }
+            if (order.getDepartureStationId() != null) {
+                stationIds.add(order.getDepartureStationId());
+            }
+            if (order.getArrivalStationId() != null) {
+                stationIds.add(order.getArrivalStationId());
+            }
+        }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + token);
-        HttpEntity<Void> orderHttpEntity = new HttpEntity<>(headers);
+        Map<Integer, Station> stationsById = new HashMap<>();
+        for (Station station : stationRepository.findAllById(stationIds)) {
+            stationsById.put(station.getId(), station);
+        }
 
-        String urlToOrderService = orderServiceUrl.concat("/get-order-for-vehicle?droneId=" + vehicle.getId());
-        Order order = new Order();
-        try {
-            RestTemplate restTemplate = restTemplateBuilder.build();
-            ResponseEntity<Order> responseEntity = restTemplate.exchange(
-                    urlToOrderService,
-                    HttpMethod.GET,
-                    orderHttpEntity,
-                    Order.class
+        List<String> orderIds = new ArrayList<>();
+        List<String> matrix = new ArrayList<>();
+        int suitableCount = 0;
+
+        for (IsSuitableBatchRequest.OrderSpec order : orders) {
+            Station departureStation = stationsById.get(order.getDepartureStationId());
+            Station arrivalStation = stationsById.get(order.getArrivalStationId());
+            Double distance = departureStation == null || arrivalStation == null ? null : flightCostModel.tripCost(
+                    distance(
+                            departureStation.getLatitude(),
+                            departureStation.getLongitude(),
+                            arrivalStation.getLatitude(),
+                            arrivalStation.getLongitude()),
+                    departureStation.getAltitude(),
+                    arrivalStation.getAltitude(),
+                    flightCostModel.rangeCheckBand()
             );
 
-            if (responseEntity.getStatusCode().is2xxSuccessful()) {
-                order = responseEntity.getBody();
-                if (!Order.orderHasDetails(order)) {
-                    throw new IllegalStateException("Cannot send drone: " + number + "because wrong order");
+            StringBuilder row = new StringBuilder(vehicleNumbers.size());
+            for (String vehicleNumber : vehicleNumbers) {
+                SuitabilityReason reason = checkSuitability(vehiclesByNumber.get(vehicleNumber), order.getWeight(), distance);
+                if (reason == SuitabilityReason.SUITABLE) {
+                    suitableCount++;
                 }
+                row.append(reason.getCode());
             }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
 
-        Station deptStation = vehicle.getStation();
-
-        Optional<Station> optionalStation = stationRepository.findByNumber(order.getArrivalStationNumber());
-        if (optionalStation.isEmpty()) {
-            throw new IllegalStateException("Station with number: " + order.getArrivalStationNumber() + " does not exist");
+            orderIds.add(order.getOrderId());
+            matrix.add(row.toString());
         }
 
-        Station arvlStation = optionalStation.get();
-
-        Double startLat, startLon, endLat, endLon;
-        startLat = deptStation.getLatitude();
-        startLon = deptStation.getLongitude();
-        endLat = arvlStation.getLatitude();
-        endLon = arvlStation.getLongitude();
-
-        double minLat = Math.min(startLat, endLat) - BUFFER_RADIUS;
-        double maxLat = Math.max(startLat, endLat) + BUFFER_RADIUS;
-        double minLon = Math.min(startLon, endLon) - BUFFER_RADIUS;
-        double maxLon = Math.max(startLon, endLon) + BUFFER_RADIUS;
-
-        Set<Point> crossings;
-        try {
-            crossings = loadCrossingsFromOpenStreetMap(minLat, minLon, maxLat, maxLon);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        Map<Character, String> legend = new LinkedHashMap<>();
+        for (SuitabilityReason reason : SuitabilityReason.values()) {
+            legend.put(reason.getCode(), reason.name());
         }
 
-        Point start = new Point(startLat, startLon);
-        Point end = new Point(endLat, endLon);
+        IsSuitableBatchResponseEntity response = new IsSuitableBatchResponseEntity();
+        response.setOrderIds(orderIds);
+        response.setVehicleNumbers(vehicleNumbers);
+        response.setMatrix(matrix);
+        response.setLegend(legend);
+        response.setSuitableCount(suitableCount);
+        return response;
+    }
 
-        //TODO додати запит на конкретний дрон для завантаження шляху
-        return findShortestPath(start, end, crossings);
+    private SuitabilityReason checkSuitability(Vehicle vehicle, double weight, Double distance) {
+        if (vehicle == null) {
+            return SuitabilityReason.VEHICLE_NOT_FOUND;
+        }
+        if (weight > vehicle.getLiftingCapacity()) {
+            return SuitabilityReason.OVER_CAPACITY;
+        }
+        if (distance == null) {
+            return SuitabilityReason.STATION_NOT_FOUND;
+        }
+        if (distance > vehicle.getFlightDistance() - MARGIN_DISTANCE) {
+            return SuitabilityReason.OUT_OF_RANGE;
+        }
+        return SuitabilityReason.SUITABLE;
     }
 
     /**
-     * Clusters a set of geographical coordinates using the DBSCAN clustering algorithm.
-     * This method converts each coordinate into a double point (longitude, latitude) and applies DBSCAN to find clusters.
-     * It computes the mean latitude and longitude for the points in each cluster to create new, representative points.
-     * Points that are not part of any clusters are included individually.
+     * Finds the best available vehicles for carrying a payload between two stations.
+     * A vehicle flies from its own station, as in {@link #sendVehicle(String, String, SearchMode, Double)} and
+     * {@link #planAssignments(AssignmentPlanRequest, String)}: a vehicle located at the departure station flies straight to the
+     * arrival station, any other first flies to the departure station to pick the payload up. A vehicle qualifies when it can
+     * lift the weight and its flight distance, reduced by the safety margin, covers that whole trip.
+     * The answer comes entirely from the in-memory {@link FleetIndex} and {@link StationSpatialIndex}.
      *
      * <p>Key operations include:
      * <ul>
-     *     <li>Transforming coordinates into double points for clustering.</li>
-     *     <li>Applying the DBSCAN clustering algorithm to the points.</li>
-     *     <li>Calculating the centroid for each cluster to represent the cluster by a single point.</li>
-     *     <li>Incorporating any unclustered points directly into the result.</li>
+     *     <li>Verifying administrative privileges using the authorization header.</li>
+     *     <li>Resolving the departure and arrival stations and the cost of the flight between them, climb and descent included.</li>
+     *     <li>Adding, once per station of the fleet, the cost of the flight from that station to the departure station.</li>
+     *     <li>Ranking the qualifying vehicles by the distance from their station to the departure station,
+     *     then by the smallest sufficient lifting capacity and range.</li>
      * </ul>
      * </p>
      *
-     * @param coordinates A set of {@link Coordinate} objects representing geographical locations.
-     * @return A set of {@link Point} objects representing the clustered and/or individual points.
-     * @see DBSCANClusterer The clustering algorithm used to group points.
+     * @param departureStationId The ID of the departure station.
+     * @param arrivalStationId The ID of the arrival station.
+     * @param weight The weight of the payload in kilograms.
+     * @param limit The maximum number of vehicles to return.
+     * @param authHeader The authorization header used to verify administrative access.
+     * @return A list of {@link VehicleCandidateResponseEntity}, best vehicle first.
+     * @throws IllegalStateException If the authorization header is invalid or if one of the stations does not exist.
      */
-    private Set<Point> clusterPoints(Set<Coordinate> coordinates) {
-        List<DoublePoint> doublePoints = new ArrayList<>();
-        for (Coordinate coordinate : coordinates) {
-            doublePoints.add(new DoublePoint(new double[]{coordinate.y, coordinate.x}));
+    public List<VehicleCandidateResponseEntity> findSuitableVehicles(Integer departureStationId,
+                                                                     Integer arrivalStationId,
+                                                                     Double weight,
+                                                                     int limit,
+                                                                     String authHeader) {
+        if (!isAdmin(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
         }
 
-        DBSCANClusterer<DoublePoint> clusterer = new DBSCANClusterer<>(EPS, MIN_POINTS);
-        List<Cluster<DoublePoint>> clusters = clusterer.cluster(doublePoints);
-
-        Set<Point> clusteredPoints = new HashSet<>();
-        Set<DoublePoint> clusteredDoublePoints = new HashSet<>();
-
-        for (Cluster<DoublePoint> cluster : clusters) {
-            double sumLat = 0, sumLon = 0;
-            for (DoublePoint doublePoint : cluster.getPoints()) {
-                double[] values = doublePoint.getPoint();
-                sumLat += values[0];
-                sumLon += values[1];
-                clusteredDoublePoints.add(doublePoint);
-            }
-            double meanLat = sumLat / cluster.getPoints().size();
-            double meanLon = sumLon / cluster.getPoints().size();
-            clusteredPoints.add(new Point(meanLat, meanLon));
+        Optional<IndexedStation> optionalDepartureStation = stationSpatialIndex.get(departureStationId);
+        if (optionalDepartureStation.isEmpty()) {
+            throw new IllegalStateException("Departure station with id: " + departureStationId + " does not exist");
         }
 
-        for (DoublePoint doublePoint : doublePoints) {
-            if (!clusteredDoublePoints.contains(doublePoint)) {
-                double[] values = doublePoint.getPoint();
-                clusteredPoints.add(new Point(values[0], values[1]));
-            }
+        Optional<IndexedStation> optionalArrivalStation = stationSpatialIndex.get(arrivalStationId);
+        if (optionalArrivalStation.isEmpty()) {
+            throw new IllegalStateException("Arrival station with id: " + arrivalStationId + " does not exist");
         }
 
-        return clusteredPoints;
+        IndexedStation departureStation = optionalDepartureStation.get();
+        IndexedStation arrivalStation = optionalArrivalStation.get();
+
+        int band = flightCostModel.rangeCheckBand();
+        double deliveryDistance = flightCostModel.tripCost(
+                distance(
+                        departureStation.latitude(),
+                        departureStation.longitude(),
+                        arrivalStation.latitude(),
+                        arrivalStation.longitude()),
+                departureStation.altitude(),
+                arrivalStation.altitude(),
+                band
+        );
+
+        // Дрон з іншої станції спершу летить по вантаж і сідає на станції відправлення
+        ToDoubleFunction<IndexedStation> tripDistance = vehicleStation -> vehicleStation.id().equals(departureStation.id())
+                ? deliveryDistance
+                : flightCostModel.tripCost(
+                        distance(
+                                vehicleStation.latitude(),
+                                vehicleStation.longitude(),
+                                departureStation.latitude(),
+                                departureStation.longitude()),
+                        vehicleStation.altitude(),
+                        departureStation.altitude(),
+                        band
+                ) + deliveryDistance;
+
+        List<VehicleCandidateResponseEntity> vehicleCandidateResponseEntities = new ArrayList<>();
+        for (FleetIndex.Candidate candidate : fleetIndex.findCandidates(
+                departureStation, weight, tripDistance, MARGIN_DISTANCE, limit)) {
+            IndexedVehicle vehicle = candidate.vehicle();
+
+            VehicleCandidateResponseEntity vehicleCandidateResponseEntity = new VehicleCandidateResponseEntity();
+            vehicleCandidateResponseEntity.setId(vehicle.id());
+            vehicleCandidateResponseEntity.setNumber(vehicle.number());
+            vehicleCandidateResponseEntity.setLiftingCapacity(vehicle.liftingCapacity());
+            vehicleCandidateResponseEntity.setFlightDistance(vehicle.flightDistance());
+            vehicleCandidateResponseEntity.setStationNumber(candidate.station().number());
+            vehicleCandidateResponseEntity.setDistanceToDeparture(candidate.distanceToDeparture());
+            vehicleCandidateResponseEntity.setTripDistance(candidate.tripDistance());
+            vehicleCandidateResponseEntity.setRangeReserve(candidate.rangeReserve());
+            vehicleCandidateResponseEntities.add(vehicleCandidateResponseEntity);
+        }
+        return vehicleCandidateResponseEntities;
     }
 
     /**
-     * Retrieves and processes crossing and turning circle data from OpenStreetMap (OSM) within specified geographic boundaries.
-     * This method sends a query to the OSM Overpass API to fetch nodes tagged as "crossing" or "turning_circle" within the given boundaries.
-     * It then clusters the returned points to minimize data and simplify further processing.
+     * Assigns available vehicles to orders so that the total flight distance is minimal.
+     * A vehicle flies an order from its own station to the order's arrival station, so the cost of a pair is the cost of
+     * that flight from the {@link FlightCostModel}: the horizontal distance plus the climb term of the vehicle's station and
+     * the descent term of the arrival station, each computed once; pairs where the vehicle cannot lift the weight or cannot fly the distance with the safety margin
+     * are forbidden. The plan is solved with {@link HungarianAssignment} over the in-memory {@link FleetIndex},
+     * which serves as many orders as possible first and then minimises the distance.
      *
      * <p>Key operations include:
      * <ul>
-     *     <li>Constructing and sending a query to the OSM Overpass API with specified geographic boundaries.</li>
-     *     <li>Parsing the JSON response to extract latitude and longitude coordinates of relevant geographic points.</li>
-     *     <li>Clustering the geographic points to reduce data complexity and improve manageability.</li>
+     *     <li>Verifying administrative privileges using the authorization header.</li>
+     *     <li>Building the cost matrix of all orders and all available vehicles that are not excluded,
+     *     leaving out vehicles that cannot serve any order.</li>
+     *     <li>Solving the assignment and returning the chosen vehicle and departure station for every served order.</li>
      * </ul>
      * </p>
      *
-     * @param minLat The minimum latitude of the bounding box.
-     * @param minLon The minimum longitude of the bounding box.
-     * @param maxLat The maximum latitude of the bounding box.
-     * @param maxLon The maximum longitude of the bounding box.
-     * @return A set of {@link Point} objects representing clustered geographic points of crossings and turning circles.
-     * @throws Exception If there is an error in fetching or processing the data from the API.
+     * @param request The {@link AssignmentPlanRequest} containing the orders and the vehicles that are already busy.
+     * @param authHeader The authorization header used to verify administrative access.
+     * @return An {@link AssignmentPlanResponseEntity} with the assignments and the orders that could not be served.
+     * @throws IllegalStateException If the authorization header is invalid or an order has no weight.
      */
-    public Set<Point> loadCrossingsFromOpenStreetMap(double minLat, double minLon, double maxLat,  double maxLon) throws Exception {
-        String url = "https://overpass-api.de/api/interpreter";
-        String data = "[out:json];" +
-                "(node[\"highway\"=\"crossing\"](" + minLat + "," + minLon  + "," + maxLat + "," + maxLon + ");" +
-                "node[\"highway\"=\"turning_circle\"](" + minLat + "," + minLon  + "," + maxLat + "," + maxLon + "););" +
-                "out;";
-        String fullUrl = url + "?data=" + data;
-
-        RestTemplate restTemplate = new RestTemplate();
-        ResponseEntity<String> response = restTemplate.getForEntity(fullUrl, String.class);
-
-        Set<Coordinate> crossings = new HashSet<>();
-
-        if (response.getStatusCode().is2xxSuccessful()) {
-            String responseBody = response.getBody();
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(responseBody);
-            JsonNode elements = root.path("elements");
-
-            for (JsonNode element : elements) {
-                double lat = element.get("lat").asDouble();
-                double lon = element.get("lon").asDouble();
-                crossings.add(new Coordinate(lon, lat));
+    public AssignmentPlanResponseEntity planAssignments(AssignmentPlanRequest request, String authHeader) {
+        if (!isAdmin(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
+
+        List<AssignmentPlanRequest.OrderSpec> orders =
+                request.getOrders() == null ? List.of() : request.getOrders();
+        Set<Integer> excludedVehicleIds = request.getExcludedVehicleIds() == null
+                ? Set.of() : new HashSet<>(request.getExcludedVehicleIds());
+
+        for (AssignmentPlanRequest.OrderSpec order : orders) {
+            if (order.getWeight() == null) {
+                throw new IllegalStateException("Order: " + order.getOrderId() + " has no weight");
             }
-        } else {
-            throw new RuntimeException("Failed to fetch crossings data");
         }
 
-        Set<Point> clusteredCrossings = clusterPoints(crossings);
+        int band = flightCostModel.rangeCheckBand();
+        double[] descentByOrder = new double[orders.size()];
+        boolean[] arrivalKnown = new boolean[orders.size()];
+        GeoPoints arrivalPoints = new GeoPoints(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Optional<IndexedStation> optionalArrivalStation = stationSpatialIndex.get(orders.get(i).getArrivalStationId());
+            if (optionalArrivalStation.isPresent()) {
+                IndexedStation arrivalStation = optionalArrivalStation.get();
+                descentByOrder[i] = flightCostModel.descentTerm(arrivalStation.altitude(), band);
+                arrivalKnown[i] = true;
+                arrivalPoints.set(i, arrivalStation.latitude(), arrivalStation.longitude());
+            }
+        }
 
-        return clusteredCrossings;
-    }
+        // Відстані від станції до всіх станцій прибуття рахуються одним пакетом і спільні для всіх дронів станції
+        Map<Integer, double[]> distancesByStation = new HashMap<>();
+        List<IndexedVehicle> vehicles = new ArrayList<>();
+        List<IndexedStation> vehicleStations = new ArrayList<>();
+        List<double[]> columns = new ArrayList<>();
 
-    /**
-     * Calculates the shortest path between two points using a set of possible crossing points.
-     * This method utilizes the A* search algorithm, which is enhanced with a priority queue to efficiently find the path
-     * with the lowest estimated cost to the destination. The method operates on a set of geographical points representing crossings,
-     * including the start and end points as part of the pathfinding process.
-     *
-     * <p>Key operations include:
-     * <ul>
-     *     <li>Initializing the priority queue with the start point based on estimated distance to the end point.</li>
-     *     <li>Continuously exploring the nearest unvisited point until the end point is reached or no paths are left to explore.</li>
-     *     <li>Calculating tentative distances to neighboring points and updating the path if a shorter path is found.</li>
-     *     <li>Reconstructing the path from end to start once the destination is reached.</li>
-     * </ul>
-     * </p>
-     *
-     * @param start The starting point of the path.
-     * @param end The destination point of the path.
-     * @param crossings A set of points representing possible waypoints or crossings on the path.
-     * @return A list of {@link Point} objects representing the shortest path from start to end.
-     *         Returns an empty list if no path is found.
-     */
-    private List<Point> findShortestPath(Point start, Point end, Set<Point> crossings) {
-        PriorityQueue<Point> openSet = new PriorityQueue<>((a, b) -> {
-            double distA = distance(a, end);
-            double distB = distance(b, end);
-            return Double.compare(distA, distB);
-        });
-        openSet.offer(start);
-        Set<Point> closedSet = new HashSet<>();
-        Map<Point, Point> cameFrom = new HashMap<>();
-        Map<Point, Double> gScore = new HashMap<>();
-
-        gScore.put(start, 0.0);
-
-        crossings.add(end);
-        while (!openSet.isEmpty()) {
-            Point current = openSet.poll();
-            if (current.equals(end)) {
-                return reconstructPath(cameFrom, current);
+        for (IndexedVehicle vehicle : fleetIndex.available()) {
+            if (excludedVehicleIds.contains(vehicle.id())) {
+                continue;
             }
-            closedSet.add(current);
-            for (Point neighbor : getNeighbors(current, crossings)) {
-                if (closedSet.contains(neighbor)) {
+            Optional<IndexedStation> optionalStation = stationSpatialIndex.get(vehicle.stationId());
+            if (optionalStation.isEmpty()) {
+                continue;
+            }
+            IndexedStation vehicleStation = optionalStation.get();
+            double climb = flightCostModel.climbTerm(vehicleStation.altitude(), band);
+            double[] distances = distancesByStation.computeIfAbsent(vehicleStation.id(), id -> {
+                double[] chords = arrivalPoints.chordsSquared(
+                        GeoPoints.unit(vehicleStation.latitude(), vehicleStation.longitude()), 0, orders.size(), null);
+                double[] result = new double[orders.size()];
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = GeoPoints.toDistance(chords[i]);
+                }
+                return result;
+            });
+
+            double[] column = new double[orders.size()];
+            boolean servesAnyOrder = false;
+            for (int i = 0; i < orders.size(); i++) {
+                if (!arrivalKnown[i] || orders.get(i).getWeight() > vehicle.liftingCapacity()) {
+                    column[i] = HungarianAssignment.FORBIDDEN;
                     continue;
                 }
-                double tentativeScore = gScore.getOrDefault(current, Double.MAX_VALUE) + distance(current, neighbor);
-                if (!gScore.containsKey(neighbor) || tentativeScore < gScore.get(neighbor)) {
-                    cameFrom.put(neighbor, current);
-                    gScore.put(neighbor, tentativeScore);
-                    openSet.offer(neighbor);
+
+                double distance = climb + descentByOrder[i] + distances[i];
+
+                if (distance > vehicle.flightDistance() - MARGIN_DISTANCE) {
+                    column[i] = HungarianAssignment.FORBIDDEN;
+                } else {
+                    column[i] = distance;
+                    servesAnyOrder = true;
                 }
             }
+
+            if (servesAnyOrder) {
+                vehicles.add(vehicle);
+                vehicleStations.add(vehicleStation);
+                columns.add(column);
+            }
+        }
+
+        double[][] cost = new double[orders.size()][vehicles.size()];
+        for (int j = 0; j < vehicles.size(); j++) {
+            double[] column = columns.get(j);
+            for (int i = 0; i < orders.size(); i++) {
+                cost[i][j] = column[i];
+            }
         }
-        return Collections.emptyList();
+
+        int[] assignment = HungarianAssignment.solve(cost);
+
+        List<AssignmentPlanResponseEntity.Assignment> assignments = new ArrayList<>();
+        List<String> unassignedOrderIds = new ArrayList<>();
+        double totalDistance = 0;
+
+        for (int i = 0; i < orders.size(); i++) {
+            int j = assignment[i];
+            if (j < 0) {
+                unassignedOrderIds.add(orders.get(i).getOrderId());
+                continue;
+            }
+
+            AssignmentPlanResponseEntity.Assignment planned = new AssignmentPlanResponseEntity.Assignment();
+            planned.setOrderId(orders.get(i).getOrderId());
+            planned.setVehicleId(vehicles.get(j).id());
+            planned.setVehicleNumber(vehicles.get(j).number());
+            planned.setDepartureStationId(vehicleStations.get(j).id());
+            planned.setDepartureStationNumber(vehicleStations.get(j).number());
+            planned.setDistance(cost[i][j]);
+            assignments.add(planned);
+            totalDistance += cost[i][j];
+        }
+
+        AssignmentPlanResponseEntity response = new AssignmentPlanResponseEntity();
+        response.setAssignments(assignments);
+        response.setUnassignedOrderIds(unassignedOrderIds);
+        response.setTotalDistance(totalDistance);
+        return response;
     }
 
     /**
-     * Identifies and returns the neighboring points of a given point from a set of crossings, based on a specified minimum distance.
-     * This method calculates the Euclidean distance between the given point and each point in the set of crossings.
-     * It includes a point as a neighbor if it is within the minimum neighbor distance and is not the point itself.
+     * Calculates the optimal route for a vehicle to travel from its current station to a destination station.
+     * This method ensures the user has administrative privileges, fetches the order associated with the vehicle,
+     * and verifies the details of the order and the existence of the arrival station. It then calculates the route using
+     * geographic data and pathfinding algorithms.
      *
      * <p>Key operations include:
      * <ul>
-     *     <li>Iterating through a set of geographical points (crossings).</li>
-     *     <li>Calculating the distance between the given point and each crossing.</li>
-     *     <li>Selecting crossings that are within a defined proximity threshold as neighbors.</li>
+     *     <li>Verifying administrative privileges using the provided authorization header.</li>
+     *     <li>Fetching the order associated with the vehicle and validating the order details.</li>
+     *     <li>Fetching geographic coordinates for the departure and arrival stations.</li>
+     *     <li>Taking the route prefetched when the vehicle was made ready, see {@link RoutePrefetcher},
+     *     or calculating the shortest path between the two stations using loaded geographic data.</li>
      * </ul>
      * </p>
      *
-     * @param point The point for which neighbors are to be identified.
-     * @param crossings A set of points representing potential neighbors.
-     * @return A list of {@link Point} objects that are within the minimum neighbor distance from the specified point.
+     * @param number The number of the vehicle for which the route needs to be determined.
+     * @param authHeader The authorization header used to verify administrative access.
+     * @param mode The path search to use, or {@code null} to choose it by the distance of the route.
+     * @param tolerance The simplification tolerance in meters, {@code null} for the configured one, or {@code 0} to keep every waypoint.
+     * @return A list of {@link Point} objects representing the calculated route, simplified by the {@link RouteSimplifier}.
+     * @throws IllegalStateException If the authorization header is invalid, the vehicle or station does not exist, or the order is incorrect.
+     * @throws RuntimeException If there is an error in fetching data or calculating the path due to external API or internal logic failure.
      */
-    private List<Point> getNeighbors(Point point, Set<Point> crossings) {
-        List<Point> neighbors = new ArrayList<>();
-        for (Point crossing : crossings) {
-            double dist = distance(point, crossing);
-            if (!crossing.equals(point) && dist < MIN_NEIGHBOUR_DISTANCE) {
-                neighbors.add(crossing);
-            }
+    public List<Point> sendVehicle(String number, String authHeader, SearchMode mode, Double tolerance) {
+        if (!isAdmin(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
         }
-        return neighbors;
+
+        RouteEndpoints endpoints = resolveRouteEndpoints(number, authHeader);
+        return routeSimplifier.simplify(planRoute(endpoints, mode), tolerance);
     }
 
     /**
-     * Reconstructs a path by tracing back from an endpoint to a start point using a map of point connections.
-     * This method starts from a specified endpoint and traces back through the map of 'cameFrom' points until
-     * it reaches the starting point of the path. It effectively builds the path from end to start, then reverses
-     * it to present the path from start to end.
+     * Calculates the route of a vehicle like {@link #sendVehicle(String, String, SearchMode, Double)}, but returns within a time budget.
+     * When the shortest route is not found in time, the best route found so far is returned with its suboptimality bound,
+     * and the route keeps being refined in the background for later requests, see {@link AnytimeRouteService}.
      *
-     * <p>Key operations include:
-     * <ul>
-     *     <li>Starting from the endpoint and iterating backward through the map until the start point is reached.</li>
-     *     <li>Accumulating points into a list which initially constructs the path in reverse order.</li>
-     *     <li>Reversing the accumulated list to present the path in correct start-to-end order.</li>
-     * </ul>
-     * </p>
+     * @param number The number of the vehicle for which the route needs to be determined.
+     * @param authHeader The authorization header used to verify administrative access.
+     * @param budget The time budget of the route search in milliseconds.
+     * @return An {@link AnytimeRouteResponseEntity} with the route, its bound and its status.
+     * @throws IllegalStateException If the authorization header is invalid, the vehicle or station does not exist, or the order is incorrect.
+     * @throws RuntimeException If there is an error in fetching the order.
+     */
+    public AnytimeRouteResponseEntity sendVehicleWithin(String number, String authHeader, long budget) {
+        if (!isAdmin(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
+
+        RouteEndpoints endpoints = resolveRouteEndpoints(number, authHeader);
+        AnytimeRoute.Snapshot snapshot = anytimeRouteService.plan(endpoints.start(), endpoints.end(), budget);
+        return AnytimeRouteResponseEntity.builder()
+                .number(number)
+                .route(routeSimplifier.simplify(snapshot.route()))
+                .suboptimalityBound(snapshot.bound())
+                .status(snapshot.status())
+                .error(snapshot.error())
+                .build();
+    }
+
+    /**
+     * Calculates the route of a vehicle like {@link #sendVehicle(String, String, SearchMode, Double)}, but keeps it apart
+     * from the routes of other vehicles in flight: the route is timed, placed in an altitude band and reserved,
+     * and the vehicle hovers where it has to let another vehicle pass, see {@link ScheduledRoutePlanner}.
      *
-     * @param cameFrom A map where each key is a point and its value is the point from which it came in the path.
-     * @param current The endpoint of the path from which to start reconstructing the path backwards.
-     * @return A list of {@link Point} objects representing the path from start to end.
+     * @param number The number of the vehicle for which the route needs to be determined.
+     * @param authHeader The authorization header used to verify administrative access.
+     * @return A {@link ScheduledRouteResponseEntity} with the altitude band, the timed waypoints and the flight cost of the route.
+     * @throws IllegalStateException If the authorization header is invalid, the vehicle or station does not exist, the order is incorrect,
+     *                               or no conflict-free route could be reserved.
+     * @throws RuntimeException If there is an error in fetching data or calculating the path.
      */
-    private List<Point> reconstructPath(Map<Point, Point> cameFrom, Point current) {
-        List<Point> path = new ArrayList<>();
-        path.add(current);
-        while (cameFrom.containsKey(current)) {
-            current = cameFrom.get(current);
-            path.add(current);
-        }
-        Collections.reverse(path);
-        return path;
+    public ScheduledRouteResponseEntity sendVehicleScheduled(String number, String authHeader) {
+        if (!isAdmin(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
+
+        RouteEndpoints endpoints = resolveRouteEndpoints(number, authHeader);
+        Optional<ScheduledRoute> route = scheduledRoutePlanner.plan(number, endpoints);
+        if (route.isEmpty()) {
+            return ScheduledRouteResponseEntity.builder()
+                    .number(number)
+                    .waypoints(new ArrayList<>())
+                    .error("No route found")
+                    .build();
+        }
+        return ScheduledRouteResponseEntity.builder()
+                .number(number)
+                .altitudeBand(route.get().altitudeBand())
+                .cruiseAltitude(flightCostModel.cruiseAltitude(route.get().altitudeBand()))
+                .flightCost(flightCostModel.routeCost(
+                        route.get().waypoints().stream().map(ScheduledWaypoint::point).toList(),
+                        endpoints.startAltitude(),
+                        endpoints.endAltitude(),
+                        route.get().altitudeBand()))
+                .waypoints(route.get().waypoints())
+                .build();
     }
 
     /**
-     * Calculates the geodesic distance between two points specified by latitude and longitude using the Haversine formula.
-     * This method converts latitude and longitude from degrees to radians and then computes the distance based on the curvature of the Earth.
+     * Calculates the route of a vehicle like {@link #sendVehicle(String, String, SearchMode, Double)}, without checking administrative privileges.
+     * Used by route planning jobs, which check the privileges when the job is submitted.
      *
-     * <p>The Haversine formula is particularly useful in navigation for calculating the shortest distance between two points on the surface of a sphere.</p>
+     * @param number The number of the vehicle for which the route needs to be determined.
+     * @param authHeader The authorization header passed on to the order service.
+     * @return A list of {@link Point} objects representing the calculated route.
+     * @throws IllegalStateException If the vehicle or station does not exist, or the order is incorrect.
+     * @throws RuntimeException If there is an error in fetching data or calculating the path.
+     */
+    public List<Point> planVehicleRoute(String number, String authHeader) {
+        RouteEndpoints endpoints = resolveRouteEndpoints(number, authHeader);
+        return planRoute(endpoints, SearchMode.AUTO);
+    }
+
+    /**
+     * Calculates the routes of many vehicles at once. The routes are planned in parallel and the crossings
+     * of routes in the same area are loaded only once, see {@link RoutePlanner#planAll}.
+     * A vehicle whose route can not be planned is reported with an error and does not stop the others.
      *
-     * @param p1 The first point with geographic coordinates (latitude, longitude).
-     * @param p2 The second point with geographic coordinates (latitude, longitude).
-     * @return The distance between the two points in kilometers.
+     * @param numbers The numbers of the vehicles for which the routes need to be determined.
+     * @param authHeader The authorization header used to verify administrative access.
+     * @param tolerance The simplification tolerance in meters, {@code null} for the configured one, or {@code 0} to keep every waypoint.
+     * @return One {@link VehicleRouteResponseEntity} per vehicle number, in the order of the request.
+     * @throws IllegalStateException If the authorization header is invalid.
      */
-    private double distance(Point p1, Point p2) {
-        double lat1 = Math.toRadians(p1.getLatitude());
-        double lon1 = Math.toRadians(p1.getLongitude());
-        double lat2 = Math.toRadians(p2.getLatitude());
-        double lon2 = Math.toRadians(p2.getLongitude());
-
-        double dlon = lon2 - lon1;
-        double dlat = lat2 - lat1;
-        double a = Math.pow(Math.sin(dlat / 2), 2)
-                + Math.cos(lat1) * Math.cos(lat2)
-                * Math.pow(Math.sin(dlon / 2), 2);
-
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double r = 6371; // Радіус Землі в кілометрах
-        return c * r;
+    public List<VehicleRouteResponseEntity> sendVehicles(List<String> numbers, String authHeader, Double tolerance) {
+        if (!isAdmin(authHeader)) {
+            throw new IllegalStateException("Invalid auth header");
+        }
+
+        List<RoutePlan> plans = routePlanner.planAll(numbers, number -> resolveRouteEndpoints(number, authHeader));
+
+        List<VehicleRouteResponseEntity> responses = new ArrayList<>();
+        for (int i = 0; i < numbers.size(); i++) {
+            RoutePlan plan = plans.get(i);
+            responses.add(VehicleRouteResponseEntity.builder()
+                    .number(numbers.get(i))
+                    .route(routeSimplifier.simplify(plan.route(), tolerance))
+                    .error(plan.error())
+                    .build());
+        }
+        return responses;
     }
 
-    private double distance(double lat1, double lon1, double lat2, double lon2) {
-        lat1 = Math.toRadians(lat1);
-        lon1 = Math.toRadians(lon1);
-        lat2 = Math.toRadians(lat2);
-        lon2 = Math.toRadians(lon2);
+    private List<Point> planRoute(RouteEndpoints endpoints, SearchMode mode) {
+        if (mode == null || mode == SearchMode.AUTO) {
+            Optional<List<Point>> prefetched = routePrefetcher.find(endpoints.start(), endpoints.end());
+            if (prefetched.isPresent()) {
+                return prefetched.get();
+            }
+        }
+        return routePlanner.plan(endpoints.start(), endpoints.end(), mode);
+    }
 
-        double dlon = lon2 - lon1;
-        double dlat = lat2 - lat1;
+    private RouteEndpoints resolveRouteEndpoints(String number, String authHeader) {
+        Optional<Vehicle> optionalVehicle = vehicleRepository.findByNumber(number);
+        if (optionalVehicle.isEmpty()) {
+            throw new IllegalStateException("Vehicle with number: " + number + " does not exist");
+        }
 
-        double a = Math.pow(Math.sin(dlat / 2), 2)
-                + Math.cos(lat1) * Math.cos(lat2)
-                * Math.pow(Math.sin(dlon / 2), 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double r = 6371;
+        Vehicle vehicle = optionalVehicle.get();
+        String token = authHeader.substring(7);
 
-        return c * r;
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", "Bearer " + token);
+        HttpEntity<Void> orderHttpEntity = new HttpEntity<>(headers);
+
+        String urlToOrderService = orderServiceUrl.concat("/get-order-for-vehicle?droneId=" + vehicle.getId());
+        Order order = new Order();
+        try {
+            RestTemplate restTemplate = restTemplateBuilder.build();
+            ResponseEntity<Order> responseEntity = restTemplate.exchange(
+                    urlToOrderService,
+                    HttpMethod.GET,
+                    orderHttpEntity,
+                    Order.class
+            );
+
+            if (responseEntity.getStatusCode().is2xxSuccessful()) {
+                order = responseEntity.getBody();
+                if (!Order.orderHasDetails(order)) {
+                    throw new IllegalStateException("Cannot send drone: " + number + "because wrong order");
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        Station deptStation = vehicle.getStation();
+
+        Optional<Station> optionalStation = stationRepository.findByNumber(order.getArrivalStationNumber());
+        if (optionalStation.isEmpty()) {
+            throw new IllegalStateException("Station with number: " + order.getArrivalStationNumber() + " does not exist");
+        }
+
+        Station arvlStation = optionalStation.get();
+
+        //TODO додати запит на конкретний дрон для завантаження шляху
+        return new RouteEndpoints(
+                new Point(deptStation.getLatitude(), deptStation.getLongitude()),
+                new Point(arvlStation.getLatitude(), arvlStation.getLongitude()),
+                deptStation.getAltitude(),
+                arvlStation.getAltitude());
+    }
+
+    private double distance(double lat1, double lon1, double lat2, double lon2) {
+        return GeoUtils.haversine(lat1, lon1, lat2, lon2);
     }
 
     /**
@@ -0,0 +1,27 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AssignmentPlanRequest {
+    private List<OrderSpec> orders;
+    private List<Integer> excludedVehicleIds;// дрони, вже призначені іншим замовленням
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class OrderSpec {
+        private String orderId;
+        private Double weight;
+        private Integer arrivalStationId;
+    }
+}
@@ -0,0 +1,28 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class IsSuitableBatchRequest {
+    private List<OrderSpec> orders;
+    private List<String> vehicleNumbers;
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class OrderSpec {
+        private String orderId;
+        private Double weight;
+        private Integer departureStationId;
+        private Integer arrivalStationId;
+    }
+}
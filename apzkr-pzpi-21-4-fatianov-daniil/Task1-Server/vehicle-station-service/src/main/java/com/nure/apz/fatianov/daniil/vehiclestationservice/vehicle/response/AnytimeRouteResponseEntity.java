@@ -0,0 +1,22 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.AnytimeRouteStatus;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnytimeRouteResponseEntity {
+    private String number;
+    private List<Point> route;
+    private Double suboptimalityBound;// маршрут не довший за найкоротший більш ніж у стільки разів
+    private AnytimeRouteStatus status;
+    private String error;
+}
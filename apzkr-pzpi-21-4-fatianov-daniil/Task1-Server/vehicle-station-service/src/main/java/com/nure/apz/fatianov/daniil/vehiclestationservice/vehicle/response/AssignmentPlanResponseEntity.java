@@ -0,0 +1,31 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AssignmentPlanResponseEntity {
+    private List<Assignment> assignments;
+    private List<String> unassignedOrderIds;
+    private Double totalDistance;// in kilometers
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Assignment {
+        private String orderId;
+        private Integer vehicleId;
+        private String vehicleNumber;
+        private Integer departureStationId;
+        private String departureStationNumber;
+        private Double distance;// in kilometers of level flight, climb and descent included
+    }
+}
@@ -0,0 +1,22 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.route.ScheduledWaypoint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ScheduledRouteResponseEntity {
+    private String number;
+    private Integer altitudeBand;
+    private Double cruiseAltitude;// в метрах над рівнем моря
+    private Double flightCost;// довжина маршруту з підйомом і спуском, в кілометрах рівного польоту
+    private List<ScheduledWaypoint> waypoints;
+    private String error;
+}
@@ -0,0 +1,21 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class VehicleCandidateResponseEntity {
+    private Integer id;
+    private String number;
+    private Double liftingCapacity;// in kilograms
+    private Double flightDistance;// in kilometers
+    private String stationNumber;
+    private Double distanceToDeparture;// in kilometers
+    private Double tripDistance;// in kilometers of level flight from the vehicle station, climb and descent included
+    private Double rangeReserve;// in kilometers
+}
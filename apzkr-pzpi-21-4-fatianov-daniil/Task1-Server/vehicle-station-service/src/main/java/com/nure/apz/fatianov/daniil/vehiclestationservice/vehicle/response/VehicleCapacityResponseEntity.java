@@ -0,0 +1,16 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class VehicleCapacityResponseEntity {
+    private Integer id;
+    private String number;
+    private Double liftingCapacity;// in kilograms
+}
@@ -0,0 +1,19 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.response;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class VehicleRouteResponseEntity {
+    private String number;
+    private List<Point> route;
+    private String error;
+}
@@ -0,0 +1,108 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.geo;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a neighbour scan with one {@link GeoUtils#haversine} per point against the batch chords of {@link GeoPoints},
+ * over the same points of a grid cell. Run with
+ * {@code java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main GeoPointsBenchmark}.
+ *
+ * <p>Key operations include:
+ * <ul>
+ *     <li>Counting the points within a radius of a query point with a haversine per point.</li>
+ *     <li>Counting the same points by comparing squared chords of a range with {@link GeoPoints#chordLimit}.</li>
+ *     <li>Counting them over a list of indices, as the scans of grid cells do.</li>
+ * </ul>
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoPointsBenchmark {
+
+    private static final double RADIUS = 0.5;// км, як довжина ребра графа регіону
+
+    @Param({"64", "1024", "16384"})
+    public int size;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private GeoPoints points;
+    private int[] indices;
+    private double[] scratch;
+    private double queryLatitude;
+    private double queryLongitude;
+    private double[] query;
+    private double limit;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        latitudes = new double[size];
+        longitudes = new double[size];
+        for (int i = 0; i < size; i++) {
+            latitudes[i] = 50.0 + random.nextDouble() * 0.02;
+            longitudes[i] = 36.2 + random.nextDouble() * 0.03;
+        }
+        points = GeoPoints.of(latitudes, longitudes);
+
+        indices = new int[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = (i * 7919) % size;
+        }
+
+        scratch = new double[size];
+        queryLatitude = 50.01;
+        queryLongitude = 36.215;
+        query = GeoPoints.unit(queryLatitude, queryLongitude);
+        limit = GeoPoints.chordLimit(RADIUS);
+    }
+
+    @Benchmark
+    public int haversine() {
+        int near = 0;
+        for (int i = 0; i < size; i++) {
+            if (GeoUtils.haversine(queryLatitude, queryLongitude, latitudes[i], longitudes[i]) <= RADIUS) {
+                near++;
+            }
+        }
+        return near;
+    }
+
+    @Benchmark
+    public int chordsOfRange() {
+        double[] chords = points.chordsSquared(query, 0, size, scratch);
+        int near = 0;
+        for (int i = 0; i < size; i++) {
+            if (chords[i] <= limit) {
+                near++;
+            }
+        }
+        return near;
+    }
+
+    @Benchmark
+    public int chordsOfIndices() {
+        double[] chords = points.chordsSquared(query, indices, scratch);
+        int near = 0;
+        for (int i = 0; i < size; i++) {
+            if (chords[i] <= limit) {
+                near++;
+            }
+        }
+        return near;
+    }
+
+    @Benchmark
+    public void unitVectors(Blackhole blackhole) {
+        // Ціна одноразового переходу до одиничних векторів, яку окуповують наступні сканування
+        blackhole.consume(GeoPoints.of(latitudes, longitudes));
+    }
+}
@@ -0,0 +1,140 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoUtils;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnytimeSearchTest {
+
+    private static final double MAX_EDGE = 0.5;// км
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private record Report(List<Point> path, double bound) {
+    }
+
+    @Test
+    void everyReportedPathIsWithinItsBoundAndTheLastIsShortest() {
+        Random random = new Random(5);
+        for (int round = 0; round < 100; round++) {
+            CrossingGraph graph = randomGraph(random);
+            double shortest = dijkstra(graph);
+            List<Report> reports = run(graph, NO_DEADLINE);
+
+            assertFalse(reports.isEmpty(), "round " + round);
+            if (shortest == Double.POSITIVE_INFINITY) {
+                assertEquals(List.of(new Report(List.of(), 1.0)), reports, "round " + round);
+                continue;
+            }
+
+            double previousLength = Double.POSITIVE_INFINITY;
+            double previousBound = Double.POSITIVE_INFINITY;
+            for (Report report : reports) {
+                double length = length(report.path());
+                assertTrue(report.bound() >= 1 && report.bound() <= 3, "round " + round);
+                assertTrue(length <= report.bound() * shortest + 1e-9, "round " + round + ": the bound must hold");
+                assertTrue(length <= previousLength + 1e-9, "round " + round + ": paths only improve");
+                assertTrue(report.bound() <= previousBound, "round " + round + ": bounds only tighten");
+                previousLength = length;
+                previousBound = report.bound();
+            }
+
+            Report last = reports.get(reports.size() - 1);
+            assertEquals(1.0, last.bound(), "round " + round);
+            assertEquals(shortest, length(last.path()), 1e-9, "round " + round);
+        }
+    }
+
+    @Test
+    void reportsNoPathWithBoundOne() {
+        List<Point> crossings = List.of(new Point(50.0, 36.003));
+        CrossingGraph graph = new CrossingGraph(new Point(50.0, 36.0), new Point(50.0, 36.3), crossings, MAX_EDGE);
+
+        assertEquals(List.of(new Report(List.of(), 1.0)), run(graph, NO_DEADLINE));
+    }
+
+    @Test
+    void straightChainIsProvenShortestAtOnce() {
+        List<Point> crossings = new ArrayList<>();
+        for (int i = 1; i < 10; i++) {
+            crossings.add(new Point(50.0, 36.0 + i * 0.005));
+        }
+        CrossingGraph graph = new CrossingGraph(new Point(50.0, 36.0), new Point(50.0, 36.05), crossings, MAX_EDGE);
+
+        List<Report> reports = run(graph, NO_DEADLINE);
+
+        assertEquals(1, reports.size());
+        assertEquals(1.0, reports.get(0).bound());
+        assertEquals(11, reports.get(0).path().size());
+    }
+
+    @Test
+    void passedDeadlineStopsTheSearchBeforeTheFirstPath() {
+        // Першого шляху не знайти швидше, ніж за 64 розкриття, тому перевірка терміну спрацьовує раніше
+        List<Point> crossings = new ArrayList<>();
+        for (int i = 1; i < 200; i++) {
+            crossings.add(new Point(50.0, 36.0 + i * 0.005));
+        }
+        CrossingGraph graph = new CrossingGraph(new Point(50.0, 36.0), new Point(50.0, 37.0), crossings, MAX_EDGE);
+
+        assertTrue(run(graph, System.nanoTime() - 1).isEmpty());
+        assertEquals(1.0, run(graph, NO_DEADLINE).get(0).bound());
+    }
+
+    private static List<Report> run(SearchGraph graph, long deadline) {
+        List<Report> reports = new ArrayList<>();
+        AnytimeSearch.run(graph, deadline, (path, bound) -> reports.add(new Report(path, bound)));
+        return reports;
+    }
+
+    private static CrossingGraph randomGraph(Random random) {
+        Point start = new Point(50.0, 36.0);
+        Point end = new Point(50.0 + random.nextDouble() * 0.02, 36.0 + 0.01 + random.nextDouble() * 0.03);
+        List<Point> crossings = new ArrayList<>();
+        int count = 50 + random.nextInt(300);
+        for (int i = 0; i < count; i++) {
+            crossings.add(new Point(49.995 + random.nextDouble() * 0.03, 35.995 + random.nextDouble() * 0.05));
+        }
+        return new CrossingGraph(start, end, crossings, MAX_EDGE);
+    }
+
+    /**
+     * Shortest distance from the start to the end over the same graph, without any heuristic.
+     */
+    private static double dijkstra(SearchGraph graph) {
+        double[] scores = new double[graph.size()];
+        Arrays.fill(scores, Double.POSITIVE_INFINITY);
+        scores[graph.start()] = 0;
+        PriorityQueue<double[]> open = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[0]));
+        open.add(new double[]{0, graph.start()});
+        while (!open.isEmpty()) {
+            double[] entry = open.poll();
+            int node = (int) entry[1];
+            if (entry[0] > scores[node]) {
+                continue;
+            }
+            for (int i = 0; i < graph.degree(node); i++) {
+                int neighbour = graph.neighbour(node, i);
+                double score = scores[node] + graph.weight(node, i);
+                if (score < scores[neighbour]) {
+                    scores[neighbour] = score;
+                    open.add(new double[]{score, neighbour});
+                }
+            }
+        }
+        return scores[graph.end()];
+    }
+
+    private static double length(List<Point> path) {
+        double length = 0;
+        for (int i = 1; i < path.size(); i++) {
+            Point from = path.get(i - 1);
+            Point to = path.get(i);
+            length += GeoUtils.haversine(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+        }
+        return length;
+    }
+}
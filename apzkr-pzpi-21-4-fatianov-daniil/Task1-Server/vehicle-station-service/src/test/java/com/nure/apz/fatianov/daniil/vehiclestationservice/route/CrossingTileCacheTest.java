@@ -0,0 +1,146 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrossingTileCacheTest {
+
+    private static final double TILE_SIZE = 0.05;
+    private static final long DAY = 86400000L;
+    private static final long ALWAYS_STALE = -1;// навіть щойно записана плитка старша за цей вік
+    private static final BoundingBox BOX = new BoundingBox(50.01, 36.21, 50.04, 36.24);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsWrittenTilesBackWithoutFetching() throws Exception {
+        Set<Coordinate> crossings = crossings();
+        AtomicInteger fetches = new AtomicInteger();
+
+        Set<Coordinate> loaded = cache(false, DAY).load(BOX, counting(fetches, box -> crossings));
+
+        assertEquals(1, fetches.get());
+        assertEquals(inside(crossings, BOX), loaded);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.anyMatch(file -> file.toString().endsWith(".ctl")));
+        }
+
+        // Новий екземпляр не має декодованих плиток у пам'яті, тому читає їх з диска
+        CrossingTileCache reopened = cache(false, DAY);
+        assertTrue(reopened.isFresh(BOX));
+        assertEquals(inside(crossings, BOX), reopened.load(BOX, failing()));
+    }
+
+    @Test
+    void rewritesTileThatIsRead() {
+        CrossingTileCache cache = cache(false, ALWAYS_STALE);
+        cache.load(BOX, box -> crossings());
+
+        Set<Coordinate> replaced = Set.of(new Coordinate(36.22, 50.02));
+        assertEquals(replaced, cache.load(BOX, box -> replaced));
+        assertEquals(replaced, cache(true, ALWAYS_STALE).load(BOX, failing()));
+    }
+
+    @Test
+    void offlineCacheAnswersFromStaleTilesAndNeverFetches() {
+        cache(false, DAY).load(BOX, box -> crossings());
+
+        CrossingTileCache offline = cache(true, ALWAYS_STALE);
+        assertFalse(offline.isFresh(BOX));
+        assertEquals(inside(crossings(), BOX), offline.load(BOX, failing()));
+    }
+
+    @Test
+    void offlineCacheFailsWithoutTiles() {
+        assertThrows(IllegalStateException.class, () -> cache(true, DAY).load(BOX, failing()));
+    }
+
+    @Test
+    void staleTilesAreFetchedAgain() {
+        AtomicInteger fetches = new AtomicInteger();
+        CrossingTileCache cache = cache(false, ALWAYS_STALE);
+
+        cache.load(BOX, counting(fetches, box -> crossings()));
+        cache.load(BOX, counting(fetches, box -> crossings()));
+
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void staleTilesAreUsedWhenFetchFails() {
+        cache(false, DAY).load(BOX, box -> crossings());
+
+        assertEquals(inside(crossings(), BOX), cache(false, ALWAYS_STALE).load(BOX, failing()));
+    }
+
+    @Test
+    void fetchFailureIsRethrownWithoutTiles() {
+        assertThrows(IllegalStateException.class, () -> cache(false, DAY).load(BOX, failing()));
+    }
+
+    @Test
+    void unreadableTileIsFetchedAgain() throws Exception {
+        cache(false, DAY).load(BOX, box -> crossings());
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.write(file, new byte[]{1, 2, 3});
+            }
+        }
+
+        AtomicInteger fetches = new AtomicInteger();
+        assertEquals(inside(crossings(), BOX), cache(false, DAY).load(BOX, counting(fetches, box -> crossings())));
+        assertEquals(1, fetches.get());
+    }
+
+    private CrossingTileCache cache(boolean offline, long maxAge) {
+        return new CrossingTileCache(directory.toString(), true, offline, TILE_SIZE, maxAge, 16);
+    }
+
+    private static Set<Coordinate> crossings() {
+        Set<Coordinate> crossings = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            // Координати з точністю OpenStreetMap, щоб пережити кодування без втрат
+            double latitude = Math.round((50.0 + i * 0.001) * 1e7) / 1e7;
+            double longitude = Math.round((36.2 + i * 0.0009) * 1e7) / 1e7;
+            crossings.add(new Coordinate(longitude, latitude));
+        }
+        return crossings;
+    }
+
+    private static Set<Coordinate> inside(Set<Coordinate> crossings, BoundingBox box) {
+        Set<Coordinate> result = new HashSet<>();
+        for (Coordinate crossing : crossings) {
+            if (crossing.y >= box.minLat() && crossing.y <= box.maxLat()
+                    && crossing.x >= box.minLon() && crossing.x <= box.maxLon()) {
+                result.add(crossing);
+            }
+        }
+        return result;
+    }
+
+    private static Function<BoundingBox, Set<Coordinate>> counting(AtomicInteger fetches,
+                                                                    Function<BoundingBox, Set<Coordinate>> fetcher) {
+        return box -> {
+            fetches.incrementAndGet();
+            return fetcher.apply(box);
+        };
+    }
+
+    private static Function<BoundingBox, Set<Coordinate>> failing() {
+        return box -> {
+            throw new IllegalStateException("Overpass is unreachable");
+        };
+    }
+}
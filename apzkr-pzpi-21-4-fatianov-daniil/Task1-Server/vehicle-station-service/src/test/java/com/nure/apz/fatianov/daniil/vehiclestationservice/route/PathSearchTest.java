@@ -0,0 +1,125 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoUtils;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PathSearchTest {
+
+    private static final double MAX_EDGE = 0.5;// км
+
+    @Test
+    void bothSearchesFollowTheOnlyChain() {
+        List<Point> crossings = new ArrayList<>();
+        for (int i = 1; i < 10; i++) {
+            crossings.add(new Point(50.0, 36.0 + i * 0.005));
+        }
+        CrossingGraph graph = new CrossingGraph(new Point(50.0, 36.0), new Point(50.0, 36.05), crossings, MAX_EDGE);
+
+        for (PathSearch.Result result : List.of(PathSearch.aStar(graph), PathSearch.bidirectionalAStar(graph))) {
+            assertEquals(11, result.path().size());
+            for (int i = 0; i < result.path().size(); i++) {
+                assertEquals(36.0 + i * 0.005, result.path().get(i).getLongitude(), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void bothSearchesReturnNothingWhenTheEndIsUnreachable() {
+        List<Point> crossings = List.of(new Point(50.0, 36.003), new Point(50.0, 36.006));
+        CrossingGraph graph = new CrossingGraph(new Point(50.0, 36.0), new Point(50.0, 36.2), crossings, MAX_EDGE);
+
+        assertTrue(PathSearch.aStar(graph).path().isEmpty());
+        assertTrue(PathSearch.bidirectionalAStar(graph).path().isEmpty());
+    }
+
+    @Test
+    void bothSearchesFindTheShortestPathOnRandomGraphs() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            Point start = new Point(50.0, 36.0);
+            Point end = new Point(50.0 + random.nextDouble() * 0.02, 36.0 + 0.01 + random.nextDouble() * 0.03);
+            List<Point> crossings = new ArrayList<>();
+            int count = 20 + random.nextInt(200);
+            for (int i = 0; i < count; i++) {
+                crossings.add(new Point(49.995 + random.nextDouble() * 0.03, 35.995 + random.nextDouble() * 0.05));
+            }
+
+            CrossingGraph graph = new CrossingGraph(start, end, crossings, MAX_EDGE);
+            double expected = dijkstra(graph);
+
+            PathSearch.Result unidirectional = PathSearch.aStar(graph);
+            PathSearch.Result bidirectional = PathSearch.bidirectionalAStar(graph);
+            if (expected == Double.POSITIVE_INFINITY) {
+                assertTrue(unidirectional.path().isEmpty(), "round " + round);
+                assertTrue(bidirectional.path().isEmpty(), "round " + round);
+                continue;
+            }
+
+            assertPath(start, end, expected, unidirectional.path(), "unidirectional, round " + round);
+            assertPath(start, end, expected, bidirectional.path(), "bidirectional, round " + round);
+        }
+    }
+
+    @Test
+    void searchesOnOneThreadDoNotSeeEachOther() {
+        List<Point> crossings = List.of(new Point(50.0, 36.004));
+        CrossingGraph small = new CrossingGraph(new Point(50.0, 36.0), new Point(50.0, 36.008), crossings, MAX_EDGE);
+        CrossingGraph unreachable = new CrossingGraph(new Point(50.0, 36.0), new Point(50.0, 36.5), crossings, MAX_EDGE);
+
+        // Робочий простір потоку використовується повторно, тому попередній пошук не має залишати слідів
+        assertEquals(3, PathSearch.bidirectionalAStar(small).path().size());
+        assertTrue(PathSearch.aStar(unreachable).path().isEmpty());
+        assertEquals(3, PathSearch.aStar(small).path().size());
+        assertTrue(PathSearch.bidirectionalAStar(unreachable).path().isEmpty());
+    }
+
+    private static void assertPath(Point start, Point end, double expected, List<Point> path, String message) {
+        assertFalse(path.isEmpty(), message);
+        assertSame(start, path.get(0), message);
+        assertSame(end, path.get(path.size() - 1), message);
+
+        double length = 0;
+        for (int i = 1; i < path.size(); i++) {
+            double edge = distance(path.get(i - 1), path.get(i));
+            assertTrue(edge < MAX_EDGE + 1e-9, message);
+            length += edge;
+        }
+        assertEquals(expected, length, 1e-9, message);
+    }
+
+    /**
+     * Shortest distance from the start to the end over the same graph, without any heuristic.
+     */
+    private static double dijkstra(SearchGraph graph) {
+        double[] scores = new double[graph.size()];
+        Arrays.fill(scores, Double.POSITIVE_INFINITY);
+        scores[graph.start()] = 0;
+        PriorityQueue<double[]> open = new PriorityQueue<>(Comparator.comparingDouble(entry -> entry[0]));
+        open.add(new double[]{0, graph.start()});
+        while (!open.isEmpty()) {
+            double[] entry = open.poll();
+            int node = (int) entry[1];
+            if (entry[0] > scores[node]) {
+                continue;
+            }
+            for (int i = 0; i < graph.degree(node); i++) {
+                int neighbour = graph.neighbour(node, i);
+                double score = scores[node] + graph.weight(node, i);
+                if (score < scores[neighbour]) {
+                    scores[neighbour] = score;
+                    open.add(new double[]{score, neighbour});
+                }
+            }
+        }
+        return scores[graph.end()];
+    }
+
+    private static double distance(Point from, Point to) {
+        return GeoUtils.haversine(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+    }
+}
@@ -0,0 +1,234 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoUtils;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegionGraphTest {
+
+    private static final double MAX_EDGE = 0.5;// км
+    private static final BoundingBox REGION = new BoundingBox(50.0, 36.0, 50.03, 36.05);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesHeaderOfTheLayout() throws Exception {
+        Path file = directory.resolve("region.crg");
+        List<Point> crossings = crossings(300, 1);
+        RegionGraph.write(file, REGION, crossings, MAX_EDGE);
+
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        RegionGraph graph = RegionGraph.open("region", file);
+
+        assertEquals(RegionGraph.MAGIC, header.getInt(0));
+        assertEquals(1, header.getInt(4));
+        assertEquals(graph.getNodeCount(), header.getInt(8));
+        assertEquals(graph.getEdgeCount(), header.getInt(12));
+        assertEquals(REGION.minLat(), header.getDouble(24));
+        assertEquals(REGION.maxLon(), header.getDouble(48));
+        assertEquals(MAX_EDGE, header.getDouble(72));
+
+        int nodes = graph.getNodeCount();
+        int rows = header.getInt(16);
+        int columns = header.getInt(20);
+        long expectedSize = 6 * Integer.BYTES + 7 * Double.BYTES + 2L * nodes * Double.BYTES + (nodes + 1) * Integer.BYTES
+                + (long) graph.getEdgeCount() * (Integer.BYTES + Float.BYTES) + (rows * columns + 1) * Integer.BYTES;
+        assertEquals(expectedSize, Files.size(file));
+        assertEquals("region", graph.getName());
+        assertEquals(REGION, graph.getBounds());
+    }
+
+    @Test
+    void keepsOnlyCrossingsInsideTheRegion() throws Exception {
+        Path file = directory.resolve("region.crg");
+        List<Point> crossings = new ArrayList<>(crossings(100, 2));
+        crossings.add(new Point(49.9, 36.01));
+        crossings.add(new Point(50.01, 36.2));
+        RegionGraph.write(file, REGION, crossings, MAX_EDGE);
+
+        assertEquals(100, RegionGraph.open("region", file).getNodeCount());
+    }
+
+    @Test
+    void storesEveryEdgeShorterThanTheMaximalLength() throws Exception {
+        Path file = directory.resolve("region.crg");
+        List<Point> crossings = crossings(400, 3);
+        RegionGraph.write(file, REGION, crossings, MAX_EDGE);
+
+        // Вузли у файлі впорядковані за клітинками, тому ребра порівнюються за координатами, а не за номерами
+        SearchGraph graph = RegionGraph.open("region", file).query(new Point(50.0, 36.0), new Point(50.03, 36.05));
+        Set<String> stored = new HashSet<>();
+        int storedEdges = 0;
+        for (int node = 0; node < graph.size() - 2; node++) {
+            for (int i = 0; i < graph.degree(node); i++) {
+                int neighbour = graph.neighbour(node, i);
+                if (neighbour >= graph.size() - 2) {
+                    continue;
+                }
+                Point from = graph.point(node);
+                Point to = graph.point(neighbour);
+                double length = distance(from, to);
+                assertTrue(graph.weight(node, i) >= length, "an edge is never shorter than the heuristic");
+                assertEquals(length, graph.weight(node, i), 1e-6);
+                stored.add(key(from, to));
+                storedEdges++;
+            }
+        }
+
+        Set<String> expected = new HashSet<>();
+        for (Point from : crossings) {
+            for (Point to : crossings) {
+                if (from != to && distance(from, to) < MAX_EDGE) {
+                    expected.add(key(from, to));
+                }
+            }
+        }
+        assertEquals(expected, stored);
+        assertEquals(expected.size(), storedEdges);
+        assertEquals(expected.size(), RegionGraph.open("region", file).getEdgeCount());
+    }
+
+    @Test
+    void queryConnectsTheEndsToNearbyCrossings() throws Exception {
+        Path file = directory.resolve("region.crg");
+        List<Point> crossings = crossings(400, 4);
+        RegionGraph.write(file, REGION, crossings, MAX_EDGE);
+        RegionGraph region = RegionGraph.open("region", file);
+
+        Point start = new Point(50.005, 36.006);
+        Point end = new Point(50.025, 36.043);
+        SearchGraph graph = region.query(start, end);
+
+        int expectedNearStart = 0;
+        for (Point crossing : crossings) {
+            if (distance(start, crossing) < MAX_EDGE) {
+                expectedNearStart++;
+            }
+        }
+        assertEquals(expectedNearStart, graph.degree(graph.start()));
+        for (int i = 0; i < graph.degree(graph.start()); i++) {
+            int neighbour = graph.neighbour(graph.start(), i);
+            assertTrue(distance(start, graph.point(neighbour)) < MAX_EDGE);
+            assertEquals(distance(start, graph.point(neighbour)), graph.weight(graph.start(), i), 1e-6);
+        }
+
+        // Шлях графом регіону такий самий, як шлях графом, збудованим з тих самих перехресть для одного маршруту
+        List<Point> regionPath = PathSearch.aStar(graph).path();
+        List<Point> routePath = PathSearch.aStar(new CrossingGraph(start, end, crossings, MAX_EDGE)).path();
+        assertFalse(routePath.isEmpty());
+        assertEquals(length(routePath), length(regionPath), 1e-4);
+        assertEquals(start.getLatitude(), regionPath.get(0).getLatitude());
+        assertEquals(end.getLongitude(), regionPath.get(regionPath.size() - 1).getLongitude());
+    }
+
+    @Test
+    void queryConnectsCloseEndsDirectly() throws Exception {
+        Path file = directory.resolve("region.crg");
+        RegionGraph.write(file, REGION, List.of(), MAX_EDGE);
+        RegionGraph region = RegionGraph.open("region", file);
+
+        assertEquals(2, PathSearch.aStar(region.query(new Point(50.01, 36.01), new Point(50.011, 36.011))).path().size());
+        assertTrue(PathSearch.aStar(region.query(new Point(50.01, 36.01), new Point(50.02, 36.04))).path().isEmpty());
+    }
+
+    @Test
+    void coversOnlyBoxesInsideTheRegion() throws Exception {
+        Path file = directory.resolve("region.crg");
+        RegionGraph.write(file, REGION, crossings(10, 5), MAX_EDGE);
+        RegionGraph region = RegionGraph.open("region", file);
+
+        assertTrue(region.covers(new BoundingBox(50.01, 36.01, 50.02, 36.04)));
+        assertTrue(region.covers(REGION));
+        assertFalse(region.covers(new BoundingBox(50.01, 36.01, 50.04, 36.04)));
+        assertFalse(region.covers(new BoundingBox(49.99, 36.01, 50.02, 36.04)));
+    }
+
+    @Test
+    void rejectsFilesOfAnotherFormat() throws Exception {
+        Path file = directory.resolve("region.crg");
+        RegionGraph.write(file, REGION, crossings(10, 6), MAX_EDGE);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[0] ^= 0x7f;
+        Files.write(file, bytes);
+
+        assertThrows(IllegalStateException.class, () -> RegionGraph.open("region", file));
+    }
+
+    @Test
+    void rewritesGraphInPlace() throws Exception {
+        Path file = directory.resolve("region.crg");
+        RegionGraph.write(file, REGION, crossings(10, 7), MAX_EDGE);
+        RegionGraph.write(file, REGION, crossings(20, 8), MAX_EDGE);
+
+        assertEquals(20, RegionGraph.open("region", file).getNodeCount());
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+    @Test
+    void storeWritesEveryBuildToANewFileAndLoadsTheNewest() throws Exception {
+        RegionGraphStore store = new RegionGraphStore(directory.toString(), event -> {
+        });
+        RegionGraph first = store.save("kharkiv", REGION, crossings(50, 7), MAX_EDGE);
+        // Пошук, що почався до перебудови, і далі читає старий файл
+        SearchGraph running = first.query(new Point(50.01, 36.01), new Point(50.02, 36.04));
+
+        RegionGraph second = store.save("kharkiv", REGION, crossings(80, 8), MAX_EDGE);
+        store.save("kharkiv-north", REGION, crossings(10, 9), MAX_EDGE);
+
+        assertEquals(52, running.size());
+        assertTrue(running.degree(0) >= 0, "the mapping of the deleted file stays readable");
+        assertEquals(80, second.getNodeCount());
+        assertEquals(2, listGraphFiles().size(), "older builds of a region are deleted");
+
+        RegionGraphStore restarted = new RegionGraphStore(directory.toString(), event -> {
+        });
+        restarted.load();
+        assertEquals(List.of("kharkiv", "kharkiv-north"), restarted.getAll().stream().map(RegionGraph::getName).toList());
+        assertEquals(80, restarted.getAll().get(0).getNodeCount());
+    }
+
+    private List<Path> listGraphFiles() throws Exception {
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".crg")).toList();
+        }
+    }
+
+    private static List<Point> crossings(int count, long seed) {
+        Random random = new Random(seed);
+        List<Point> crossings = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            crossings.add(new Point(
+                    REGION.minLat() + random.nextDouble() * (REGION.maxLat() - REGION.minLat()),
+                    REGION.minLon() + random.nextDouble() * (REGION.maxLon() - REGION.minLon())));
+        }
+        return crossings;
+    }
+
+    private static String key(Point from, Point to) {
+        return from.getLatitude() + "," + from.getLongitude() + "->" + to.getLatitude() + "," + to.getLongitude();
+    }
+
+    private static double length(List<Point> path) {
+        double length = 0;
+        for (int i = 1; i < path.size(); i++) {
+            length += distance(path.get(i - 1), path.get(i));
+        }
+        return length;
+    }
+
+    private static double distance(Point from, Point to) {
+        return GeoUtils.haversine(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+    }
+}
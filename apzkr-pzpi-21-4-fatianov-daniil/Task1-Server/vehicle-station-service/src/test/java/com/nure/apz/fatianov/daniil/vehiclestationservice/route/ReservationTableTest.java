@@ -0,0 +1,179 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationTableTest {
+
+    private static final long SLOT = 5000;
+    private static final long START = (System.currentTimeMillis() / SLOT + 720) * SLOT;// за годину
+
+    private final ReservationTable table = new ReservationTable(50, SLOT, 4, 64);
+
+    @Test
+    void reservedRouteBlocksOnlyOtherVehiclesInItsBandAndTime() {
+        ScheduledRoute route = straight(0, 50.0, 36.0, 50.0, 36.01, START);
+
+        assertTrue(table.reserve("A", route));
+
+        assertTrue(table.size() > 0);
+        assertTrue(table.isFree(route, "A"));
+        assertFalse(table.isFree(route, "B"));
+        assertTrue(table.isFree(straight(1, 50.0, 36.0, 50.0, 36.01, START), "B"));
+        assertTrue(table.isFree(straight(0, 50.0, 36.0, 50.0, 36.01, START + 10 * 60000), "B"));
+        assertTrue(table.isFree(straight(0, 50.01, 36.0, 50.01, 36.01, START), "B"));
+    }
+
+    @Test
+    void conflictingRouteReservesNothing() {
+        // Дрон A десять хвилин зависає в точці, через яку пролітає маршрут B
+        Point hover = new Point(50.0, 36.0055);
+        assertTrue(table.reserve("A", new ScheduledRoute(0, List.of(
+                new ScheduledWaypoint(hover, START), new ScheduledWaypoint(hover, START + 10 * 60000)))));
+        int reserved = table.size();
+
+        // Маршрут B довгий і перетинає бронь A лише на малій ділянці
+        ScheduledRoute crossing = route(0, START, new Point(49.99, 36.0055), new Point(50.01, 36.0055));
+        assertFalse(table.reserve("B", crossing));
+
+        assertEquals(reserved, table.size());
+        assertTrue(table.isFree(route(0, START, new Point(49.99, 36.0055), new Point(49.995, 36.0055)), "C"));
+    }
+
+    @Test
+    void newRouteOfAVehicleReplacesItsPreviousOne() {
+        ScheduledRoute first = straight(0, 50.0, 36.0, 50.0, 36.01, START);
+        ScheduledRoute second = straight(0, 50.02, 36.0, 50.02, 36.01, START);
+
+        assertTrue(table.reserve("A", first));
+        assertTrue(table.reserve("A", second));
+
+        assertTrue(table.isFree(first, "B"));
+        assertFalse(table.isFree(second, "B"));
+        assertTrue(table.reserve("A", second), "a vehicle never conflicts with itself");
+    }
+
+    @Test
+    void releaseFreesEveryCell() {
+        ScheduledRoute route = straight(0, 50.0, 36.0, 50.0, 36.01, START);
+        assertTrue(table.reserve("A", route));
+
+        table.release("A");
+        table.release("A");
+
+        assertEquals(0, table.size());
+        assertTrue(table.reserve("B", route));
+    }
+
+    @Test
+    void finishedRoutesAreEvicted() {
+        long past = (System.currentTimeMillis() / SLOT - 100) * SLOT;
+        assertTrue(table.reserve("A", straight(0, 50.0, 36.0, 50.0, 36.01, past)));
+        ScheduledRoute ongoing = straight(0, 50.02, 36.0, 50.02, 36.01, START);
+        assertTrue(table.reserve("B", ongoing));
+
+        table.evictFinished();
+
+        assertTrue(table.isFree(straight(0, 50.0, 36.0, 50.0, 36.01, past), "C"));
+        assertFalse(table.isFree(ongoing, "C"));
+    }
+
+    @Test
+    void concurrentCommitsNeverShareACellOrReserveHalfARoute() throws Exception {
+        // Мало смуг, щоб маршрути в різних місцях часто ділили блокування, і година на слот,
+        // щоб кожен маршрут цілком вміщався в один слот і перетинався з усіма поперечними
+        long hour = 3600000;
+        long start = (System.currentTimeMillis() / hour + 2) * hour;
+        ReservationTable contended = new ReservationTable(50, hour, 1, 4);
+        int vehicles = 24;
+        Map<String, ScheduledRoute> routes = new HashMap<>();
+        for (int v = 0; v < vehicles; v++) {
+            // Половина маршрутів іде з півночі на південь, половина із заходу на схід, тож кожен перетинає кілька інших
+            double offset = (v / 2) * 0.002;
+            routes.put("V" + v, v % 2 == 0
+                    ? route(0, start, new Point(50.0, 36.0 + offset), new Point(50.03, 36.0 + offset))
+                    : route(0, start, new Point(50.0 + offset, 36.0), new Point(50.0 + offset, 36.03)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        Map<String, Boolean> results = new ConcurrentHashMap<>();
+        try {
+            for (int round = 0; round < 20; round++) {
+                CountDownLatch ready = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (Map.Entry<String, ScheduledRoute> entry : routes.entrySet()) {
+                    futures.add(executor.submit(() -> {
+                        ready.await();
+                        results.put(entry.getKey(), contended.reserve(entry.getKey(), entry.getValue()));
+                        return null;
+                    }));
+                }
+                ready.countDown();
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+
+                Set<String> winners = new HashSet<>();
+                results.forEach((owner, reserved) -> {
+                    if (reserved) {
+                        winners.add(owner);
+                    }
+                });
+                assertFalse(winners.isEmpty());
+                assertTrue(winners.size() < vehicles, "crossing routes can not all be reserved");
+
+                for (String winner : winners) {
+                    assertTrue(contended.isFree(routes.get(winner), winner));
+                }
+                for (String loser : routes.keySet()) {
+                    if (!winners.contains(loser)) {
+                        assertFalse(contended.isFree(routes.get(loser), loser), loser + " lost without a conflict");
+                    }
+                }
+
+                // Ті самі переможці, заброньовані по черзі, займають рівно ті самі клітинки: жодної половини маршруту
+                ReservationTable sequential = new ReservationTable(50, hour, 1, 4);
+                for (String winner : winners) {
+                    assertTrue(sequential.reserve(winner, routes.get(winner)));
+                }
+                assertEquals(sequential.size(), contended.size());
+
+                for (String owner : routes.keySet()) {
+                    contended.release(owner);
+                }
+                assertEquals(0, contended.size());
+                results.clear();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ScheduledRoute straight(int band, double fromLat, double fromLon, double toLat, double toLon, long start) {
+        return route(band, start, new Point(fromLat, fromLon), new Point(toLat, toLon));
+    }
+
+    /**
+     * A route flown at 10 m/s, starting at {@code start}.
+     */
+    private static ScheduledRoute route(int band, long start, Point... points) {
+        List<ScheduledWaypoint> waypoints = new ArrayList<>();
+        long time = start;
+        for (int i = 0; i < points.length; i++) {
+            if (i > 0) {
+                double meters = Math.hypot(
+                        (points[i].getLatitude() - points[i - 1].getLatitude()) * 111195,
+                        (points[i].getLongitude() - points[i - 1].getLongitude()) * 111195
+                                * Math.cos(Math.toRadians(points[i].getLatitude())));
+                time += (long) (meters * 100);
+            }
+            waypoints.add(new ScheduledWaypoint(points[i], time));
+        }
+        return new ScheduledRoute(band, waypoints);
+    }
+}
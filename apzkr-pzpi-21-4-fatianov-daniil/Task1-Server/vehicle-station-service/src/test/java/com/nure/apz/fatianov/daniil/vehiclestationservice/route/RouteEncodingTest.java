@@ -0,0 +1,179 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.route;
+
+import com.nure.apz.fatianov.daniil.vehiclestationservice.geo.GeoUtils;
+import com.nure.apz.fatianov.daniil.vehiclestationservice.station.object.Point;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteEncodingTest {
+
+    private final RouteSimplifier routeSimplifier = new RouteSimplifier(10);
+
+    @Test
+    void encodesTheReferencePolyline() {
+        // Приклад з опису алгоритму encoded polyline
+        List<Point> route = List.of(new Point(38.5, -120.2), new Point(40.7, -120.95), new Point(43.252, -126.453));
+
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", RouteEncoding.polyline(route));
+    }
+
+    @Test
+    void encodesEmptyRoutes() {
+        assertEquals("", RouteEncoding.polyline(List.of()));
+        assertArrayEquals(new byte[]{0}, RouteEncoding.binary(List.of()));
+        assertTrue(decodeBinary(RouteEncoding.binary(List.of())).isEmpty());
+    }
+
+    @Test
+    void simplifiedRoutesSurviveBothEncodings() {
+        Random random = new Random(3);
+        for (int round = 0; round < 50; round++) {
+            List<Point> route = randomRoute(random, 2 + random.nextInt(300));
+            List<Point> simplified = routeSimplifier.simplify(route);
+
+            assertPoints(simplified, decodePolyline(RouteEncoding.polyline(simplified)), 0.5e-5);
+            assertPoints(simplified, decodeBinary(RouteEncoding.binary(simplified)), 0.5e-6);
+        }
+    }
+
+    @Test
+    void simplifierKeepsTheEndsAndStaysWithinTheTolerance() {
+        Random random = new Random(4);
+        for (int round = 0; round < 50; round++) {
+            List<Point> route = randomRoute(random, 3 + random.nextInt(300));
+            List<Point> simplified = routeSimplifier.simplify(route, 15.0);
+
+            assertSame(route.get(0), simplified.get(0));
+            assertSame(route.get(route.size() - 1), simplified.get(simplified.size() - 1));
+
+            double latitudeSum = 0;
+            for (Point point : route) {
+                latitudeSum += point.getLatitude();
+            }
+            double latitude = latitudeSum / route.size();
+
+            // Збережені точки йдуть у тому самому порядку, а кожна прибрана лежить не далі за допуск від свого відрізка
+            int next = 0;
+            for (int i = 0; i < route.size(); i++) {
+                if (next < simplified.size() && route.get(i) == simplified.get(next)) {
+                    next++;
+                    continue;
+                }
+                Point from = simplified.get(next - 1);
+                Point to = simplified.get(next);
+                assertTrue(distanceToSegment(route.get(i), from, to, latitude) <= 15.0 + 1e-6,
+                        "point " + i + " of round " + round);
+            }
+            assertEquals(simplified.size(), next);
+        }
+    }
+
+    @Test
+    void straightRunCollapsesIntoItsEnds() {
+        List<Point> route = new ArrayList<>();
+        for (int i = 0; i <= 20; i++) {
+            route.add(new Point(50.0 + i * 0.001, 36.0 + i * 0.001));
+        }
+
+        List<Point> simplified = routeSimplifier.simplify(route);
+
+        assertEquals(List.of(route.get(0), route.get(20)), simplified);
+        assertSame(route, routeSimplifier.simplify(route, 0.0));
+        assertEquals(21, route.size(), "the input route is never changed");
+    }
+
+    private static List<Point> randomRoute(Random random, int size) {
+        List<Point> route = new ArrayList<>();
+        double latitude = 50.0;
+        double longitude = 36.2;
+        for (int i = 0; i < size; i++) {
+            latitude += (random.nextDouble() - 0.3) * 0.002;
+            longitude += (random.nextDouble() - 0.3) * 0.002;
+            route.add(new Point(latitude, longitude));
+        }
+        return route;
+    }
+
+    private static void assertPoints(List<Point> expected, List<Point> actual, double delta) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getLatitude(), actual.get(i).getLatitude(), delta + 1e-12);
+            assertEquals(expected.get(i).getLongitude(), actual.get(i).getLongitude(), delta + 1e-12);
+        }
+    }
+
+    private static List<Point> decodePolyline(String polyline) {
+        List<Point> route = new ArrayList<>();
+        long[] values = new long[2];
+        int index = 0;
+        while (index < polyline.length()) {
+            for (int k = 0; k < 2; k++) {
+                long result = 0;
+                int shift = 0;
+                int chunk;
+                do {
+                    chunk = polyline.charAt(index++) - 63;
+                    result |= (long) (chunk & 0x1f) << shift;
+                    shift += 5;
+                } while (chunk >= 0x20);
+                values[k] += (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+            }
+            route.add(new Point(values[0] / 1e5, values[1] / 1e5));
+        }
+        return route;
+    }
+
+    private static List<Point> decodeBinary(byte[] bytes) {
+        int[] position = {0};
+        long size = readVarint(bytes, position);
+        List<Point> route = new ArrayList<>();
+        long latitude = 0;
+        long longitude = 0;
+        for (long i = 0; i < size; i++) {
+            latitude += unzigzag(readVarint(bytes, position));
+            longitude += unzigzag(readVarint(bytes, position));
+            route.add(new Point(latitude / 1e6, longitude / 1e6));
+        }
+        assertEquals(bytes.length, position[0]);
+        return route;
+    }
+
+    private static long readVarint(byte[] bytes, int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = bytes[position[0]++];
+            value |= (long) (current & 0x7f) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return value;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Distance in meters from a point to a segment, in the same local plane the simplifier works in,
+     * which is centered on the mean latitude of the route.
+     */
+    private static double distanceToSegment(Point point, Point from, Point to, double latitude) {
+        double metersPerDegree = Math.toRadians(GeoUtils.EARTH_RADIUS * 1000);
+        double xScale = metersPerDegree * Math.cos(Math.toRadians(latitude));
+        double px = point.getLongitude() * xScale;
+        double py = point.getLatitude() * metersPerDegree;
+        double ax = from.getLongitude() * xScale;
+        double ay = from.getLatitude() * metersPerDegree;
+        double dx = to.getLongitude() * xScale - ax;
+        double dy = to.getLatitude() * metersPerDegree - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+}
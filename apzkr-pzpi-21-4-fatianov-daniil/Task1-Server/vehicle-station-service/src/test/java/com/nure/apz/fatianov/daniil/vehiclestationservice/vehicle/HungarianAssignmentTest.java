@@ -0,0 +1,143 @@
+package com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static com.nure.apz.fatianov.daniil.vehiclestationservice.vehicle.HungarianAssignment.FORBIDDEN;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HungarianAssignmentTest {
+
+    @Test
+    void emptyMatrixAssignsNothing() {
+        assertArrayEquals(new int[0], HungarianAssignment.solve(new double[0][0]));
+        assertArrayEquals(new int[]{-1, -1}, HungarianAssignment.solve(new double[2][0]));
+    }
+
+    @Test
+    void picksCheapestSquareAssignment() {
+        double[][] cost = {
+                {4, 1, 3},
+                {2, 0, 5},
+                {3, 2, 2}
+        };
+
+        int[] assignment = HungarianAssignment.solve(cost);
+
+        assertArrayEquals(new int[]{1, 0, 2}, assignment);
+        assertEquals(5, total(cost, assignment));
+    }
+
+    @Test
+    void leavesExtraRowsUnassigned() {
+        double[][] cost = {
+                {7},
+                {3},
+                {5}
+        };
+
+        assertArrayEquals(new int[]{-1, 0, -1}, HungarianAssignment.solve(cost));
+    }
+
+    @Test
+    void leavesExtraColumnsUnused() {
+        double[][] cost = {
+                {9, 2, 8, 6},
+                {4, 3, 7, 1}
+        };
+
+        assertArrayEquals(new int[]{1, 3}, HungarianAssignment.solve(cost));
+    }
+
+    @Test
+    void servesAsManyRowsAsPossibleBeforeMinimisingCost() {
+        // Дешевше віддати стовпчик 0 першому рядку, але тоді другий рядок лишиться без призначення
+        double[][] cost = {
+                {1, 100},
+                {2, FORBIDDEN}
+        };
+
+        assertArrayEquals(new int[]{1, 0}, HungarianAssignment.solve(cost));
+    }
+
+    @Test
+    void neverUsesForbiddenCells() {
+        double[][] cost = {
+                {FORBIDDEN, FORBIDDEN},
+                {3, FORBIDDEN},
+                {FORBIDDEN, 4}
+        };
+
+        assertArrayEquals(new int[]{-1, 0, 1}, HungarianAssignment.solve(cost));
+    }
+
+    @Test
+    void matchesExhaustiveSearchOnRandomMatrices() {
+        Random random = new Random(7);
+        for (int round = 0; round < 300; round++) {
+            int rows = 1 + random.nextInt(6);
+            int columns = 1 + random.nextInt(6);
+            double[][] cost = new double[rows][columns];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    cost[i][j] = random.nextInt(5) == 0 ? FORBIDDEN : random.nextInt(50);
+                }
+            }
+
+            int[] assignment = HungarianAssignment.solve(cost);
+
+            Set<Integer> usedColumns = new HashSet<>();
+            int served = 0;
+            for (int i = 0; i < rows; i++) {
+                if (assignment[i] >= 0) {
+                    assertNotEquals(FORBIDDEN, cost[i][assignment[i]]);
+                    assertTrue(usedColumns.add(assignment[i]));
+                    served++;
+                }
+            }
+
+            double[] best = best(cost, 0, new boolean[columns]);
+            assertEquals(best[0], served, "served rows of round " + round);
+            assertEquals(best[1], total(cost, assignment), 1e-9, "total cost of round " + round);
+        }
+    }
+
+    /**
+     * Returns the largest number of served rows and, for it, the smallest total cost, by trying every assignment.
+     */
+    private static double[] best(double[][] cost, int row, boolean[] usedColumns) {
+        if (row == cost.length) {
+            return new double[]{0, 0};
+        }
+
+        double[] best = best(cost, row + 1, usedColumns);
+        for (int j = 0; j < usedColumns.length; j++) {
+            if (usedColumns[j] || cost[row][j] == FORBIDDEN) {
+                continue;
+            }
+            usedColumns[j] = true;
+            double[] rest = best(cost, row + 1, usedColumns);
+            usedColumns[j] = false;
+
+            double served = rest[0] + 1;
+            double total = rest[1] + cost[row][j];
+            if (served > best[0] || (served == best[0] && total < best[1])) {
+                best = new double[]{served, total};
+            }
+        }
+        return best;
+    }
+
+    private static double total(double[][] cost, int[] assignment) {
+        double total = 0;
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] >= 0) {
+                total += cost[i][assignment[i]];
+            }
+        }
+        return total;
+    }
+}